@@ -1,13 +1,11 @@
 package LDS.Person.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.springframework.web.util.ContentCachingResponseWrapper;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.dao.DataAccessException; 
+import org.springframework.web.util.WebUtils;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -19,11 +17,16 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 合并的 API 日志过滤器：
  * - 包装请求与响应以缓存内容
- * - 记录单一格式的完整日志（字段为中文）
+ * - 记录单一格式的完整日志（字段为中文），由 ApiLogWriter 异步批量写入 api_raw_logs
+ * - 支持返回 CompletableFuture / DeferredResult 的异步接口：首次分派只包装不记录，
+ *   在异步结果分派回来（ASYNC dispatch）时复用同一组包装对象记录完整日志
+ * - 流式接口（STREAMING_PATHS）不包装响应：包装后的响应会把每次写出缓存在内存中，直到请求结束才发送给客户端，
+ *   这类接口只记录请求、状态与耗时，不记录响应体
  */
 @Component
 public class ApiLogFilter extends OncePerRequestFilter {
@@ -31,15 +34,25 @@ public class ApiLogFilter extends OncePerRequestFilter {
     private static final ObjectMapper mapper = new ObjectMapper();
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
     private static final int MAX_BODY_LENGTH = 2000;
+    private static final String START_TIME_ATTRIBUTE = ApiLogFilter.class.getName() + ".START_TIME";
 
-    static {
-        mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
-    }
+    /**
+     * 逐行（NDJSON）流式返回的接口
+     */
+    private static final Set<String> STREAMING_PATHS = Set.of("/api/twitter/tweet/get/details");
+
+    private final ApiLogWriter apiLogWriter;
 
-    private final JdbcTemplate jdbcTemplate;
+    public ApiLogFilter(ApiLogWriter apiLogWriter) {
+        this.apiLogWriter = apiLogWriter;
+    }
 
-    public ApiLogFilter(JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
+    /**
+     * 异步接口的结果在 ASYNC 分派中写出，必须在这次分派里记录日志
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
     }
 
     @Override
@@ -50,17 +63,35 @@ public class ApiLogFilter extends OncePerRequestFilter {
             return;
         }
 
-        ContentCachingRequestWrapper wrappedRequest = new ContentCachingRequestWrapper(request);
-        ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
+        // ASYNC 分派时容器传回的是首次分派的包装对象，直接复用，避免二次包装丢失已缓存的内容
+        ContentCachingRequestWrapper wrappedRequest = WebUtils.getNativeRequest(request, ContentCachingRequestWrapper.class);
+        if (wrappedRequest == null) {
+            wrappedRequest = new ContentCachingRequestWrapper(request);
+        }
+        boolean streaming = STREAMING_PATHS.contains(request.getRequestURI());
+        ContentCachingResponseWrapper wrappedResponse = null;
+        if (!streaming) {
+            wrappedResponse = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+            if (wrappedResponse == null) {
+                wrappedResponse = new ContentCachingResponseWrapper(response);
+            }
+        }
 
-        long start = System.nanoTime();
+        Object startAttr = request.getAttribute(START_TIME_ATTRIBUTE);
+        long start = startAttr instanceof Long ? (Long) startAttr : System.nanoTime();
+        request.setAttribute(START_TIME_ATTRIBUTE, start);
         Throwable exception = null;
         try {
-            filterChain.doFilter(wrappedRequest, wrappedResponse);
+            filterChain.doFilter(wrappedRequest, streaming ? response : wrappedResponse);
         } catch (Throwable t) {
             exception = t;
             throw t;
         } finally {
+            if (exception == null && isAsyncStarted(wrappedRequest)) {
+                // 异步处理尚未完成，响应体还没写出，留给 ASYNC 分派记录并复制响应体
+                return;
+            }
+
             long durationMs = (System.nanoTime() - start) / 1_000_000;
 
             Map<String, Object> logData = new HashMap<>();
@@ -69,7 +100,7 @@ public class ApiLogFilter extends OncePerRequestFilter {
             logData.put("path", wrappedRequest.getRequestURI());
             logData.put("duration_ms", durationMs);
 
-            int status = wrappedResponse.getStatus();
+            int status = response.getStatus();
             logData.put("status", status < 400 ? "success" : "error");
             logData.put("status_code", status);
 
@@ -95,9 +126,9 @@ public class ApiLogFilter extends OncePerRequestFilter {
             } catch (Exception ignored) {
             }
 
-            // 读取响应体（尝试解析为 JSON）
+            // 读取响应体（尝试解析为 JSON；流式接口的响应体已直接发送给客户端，不记录）
             try {
-                byte[] respBuf = wrappedResponse.getContentAsByteArray();
+                byte[] respBuf = streaming ? null : wrappedResponse.getContentAsByteArray();
                 if (respBuf != null && respBuf.length > 0) {
                     String charset = wrappedResponse.getCharacterEncoding() != null ? wrappedResponse.getCharacterEncoding() : "UTF-8";
                     String payload = new String(respBuf, Charset.forName(charset));
@@ -124,26 +155,21 @@ public class ApiLogFilter extends OncePerRequestFilter {
                 logData.put("error", err);
             }
 
-            // 输出到终端
+            // 序列化为紧凑 JSON，交给异步写入器批量持久化到 `api_raw_logs`
             try {
                 String jsonLog = mapper.writeValueAsString(logData);
-                System.out.println("\n========== API LOG ==========");
-                System.out.println(jsonLog);
-                System.out.println("========== END LOG ==========");
-
-                // 持久化原始 JSON 到数据库表 `api_raw_logs`
-                try {
-                    jdbcTemplate.update("INSERT INTO api_raw_logs (raw_json) VALUES (?)", jsonLog);
-                } catch (DataAccessException dae) {
-                    logger.warn("Failed to insert into api_raw_logs", dae);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("API LOG " + jsonLog);
                 }
-
+                apiLogWriter.submitRawLog(jsonLog);
             } catch (Exception e) {
                 logger.warn("Failed to serialize log data", e);
             }
 
             // 必须把响应体复制回原始响应以发送给客户端
-            wrappedResponse.copyBodyToResponse();
+            if (wrappedResponse != null) {
+                wrappedResponse.copyBodyToResponse();
+            }
         }
     }
 
@@ -0,0 +1,39 @@
+package LDS.Person.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * API 日志异步写入配置属性
+ * 从 application.yml 中读取 api-log 配置
+ */
+@Component
+@ConfigurationProperties(prefix = "api-log")
+@Getter
+@Setter
+public class ApiLogProperties {
+
+    /**
+     * 内存队列容量，队列满时丢弃新日志（不阻塞请求线程）
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 单次批量写入的最大条数（达到即刷盘）
+     */
+    private int batchSize = 200;
+
+    /**
+     * 最长刷盘间隔（未达到 batchSize 时按时间触发）
+     */
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 应用关闭时等待剩余日志写完的最长时间
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,305 @@
+package LDS.Person.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * API 日志异步批量写入器
+ *
+ * ApiLogFilter（api_raw_logs）和 IpWhitelistInterceptor（api_log）只把日志放入有界队列，
+ * 由后台线程按「条数达到 batchSize」或「距离上次刷盘超过 flushInterval」批量写入数据库，
+ * 请求线程不再等待 MySQL。
+ *
+ * 背压策略：队列满时丢弃新日志并计数，不阻塞请求线程。
+ *
+ * api_log 的 /error 合并：提交访问日志时返回 AccessLogRecord 句柄，
+ * 记录尚未写入时直接在内存中把状态改为失败；已写入时在下一批中执行 UPDATE。
+ */
+@Component
+@Slf4j
+public class ApiLogWriter {
+
+    private static final String INSERT_RAW_LOG = "INSERT INTO api_raw_logs (raw_json) VALUES (?)";
+    private static final String INSERT_ACCESS_LOG =
+            "INSERT INTO api_log (ip, api, states, create_time) VALUES (?, ?, ?, ?)";
+    private static final String MARK_ACCESS_LOG_FAILED = "UPDATE api_log SET states = 0 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApiLogProperties properties;
+    private final BlockingQueue<Object> queue;
+
+    /**
+     * 已写入数据库、需要改为失败状态的访问日志
+     */
+    private final ConcurrentLinkedQueue<AccessLogRecord> pendingFailures = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    private volatile boolean running = true;
+    private Thread writerThread;
+
+    public ApiLogWriter(JdbcTemplate jdbcTemplate, ApiLogProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+    }
+
+    @PostConstruct
+    public void start() {
+        writerThread = new Thread(this::runLoop, "api-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("✅ API 日志异步写入器已启动: queueCapacity={}, batchSize={}, flushInterval={}",
+                properties.getQueueCapacity(), properties.getBatchSize(), properties.getFlushInterval());
+    }
+
+    /**
+     * 提交一条 api_raw_logs 原始 JSON 日志
+     *
+     * @param rawJson 原始 JSON
+     * @return false 表示队列已满被丢弃
+     */
+    public boolean submitRawLog(String rawJson) {
+        return offer(rawJson);
+    }
+
+    /**
+     * 提交一条 api_log 访问日志
+     *
+     * @return 日志句柄，用于后续标记失败；队列已满被丢弃时返回 null
+     */
+    public AccessLogRecord submitAccessLog(String ip, String api, int states) {
+        AccessLogRecord record = new AccessLogRecord(ip, api, states);
+        return offer(record) ? record : null;
+    }
+
+    /**
+     * 将访问日志标记为失败（states = 0）
+     */
+    public void markFailed(AccessLogRecord record) {
+        if (record == null) {
+            return;
+        }
+        synchronized (record) {
+            if (!record.writing) {
+                // 还在队列中，直接改内存里的状态，写入时就是失败状态
+                record.states = 0;
+                return;
+            }
+        }
+        pendingFailures.add(record);
+    }
+
+    /**
+     * 获取写入器指标（队列深度、丢弃数等）
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("队列深度", queue.size());
+        metrics.put("队列容量", properties.getQueueCapacity());
+        metrics.put("已入队", enqueuedCount.get());
+        metrics.put("已丢弃", droppedCount.get());
+        metrics.put("已写入", writtenCount.get());
+        metrics.put("写入失败", failedCount.get());
+        metrics.put("批次数", batchCount.get());
+        metrics.put("待标记失败", pendingFailures.size());
+        return metrics;
+    }
+
+    private boolean offer(Object entry) {
+        if (queue.offer(entry)) {
+            enqueuedCount.incrementAndGet();
+            return true;
+        }
+        long dropped = droppedCount.incrementAndGet();
+        // 避免队列持续满时刷屏，每 1000 条提示一次
+        if (dropped == 1 || dropped % 1000 == 0) {
+            log.warn("⚠️ API 日志队列已满（容量 {}），已累计丢弃 {} 条", properties.getQueueCapacity(), dropped);
+        }
+        return false;
+    }
+
+    private void runLoop() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        long flushIntervalMillis = Math.max(1, properties.getFlushInterval().toMillis());
+        List<Object> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        break;
+                    }
+                    Object entry = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (entry == null) {
+                        break;
+                    }
+                    batch.add(entry);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // 关闭时被中断，写完剩余日志后退出
+                running = false;
+                queue.drainTo(batch);
+            }
+
+            flush(batch);
+            batch.clear();
+        }
+        flushPendingFailures();
+    }
+
+    private void flush(List<Object> batch) {
+        if (!batch.isEmpty()) {
+            List<String> rawLogs = new ArrayList<>();
+            List<AccessLogRecord> accessLogs = new ArrayList<>();
+            for (Object entry : batch) {
+                if (entry instanceof AccessLogRecord) {
+                    accessLogs.add((AccessLogRecord) entry);
+                } else {
+                    rawLogs.add((String) entry);
+                }
+            }
+            writeRawLogs(rawLogs);
+            writeAccessLogs(accessLogs);
+            batchCount.incrementAndGet();
+        }
+        flushPendingFailures();
+    }
+
+    private void writeRawLogs(List<String> rawLogs) {
+        if (rawLogs.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_RAW_LOG, rawLogs, rawLogs.size(),
+                    (ps, rawJson) -> ps.setString(1, rawJson));
+            writtenCount.addAndGet(rawLogs.size());
+        } catch (Exception e) {
+            failedCount.addAndGet(rawLogs.size());
+            log.warn("批量写入 api_raw_logs 失败，丢弃 {} 条: {}", rawLogs.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 批量写入 api_log 并回填自增 ID（用于之后的 /error 合并）
+     */
+    private void writeAccessLogs(List<AccessLogRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(INSERT_ACCESS_LOG,
+                        Statement.RETURN_GENERATED_KEYS)) {
+                    for (AccessLogRecord record : records) {
+                        int states;
+                        synchronized (record) {
+                            record.writing = true;
+                            states = record.states;
+                        }
+                        ps.setString(1, record.ip);
+                        ps.setString(2, record.api);
+                        ps.setInt(3, states);
+                        ps.setTimestamp(4, new java.sql.Timestamp(record.createdAt));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        int i = 0;
+                        while (keys.next() && i < records.size()) {
+                            records.get(i++).id = keys.getLong(1);
+                        }
+                    }
+                }
+                return null;
+            });
+            writtenCount.addAndGet(records.size());
+        } catch (Exception e) {
+            failedCount.addAndGet(records.size());
+            log.warn("批量写入 api_log 失败，丢弃 {} 条: {}", records.size(), e.getMessage());
+        }
+    }
+
+    private void flushPendingFailures() {
+        if (pendingFailures.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        AccessLogRecord record;
+        while ((record = pendingFailures.poll()) != null) {
+            if (record.id > 0) {
+                ids.add(record.id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(MARK_ACCESS_LOG_FAILED, ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+        } catch (Exception e) {
+            log.warn("批量更新 api_log 失败状态出错: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 停止后台线程并写完队列中剩余的日志
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writerThread == null) {
+            return;
+        }
+        try {
+            writerThread.join(properties.getShutdownTimeout().toMillis());
+            if (writerThread.isAlive()) {
+                writerThread.interrupt();
+                log.warn("API 日志写入器未在 {} 内写完，剩余 {} 条", properties.getShutdownTimeout(), queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * api_log 访问日志句柄
+     */
+    public static final class AccessLogRecord {
+        private final String ip;
+        private final String api;
+        private final long createdAt = System.currentTimeMillis();
+        private int states;
+        private boolean writing;
+        private volatile long id = -1;
+
+        private AccessLogRecord(String ip, String api, int states) {
+            this.ip = ip;
+            this.api = api;
+            this.states = states;
+        }
+    }
+}
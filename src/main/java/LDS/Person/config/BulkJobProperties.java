@@ -0,0 +1,37 @@
+package LDS.Person.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 批量转发 / 引用任务配置属性
+ * 从 application.yml 中读取 bulk-job 配置
+ */
+@Component
+@ConfigurationProperties(prefix = "bulk-job")
+@Getter
+@Setter
+public class BulkJobProperties {
+
+    /**
+     * 所有批量任务共享的执行线程数
+     */
+    private int threads = 4;
+
+    /**
+     * 未指定时单个任务同时执行的条目数
+     */
+    private int defaultConcurrency = 2;
+
+    /**
+     * 单个任务允许的最大条目数（去重后）
+     */
+    private int maxItems = 1000;
+
+    /**
+     * 单个条目遇到网络错误或 5xx 时最多尝试的次数
+     */
+    private int itemMaxAttempts = 3;
+}
@@ -2,13 +2,11 @@ package LDS.Person.config;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.util.HashSet;
@@ -32,29 +30,20 @@ import java.util.concurrent.ConcurrentMap;
  * 4. 否则拒绝访问
  * 
  * IP白名单和pass_token配置从 SecurityConfig 中读取，支持在 application.yml 中配置
+ * IP白名单条目支持单个地址、IPv4/IPv6 CIDR 网段（如 10.0.0.0/8）和主机名（如 localhost）
  */
 @Component
 @Slf4j
 public class IpWhitelistInterceptor implements HandlerInterceptor {
 
     private final SecurityConfig securityConfig;
-    private final JdbcTemplate jdbcTemplate;
-
-    /**
-     * 缓存的IP白名单Set，避免每次请求都创建新对象
-     */
-    private Set<String> cachedIpWhitelist;
+    private final ApiLogWriter apiLogWriter;
 
     /**
      * 缓存的pass token Set，避免每次请求都创建新对象
      */
     private Set<String> cachedPassTokens;
 
-    /**
-     * 记录上次配置的hash，用于检测配置变化
-     */
-    private int lastConfigHash = 0;
-
     /**
      * 记录上次pass token配置的hash，用于检测配置变化
      */
@@ -69,15 +58,20 @@ public class IpWhitelistInterceptor implements HandlerInterceptor {
     /**
      * 构造函数注入，提升可测试性
      */
-    public IpWhitelistInterceptor(SecurityConfig securityConfig, JdbcTemplate jdbcTemplate) {
+    public IpWhitelistInterceptor(SecurityConfig securityConfig, ApiLogWriter apiLogWriter) {
         this.securityConfig = securityConfig;
-        this.jdbcTemplate = jdbcTemplate;
+        this.apiLogWriter = apiLogWriter;
     }
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
             throws Exception {
 
+        // 异步接口结果分派回来时（ASYNC dispatch）首次分派已校验并记录过，不再重复处理
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
         // 如果IP白名单功能已禁用，直接放行
         if (!securityConfig.isIpWhitelistEnabled()) {
             return true;
@@ -153,7 +147,7 @@ public class IpWhitelistInterceptor implements HandlerInterceptor {
     }
 
     /**
-     * 将访问记录写入数据库表 `api_log`。
+     * 将访问记录写入数据库表 `api_log`（由 ApiLogWriter 异步批量写入，不阻塞请求线程）。
      * states: 1 表示通过，0 表示拒绝
      * 
      * 优化逻辑：
@@ -162,10 +156,6 @@ public class IpWhitelistInterceptor implements HandlerInterceptor {
      * 3. 其他请求正常记录并缓存用于后续合并
      */
     private void logAccess(String ip, String api, int states, HttpServletRequest request) {
-        if (jdbcTemplate == null) {
-            return;
-        }
-
         // 不记录 favicon.ico 请求
         if (api.equals("/favicon.ico")) {
             return;
@@ -182,12 +172,12 @@ public class IpWhitelistInterceptor implements HandlerInterceptor {
             String requestBody = getRequestBody(request);
             String detailedApi = method + " " + api + (requestBody != null ? " | Body: " + requestBody : "");
 
-            // 正常记录请求
-            int insertedId = insertLogRecord(ip, detailedApi, states);
+            // 正常记录请求（队列满被丢弃时返回 null）
+            ApiLogWriter.AccessLogRecord record = apiLogWriter.submitAccessLog(ip, detailedApi, states);
 
             // 缓存请求信息，用于后续可能的合并
-            if (insertedId > 0) {
-                recentRequests.put(ip, new RecentRequest(detailedApi, System.currentTimeMillis(), insertedId));
+            if (record != null) {
+                recentRequests.put(ip, new RecentRequest(detailedApi, System.currentTimeMillis(), record));
             }
 
         } catch (Exception ex) {
@@ -240,17 +230,9 @@ public class IpWhitelistInterceptor implements HandlerInterceptor {
             return false;
         }
 
-        // 获取IP白名单（使用缓存优化性能）
-        Set<String> ipWhitelist = getIpWhitelistSet();
-
-        // 直接匹配
-        if (ipWhitelist.contains(ip)) {
-            return true;
-        }
-
-        // 处理IPv6地址的各种形式
-        String normalizedIp = normalizeIp(ip);
-        return ipWhitelist.contains(normalizedIp);
+        // 前缀树按地址位匹配，IPv6 的压缩 / 完整形式以及 CIDR 网段都能命中
+        // 编译后的前缀树由 SecurityConfig 在白名单变化时整体替换，这里只读取当前引用
+        return securityConfig.getIpWhitelistMatcher().matches(ip);
     }
 
     /**
@@ -356,44 +338,6 @@ public class IpWhitelistInterceptor implements HandlerInterceptor {
         return start + "..." + end;
     }
 
-    /**
-     * 获取IP白名单Set，使用缓存优化性能
-     * 只有配置变化时才重新创建Set
-     * 
-     * @return IP白名单Set
-     */
-    private Set<String> getIpWhitelistSet() {
-        List<String> currentList = securityConfig.getIpWhitelist();
-        int currentHash = currentList.hashCode();
-
-        // 如果配置未变化且缓存存在，直接返回缓存
-        if (currentHash == lastConfigHash && cachedIpWhitelist != null) {
-            return cachedIpWhitelist;
-        }
-
-        // 配置变化或首次访问，重新创建缓存
-        lastConfigHash = currentHash;
-        cachedIpWhitelist = new HashSet<>(currentList);
-        log.debug("IP白名单缓存已更新，当前白名单: {}", cachedIpWhitelist);
-
-        return cachedIpWhitelist;
-    }
-
-    /**
-     * 规范化IP地址格式
-     * 处理IPv6的压缩形式、完整形式等不同表示方法
-     * 
-     * @param ip 要规范化的IP
-     * @return 规范化后的IP
-     */
-    private String normalizeIp(String ip) {
-        // 处理IPv6 localhost的不同表示
-        if ("::1".equals(ip) || "0:0:0:0:0:0:0:1".equals(ip)) {
-            return "::1";
-        }
-        return ip;
-    }
-
     /**
      * 获取详细的请求路径信息
      * 包含URI、查询参数等
@@ -469,35 +413,6 @@ public class IpWhitelistInterceptor implements HandlerInterceptor {
         }
     }
 
-    /**
-     * 插入日志记录到数据库
-     * 
-     * @param ip     IP地址
-     * @param api    API详情
-     * @param states 状态
-     * @return 插入记录的ID，如果失败返回-1
-     */
-    private int insertLogRecord(String ip, String api, int states) {
-        try {
-            KeyHolder keyHolder = new GeneratedKeyHolder();
-            jdbcTemplate.update(connection -> {
-                var ps = connection.prepareStatement(
-                        "INSERT INTO api_log (ip, api, states, create_time) VALUES (?, ?, ?, CURRENT_TIMESTAMP)",
-                        new String[] { "id" });
-                ps.setString(1, ip);
-                ps.setString(2, api);
-                ps.setInt(3, states);
-                return ps;
-            }, keyHolder);
-
-            Number key = keyHolder.getKey();
-            return key != null ? key.intValue() : -1;
-        } catch (Exception ex) {
-            log.error("插入日志记录失败 - ip: {}, api: {}, states: {}", ip, api, states, ex);
-            return -1;
-        }
-    }
-
     /**
      * 处理错误页面请求
      * 检查是否由于异常导致的错误，如果是则更新之前的请求状态
@@ -527,15 +442,9 @@ public class IpWhitelistInterceptor implements HandlerInterceptor {
             // 检查时间是否在合理范围内（比如10秒内，因为异常处理可能有延迟）
             long timeDiff = System.currentTimeMillis() - recent.getTimestamp();
             if (timeDiff < 10000) { // 10秒内
-                try {
-                    // 更新数据库中的状态为失败
-                    jdbcTemplate.update(
-                            "UPDATE api_log SET states = 0 WHERE id = ?",
-                            recent.getId());
-                    log.debug("合并请求状态为失败 - IP: {}, 原API: {}", ip, recent.getApi());
-                } catch (Exception ex) {
-                    log.error("更新请求状态失败 - IP: {}, ID: {}", ip, recent.getId(), ex);
-                }
+                // 尚未写入时直接改内存状态，已写入时由写入器批量更新
+                apiLogWriter.markFailed(recent.getRecord());
+                log.debug("合并请求状态为失败 - IP: {}, 原API: {}", ip, recent.getApi());
             }
             // 清除缓存
             recentRequests.remove(ip);
@@ -548,12 +457,12 @@ public class IpWhitelistInterceptor implements HandlerInterceptor {
     private static class RecentRequest {
         private final String api;
         private final long timestamp;
-        private final int id; // 数据库记录ID
+        private final ApiLogWriter.AccessLogRecord record; // 异步写入的日志句柄
 
-        public RecentRequest(String api, long timestamp, int id) {
+        public RecentRequest(String api, long timestamp, ApiLogWriter.AccessLogRecord record) {
             this.api = api;
             this.timestamp = timestamp;
-            this.id = id;
+            this.record = record;
         }
 
         public String getApi() {
@@ -564,8 +473,8 @@ public class IpWhitelistInterceptor implements HandlerInterceptor {
             return timestamp;
         }
 
-        public int getId() {
-            return id;
+        public ApiLogWriter.AccessLogRecord getRecord() {
+            return record;
         }
     }
 }
@@ -0,0 +1,56 @@
+package LDS.Person.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 媒体预上传池配置属性
+ * 从 application.yml 中读取 media-pool 配置
+ */
+@Component
+@ConfigurationProperties(prefix = "media-pool")
+@Getter
+@Setter
+public class MediaPoolProperties {
+
+    /**
+     * 是否启用后台预上传
+     */
+    private boolean enabled = false;
+
+    /**
+     * 需要保持可用媒体的 Twitter 用户 ID 列表（为空时使用 config.properties 的 DefaultUID）
+     */
+    private List<String> accounts = new ArrayList<>();
+
+    /**
+     * 每个账号保持的可用媒体数量
+     */
+    private int targetSize = 8;
+
+    /**
+     * 每个账号同时进行的上传数
+     */
+    private int maxConcurrentUploads = 2;
+
+    /**
+     * 距离过期不足该时长的媒体退出可用池（不再分配给发推）
+     */
+    private Duration retireBefore = Duration.ofMinutes(30);
+
+    /**
+     * 媒体被发推流程占用超过该时长仍未标记已使用或释放时，视为进程已退出并回收
+     */
+    private Duration claimTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 上传失败后该账号暂停补充的时长
+     */
+    private Duration failureBackoff = Duration.ofMinutes(5);
+}
@@ -0,0 +1,188 @@
+package LDS.Person.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于 Apache HttpClient 5 连接池的 X API 传输层
+ *
+ * 特点：
+ * - 每个路由（目标主机 + 代理）有上限的连接池，连接保持 Keep-Alive 复用
+ * - 经 HTTP 代理访问 HTTPS 时，CONNECT 隧道与 TLS 会话随连接一起留在池中复用，
+ *   突发请求不再每次都重新握手
+ * - 后台线程定期清理过期 / 空闲连接
+ * - 响应体直接流式交给消息转换器读取，不再经过 BufferingClientHttpRequestFactory 二次缓冲
+ * - 所有请求经过 TwitterRateLimitInterceptor 做发送前限流与 x-rate-limit-* 响应头回写
+ * - 相同的并发 GET（URL、Authorization、Accept 相同，响应体为 String）合并为一次上游请求，
+ *   结果分发给所有等待者，只消耗一次调用额度；可配置在响应返回后继续共享一小段时间
+ *
+ * 代理配置读取 config.properties 的 proxy.is.open / proxy.host / proxy.port，
+ * 连接池参数读取 application.yml 的 twitter.http.*
+ */
+@Component
+@Slf4j
+public class PooledTwitterHttpTransport implements TwitterHttpTransport {
+
+  private final CloseableHttpClient httpClient;
+  private final RestTemplate restTemplate;
+  private final TwitterHttpProperties.Coalesce coalesce;
+
+  /**
+   * 在途（以及合并窗口内）的 GET 请求
+   */
+  private final ConcurrentHashMap<String, CompletableFuture<ResponseEntity<String>>> inflightGets =
+      new ConcurrentHashMap<>();
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+  public PooledTwitterHttpTransport(RestTemplateBuilder builder, TwitterHttpProperties properties,
+                                    TwitterRateLimitInterceptor rateLimitInterceptor) {
+    ConnectionConfig connectionConfig = ConnectionConfig.custom()
+        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+        .setSocketTimeout(Timeout.of(properties.getSocketTimeout()))
+        .setTimeToLive(TimeValue.of(properties.getTimeToLive()))
+        .setValidateAfterInactivity(TimeValue.of(properties.getValidateAfterInactivity()))
+        .build();
+
+    PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+        .setMaxConnTotal(properties.getMaxTotal())
+        .setMaxConnPerRoute(properties.getMaxPerRoute())
+        .setDefaultConnectionConfig(connectionConfig)
+        .build();
+
+    RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectionRequestTimeout(Timeout.of(properties.getConnectionRequestTimeout()))
+        .build();
+
+    HttpClientBuilder clientBuilder = HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .disableCookieManagement()
+        .evictExpiredConnections()
+        .evictIdleConnections(TimeValue.of(properties.getIdleEvictAfter()));
+
+    ConfigManager config = ConfigManager.getInstance();
+    if (config.isProxyOpen()) {
+      clientBuilder.setProxy(new HttpHost(config.getProxyHost(), config.getProxyPort()));
+      log.info("🔄 X API 传输层使用代理: {}:{}", config.getProxyHost(), config.getProxyPort());
+    } else {
+      log.info("🔄 X API 传输层未启用代理（proxy.is.open=false），直连");
+    }
+
+    this.coalesce = properties.getCoalesce();
+    this.httpClient = clientBuilder.build();
+    HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+    this.restTemplate = builder
+        .requestFactory(() -> requestFactory)
+        .additionalInterceptors(rateLimitInterceptor)
+        .build();
+
+    log.info("✅ X API 连接池已初始化: maxTotal={}, maxPerRoute={}, idleEvictAfter={}, timeToLive={}",
+        properties.getMaxTotal(), properties.getMaxPerRoute(),
+        properties.getIdleEvictAfter(), properties.getTimeToLive());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> entity, Class<T> responseType) {
+    // 只合并响应体不可变（String）的 GET，避免多个调用方共享可变对象
+    if (coalesce.isEnabled() && method == HttpMethod.GET && responseType == String.class) {
+      return (ResponseEntity<T>) coalescedGet(url, entity);
+    }
+    return restTemplate.exchange(url, method, entity, responseType);
+  }
+
+  /**
+   * 已被合并（未实际发出）的 GET 请求数
+   */
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  private ResponseEntity<String> coalescedGet(String url, HttpEntity<?> entity) {
+    String key = coalesceKey(url, entity);
+    CompletableFuture<ResponseEntity<String>> mine = new CompletableFuture<>();
+    CompletableFuture<ResponseEntity<String>> existing = inflightGets.putIfAbsent(key, mine);
+    if (existing != null) {
+      long count = coalescedCount.incrementAndGet();
+      log.debug("合并相同 GET 请求: {}（累计合并 {} 次）", url, count);
+      return join(existing);
+    }
+
+    ResponseEntity<String> response;
+    try {
+      response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+    } catch (Throwable e) {
+      // 失败结果不在窗口内共享，后来的请求重新发起；Error 也要完成 future，否则等待中的请求会永远阻塞
+      inflightGets.remove(key, mine);
+      mine.completeExceptionally(e);
+      throw e;
+    }
+
+    long windowMillis = coalesce.getWindow().toMillis();
+    if (windowMillis <= 0) {
+      inflightGets.remove(key, mine);
+    } else {
+      CompletableFuture.delayedExecutor(windowMillis, TimeUnit.MILLISECONDS)
+          .execute(() -> inflightGets.remove(key, mine));
+    }
+    mine.complete(response);
+    return response;
+  }
+
+  private static String coalesceKey(String url, HttpEntity<?> entity) {
+    HttpHeaders headers = entity != null ? entity.getHeaders() : HttpHeaders.EMPTY;
+    return url + '\n' + headers.getFirst(HttpHeaders.AUTHORIZATION) + '\n' + headers.getFirst(HttpHeaders.ACCEPT);
+  }
+
+  private static ResponseEntity<String> join(CompletableFuture<ResponseEntity<String>> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * 关闭连接池与后台清理线程
+   */
+  @PreDestroy
+  public void shutdown() {
+    try {
+      httpClient.close();
+      log.info("X API 连接池已关闭");
+    } catch (IOException e) {
+      log.warn("关闭 X API 连接池失败: {}", e.getMessage());
+    }
+  }
+}
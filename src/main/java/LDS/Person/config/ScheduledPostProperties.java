@@ -0,0 +1,64 @@
+package LDS.Person.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 定时发布配置属性
+ * 从 application.yml 中读取 scheduled-post 配置
+ */
+@Component
+@ConfigurationProperties(prefix = "scheduled-post")
+@Getter
+@Setter
+public class ScheduledPostProperties {
+
+    /**
+     * 是否启用定时发布（关闭后仍可提交，任务保留在表中）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 时间轮 tick 时长（发布时间精度）
+     */
+    private Duration tick = Duration.ofSeconds(1);
+
+    /**
+     * 时间轮槽位数
+     */
+    private int wheelSize = 512;
+
+    /**
+     * 加载进时间轮的时间范围：只加载计划时间在此范围内的任务，更远的任务由定期补充加载
+     */
+    private Duration loadHorizon = Duration.ofHours(1);
+
+    /**
+     * 重启补发的时间范围：计划时间早于「当前时间 - catch-up-window」的任务不再补发，直接标记失败
+     */
+    private Duration catchUpWindow = Duration.ofHours(24);
+
+    /**
+     * 并发发布的线程数
+     */
+    private int threads = 2;
+
+    /**
+     * 单条任务最多尝试发布的次数
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * 首次重试的等待时间（之后按 2 倍递增）
+     */
+    private Duration retryBackoff = Duration.ofSeconds(30);
+
+    /**
+     * 发布中状态的超时时间，超过后视为进程中断并放回等待发布
+     */
+    private Duration stuckTimeout = Duration.ofMinutes(10);
+}
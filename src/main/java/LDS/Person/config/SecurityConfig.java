@@ -1,5 +1,7 @@
 package LDS.Person.config;
 
+import LDS.Person.util.AhoCorasickMatcher;
+import LDS.Person.util.IpCidrMatcher;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -7,13 +9,15 @@ import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * 统一安全配置类
  * 
  * 功能：
- * 1. 管理IP白名单配置
+ * 1. 管理IP白名单配置与攻击特征（SecurityFilter）配置
  * 2. 注册安全拦截器
  * 3. 配置静态资源排除规则
  * 
@@ -35,6 +39,12 @@ public class SecurityConfig implements WebMvcConfigurer {
      */
     private List<String> ipWhitelist = new ArrayList<>();
 
+    /**
+     * 编译后的IP白名单（CIDR 前缀树），setIpWhitelist 绑定配置时编译并整体替换
+     * IpWhitelistInterceptor 每个请求只读取该引用，查询耗时与白名单条目数无关
+     */
+    private volatile IpCidrMatcher ipWhitelistMatcher = IpCidrMatcher.compile(ipWhitelist);
+
     /**
      * Pass Token是否启用（允许非白名单IP通过令牌访问）
      */
@@ -45,6 +55,52 @@ public class SecurityConfig implements WebMvcConfigurer {
      */
     private List<String> passTokens = new ArrayList<>();
 
+    /**
+     * 已知攻击路径特征（SecurityFilter 使用，忽略大小写）
+     * 默认按「包含」匹配，以 $ 结尾表示按「结尾」匹配（例如 .php$）
+     */
+    private List<String> attackPathPatterns = new ArrayList<>(Arrays.asList(
+            // 已知的 PHP 漏洞扫描
+            "/phpunit/", "/vendor/",
+            // ThinkPHP RCE 攻击
+            "/think/app", "invokefunction",
+            // 路径穿越攻击
+            "../../../../", "..\\..\\",
+            // Docker API 扫描
+            "/containers/", "/docker/",
+            // 常见的 PHP 文件
+            ".php$", ".phtml$", ".php3$", ".php4$", ".php5$", ".phps$",
+            // 常见的配置文件
+            "web.config", "web.xml", ".env", "config.php",
+            // 常见的管理后台
+            "/admin/", "/wp-admin/", "/phpmyadmin/", "/cpanel/",
+            // 常见的备份文件
+            ".bak", ".backup", ".sql", ".tar.gz",
+            // 其他已知的扫描路径
+            "/eval-stdin.php", "/index1", "/shell", "/webshell"
+    ));
+
+    /**
+     * 可疑查询参数特征（SecurityFilter 使用，忽略大小写，规则同 attackPathPatterns）
+     */
+    private List<String> suspiciousQueryPatterns = new ArrayList<>(Arrays.asList(
+            // SQL 注入
+            "union", "select", "insert", "delete", "drop",
+            // RCE 攻击
+            "call_user_func", "eval", "exec", "system",
+            // 路径穿越
+            "../../../../", "..\\..\\",
+            // 敏感路径访问
+            "/tmp", "/var/www", "/etc/passwd"
+    ));
+
+    /**
+     * 编译后的攻击特征快照（两个自动机一起替换），启动绑定配置或通过 SecurityPatternController 更新时整体重建
+     * SecurityFilter 每个请求只读取一次该引用，看到的要么是旧快照，要么是新快照
+     */
+    private volatile AttackSignatures attackSignatures =
+            AttackSignatures.compile(attackPathPatterns, suspiciousQueryPatterns);
+
     /**
      * 构造函数注入，使用ObjectProvider破坏循环依赖
      */
@@ -92,7 +148,18 @@ public class SecurityConfig implements WebMvcConfigurer {
     }
 
     public void setIpWhitelist(List<String> ipWhitelist) {
-        this.ipWhitelist = ipWhitelist;
+        List<String> entries = immutableCopy(ipWhitelist);
+        synchronized (this) {
+            this.ipWhitelist = entries;
+            this.ipWhitelistMatcher = IpCidrMatcher.compile(entries);
+        }
+    }
+
+    /**
+     * 获取编译后的IP白名单匹配器
+     */
+    public IpCidrMatcher getIpWhitelistMatcher() {
+        return ipWhitelistMatcher;
     }
 
     public boolean isPassTokenEnabled() {
@@ -110,4 +177,86 @@ public class SecurityConfig implements WebMvcConfigurer {
     public void setPassTokens(List<String> passTokens) {
         this.passTokens = passTokens;
     }
+
+    public List<String> getAttackPathPatterns() {
+        return attackPathPatterns;
+    }
+
+    public void setAttackPathPatterns(List<String> attackPathPatterns) {
+        this.attackPathPatterns = immutableCopy(attackPathPatterns);
+        recompileAttackSignatures();
+    }
+
+    public List<String> getSuspiciousQueryPatterns() {
+        return suspiciousQueryPatterns;
+    }
+
+    public void setSuspiciousQueryPatterns(List<String> suspiciousQueryPatterns) {
+        this.suspiciousQueryPatterns = immutableCopy(suspiciousQueryPatterns);
+        recompileAttackSignatures();
+    }
+
+    /**
+     * 运行时替换攻击特征（SecurityPatternController 调用）：两个列表一起替换并只编译一次，
+     * 不会出现新路径特征配旧查询特征的中间状态
+     *
+     * @param attackPathPatterns      新的路径特征，null 表示保持不变
+     * @param suspiciousQueryPatterns 新的查询特征，null 表示保持不变
+     */
+    public synchronized void replaceAttackPatterns(List<String> attackPathPatterns, List<String> suspiciousQueryPatterns) {
+        if (attackPathPatterns != null) {
+            this.attackPathPatterns = immutableCopy(attackPathPatterns);
+        }
+        if (suspiciousQueryPatterns != null) {
+            this.suspiciousQueryPatterns = immutableCopy(suspiciousQueryPatterns);
+        }
+        recompileAttackSignatures();
+    }
+
+    /**
+     * 获取编译后的攻击特征快照
+     */
+    public AttackSignatures getAttackSignatures() {
+        return attackSignatures;
+    }
+
+    /**
+     * 两个特征列表任一变化时一起重新编译，再整体发布
+     */
+    private synchronized void recompileAttackSignatures() {
+        this.attackSignatures = AttackSignatures.compile(attackPathPatterns, suspiciousQueryPatterns);
+    }
+
+    /**
+     * 保存配置列表的不可变副本：配置只能通过 setter 整体替换，原地修改会直接报错而不是悄悄失效
+     */
+    private static List<String> immutableCopy(List<String> source) {
+        return source == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(source));
+    }
+
+    /**
+     * 编译后的攻击特征（路径 + 查询），不可变，可在多线程间共享
+     */
+    public static final class AttackSignatures {
+        private final AhoCorasickMatcher attackPathMatcher;
+        private final AhoCorasickMatcher suspiciousQueryMatcher;
+
+        private AttackSignatures(AhoCorasickMatcher attackPathMatcher, AhoCorasickMatcher suspiciousQueryMatcher) {
+            this.attackPathMatcher = attackPathMatcher;
+            this.suspiciousQueryMatcher = suspiciousQueryMatcher;
+        }
+
+        static AttackSignatures compile(List<String> attackPathPatterns, List<String> suspiciousQueryPatterns) {
+            return new AttackSignatures(AhoCorasickMatcher.compile(attackPathPatterns),
+                    AhoCorasickMatcher.compile(suspiciousQueryPatterns));
+        }
+
+        public AhoCorasickMatcher getAttackPathMatcher() {
+            return attackPathMatcher;
+        }
+
+        public AhoCorasickMatcher getSuspiciousQueryMatcher() {
+            return suspiciousQueryMatcher;
+        }
+    }
 }
@@ -16,11 +16,25 @@ import java.io.IOException;
  * 2. 防止日志被恶意请求污染
  * 3. 减少无必要的日志输出
  * 4. 提升应用性能
+ * 
+ * 攻击特征从 SecurityConfig（application.yml 的 security.attack-path-patterns /
+ * security.suspicious-query-patterns）读取，由 SecurityConfig 编译为 Aho-Corasick 自动机快照，
+ * 每个请求的路径和查询字符串各只扫描一遍（忽略大小写）；通过 PUT /api/security/attack-patterns 更新特征时
+ * 快照随之替换，无需重启（只作用于当前进程）
  */
 @Component
 @Slf4j
 public class SecurityFilter implements Filter {
 
+    private final SecurityConfig securityConfig;
+
+    public SecurityFilter(SecurityConfig securityConfig) {
+        this.securityConfig = securityConfig;
+        SecurityConfig.AttackSignatures signatures = securityConfig.getAttackSignatures();
+        log.info("🛡️ 攻击特征已编译：路径特征 {} 条，查询特征 {} 条",
+                signatures.getAttackPathMatcher().size(), signatures.getSuspiciousQueryMatcher().size());
+    }
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
@@ -29,9 +43,12 @@ public class SecurityFilter implements Filter {
         HttpServletResponse httpResponse = (HttpServletResponse) response;
         
         String path = httpRequest.getRequestURI();
+
+        // 每个请求只读取一次快照，路径与查询使用同一版本的特征
+        SecurityConfig.AttackSignatures signatures = securityConfig.getAttackSignatures();
         
         // 🚫 检测已知的恶意路径 - 直接拒绝，不生成日志
-        if (isKnownAttackPath(path)) {
+        if (isKnownAttackPath(signatures, path)) {
             // 静默拒绝，不记录日志（避免日志污染）
             httpResponse.setStatus(HttpServletResponse.SC_FORBIDDEN);
             httpResponse.getWriter().close();
@@ -40,7 +57,7 @@ public class SecurityFilter implements Filter {
         
         // 🚫 检测可疑的请求参数
         String queryString = httpRequest.getQueryString();
-        if (queryString != null && isSuspiciousQuery(queryString)) {
+        if (queryString != null && isSuspiciousQuery(signatures, queryString)) {
             // 静默拒绝
             httpResponse.setStatus(HttpServletResponse.SC_FORBIDDEN);
             httpResponse.getWriter().close();
@@ -54,102 +71,23 @@ public class SecurityFilter implements Filter {
     /**
      * 检测已知的攻击路径
      * 
+     * @param signatures 编译后的攻击特征
      * @param path 请求路径
      * @return 如果是已知攻击路径则返回 true
      */
-    private boolean isKnownAttackPath(String path) {
-        // 🔍 已知的 PHP 漏洞扫描
-        if (path.contains("/phpunit/") || path.contains("/vendor/")) {
-            return true;
-        }
-        
-        // 💣 ThinkPHP RCE 攻击
-        if (path.contains("/think/app") || path.contains("invokefunction")) {
-            return true;
-        }
-        
-        // 🔓 路径穿越攻击
-        if (path.contains("../../../../") || path.contains("..\\..\\")) {
-            return true;
-        }
-        
-        // 🐳 Docker API 扫描
-        if (path.contains("/containers/") || path.contains("/docker/")) {
-            return true;
-        }
-        
-        // 📱 扫描常见的 PHP 文件
-        if (path.endsWith(".php") || path.endsWith(".phtml") || 
-            path.endsWith(".php3") || path.endsWith(".php4") || 
-            path.endsWith(".php5") || path.endsWith(".phps")) {
-            return true;
-        }
-        
-        // 🔧 扫描常见的配置文件
-        if (path.contains("web.config") || path.contains("web.xml") ||
-            path.contains(".env") || path.contains("config.php")) {
-            return true;
-        }
-        
-        // 🌐 扫描常见的管理后台
-        if (path.contains("/admin/") || path.contains("/wp-admin/") ||
-            path.contains("/phpmyadmin/") || path.contains("/cpanel/")) {
-            return true;
-        }
-        
-        // 📝 扫描常见的备份文件
-        if (path.contains(".bak") || path.contains(".backup") ||
-            path.contains(".sql") || path.contains(".tar.gz")) {
-            return true;
-        }
-        
-        // 🎯 其他已知的扫描路径
-        if (path.contains("/eval-stdin.php") || path.contains("/index1") ||
-            path.contains("/shell") || path.contains("/webshell")) {
-            return true;
-        }
-        
-        return false;
+    private boolean isKnownAttackPath(SecurityConfig.AttackSignatures signatures, String path) {
+        return signatures.getAttackPathMatcher().matches(path);
     }
 
     /**
      * 检测可疑的请求参数
      * 
+     * @param signatures 编译后的攻击特征
      * @param queryString 查询字符串
      * @return 如果包含可疑内容则返回 true
      */
-    private boolean isSuspiciousQuery(String queryString) {
-        // 🔍 检测 SQL 注入
-        if (queryString.toLowerCase().contains("union") ||
-            queryString.toLowerCase().contains("select") ||
-            queryString.toLowerCase().contains("insert") ||
-            queryString.toLowerCase().contains("delete") ||
-            queryString.toLowerCase().contains("drop")) {
-            return true;
-        }
-        
-        // 💣 检测 RCE 攻击
-        if (queryString.contains("call_user_func") ||
-            queryString.contains("eval") ||
-            queryString.contains("exec") ||
-            queryString.contains("system")) {
-            return true;
-        }
-        
-        // 🔓 检测路径穿越
-        if (queryString.contains("../../../../") ||
-            queryString.contains("..\\..\\")) {
-            return true;
-        }
-        
-        // 📂 检测敏感路径访问
-        if (queryString.contains("/tmp") ||
-            queryString.contains("/var/www") ||
-            queryString.contains("/etc/passwd")) {
-            return true;
-        }
-        
-        return false;
+    private boolean isSuspiciousQuery(SecurityConfig.AttackSignatures signatures, String queryString) {
+        return signatures.getSuspiciousQueryMatcher().matches(queryString);
     }
 
     @Override
@@ -0,0 +1,51 @@
+package LDS.Person.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多账号时间线后台轮询配置属性
+ * 从 application.yml 中读取 timeline-poller 配置
+ */
+@Component
+@ConfigurationProperties(prefix = "timeline-poller")
+@Getter
+@Setter
+public class TimelinePollerProperties {
+
+    /**
+     * 是否启用后台轮询
+     */
+    private boolean enabled = false;
+
+    /**
+     * 需要轮询的 Twitter 用户 ID 列表
+     */
+    private List<String> accounts = new ArrayList<>();
+
+    /**
+     * 每个账号的期望轮询间隔（账号较多时会按调用额度自动拉长）
+     */
+    private Duration pollInterval = Duration.ofMinutes(15);
+
+    /**
+     * X API 速率限制窗口
+     */
+    private Duration window = Duration.ofMinutes(15);
+
+    /**
+     * 每个窗口内允许轮询使用的 GET /2/users/:id/tweets 调用次数（用户上下文上限为 900，需给手动请求留余量）
+     */
+    private int requestsPerWindow = 600;
+
+    /**
+     * 并发拉取的线程数
+     */
+    private int threads = 4;
+}
@@ -0,0 +1,34 @@
+package LDS.Person.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 趋势 / 新闻搜索响应缓存配置属性
+ * 从 application.yml 中读取 trends-cache 配置
+ */
+@Component
+@ConfigurationProperties(prefix = "trends-cache")
+@Getter
+@Setter
+public class TrendsCacheProperties {
+
+    /**
+     * 新鲜期，期间直接返回缓存
+     */
+    private Duration ttl = Duration.ofMinutes(2);
+
+    /**
+     * 过期后仍可返回旧值（同时后台刷新）的时长
+     */
+    private Duration staleTtl = Duration.ofMinutes(10);
+
+    /**
+     * 最大缓存条目数（LRU 淘汰）
+     */
+    private int maxSize = 500;
+}
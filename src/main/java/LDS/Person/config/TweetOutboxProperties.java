@@ -0,0 +1,61 @@
+package LDS.Person.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 推文发件箱发布配置属性
+ * 从 application.yml 中读取 tweet-outbox 配置
+ */
+@Component
+@ConfigurationProperties(prefix = "tweet-outbox")
+@Getter
+@Setter
+public class TweetOutboxProperties {
+
+    /**
+     * 是否启用后台发布（关闭后仍可提交，任务保留在发件箱中）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 并发发布的线程数
+     */
+    private int threads = 2;
+
+    /**
+     * 单条推文最多尝试发布的次数（达到后标记为失败）
+     */
+    private int maxAttempts = 8;
+
+    /**
+     * 首次重试的等待时间（之后按 2 倍递增）
+     */
+    private Duration initialBackoff = Duration.ofSeconds(30);
+
+    /**
+     * 重试等待时间上限
+     */
+    private Duration maxBackoff = Duration.ofMinutes(30);
+
+    /**
+     * 发布中状态的超时时间，超过后视为进程中断并放回发件箱
+     */
+    private Duration stuckTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 回调请求的连接与读取超时
+     */
+    private Duration callbackTimeout = Duration.ofSeconds(5);
+
+    /**
+     * callback_url 允许的主机列表（".example.com" 匹配所有子域名），为空时允许任意公网主机
+     */
+    private List<String> callbackAllowedHosts = new ArrayList<>();
+}
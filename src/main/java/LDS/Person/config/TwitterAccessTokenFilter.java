@@ -6,7 +6,6 @@ import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
 import LDS.Person.entity.TwitterToken;
-import LDS.Person.repository.TwitterTokenRepository;
 import LDS.Person.service.TwitterTokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -21,9 +20,6 @@ import java.util.*;
 @Slf4j
 public class TwitterAccessTokenFilter implements Filter {
 
-    @Autowired
-    private TwitterTokenRepository twitterTokenRepository;
-
     @Autowired
     private TwitterTokenService twitterTokenService;
 
@@ -113,18 +109,21 @@ public class TwitterAccessTokenFilter implements Filter {
         if (token == null) {
             log.info("🔍 Session 和 twitterUserId 都不可用，尝试从数据库查询任何可用的 token");
             try {
-                List<TwitterToken> allTokens = twitterTokenRepository.findAll();
-                if (!allTokens.isEmpty()) {
-                    TwitterToken firstToken = allTokens.get(0);
-                    twitterUserId = firstToken.getTwitterUserId();  // 获取 userId
-                    log.info("📊 数据库中找到 {} 个 token，使用第一个 (userId: {})", allTokens.size(), twitterUserId);
+                TwitterToken latestToken = twitterTokenService.getLatestValidToken();
+                if (latestToken == null) {
+                    // 所有 token 均已过期：取最近更新的可刷新 token，由 getValidAccessToken 刷新
+                    latestToken = twitterTokenService.getLatestRefreshableToken();
+                }
+                if (latestToken != null) {
+                    twitterUserId = latestToken.getTwitterUserId();  // 获取 userId
+                    log.info("📊 使用数据库中最新的 token (userId: {})", twitterUserId);
                     String validToken = twitterTokenService.getValidAccessToken(twitterUserId);
                     if (validToken != null && !validToken.isBlank()) {
                         token = validToken;
                         log.info("✅ 从数据库查询得到有效的 access token: {}...", token.substring(0, Math.min(20, token.length())));
                     }
                 } else {
-                    log.warn("⚠️ 数据库中不存在任何 token");
+                    log.warn("⚠️ 数据库中不存在任何有效或可刷新的 token");
                 }
             } catch (Exception e) {
                 log.error("❌ 从数据库查询任何 token 时出错: {}", e.getMessage(), e);
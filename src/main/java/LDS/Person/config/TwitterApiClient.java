@@ -5,16 +5,9 @@ import com.alibaba.fastjson2.JSONObject;
 import LDS.Person.dto.response.TokenRefreshResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.http.client.BufferingClientHttpRequestFactory;
-import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
-import java.net.InetSocketAddress;
-import java.net.Proxy;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -34,51 +27,14 @@ public class TwitterApiClient {
   @Autowired
   private TwitterProperties twitterProperties;
 
-  private RestTemplate restTemplate;
-
-  @Autowired
-  public TwitterApiClient(RestTemplateBuilder builder) {
-    // 硬编码代理配置（用于突破网络限制）
-    String proxyHost = "127.0.0.1";
-    int proxyPort = 33210; // HTTP 代理端口（支持 HTTPS CONNECT 隧道）
-    
-    log.info("🔄 使用硬编码代理配置: {}:{}", proxyHost, proxyPort);
-    
-    try {
-      // 创建带代理的 RestTemplate
-      ClientHttpRequestFactory requestFactory = createProxyRequestFactory(proxyHost, proxyPort);
-      this.restTemplate = builder
-          .requestFactory(() -> requestFactory)
-          .setConnectTimeout(java.time.Duration.ofSeconds(30))
-          .setReadTimeout(java.time.Duration.ofSeconds(30))
-          .build();
-      log.info("✅ RestTemplate 已初始化（使用代理: {}:{}，用于访问 Twitter API）", proxyHost, proxyPort);
-    } catch (Exception e) {
-      log.warn("⚠️  代理配置异常，降级到直连: {}", e.getMessage());
-      this.restTemplate = builder
-          .setConnectTimeout(java.time.Duration.ofSeconds(30))
-          .setReadTimeout(java.time.Duration.ofSeconds(30))
-          .build();
-      log.info("✅ RestTemplate 已初始化（直连）");
-    }
-  }
-
   /**
-   * 创建支持代理的 ClientHttpRequestFactory
+   * 共享的 X API 传输层（连接池 + 代理隧道复用）
    */
-  private ClientHttpRequestFactory createProxyRequestFactory(String proxyHost, int proxyPort) {
-    SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-    
-    // 设置代理
-    Proxy proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(proxyHost, proxyPort));
-    factory.setProxy(proxy);
-    
-    // 设置超时（秒）
-    factory.setConnectTimeout(30000);
-    factory.setReadTimeout(30000);
-    
-    // 使用 BufferingClientHttpRequestFactory 包装（支持重复读取响应体，某些情况下有用）
-    return new BufferingClientHttpRequestFactory(factory);
+  private final TwitterHttpTransport twitterHttpTransport;
+
+  @Autowired
+  public TwitterApiClient(TwitterHttpTransport twitterHttpTransport) {
+    this.twitterHttpTransport = twitterHttpTransport;
   }
 
   private static final SecureRandom SECURE_RANDOM = new SecureRandom();
@@ -248,7 +204,7 @@ public class TwitterApiClient {
 
       org.springframework.http.HttpEntity<Void> entity = new org.springframework.http.HttpEntity<>(httpHeaders);
       org.springframework.http.ResponseEntity<String> response =
-          restTemplate.exchange(url, org.springframework.http.HttpMethod.GET, entity, String.class);
+          twitterHttpTransport.exchange(url, org.springframework.http.HttpMethod.GET, entity, String.class);
 
       return response.getBody();
     } catch (HttpClientErrorException e) {
@@ -269,7 +225,8 @@ public class TwitterApiClient {
       headers.forEach(httpHeaders::set);
 
       org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>(body, httpHeaders);
-      org.springframework.http.ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
+      org.springframework.http.ResponseEntity<String> response =
+          twitterHttpTransport.exchange(url, org.springframework.http.HttpMethod.POST, entity, String.class);
 
       return response.getBody();
     } catch (HttpClientErrorException e) {
@@ -305,7 +262,8 @@ public class TwitterApiClient {
       org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>(body, httpHeaders);
       log.debug("📤 发送 POST 请求到: {}, headers: {}", url, httpHeaders);
       
-      org.springframework.http.ResponseEntity<String> response = restTemplate.postForEntity(url, entity, String.class);
+      org.springframework.http.ResponseEntity<String> response =
+          twitterHttpTransport.exchange(url, org.springframework.http.HttpMethod.POST, entity, String.class);
 
       return response.getBody();
     } catch (HttpClientErrorException e) {
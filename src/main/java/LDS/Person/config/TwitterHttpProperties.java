@@ -0,0 +1,119 @@
+package LDS.Person.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * X API HTTP 传输层配置属性
+ * 从 application.yml 中读取 twitter.http 配置（代理地址仍由 config.properties 的 proxy.* 决定）
+ */
+@Component
+@ConfigurationProperties(prefix = "twitter.http")
+@Getter
+@Setter
+public class TwitterHttpProperties {
+
+  /**
+   * 连接池最大连接数（所有路由合计）
+   */
+  private int maxTotal = 50;
+
+  /**
+   * 每个路由（目标主机 + 代理）的最大连接数
+   */
+  private int maxPerRoute = 20;
+
+  /**
+   * 建立连接（含代理 CONNECT 隧道）的超时时间
+   */
+  private Duration connectTimeout = Duration.ofSeconds(30);
+
+  /**
+   * 读取响应的超时时间
+   */
+  private Duration socketTimeout = Duration.ofSeconds(30);
+
+  /**
+   * 从连接池借出连接的最长等待时间
+   */
+  private Duration connectionRequestTimeout = Duration.ofSeconds(10);
+
+  /**
+   * 空闲连接超过该时长后由后台线程关闭
+   */
+  private Duration idleEvictAfter = Duration.ofSeconds(60);
+
+  /**
+   * 连接最长存活时间，超过后不再复用（避免代理侧静默断开的长连接）
+   */
+  private Duration timeToLive = Duration.ofMinutes(5);
+
+  /**
+   * 连接空闲超过该时长后，复用前先做一次可用性检查
+   */
+  private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+  /**
+   * 429 重试配置（TwitterRateLimitHandler.executeWithRetryAsync 使用）
+   */
+  private Retry retry = new Retry();
+
+  /**
+   * 相同 GET 请求合并配置（PooledTwitterHttpTransport 使用）
+   */
+  private Coalesce coalesce = new Coalesce();
+
+  @Getter
+  @Setter
+  public static class Retry {
+
+    /**
+     * 默认最大重试次数
+     */
+    private int maxRetries = 3;
+
+    /**
+     * 指数退避的初始间隔
+     */
+    private Duration initialBackoff = Duration.ofSeconds(1);
+
+    /**
+     * 单次退避的最大间隔
+     */
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    /**
+     * 从第一次尝试算起的总截止时间，下一次重试会超过截止时间时直接失败，不再等待
+     */
+    private Duration deadline = Duration.ofMinutes(2);
+
+    /**
+     * 执行 API 调用的工作线程数
+     */
+    private int workerThreads = 8;
+
+    /**
+     * 工作线程队列容量，队列满时新任务直接失败
+     */
+    private int queueCapacity = 200;
+  }
+
+  @Getter
+  @Setter
+  public static class Coalesce {
+
+    /**
+     * 是否合并并发的相同 GET 请求（URL + Authorization + Accept 相同）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 上游响应返回后继续共享结果的时长，0 表示只合并同时在途的请求
+     */
+    private Duration window = Duration.ZERO;
+  }
+}
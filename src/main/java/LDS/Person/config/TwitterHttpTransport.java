@@ -0,0 +1,49 @@
+package LDS.Person.config;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * X API HTTP 传输层接口
+ * 所有访问 api.x.com / api.twitter.com 的请求统一经过这里，便于替换底层实现
+ *
+ * 可以有多种实现：
+ * 1. PooledTwitterHttpTransport - 基于 Apache HttpClient 5 连接池（默认）
+ * 2. 其他实现（例如测试用的 Mock 传输层）
+ */
+public interface TwitterHttpTransport {
+
+  /**
+   * 执行 HTTP 请求
+   *
+   * @param url          完整请求 URL
+   * @param method       HTTP 方法
+   * @param entity       请求体与请求头（可为 null）
+   * @param responseType 响应体类型
+   * @return 响应
+   */
+  <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> entity, Class<T> responseType);
+
+  /**
+   * 携带 Bearer Token 执行 GET 请求，返回字符串响应体
+   */
+  default ResponseEntity<String> get(String url, String accessToken) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set("Authorization", "Bearer " + accessToken);
+    headers.set("Accept", "application/json");
+    return exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+  }
+
+  /**
+   * 携带 Bearer Token 执行 JSON POST 请求，返回字符串响应体
+   */
+  default ResponseEntity<String> postJson(String url, String body, String accessToken) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set("Authorization", "Bearer " + accessToken);
+    headers.set("Accept", "application/json");
+    headers.set("Content-Type", "application/json");
+    return exchange(url, HttpMethod.POST, new HttpEntity<>(body, headers), String.class);
+  }
+}
@@ -0,0 +1,66 @@
+package LDS.Person.config;
+
+import LDS.Person.util.TwitterRateLimitHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * X API 速率限制拦截器
+ *
+ * 1. 发送前按「端点 + 用户」调用 tryAcquire，已知余量耗尽时不发请求，直接抛出本地 429
+ *    （与 X 返回的 429 一样是 HttpClientErrorException，调用方无需区分）
+ * 2. 每个响应（包括 4xx/5xx）都把 x-rate-limit-* 响应头回写到限流状态
+ *
+ * 用户键直接使用 Authorization 头（同一 token 即同一用户上下文）
+ */
+@Component
+@Slf4j
+public class TwitterRateLimitInterceptor implements ClientHttpRequestInterceptor {
+
+  private final TwitterRateLimitHandler rateLimitHandler;
+
+  public TwitterRateLimitInterceptor(TwitterRateLimitHandler rateLimitHandler) {
+    this.rateLimitHandler = rateLimitHandler;
+  }
+
+  @Override
+  public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+      throws IOException {
+    String endpoint = TwitterRateLimitHandler.endpointKey(request.getMethod().name(), request.getURI());
+    String userKey = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+    if (!rateLimitHandler.tryAcquire(endpoint, userKey)) {
+      throw localRateLimitError(endpoint, userKey);
+    }
+
+    ClientHttpResponse response = execution.execute(request, body);
+    rateLimitHandler.updateFromHeaders(endpoint, userKey, response.getHeaders());
+    return response;
+  }
+
+  /**
+   * 构造本地限流异常，带上 Retry-After 以便 extractRetryAfter 等逻辑直接复用
+   */
+  private HttpClientErrorException localRateLimitError(String endpoint, String userKey) {
+    long waitSeconds = Math.max(1, rateLimitHandler.getWaitTimeUntilReset(endpoint, userKey));
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(waitSeconds));
+    headers.set(TwitterRateLimitHandler.HEADER_REMAINING, "0");
+    headers.set(TwitterRateLimitHandler.HEADER_RESET, String.valueOf(System.currentTimeMillis() / 1000 + waitSeconds));
+    String body = String.format(
+        "{\"title\":\"Too Many Requests\",\"detail\":\"本地限流：%s 额度已耗尽，%d 秒后重置\",\"status\":429}",
+        endpoint, waitSeconds);
+    return HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests (local rate limit)",
+        headers, body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+  }
+}
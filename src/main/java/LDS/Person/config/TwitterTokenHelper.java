@@ -1,14 +1,11 @@
 package LDS.Person.config;
 
 import LDS.Person.entity.TwitterToken;
-import LDS.Person.repository.TwitterTokenRepository;
 import LDS.Person.service.TwitterTokenService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-
 /**
  * Twitter Token 辅助工具类
  * 统一管理 Twitter Token 的获取逻辑，避免各个控制器重复代码
@@ -20,9 +17,6 @@ public class TwitterTokenHelper {
     @Autowired
     private TwitterTokenService twitterTokenService;
 
-    @Autowired
-    private TwitterTokenRepository twitterTokenRepository;
-
     /**
      * 获取默认用户 ID（从 config.properties 的 DefaultUID）
      * 使用 ConfigManager 统一读取配置
@@ -69,35 +63,19 @@ public class TwitterTokenHelper {
     }
 
     /**
-     * 从数据库获取最新的有效 Token（按更新时间排序）
+     * 从数据库获取最新的有效 Token（按更新时间排序，跳过已过期的记录）
      * 适用于没有指定用户 ID 或默认用户 Token 不存在的场景
      * 
      * @return 最新的 TwitterToken 或 null
      */
     public TwitterToken getLatestValidToken() {
         try {
-            List<TwitterToken> allTokens = twitterTokenRepository.findAll();
-            if (allTokens == null || allTokens.isEmpty()) {
-                log.warn("数据库中没有任何 Token 记录");
-                return null;
-            }
-            
-            TwitterToken latestToken = allTokens.stream()
-                    .max((t1, t2) -> {
-                        java.time.Instant time1 = t1.getUpdatedAt() != null ? t1.getUpdatedAt()
-                                : java.time.Instant.EPOCH;
-                        java.time.Instant time2 = t2.getUpdatedAt() != null ? t2.getUpdatedAt()
-                                : java.time.Instant.EPOCH;
-                        return time1.compareTo(time2);
-                    })
-                    .orElse(null);
-            
+            TwitterToken latestToken = twitterTokenService.getLatestValidToken();
             if (latestToken != null) {
                 log.debug("获取到最新的 Token，用户 ID: {}", latestToken.getTwitterUserId());
             } else {
-                log.warn("无法从数据库中获取最新的 Token");
+                log.warn("数据库中没有任何有效的 Token 记录");
             }
-            
             return latestToken;
         } catch (Exception e) {
             log.error("获取最新 Token 失败", e);
@@ -0,0 +1,195 @@
+package LDS.Person.controller;
+
+import LDS.Person.config.TwitterTokenHelper;
+import LDS.Person.dto.request.ScheduledPostRequest;
+import LDS.Person.entity.ScheduledPost;
+import LDS.Person.service.ScheduledPostService;
+import LDS.Person.tasks.ScheduledPostDispatcher;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 定时发布控制器 - 提交 / 查询 / 取消定时推文、引用、转发
+ *
+ * 发布账号为 config.properties 的 DefaultUID
+ */
+@RestController
+@RequestMapping("/api/twitter/schedule")
+@Api(tags = "X 定时发布", description = "定时发布相关接口")
+@Slf4j
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ScheduledPostController {
+
+    private static final Set<String> TYPES = Set.of(
+            ScheduledPost.TYPE_TWEET, ScheduledPost.TYPE_MEDIA, ScheduledPost.TYPE_QUOTE, ScheduledPost.TYPE_REPOST);
+
+    @Autowired
+    private ScheduledPostDispatcher scheduledPostDispatcher;
+
+    @Autowired
+    private ScheduledPostService scheduledPostService;
+
+    @Autowired
+    private TwitterTokenHelper twitterTokenHelper;
+
+    /**
+     * 提交定时发布
+     */
+    @PostMapping("/create")
+    @ApiOperation(
+        value = "提交定时发布",
+        notes = "type 为 tweet / media / quote / repost，publish_at 为计划发布时间（ISO-8601）。任务保存在 scheduled_post 表中，"
+                + "到期后按类型发布；计划时间已过的任务会立即发布，服务重启后自动补发"
+    )
+    public ResponseEntity<Map<String, Object>> createScheduledPost(@RequestBody ScheduledPostRequest request) {
+        Map<String, Object> response = new HashMap<>();
+
+        String error = validate(request);
+        if (error != null) {
+            response.put("code", 400);
+            response.put("message", error);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        LocalDateTime publishAt;
+        try {
+            publishAt = parsePublishAt(request.getPublishAt());
+        } catch (DateTimeParseException e) {
+            response.put("code", 400);
+            response.put("message", "publish_at 格式错误，应为 ISO-8601，例如 2026-01-01T09:00:00+08:00");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        String userId = twitterTokenHelper.getDefaultUserId();
+        if (userId == null || userId.isBlank()) {
+            response.put("code", 500);
+            response.put("message", "config.properties 中未配置 DefaultUID");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+
+        try {
+            ScheduledPost post = new ScheduledPost();
+            post.setPostType(request.getType());
+            post.setTwitterUserId(userId);
+            post.setText(request.getText());
+            post.setTargetTweetId(request.getTargetTweetId());
+            post.setPublishAt(publishAt);
+            ScheduledPost saved = scheduledPostDispatcher.submit(post);
+
+            response.put("code", 200);
+            response.put("message", "定时发布已提交");
+            response.put("data", toView(saved));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("提交定时发布异常", e);
+            response.put("code", 500);
+            response.put("message", "服务器错误: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 查询定时发布
+     */
+    @GetMapping("/{id}")
+    @ApiOperation(value = "查询定时发布", notes = "状态：scheduled / dispatching / succeeded / failed / cancelled")
+    public ResponseEntity<Map<String, Object>> getScheduledPost(@PathVariable("id") Long id) {
+        Map<String, Object> response = new HashMap<>();
+        ScheduledPost post = scheduledPostService.findById(id);
+        if (post == null) {
+            response.put("code", 404);
+            response.put("message", "定时发布不存在");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("code", 200);
+        response.put("message", "查询成功");
+        response.put("data", toView(post));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 取消定时发布
+     */
+    @DeleteMapping("/{id}")
+    @ApiOperation(value = "取消定时发布", notes = "只能取消尚未开始发布的任务")
+    public ResponseEntity<Map<String, Object>> cancelScheduledPost(@PathVariable("id") Long id) {
+        Map<String, Object> response = new HashMap<>();
+        if (!scheduledPostDispatcher.cancel(id)) {
+            response.put("code", 409);
+            response.put("message", "任务不存在或已开始发布，无法取消");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        response.put("code", 200);
+        response.put("message", "定时发布已取消");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 调度器状态
+     */
+    @GetMapping("/stats")
+    @ApiOperation(value = "定时发布调度器状态", notes = "时间轮中的任务数、已触发数、表中等待发布数与加载范围")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", 200);
+        response.put("message", "查询成功");
+        response.put("data", scheduledPostDispatcher.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    private static String validate(ScheduledPostRequest request) {
+        if (request == null || request.getType() == null || !TYPES.contains(request.getType())) {
+            return "type 必须是 tweet / media / quote / repost 之一";
+        }
+        if (request.getPublishAt() == null || request.getPublishAt().isBlank()) {
+            return "publish_at 不能为空";
+        }
+        boolean needsText = !ScheduledPost.TYPE_REPOST.equals(request.getType());
+        if (needsText && (request.getText() == null || request.getText().isBlank())) {
+            return "推文文本不能为空";
+        }
+        boolean needsTarget = ScheduledPost.TYPE_QUOTE.equals(request.getType())
+                || ScheduledPost.TYPE_REPOST.equals(request.getType());
+        if (needsTarget && (request.getTargetTweetId() == null || request.getTargetTweetId().isBlank())) {
+            return "target_tweet_id 不能为空";
+        }
+        return null;
+    }
+
+    /**
+     * 带时区偏移的时间转换为服务器时区，不带偏移的按服务器时区解析
+     */
+    private static LocalDateTime parsePublishAt(String value) {
+        try {
+            return OffsetDateTime.parse(value.trim()).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(value.trim());
+        }
+    }
+
+    private static Map<String, Object> toView(ScheduledPost post) {
+        Map<String, Object> view = new HashMap<>();
+        view.put("id", post.getId());
+        view.put("type", post.getPostType());
+        view.put("status", ScheduledPost.statusName(post.getStatus()));
+        view.put("publish_at", post.getPublishAt());
+        view.put("attempts", post.getAttempts());
+        view.put("result_tweet_id", post.getResultTweetId());
+        view.put("published_at", post.getPublishedAt());
+        view.put("last_error", post.getLastError());
+        return view;
+    }
+}
@@ -0,0 +1,88 @@
+package LDS.Person.controller;
+
+import LDS.Person.config.SecurityConfig;
+import LDS.Person.dto.request.AttackPatternsRequest;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 攻击特征管理控制器 - 查看与热更新 SecurityFilter 的攻击特征
+ *
+ * 未标注 @BypassIpWhitelist，只有白名单 IP 或持有有效 pass_token 的请求可以访问；
+ * 更新只作用于当前进程，重启后恢复为 application.yml 中的配置
+ */
+@RestController
+@RequestMapping("/api/security/attack-patterns")
+@Api(tags = "安全配置", description = "攻击特征管理接口")
+@Slf4j
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class SecurityPatternController {
+
+    private final SecurityConfig securityConfig;
+
+    public SecurityPatternController(SecurityConfig securityConfig) {
+        this.securityConfig = securityConfig;
+    }
+
+    /**
+     * 查看当前生效的攻击特征
+     */
+    @GetMapping
+    @ApiOperation(value = "查看攻击特征", notes = "返回当前生效的路径特征与查询参数特征")
+    public ResponseEntity<Map<String, Object>> getPatterns() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", 200);
+        response.put("message", "查询成功");
+        response.put("data", describe());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 替换攻击特征，无需重启
+     */
+    @PutMapping
+    @ApiOperation(
+        value = "替换攻击特征",
+        notes = "传入的列表整体替换当前特征，未传的列表保持不变；两个自动机重新编译后一起生效，之后的请求立即使用新特征。"
+                + "只作用于当前进程，重启后恢复为 application.yml 中的配置"
+    )
+    public ResponseEntity<Map<String, Object>> replacePatterns(@RequestBody AttackPatternsRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        if (request == null || (request.getAttackPathPatterns() == null && request.getSuspiciousQueryPatterns() == null)) {
+            response.put("code", 400);
+            response.put("message", "attack_path_patterns 与 suspicious_query_patterns 至少需要传一个");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        securityConfig.replaceAttackPatterns(request.getAttackPathPatterns(), request.getSuspiciousQueryPatterns());
+        SecurityConfig.AttackSignatures signatures = securityConfig.getAttackSignatures();
+        log.info("🛡️ 攻击特征已热更新：路径特征 {} 条，查询特征 {} 条",
+                signatures.getAttackPathMatcher().size(), signatures.getSuspiciousQueryMatcher().size());
+
+        response.put("code", 200);
+        response.put("message", "攻击特征已更新");
+        response.put("data", describe());
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> describe() {
+        SecurityConfig.AttackSignatures signatures = securityConfig.getAttackSignatures();
+        Map<String, Object> data = new HashMap<>();
+        data.put("attack_path_patterns", securityConfig.getAttackPathPatterns());
+        data.put("suspicious_query_patterns", securityConfig.getSuspiciousQueryPatterns());
+        data.put("compiled_path_patterns", signatures.getAttackPathMatcher().size());
+        data.put("compiled_query_patterns", signatures.getSuspiciousQueryMatcher().size());
+        return data;
+    }
+}
@@ -1,5 +1,6 @@
 package LDS.Person.controller;
 
+import LDS.Person.config.ApiLogWriter;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +29,12 @@ import java.util.Map;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class ServerInfoController {
 
+    private final ApiLogWriter apiLogWriter;
+
+    public ServerInfoController(ApiLogWriter apiLogWriter) {
+        this.apiLogWriter = apiLogWriter;
+    }
+
     /**
      * 获取完整的 JVM 和系统概览
      */
@@ -142,4 +149,18 @@ public class ServerInfoController {
             return ResponseEntity.status(500).body(response);
         }
     }
+
+    /**
+     * 获取 API 日志异步写入器的指标
+     */
+    @GetMapping("/apilog")
+    @ApiOperation(value = "API日志写入指标", notes = "返回 api_log / api_raw_logs 异步写入队列的深度、丢弃数、已写入数等")
+    public ResponseEntity<Map<String, Object>> getApiLogMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("状态码", 200);
+        response.put("消息", "✅ API 日志写入指标获取成功");
+        response.put("数据", apiLogWriter.getMetrics());
+        response.put("时间戳", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
 }
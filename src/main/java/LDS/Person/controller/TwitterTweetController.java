@@ -1,35 +1,36 @@
 package LDS.Person.controller;
 
+import LDS.Person.config.TweetOutboxProperties;
 import LDS.Person.config.TwitterTokenHelper;
 import LDS.Person.dto.request.CreateTweetRequest;
 import LDS.Person.dto.request.QuoteTweetRequest;
+import LDS.Person.dto.request.TweetThreadRequest;
 import LDS.Person.dto.response.CreateTweetResponse;
 import LDS.Person.dto.response.QuoteTweetResponse;
+import LDS.Person.entity.TweetOutbox;
 import LDS.Person.entity.TwitterToken;
-import LDS.Person.entity.MediaLibrary;
+import LDS.Person.service.TweetOutboxService;
+import LDS.Person.service.TweetThreadService;
 import LDS.Person.service.TwitterTweetService;
 import LDS.Person.service.TwitterTokenService;
-import LDS.Person.service.MediaLibraryService;
+import LDS.Person.util.CallbackUrlValidator;
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.io.InputStream;
 
 /**
@@ -49,16 +50,17 @@ public class TwitterTweetController {
     private TwitterTokenService twitterTokenService;
 
     @Autowired
-    private MediaLibraryService mediaLibraryService;
+    private TweetOutboxService tweetOutboxService;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private TweetOutboxProperties tweetOutboxProperties;
+
+    @Autowired
+    private TweetThreadService tweetThreadService;
     
     @Autowired
     private TwitterTokenHelper twitterTokenHelper;
 
-    private static final String TWITTER_API_BASE = "https://api.x.com/2";
-
     /**
      * 创建推文
      * 
@@ -119,6 +121,156 @@ public class TwitterTweetController {
         }
     }
 
+    /**
+     * 提交推文到发件箱（异步发布）
+     *
+     * @param request 推文请求（包含 text，可选 media.media_ids）
+     * @param idempotencyKey 幂等键（可选），重复提交同一个键返回已有任务
+     * @param callbackUrl 发布完成后回调的地址（可选）
+     * @return 发布任务 ID 与状态
+     */
+    @PostMapping("/outbox")
+    @ApiOperation(
+        value = "异步创建推文",
+        notes = "推文先写入 tweet_outbox 后立即返回 job_id，由后台发布线程按速率限制发布并自动重试。"
+                + "请求头 Idempotency-Key 可防止重复提交；callback_url 参数可在发布成功或最终失败时接收 POST 回调；"
+                + "也可通过 GET /api/twitter/tweet/outbox/{id} 查询状态"
+    )
+    public ResponseEntity<Map<String, Object>> enqueueTweet(
+            @RequestBody CreateTweetRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestParam(value = "callback_url", required = false) String callbackUrl) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        if (request.getText() == null || request.getText().isBlank()) {
+            response.put("code", 400);
+            response.put("message", "推文文本不能为空");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (callbackUrl != null && !callbackUrl.isBlank()) {
+            try {
+                CallbackUrlValidator.validate(callbackUrl, tweetOutboxProperties.getCallbackAllowedHosts());
+            } catch (IllegalArgumentException e) {
+                response.put("code", 400);
+                response.put("message", e.getMessage());
+                return ResponseEntity.badRequest().body(response);
+            }
+        }
+
+        String userId = twitterTokenHelper.getDefaultUserId();
+        if (userId == null || userId.isBlank()) {
+            response.put("code", 500);
+            response.put("message", "config.properties 中未配置 DefaultUID");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+
+        try {
+            TweetOutbox outbox = tweetOutboxService.enqueue(userId, request, idempotencyKey, callbackUrl);
+            boolean accepted = outbox.getStatus() == TweetOutbox.STATUS_PENDING && outbox.getAttempts() == 0;
+            response.put("code", accepted ? 202 : 200);
+            response.put("message", accepted ? "推文已进入发件箱，等待发布" : "该幂等键已提交过");
+            response.put("data", toOutboxView(outbox));
+            return ResponseEntity.status(accepted ? HttpStatus.ACCEPTED : HttpStatus.OK).body(response);
+        } catch (Exception e) {
+            log.error("提交推文到发件箱异常", e);
+            response.put("code", 500);
+            response.put("message", "服务器错误: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 查询发件箱任务状态
+     *
+     * @param id 发布任务 ID
+     * @return 任务状态（pending / publishing / succeeded / failed）
+     */
+    @GetMapping("/outbox/{id}")
+    @ApiOperation(value = "查询异步推文状态", notes = "返回发件箱任务的状态、尝试次数、推文 ID 与最近一次错误")
+    public ResponseEntity<Map<String, Object>> getOutboxStatus(@PathVariable("id") Long id) {
+        Map<String, Object> response = new HashMap<>();
+        TweetOutbox outbox = tweetOutboxService.findById(id);
+        if (outbox == null) {
+            response.put("code", 404);
+            response.put("message", "发布任务不存在");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("code", 200);
+        response.put("message", "查询成功");
+        response.put("data", toOutboxView(outbox));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 发布推文串（每条回复上一条）
+     *
+     * @param request 推文串请求（parts 列表，每条包含 text 与可选的 media_paths / media_ids）
+     * @return 发布结果（thread_id、status、tweet_ids；失败时包含 failed_part 与 error）
+     */
+    @PostMapping("/thread")
+    @ApiOperation(
+        value = "发布推文串",
+        notes = "发布前校验全部条目；所有媒体并发上传，推文按顺序逐条回复上一条发布。"
+                + "中途失败时已发布的推文保留，可通过 POST /api/twitter/tweet/thread/{id}/resume 从失败的条目继续"
+    )
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> publishThread(@RequestBody TweetThreadRequest request) {
+        String userId = twitterTokenHelper.getDefaultUserId();
+        TwitterToken twitterToken = twitterTokenHelper.getDefaultUserToken();
+        if (twitterToken == null || twitterToken.getAccessToken() == null) {
+            return CompletableFuture.completedFuture(threadError(HttpStatus.UNAUTHORIZED, "未找到该用户的 access_token，请重新登录"));
+        }
+        String accessToken = twitterToken.getAccessToken();
+        try {
+            return tweetThreadService.publishThread(userId, accessToken, request).thenApply(this::threadResponse);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(threadError(HttpStatus.BAD_REQUEST, e.getMessage()));
+        }
+    }
+
+    /**
+     * 继续发布失败的推文串
+     *
+     * @param id 推文串 ID
+     * @return 发布结果
+     */
+    @PostMapping("/thread/{id}/resume")
+    @ApiOperation(value = "继续发布推文串", notes = "从第一条未发布的条目继续，回复最后一条已发布的推文，已上传的媒体不会重复上传")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> resumeThread(@PathVariable("id") Long id) {
+        TwitterToken twitterToken = twitterTokenHelper.getDefaultUserToken();
+        if (twitterToken == null || twitterToken.getAccessToken() == null) {
+            return CompletableFuture.completedFuture(threadError(HttpStatus.UNAUTHORIZED, "未找到该用户的 access_token，请重新登录"));
+        }
+        String accessToken = twitterToken.getAccessToken();
+        try {
+            return tweetThreadService.resumeThread(id, accessToken).thenApply(this::threadResponse);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(threadError(HttpStatus.NOT_FOUND, e.getMessage()));
+        } catch (IllegalStateException e) {
+            return CompletableFuture.completedFuture(threadError(HttpStatus.CONFLICT, e.getMessage()));
+        }
+    }
+
+    /**
+     * 查询推文串发布状态
+     *
+     * @param id 推文串 ID
+     * @return 发布状态（running / completed / failed）与已发布的推文 ID
+     */
+    @GetMapping("/thread/{id}")
+    @ApiOperation(value = "查询推文串状态", notes = "返回推文串状态、已发布的推文 ID 列表、失败的条目与错误信息")
+    public ResponseEntity<Map<String, Object>> getThread(@PathVariable("id") Long id) {
+        Map<String, Object> thread = tweetThreadService.getThread(id);
+        if (thread == null) {
+            return threadError(HttpStatus.NOT_FOUND, "推文串不存在");
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", 200);
+        response.put("message", "查询成功");
+        response.put("data", thread);
+        return ResponseEntity.ok(response);
+    }
+
      /**
      * 创建带媒体的推文
      * 
@@ -129,7 +281,7 @@ public class TwitterTweetController {
     @PostMapping("/createformedia")
     @ApiOperation(
         value = "创建带有媒体的推文",
-        notes = "\"media\"字段自动上传，无需手动输入。根据 config.properties 中的 DefaultUID 从数据库获取 access_token，搜索表 media_library 中 endtime 比当前时间大的且 status=0 的媒体创建推文。"
+        notes = "\"media\"字段自动上传，无需手动输入。根据 config.properties 中的 DefaultUID 从数据库获取 access_token，搜索表 media_library 中该账号可用、未临近过期且 status=0 的媒体（最多 4 个，并发请求不会重复使用同一媒体）创建推文。"
     )
     public ResponseEntity<Map<String, Object>> createTweetWithMedia(
             @RequestBody CreateTweetRequest request) {
@@ -161,67 +313,23 @@ public class TwitterTweetController {
             String accessToken = twitterToken.getAccessToken();
             log.info("已从数据库获取 access_token（用户: {}），token: {}...", userId, accessToken.substring(0, Math.min(20, accessToken.length())));
             
-            // 查询媒体库中未过期且未使用的媒体（status=0 且 endtime > 当前时间）
-            LocalDateTime now = LocalDateTime.now();
-            List<MediaLibrary> allMediaList = mediaLibraryService.findAll();
-            
-            // 过滤：status=0 且 endtime > 当前时间
-            List<MediaLibrary> availableMediaList = allMediaList.stream()
-                    .filter(m -> m.getStatus() == 0 && m.getEndTime().isAfter(now))
-                    .toList();
-            
-            if (availableMediaList.isEmpty()) {
+            // 占用媒体库中的可用媒体发布（一条推文最多 4 个媒体），成功后标记已使用，失败时释放
+            CreateTweetResponse tweetResponse;
+            try {
+                tweetResponse = twitterTweetService.publishWithPooledMedia(userId, accessToken, request.getText());
+            } catch (NoSuchElementException e) {
                 response.put("code", 400);
-                response.put("message", "没有可用的媒体，请先上传媒体");
-                log.warn("用户 {} 查询可用媒体失败，媒体库为空或全部过期/已使用", userId);
+                response.put("message", e.getMessage());
                 return ResponseEntity.badRequest().body(response);
             }
-            
-            // 提取可用媒体的 media_id 列表
-            List<String> mediaIds = availableMediaList.stream()
-                    .map(MediaLibrary::getMediaId)
-                    .toList();
-            
-            log.info("从媒体库查询到 {} 条可用媒体，media_ids: {}", availableMediaList.size(), mediaIds);
-            
-            // 构建包含媒体的推文请求
-            CreateTweetRequest tweetRequest = new CreateTweetRequest();
-            tweetRequest.setText(request.getText());
-            
-            // 设置媒体 ID 列表
-            Map<String, Object> mediaMap = new HashMap<>();
-            mediaMap.put("media_ids", mediaIds);
-            tweetRequest.setMedia(mediaMap);
-            
-            log.info("构建推文请求: text={}, media_ids_count={}", request.getText().substring(0, Math.min(50, request.getText().length())), mediaIds.size());
-            
-            // 调用 Service 创建推文
-            CreateTweetResponse tweetResponse = twitterTweetService.createTweet(accessToken, tweetRequest);
-            
-            if (tweetResponse == null) {
-                response.put("code", 500);
-                response.put("message", "创建推文失败");
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-            }
-            
-            // 推文创建成功后，更新这些媒体的状态为已使用（status=1）
-            for (MediaLibrary media : availableMediaList) {
-                try {
-                    media.setStatus(1);
-                    mediaLibraryService.save(media);
-                    log.info("更新媒体状态为已使用: mediaId={}", media.getMediaId());
-                } catch (Exception e) {
-                    log.error("更新媒体状态失败: mediaId={}", media.getMediaId(), e);
-                    // 继续处理其他媒体，不中断流程
-                }
-            }
+            List<String> mediaIds = tweetResponse.getMediaIds();
             
             response.put("code", 200);
             response.put("message", "推文创建成功");
             response.put("data", tweetResponse);
-            response.put("used_media_count", availableMediaList.size());
+            response.put("used_media_count", mediaIds.size());
             response.put("used_media_ids", mediaIds);
-            log.info("推文创建成功，已使用 {} 条媒体，media_ids: {}", availableMediaList.size(), mediaIds);
+            log.info("推文创建成功，已使用 {} 条媒体，media_ids: {}", mediaIds.size(), mediaIds);
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
@@ -302,7 +410,7 @@ public class TwitterTweetController {
     }
 
     /**
-     * 发送引用推文请求到 Twitter API
+     * 通过 TwitterTweetService 发送引用推文，并将异常转换为 error 字段
      * 
      * @param userId 用户 ID
      * @param text 推文文本
@@ -312,68 +420,21 @@ public class TwitterTweetController {
      */
     private Map<String, Object> sendQuoteTweetRequest(String userId, String text, String quoteTweetId, String accessToken) {
         try {
-            // 构建 API 请求 URL: POST /2/tweets
-            String url = String.format("%s/tweets", TWITTER_API_BASE);
-            log.debug("调用 Twitter API: {}", url);
-
-            // 构建请求体
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("text", text);
-            
-            // 添加引用推文信息
-            JSONObject quoteOptions = new JSONObject();
-            quoteOptions.put("type", "Quote");
-            requestBody.put("quote_tweet_id", quoteTweetId);
-
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + accessToken);
-            headers.set("Accept", "application/json");
-            headers.set("Content-Type", "application/json");
-
-            HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
-
-            log.debug("发送到 Twitter API 的请求体: {}", requestBody.toJSONString());
-
-            // 执行 POST 请求
-            ResponseEntity<String> apiResponse = restTemplate.exchange(
-                    url, 
-                    HttpMethod.POST, 
-                    entity, 
-                    String.class
-            );
-
-            String responseBody = apiResponse.getBody();
-            log.debug("Twitter API 引用推文响应: {}", responseBody);
-
-            // 解析响应
-            JSONObject jsonResponse = JSON.parseObject(responseBody);
-
-            // 检查是否有错误
-            if (jsonResponse.containsKey("errors")) {
-                log.error("Twitter API 返回错误: {}", jsonResponse);
-                Map<String, Object> errorMap = new HashMap<>();
-                errorMap.put("error", jsonResponse.getJSONArray("errors").getJSONObject(0).getString("message"));
-                return errorMap;
-            }
-
-            // 提取数据
-            JSONObject data = jsonResponse.getJSONObject("data");
-            if (data == null) {
-                Map<String, Object> emptyMap = new HashMap<>();
-                emptyMap.put("error", "API 响应缺少 data 字段");
-                return emptyMap;
-            }
+            CreateTweetResponse quoted = twitterTweetService.quoteTweet(accessToken, text, quoteTweetId);
 
             Map<String, Object> result = new HashMap<>();
-            result.put("tweet_id", data.getString("id"));
+            result.put("tweet_id", quoted.getTweetId());
             result.put("text", text);
             result.put("quote_tweet_id", quoteTweetId);
-            result.put("created_at", data.getString("created_at"));
-            
-            log.info("成功创建引用推文，API 返回: {}", data);
+            result.put("created_at", quoted.getCreatedAt());
             return result;
 
+        } catch (IllegalStateException e) {
+            // X API 在响应体中返回 errors
+            Map<String, Object> errorMap = new HashMap<>();
+            errorMap.put("error", e.getMessage());
+            return errorMap;
+
         } catch (HttpClientErrorException e) {
             String err = e.getResponseBodyAsString();
             log.error("调用 Twitter API 引用推文失败: {} (状态码: {})", err, e.getStatusCode(), e);
@@ -395,5 +456,33 @@ public class TwitterTweetController {
             return null;
         }
     }
-}
 
+    private ResponseEntity<Map<String, Object>> threadResponse(Map<String, Object> result) {
+        boolean completed = "completed".equals(result.get("status"));
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", completed ? 200 : 502);
+        response.put("message", completed ? "推文串发布成功" : "推文串发布中断，可继续发布");
+        response.put("data", result);
+        return ResponseEntity.status(completed ? HttpStatus.OK : HttpStatus.BAD_GATEWAY).body(response);
+    }
+
+    private static ResponseEntity<Map<String, Object>> threadError(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", status.value());
+        response.put("message", message);
+        return ResponseEntity.status(status).body(response);
+    }
+
+    private static Map<String, Object> toOutboxView(TweetOutbox outbox) {
+        Map<String, Object> view = new HashMap<>();
+        view.put("job_id", outbox.getId());
+        view.put("idempotency_key", outbox.getIdempotencyKey());
+        view.put("status", TweetOutbox.statusName(outbox.getStatus()));
+        view.put("attempts", outbox.getAttempts());
+        view.put("next_attempt_at", outbox.getNextAttemptAt());
+        view.put("tweet_id", outbox.getTweetId());
+        view.put("last_error", outbox.getLastError());
+        view.put("created_at", outbox.getCreatedAt());
+        return view;
+    }
+}
@@ -0,0 +1,216 @@
+package LDS.Person.controller;
+
+import LDS.Person.config.BulkJobProperties;
+import LDS.Person.config.TwitterTokenHelper;
+import LDS.Person.dto.request.BulkJobRequest;
+import LDS.Person.entity.BulkJob;
+import LDS.Person.entity.BulkJobItem;
+import LDS.Person.service.BulkJobService;
+import LDS.Person.tasks.BulkJobRunner;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * X 批量转发 / 引用控制器
+ *
+ * 执行账号为 config.properties 的 DefaultUID
+ */
+@RestController
+@RequestMapping("/api/twitter/bulk")
+@Api(tags = "X 批量转发与引用", description = "批量转发 / 引用任务接口")
+@Slf4j
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class XBulkController {
+
+    /**
+     * 条目列表单页最大条数
+     */
+    private static final int MAX_ITEM_PAGE = 500;
+
+    @Autowired
+    private BulkJobRunner bulkJobRunner;
+
+    @Autowired
+    private BulkJobService bulkJobService;
+
+    @Autowired
+    private BulkJobProperties bulkJobProperties;
+
+    @Autowired
+    private TwitterTokenHelper twitterTokenHelper;
+
+    /**
+     * 创建批量任务
+     */
+    @PostMapping("/create")
+    @ApiOperation(
+        value = "创建批量转发 / 引用任务",
+        notes = "tweet_ids 去重后写入 bulk_job_item，由共享的有界线程池执行（受端点限流约束），任务创建后立即返回 job_id。"
+                + "quote 时使用 text 或逐条的 texts 作为引用文本"
+    )
+    public ResponseEntity<Map<String, Object>> createJob(@RequestBody BulkJobRequest request) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (request == null || (!BulkJob.TYPE_REPOST.equals(request.getType()) && !BulkJob.TYPE_QUOTE.equals(request.getType()))) {
+            response.put("code", 400);
+            response.put("message", "type 必须是 repost 或 quote");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        boolean quote = BulkJob.TYPE_QUOTE.equals(request.getType());
+        Map<String, String> items = new LinkedHashMap<>();
+        List<String> tweetIds = request.getTweetIds() != null ? request.getTweetIds() : List.of();
+        for (int i = 0; i < tweetIds.size(); i++) {
+            String tweetId = tweetIds.get(i);
+            if (tweetId == null || tweetId.isBlank()) {
+                continue;
+            }
+            String text = null;
+            if (quote) {
+                text = request.getTexts() != null && i < request.getTexts().size()
+                        && request.getTexts().get(i) != null && !request.getTexts().get(i).isBlank()
+                        ? request.getTexts().get(i)
+                        : request.getText();
+                if (text == null || text.isBlank()) {
+                    response.put("code", 400);
+                    response.put("message", "推文 " + tweetId + " 缺少引用文本（text 或 texts）");
+                    return ResponseEntity.badRequest().body(response);
+                }
+            }
+            items.putIfAbsent(tweetId.trim(), text);
+        }
+        if (items.isEmpty() || items.size() > bulkJobProperties.getMaxItems()) {
+            response.put("code", 400);
+            response.put("message", items.isEmpty()
+                    ? "tweet_ids 不能为空"
+                    : "tweet_ids 去重后最多 " + bulkJobProperties.getMaxItems() + " 个");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        String userId = twitterTokenHelper.getDefaultUserId();
+        if (userId == null || userId.isBlank()) {
+            response.put("code", 500);
+            response.put("message", "config.properties 中未配置 DefaultUID");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+
+        try {
+            BulkJob job = bulkJobRunner.submit(request.getType(), userId, items, request.getConcurrency());
+            response.put("code", 202);
+            response.put("message", "批量任务已创建，共 " + items.size() + " 个条目（去重前 " + tweetIds.size() + " 个）");
+            response.put("data", toJobView(bulkJobService.findById(job.getId())));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (Exception e) {
+            log.error("创建批量任务异常", e);
+            response.put("code", 500);
+            response.put("message", "服务器错误: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 查询任务进度
+     */
+    @GetMapping("/{id}")
+    @ApiOperation(value = "查询批量任务", notes = "返回任务状态与各状态条目数")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable("id") Long id) {
+        Map<String, Object> response = new HashMap<>();
+        BulkJob job = bulkJobService.findById(id);
+        if (job == null) {
+            response.put("code", 404);
+            response.put("message", "批量任务不存在");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("code", 200);
+        response.put("message", "查询成功");
+        response.put("data", toJobView(job));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 分页查询任务条目结果
+     */
+    @GetMapping("/{id}/items")
+    @ApiOperation(value = "查询批量任务条目", notes = "按条目 ID 游标分页：afterId 为上一页返回的 next_cursor")
+    public ResponseEntity<Map<String, Object>> getItems(@PathVariable("id") Long id,
+                                                        @RequestParam(value = "afterId", required = false) Long afterId,
+                                                        @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        Map<String, Object> response = new HashMap<>();
+        int pageSize = Math.max(1, Math.min(limit, MAX_ITEM_PAGE));
+        List<BulkJobItem> items = bulkJobService.listItems(id, afterId, pageSize);
+
+        List<Map<String, Object>> views = items.stream().map(item -> {
+            Map<String, Object> view = new HashMap<>();
+            view.put("id", item.getId());
+            view.put("tweet_id", item.getTweetId());
+            view.put("status", BulkJobItem.statusName(item.getStatus()));
+            view.put("attempts", item.getAttempts());
+            view.put("result_tweet_id", item.getResultTweetId());
+            view.put("error", item.getError());
+            view.put("updated_at", item.getUpdatedAt());
+            return view;
+        }).toList();
+
+        response.put("code", 200);
+        response.put("message", "查询成功");
+        response.put("data", views);
+        response.put("next_cursor", items.size() == pageSize ? items.get(items.size() - 1).getId() : null);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/{id}/pause")
+    @ApiOperation(value = "暂停批量任务", notes = "正在执行的条目完成后停止")
+    public ResponseEntity<Map<String, Object>> pauseJob(@PathVariable("id") Long id) {
+        return control(id, bulkJobRunner.pause(id), "批量任务已暂停", "任务不存在或不在执行中");
+    }
+
+    @PostMapping("/{id}/resume")
+    @ApiOperation(value = "恢复批量任务", notes = "重新获取 Token 并继续执行剩余条目")
+    public ResponseEntity<Map<String, Object>> resumeJob(@PathVariable("id") Long id) {
+        return control(id, bulkJobRunner.resume(id), "批量任务已恢复", "任务不存在或未暂停");
+    }
+
+    @PostMapping("/{id}/cancel")
+    @ApiOperation(value = "取消批量任务", notes = "正在执行的条目完成后停止，剩余条目标记为已跳过")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable("id") Long id) {
+        return control(id, bulkJobRunner.cancel(id), "批量任务已取消", "任务不存在或已结束");
+    }
+
+    private ResponseEntity<Map<String, Object>> control(Long id, boolean success, String okMessage, String failMessage) {
+        Map<String, Object> response = new HashMap<>();
+        if (!success) {
+            response.put("code", 409);
+            response.put("message", failMessage);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        response.put("code", 200);
+        response.put("message", okMessage);
+        response.put("data", toJobView(bulkJobService.findById(id)));
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> toJobView(BulkJob job) {
+        Map<String, Object> view = new HashMap<>();
+        view.put("job_id", job.getId());
+        view.put("type", job.getJobType());
+        view.put("status", BulkJob.statusName(job.getStatus()));
+        view.put("concurrency", job.getConcurrency());
+        view.put("total", job.getTotal());
+        view.put("items", bulkJobService.countItems(job.getId()));
+        view.put("active", bulkJobRunner.isActive(job.getId()));
+        view.put("last_error", job.getLastError());
+        view.put("created_at", job.getCreatedAt());
+        view.put("finished_at", job.getFinishedAt());
+        return view;
+    }
+}
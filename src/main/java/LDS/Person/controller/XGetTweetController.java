@@ -1,29 +1,42 @@
 package LDS.Person.controller;
 
+import LDS.Person.config.TwitterHttpTransport;
 import LDS.Person.config.TwitterTokenHelper;
+import LDS.Person.dto.request.TweetBatchDetailRequest;
 import LDS.Person.dto.request.TweetDetailRequest;
 import LDS.Person.dto.response.TweetDetailResponse;
+import LDS.Person.entity.GetTweet;
 import LDS.Person.entity.TwitterToken;
 import LDS.Person.repository.TwitterTokenRepository;
 import LDS.Person.service.GetTweetStorageService;
+import LDS.Person.service.TimelineSyncService;
+import LDS.Person.util.TwitterRateLimitHandler;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * X（Twitter）推文获取控制器 - 获取用户推文相关 API
@@ -40,7 +53,10 @@ public class XGetTweetController {
     private TwitterTokenRepository twitterTokenRepository;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private TwitterHttpTransport twitterHttpTransport;
+
+    @Autowired
+    private TimelineSyncService timelineSyncService;
 
     @Autowired
     private GetTweetStorageService getTweetStorageService;
@@ -48,11 +64,29 @@ public class XGetTweetController {
     @Autowired
     private TwitterTokenHelper twitterTokenHelper;
 
+    @Autowired
+    private TwitterRateLimitHandler rateLimitHandler;
+
     /**
      * Twitter API 基础 URL
      */
     private static final String TWITTER_API_BASE = "https://api.x.com/2";
 
+    /**
+     * /2/tweets?ids= 单次最多查询的推文数
+     */
+    private static final int TWEET_LOOKUP_CHUNK = 100;
+
+    /**
+     * 批量详情单次请求最多的推文数（去重后）
+     */
+    private static final int MAX_BATCH_DETAIL_IDS = 5000;
+
+    /**
+     * 批量详情流的超时时间
+     */
+    private static final long BATCH_DETAIL_TIMEOUT_MILLIS = 300_000;
+
     /**
      * 获取用户最近的推文列表（5）
      * 
@@ -69,7 +103,7 @@ public class XGetTweetController {
     }
 
     @GetMapping("/latestsave")
-    @ApiOperation(value = "获取最近推文保存数据库", notes = "获取同 /latest 的数据并将推文写入 get_tweets 表，已有 tweet_id 不重复插入")
+    @ApiOperation(value = "增量同步推文保存数据库", notes = "按 tweet_sync_cursor 记录的 since_id 增量拉取该用户上次同步之后的新推文并写入 get_tweets 表，只返回新推文；单次翻页达到上限时 has_more=true，下次调用继续")
     public ResponseEntity<Map<String, Object>> getLatestTweetsAndStore(
             @RequestParam(required = false, name = "userId") String userId,
             HttpSession session) {
@@ -77,47 +111,134 @@ public class XGetTweetController {
     }
 
     @PostMapping("/detail")
-    @ApiOperation(value = "获取推文详情", notes = "根据推文 ID 获取单条推文的详细信息")
-    public ResponseEntity<TweetDetailResponse> getTweetDetail(
+    @ApiOperation(value = "获取推文详情", notes = "根据推文 ID 获取单条推文的详细信息。遇到 429 时在后台按退避策略重试，不占用请求线程")
+    public CompletableFuture<ResponseEntity<TweetDetailResponse>> getTweetDetail(
             @RequestBody TweetDetailRequest request) {
         if (request == null || request.getTweetId() == null || request.getTweetId().isBlank()) {
-            return ResponseEntity.badRequest().body(TweetDetailResponse.badRequest("tweet_id 不能为空"));
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body(TweetDetailResponse.badRequest("tweet_id 不能为空")));
         }
 
         String effectiveUserId = resolveUserId(request.getUserId());
         TwitterToken latestToken = twitterTokenHelper.getLatestValidToken();
         if (latestToken == null) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(TweetDetailResponse.error("未找到数据库中的有效 Token"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(TweetDetailResponse.error("未找到数据库中的有效 Token")));
         }
 
         String accessToken = latestToken.getAccessToken();
-        Map<String, Object> detail = fetchTweetDetail(request.getTweetId(), accessToken);
+        return fetchTweetDetail(request.getTweetId(), accessToken).thenApply(detail -> {
+            if (detail == null) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(TweetDetailResponse.error("获取推文详情失败"));
+            }
+
+            if (detail.containsKey("rate_limited")) {
+                TweetDetailResponse body = TweetDetailResponse.error((String) detail.get("rate_limited"));
+                body.setCode(429);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(body);
+            }
+
+            if (detail.containsKey("error")) {
+                return ResponseEntity.badRequest().body(TweetDetailResponse.badRequest((String) detail.get("error")));
+            }
 
-        if (detail == null) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(TweetDetailResponse.error("获取推文详情失败"));
+            TweetDetailResponse.TweetDetailData data = new TweetDetailResponse.TweetDetailData();
+            data.setId((String) detail.get("id"));
+            data.setText((String) detail.get("text"));
+            data.setAuthorId((String) detail.get("author_id"));
+            data.setCreatedAt((String) detail.get("created_at"));
+
+            TweetDetailResponse.TweetPublicMetrics metrics = new TweetDetailResponse.TweetPublicMetrics();
+            metrics.setLikeCount(asInteger(detail.get("like_count")));
+            metrics.setRetweetCount(asInteger(detail.get("retweet_count")));
+            metrics.setQuoteCount(asInteger(detail.get("quote_count")));
+            metrics.setReplyCount(asInteger(detail.get("reply_count")));
+            data.setPublicMetrics(metrics);
+
+            log.info("返回推文详情，tweet_id: {}，owner: {}", request.getTweetId(), effectiveUserId);
+            return ResponseEntity.ok(TweetDetailResponse.success(data));
+        });
+    }
+
+    @PostMapping(value = "/details", produces = "application/x-ndjson")
+    @ApiOperation(value = "批量获取推文详情", notes = "tweet_ids 去重后每 100 个合并为一次 /2/tweets?ids= 请求，各组并发执行（受速率限制与重试约束），"
+            + "以 NDJSON 逐行返回：每条推文一行（失败的 ID 带 error 字段），最后一行为 summary。skip_cached=true 时优先使用 get_tweets 表中已保存的推文")
+    public ResponseEntity<ResponseBodyEmitter> getTweetDetails(@RequestBody TweetBatchDetailRequest request) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(BATCH_DETAIL_TIMEOUT_MILLIS);
+        ResponseEntity<ResponseBodyEmitter> streaming = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(emitter);
+
+        Set<String> uniqueIds = new LinkedHashSet<>();
+        if (request != null && request.getTweetIds() != null) {
+            for (String id : request.getTweetIds()) {
+                if (id != null && !id.isBlank()) {
+                    uniqueIds.add(id.trim());
+                }
+            }
+        }
+        if (uniqueIds.isEmpty() || uniqueIds.size() > MAX_BATCH_DETAIL_IDS) {
+            sendLine(emitter, Map.of("error", uniqueIds.isEmpty()
+                    ? "tweet_ids 不能为空"
+                    : "tweet_ids 去重后最多 " + MAX_BATCH_DETAIL_IDS + " 个"));
+            emitter.complete();
+            return streaming;
+        }
+
+        TwitterToken latestToken = twitterTokenHelper.getLatestValidToken();
+        if (latestToken == null) {
+            sendLine(emitter, Map.of("error", "未找到数据库中的有效 Token"));
+            emitter.complete();
+            return streaming;
         }
 
-        if (detail.containsKey("error")) {
-            return ResponseEntity.badRequest().body(TweetDetailResponse.badRequest((String) detail.get("error")));
+        // 已保存在 get_tweets 中的推文直接返回
+        int cached = 0;
+        if (Boolean.TRUE.equals(request.getSkipCached())) {
+            for (GetTweet tweet : getTweetStorageService.findByTweetIds(uniqueIds)) {
+                if (uniqueIds.remove(tweet.getTweetId())) {
+                    Map<String, Object> line = new HashMap<>();
+                    line.put("id", tweet.getTweetId());
+                    line.put("text", tweet.getText());
+                    line.put("author_id", tweet.getAuthorId());
+                    line.put("created_at", tweet.getCreatedAt() != null ? tweet.getCreatedAt().toString() : null);
+                    line.put("source", "local");
+                    sendLine(emitter, line);
+                    cached++;
+                }
+            }
         }
 
-        TweetDetailResponse.TweetDetailData data = new TweetDetailResponse.TweetDetailData();
-        data.setId((String) detail.get("id"));
-        data.setText((String) detail.get("text"));
-        data.setAuthorId((String) detail.get("author_id"));
-        data.setCreatedAt((String) detail.get("created_at"));
-
-        TweetDetailResponse.TweetPublicMetrics metrics = new TweetDetailResponse.TweetPublicMetrics();
-        metrics.setLikeCount(asInteger(detail.get("like_count")));
-        metrics.setRetweetCount(asInteger(detail.get("retweet_count")));
-        metrics.setQuoteCount(asInteger(detail.get("quote_count")));
-        metrics.setReplyCount(asInteger(detail.get("reply_count")));
-        data.setPublicMetrics(metrics);
-
-        log.info("返回推文详情，tweet_id: {}，owner: {}", request.getTweetId(), effectiveUserId);
-        return ResponseEntity.ok(TweetDetailResponse.success(data));
+        List<String> remaining = new ArrayList<>(uniqueIds);
+        List<CompletableFuture<int[]>> chunks = new ArrayList<>();
+        for (int from = 0; from < remaining.size(); from += TWEET_LOOKUP_CHUNK) {
+            List<String> chunk = remaining.subList(from, Math.min(from + TWEET_LOOKUP_CHUNK, remaining.size()));
+            chunks.add(fetchTweetChunk(chunk, latestToken.getAccessToken(), emitter));
+        }
+
+        int cachedCount = cached;
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).whenComplete((v, ex) -> {
+            int found = 0;
+            int failed = 0;
+            for (CompletableFuture<int[]> chunk : chunks) {
+                int[] counts = chunk.join();
+                found += counts[0];
+                failed += counts[1];
+            }
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("requested", request.getTweetIds().size());
+            summary.put("unique", cachedCount + remaining.size());
+            summary.put("cached", cachedCount);
+            summary.put("fetched", found);
+            summary.put("failed", failed);
+            summary.put("upstream_calls", chunks.size());
+            sendLine(emitter, Map.of("summary", summary));
+            emitter.complete();
+            log.info("批量获取推文详情完成: 去重后 {} 个，本地 {} 个，上游获取 {} 个，失败 {} 个，上游请求 {} 次",
+                    cachedCount + remaining.size(), cachedCount, found, failed, chunks.size());
+        });
+        return streaming;
     }
 
     private Integer asInteger(Object value) {
@@ -154,7 +275,9 @@ public class XGetTweetController {
             log.info("已从数据库获取 access_token，token: {}...", 
                     accessToken.substring(0, Math.min(20, accessToken.length())));
 
-            Map<String, Object> tweetData = fetchUserLatestTweets(effectiveUserId, accessToken);
+            Map<String, Object> tweetData = persist
+                    ? timelineSyncService.syncUserTimeline(effectiveUserId, accessToken)
+                    : fetchUserLatestTweets(effectiveUserId, accessToken);
 
             if (tweetData == null) {
                 response.put("code", 500);
@@ -169,15 +292,6 @@ public class XGetTweetController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            if (persist) {
-                Object tweetsObj = tweetData.get("tweets");
-                if (tweetsObj instanceof List<?>) {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> tweetsToStore = (List<Map<String, Object>>) tweetsObj;
-                    getTweetStorageService.saveTweets(tweetsToStore);
-                }
-            }
-
             response.put("code", 200);
             response.put("message", "成功获取推文");
             response.put("data", tweetData);
@@ -185,6 +299,12 @@ public class XGetTweetController {
             log.info("✅ 成功获取用户 {} 的最近推文", effectiveUserId);
             return ResponseEntity.ok(response);
 
+        } catch (HttpClientErrorException e) {
+            // 同步中途失败时游标停留在最后一页已落库的位置，下次调用继续
+            log.warn("Twitter API 返回 HTTP 错误，状态码: {}", e.getStatusCode());
+            response.put("code", e.getStatusCode().value());
+            response.put("message", "Twitter API 错误: " + e.getStatusCode());
+            return ResponseEntity.status(e.getStatusCode()).body(response);
         } catch (Exception e) {
             log.error("获取推文异常", e);
             response.put("code", 500);
@@ -222,7 +342,7 @@ public class XGetTweetController {
             org.springframework.http.HttpEntity<Void> entity = new org.springframework.http.HttpEntity<>(headers);
             
             // 使用 exchange 方法传递请求头（getForEntity 不支持自定义请求头）
-            ResponseEntity<String> apiResponse = restTemplate.exchange(url, org.springframework.http.HttpMethod.GET, entity, String.class);
+            ResponseEntity<String> apiResponse = twitterHttpTransport.exchange(url, org.springframework.http.HttpMethod.GET, entity, String.class);
 
             if (apiResponse.getStatusCode() != HttpStatus.OK) {
                 log.error("Twitter API 返回错误状态: {}", apiResponse.getStatusCode());
@@ -297,62 +417,153 @@ public class XGetTweetController {
         }
     }
 
-    private Map<String, Object> fetchTweetDetail(String tweetId, String accessToken) {
-        try {
-            String url = String.format(
-                    "%s/tweets/%s?tweet.fields=created_at,author_id,public_metrics",
-                    TWITTER_API_BASE, tweetId);
+    private CompletableFuture<Map<String, Object>> fetchTweetDetail(String tweetId, String accessToken) {
+        String url = String.format(
+                "%s/tweets/%s?tweet.fields=created_at,author_id,public_metrics",
+                TWITTER_API_BASE, tweetId);
+
+        log.debug("调用 Twitter API 获取推文详情: {}", url);
+
+        org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
+        headers.set("Authorization", "Bearer " + accessToken);
+        headers.set("Accept", "application/json");
+
+        org.springframework.http.HttpEntity<Void> entity = new org.springframework.http.HttpEntity<>(headers);
+        return rateLimitHandler.executeWithRetryAsync(
+                        () -> twitterHttpTransport.exchange(url, org.springframework.http.HttpMethod.GET, entity, String.class))
+                .thenApply(apiResponse -> parseTweetDetail(tweetId, apiResponse))
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof Exception e && rateLimitHandler.isRateLimitError(e)) {
+                        long retryAfter = rateLimitHandler.extractRetryAfter((HttpClientErrorException) e);
+                        log.warn("获取推文详情触发速率限制，tweet_id: {}，{} 秒后可重试", tweetId, retryAfter);
+                        Map<String, Object> errorMap = new HashMap<>();
+                        errorMap.put("rate_limited", "触发 X API 速率限制，请 " + retryAfter + " 秒后重试");
+                        return errorMap;
+                    }
+                    log.error("获取推文详情失败", cause);
+                    return null;
+                });
+    }
 
-            log.debug("调用 Twitter API 获取推文详情: {}", url);
+    private Map<String, Object> parseTweetDetail(String tweetId, ResponseEntity<String> apiResponse) {
+        if (apiResponse.getStatusCode() != HttpStatus.OK) {
+            Map<String, Object> errorMap = new HashMap<>();
+            errorMap.put("error", "API 请求失败，状态码: " + apiResponse.getStatusCode());
+            return errorMap;
+        }
 
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.set("Authorization", "Bearer " + accessToken);
-            headers.set("Accept", "application/json");
+        JSONObject jsonResponse = JSON.parseObject(apiResponse.getBody());
 
-            org.springframework.http.HttpEntity<Void> entity = new org.springframework.http.HttpEntity<>(headers);
-            ResponseEntity<String> apiResponse = restTemplate.exchange(url, org.springframework.http.HttpMethod.GET, entity, String.class);
+        if (jsonResponse.containsKey("errors")) {
+            Map<String, Object> errorMap = new HashMap<>();
+            errorMap.put("error", jsonResponse.getJSONArray("errors").getJSONObject(0).getString("message"));
+            return errorMap;
+        }
 
-            if (apiResponse.getStatusCode() != HttpStatus.OK) {
-                Map<String, Object> errorMap = new HashMap<>();
-                errorMap.put("error", "API 请求失败，状态码: " + apiResponse.getStatusCode());
-                return errorMap;
-            }
+        JSONObject data = jsonResponse.getJSONObject("data");
+        if (data == null) {
+            Map<String, Object> errorMap = new HashMap<>();
+            errorMap.put("error", "推文不存在或被删除");
+            return errorMap;
+        }
 
-            JSONObject jsonResponse = JSON.parseObject(apiResponse.getBody());
+        Map<String, Object> detail = toDetailMap(data);
 
-            if (jsonResponse.containsKey("errors")) {
-                Map<String, Object> errorMap = new HashMap<>();
-                errorMap.put("error", jsonResponse.getJSONArray("errors").getJSONObject(0).getString("message"));
-                return errorMap;
-            }
-
-            JSONObject data = jsonResponse.getJSONObject("data");
-            if (data == null) {
-                Map<String, Object> errorMap = new HashMap<>();
-                errorMap.put("error", "推文不存在或被删除");
-                return errorMap;
-            }
+        log.info("成功获取推文详情: {}", tweetId);
+        return detail;
+    }
 
-            Map<String, Object> detail = new HashMap<>();
-            detail.put("id", data.getString("id"));
-            detail.put("text", data.getString("text"));
-            detail.put("created_at", data.getString("created_at"));
-            detail.put("author_id", data.getString("author_id"));
-
-            JSONObject publicMetrics = data.getJSONObject("public_metrics");
-            if (publicMetrics != null) {
-                detail.put("like_count", publicMetrics.getIntValue("like_count"));
-                detail.put("retweet_count", publicMetrics.getIntValue("retweet_count"));
-                detail.put("quote_count", publicMetrics.getIntValue("quote_count"));
-                detail.put("reply_count", publicMetrics.getIntValue("reply_count"));
-            }
+    /**
+     * 通过 /2/tweets?ids= 获取一组（最多 100 个）推文，结果逐行写入 emitter
+     *
+     * @return [成功条数, 失败条数]，不会异常完成
+     */
+    private CompletableFuture<int[]> fetchTweetChunk(List<String> ids, String accessToken, ResponseBodyEmitter emitter) {
+        String url = String.format("%s/tweets?ids=%s&tweet.fields=created_at,author_id,public_metrics",
+                TWITTER_API_BASE, String.join(",", ids));
+        return rateLimitHandler.executeWithRetryAsync(() -> twitterHttpTransport.get(url, accessToken))
+                .thenApply(apiResponse -> {
+                    JSONObject json = JSON.parseObject(apiResponse.getBody());
+                    int found = 0;
+                    Set<String> missing = new LinkedHashSet<>(ids);
+
+                    JSONArray data = json != null ? json.getJSONArray("data") : null;
+                    if (data != null) {
+                        for (int i = 0; i < data.size(); i++) {
+                            Map<String, Object> detail = toDetailMap(data.getJSONObject(i));
+                            missing.remove((String) detail.get("id"));
+                            sendLine(emitter, detail);
+                            found++;
+                        }
+                    }
+
+                    // 部分 ID 不存在或无权限时，X 在 errors 中逐个返回
+                    Map<String, String> errors = new HashMap<>();
+                    JSONArray errorArray = json != null ? json.getJSONArray("errors") : null;
+                    if (errorArray != null) {
+                        for (int i = 0; i < errorArray.size(); i++) {
+                            JSONObject error = errorArray.getJSONObject(i);
+                            String id = error.getString("resource_id") != null ? error.getString("resource_id") : error.getString("value");
+                            if (id != null) {
+                                String message = error.getString("detail") != null ? error.getString("detail") : error.getString("title");
+                                errors.put(id, message != null ? message : "推文不存在或被删除");
+                            }
+                        }
+                    }
+                    for (String id : missing) {
+                        Map<String, Object> line = new HashMap<>();
+                        line.put("id", id);
+                        line.put("error", errors.getOrDefault(id, "推文不存在或被删除"));
+                        sendLine(emitter, line);
+                    }
+                    return new int[]{found, missing.size()};
+                })
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    String message;
+                    if (cause instanceof Exception e && rateLimitHandler.isRateLimitError(e)) {
+                        long retryAfter = rateLimitHandler.extractRetryAfter((HttpClientErrorException) e);
+                        message = "触发 X API 速率限制，请 " + retryAfter + " 秒后重试";
+                    } else {
+                        log.error("批量获取推文详情失败", cause);
+                        message = "获取推文详情失败: " + cause.getMessage();
+                    }
+                    for (String id : ids) {
+                        Map<String, Object> line = new HashMap<>();
+                        line.put("id", id);
+                        line.put("error", message);
+                        sendLine(emitter, line);
+                    }
+                    return new int[]{0, ids.size()};
+                });
+    }
 
-            log.info("成功获取推文详情: {}", tweetId);
-            return detail;
+    /**
+     * 向 NDJSON 流写入一行（客户端断开时忽略）
+     */
+    private void sendLine(ResponseBodyEmitter emitter, Map<String, ?> line) {
+        try {
+            emitter.send(JSON.toJSONString(line) + "\n", MediaType.TEXT_PLAIN);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("批量推文详情流已关闭: {}", e.getMessage());
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("获取推文详情失败", e);
-            return null;
+    private Map<String, Object> toDetailMap(JSONObject data) {
+        Map<String, Object> detail = new HashMap<>();
+        detail.put("id", data.getString("id"));
+        detail.put("text", data.getString("text"));
+        detail.put("created_at", data.getString("created_at"));
+        detail.put("author_id", data.getString("author_id"));
+
+        JSONObject publicMetrics = data.getJSONObject("public_metrics");
+        if (publicMetrics != null) {
+            detail.put("like_count", publicMetrics.getIntValue("like_count"));
+            detail.put("retweet_count", publicMetrics.getIntValue("retweet_count"));
+            detail.put("quote_count", publicMetrics.getIntValue("quote_count"));
+            detail.put("reply_count", publicMetrics.getIntValue("reply_count"));
         }
+        return detail;
     }
 }
@@ -5,20 +5,17 @@ import com.alibaba.fastjson2.JSONObject;
 import LDS.Person.config.TwitterTokenHelper;
 import LDS.Person.entity.TwitterToken;
 import LDS.Person.service.TwitterTokenService;
+import LDS.Person.service.TwitterTweetService;
 import LDS.Person.dto.request.RepostRequest;
 import LDS.Person.dto.response.RepostResponse;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.InputStream;
 import java.util.HashMap;
@@ -42,13 +39,11 @@ public class XRepostController {
     private TwitterTokenService twitterTokenService;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private TwitterTweetService twitterTweetService;
     
     @Autowired
     private TwitterTokenHelper twitterTokenHelper;
 
-    private static final String TWITTER_API_BASE = "https://api.x.com/2";
-
     /**
      * 转发一条推文
      * 
@@ -112,62 +107,22 @@ public class XRepostController {
     }
 
     /**
-     * 发送转发请求到 Twitter API
+     * 通过 TwitterTweetService 转发，并将异常转换为 error 字段
      */
     private Map<String, Object> sendRepostRequest(String userId, String tweetId, String accessToken) {
         try {
-            // 构建 API 请求 URL: POST /2/users/{id}/retweets
-            String url = String.format("%s/users/%s/retweets", TWITTER_API_BASE, userId);
-            log.debug("调用 Twitter API: {}", url);
-
-            // 构建请求体
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("tweet_id", tweetId);
-
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + accessToken);
-            headers.set("Accept", "application/json");
-            headers.set("Content-Type", "application/json");
-
-            HttpEntity<String> entity = new HttpEntity<>(requestBody.toString(), headers);
-
-            // 执行 POST 请求
-            ResponseEntity<String> apiResponse = restTemplate.exchange(
-                    url, 
-                    HttpMethod.POST, 
-                    entity, 
-                    String.class
-            );
-
-            String responseBody = apiResponse.getBody();
-            log.debug("Twitter API 转发响应: {}", responseBody);
-
-            // 解析响应
-            JSONObject jsonResponse = JSON.parseObject(responseBody);
-
-            // 检查是否有错误
-            if (jsonResponse.containsKey("errors")) {
-                log.error("Twitter API 返回错误: {}", jsonResponse);
-                Map<String, Object> errorMap = new HashMap<>();
-                errorMap.put("error", jsonResponse.getJSONArray("errors").getJSONObject(0).getString("message"));
-                return errorMap;
-            }
-
-            // 提取数据
-            JSONObject data = jsonResponse.getJSONObject("data");
-            if (data == null) {
-                Map<String, Object> emptyMap = new HashMap<>();
-                emptyMap.put("error", "API 响应缺少 data 字段");
-                return emptyMap;
-            }
+            boolean retweeted = twitterTweetService.repostTweet(accessToken, userId, tweetId);
 
             Map<String, Object> result = new HashMap<>();
-            result.put("retweeted", data.getBoolean("retweeted"));
-            
-            log.info("成功转发推文，API 返回状态: {}", data);
+            result.put("retweeted", retweeted);
             return result;
 
+        } catch (IllegalStateException e) {
+            // X API 在响应体中返回 errors
+            Map<String, Object> errorMap = new HashMap<>();
+            errorMap.put("error", e.getMessage());
+            return errorMap;
+
         } catch (HttpClientErrorException e) {
             String err = e.getResponseBodyAsString();
             log.error("调用 Twitter API 转发失败: {} (状态码: {})", err, e.getStatusCode(), e);
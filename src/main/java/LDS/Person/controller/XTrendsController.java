@@ -1,5 +1,7 @@
 package LDS.Person.controller;
 
+import LDS.Person.config.TrendsCacheProperties;
+import LDS.Person.config.TwitterHttpTransport;
 import LDS.Person.config.TwitterTokenHelper;
 import LDS.Person.dto.request.NewsSearchRequest;
 import LDS.Person.dto.response.NewsResponse;
@@ -7,12 +9,15 @@ import LDS.Person.dto.response.TrendResponse;
 import LDS.Person.entity.TwitterToken;
 import LDS.Person.repository.TwitterTokenRepository;
 import LDS.Person.service.TwitterTokenService;
+import LDS.Person.util.StaleWhileRevalidateCache;
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpEntity;
@@ -26,12 +31,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -52,13 +58,42 @@ public class XTrendsController {
     private TwitterTokenRepository twitterTokenRepository;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private TwitterHttpTransport twitterHttpTransport;
     
     @Autowired
     private TwitterTokenHelper twitterTokenHelper;
 
+    @Autowired
+    private TrendsCacheProperties trendsCacheProperties;
+
     private static final String TWITTER_API_BASE = "https://api.x.com/2";
 
+    /**
+     * 个性化趋势响应缓存（仅缓存 2xx 响应）
+     */
+    private StaleWhileRevalidateCache<String, ResponseEntity<TrendResponse>> trendsCache;
+
+    /**
+     * 新闻搜索响应缓存（仅缓存 2xx 响应）
+     */
+    private StaleWhileRevalidateCache<String, ResponseEntity<NewsResponse>> newsCache;
+
+    @PostConstruct
+    public void initCaches() {
+        trendsCache = new StaleWhileRevalidateCache<>("trends-cache", trendsCacheProperties.getMaxSize(),
+                trendsCacheProperties.getTtl(), trendsCacheProperties.getStaleTtl(),
+                response -> response.getStatusCode().is2xxSuccessful());
+        newsCache = new StaleWhileRevalidateCache<>("news-cache", trendsCacheProperties.getMaxSize(),
+                trendsCacheProperties.getTtl(), trendsCacheProperties.getStaleTtl(),
+                response -> response.getStatusCode().is2xxSuccessful());
+    }
+
+    @PreDestroy
+    public void shutdownCaches() {
+        trendsCache.shutdown();
+        newsCache.shutdown();
+    }
+
     /**
      * 获取个性化趋势
      */
@@ -77,48 +112,9 @@ public class XTrendsController {
             String accessToken = twitterToken.getAccessToken();
             log.info("✅ 已从数据库获取 access_token（userId: {}）", twitterToken.getTwitterUserId());
 
-            // 4. 调用 Twitter API
-            String url = TWITTER_API_BASE + "/users/personalized_trends";
-            log.debug("调用 Twitter API: {}", url);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + accessToken);
-            headers.set("Accept", "application/json");
-
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<String> apiResponse = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-            if (apiResponse.getStatusCode() != HttpStatus.OK) {
-                log.error("Twitter API 返回错误状态: {}", apiResponse.getStatusCode());
-                return ResponseEntity.status(apiResponse.getStatusCode())
-                        .body(TrendResponse.error("API 请求失败，状态码: " + apiResponse.getStatusCode()));
-            }
-
-            // 5. 解析响应
-            JSONObject jsonResponse = JSON.parseObject(apiResponse.getBody());
-            if (jsonResponse.containsKey("errors")) {
-                String errorMsg = jsonResponse.getJSONArray("errors").getJSONObject(0).getString("message");
-                log.warn("Twitter API 返回错误: {}", errorMsg);
-                return ResponseEntity.badRequest().body(TrendResponse.badRequest(errorMsg));
-            }
-
-            JSONArray dataArray = jsonResponse.getJSONArray("data");
-            List<TrendResponse.TrendData> trends = new ArrayList<>();
-
-            if (dataArray != null) {
-                for (int i = 0; i < dataArray.size(); i++) {
-                    JSONObject item = dataArray.getJSONObject(i);
-                    TrendResponse.TrendData trend = new TrendResponse.TrendData();
-                    trend.setTrendName(item.getString("trend_name"));
-                    trend.setPostCount(item.getInteger("post_count"));
-                    trend.setCategory(item.getString("category"));
-                    trend.setTrendingSince(item.getString("trending_since"));
-                    trends.add(trend);
-                }
-            }
-
-            log.info("成功获取 {} 条个性化趋势", trends.size());
-            return ResponseEntity.ok(TrendResponse.success(trends));
+            // 按用户缓存，突发的相同请求只触发一次上游调用
+            String cacheKey = "personalized|" + twitterToken.getTwitterUserId();
+            return trendsCache.get(cacheKey, () -> fetchPersonalizedTrends(accessToken));
 
         } catch (Exception e) {
             log.error("获取个性化趋势异常", e);
@@ -157,106 +153,181 @@ public class XTrendsController {
             String accessToken = twitterToken.getAccessToken();
             log.info("✅ 已从数据库获取 access_token（userId: {}）", twitterToken.getTwitterUserId());
 
-            // 4. 构建搜索 URL
-            String baseUrl = TWITTER_API_BASE + "/tweets/search/recent";
-            UriComponentsBuilder urlBuilder = UriComponentsBuilder.fromUriString(baseUrl);
-
-            // 添加搜索查询
-            urlBuilder.queryParam("query", query);
-
-            // 添加返回字段
-            urlBuilder.queryParam("tweet.fields", "created_at,public_metrics,lang,author_id");
-            urlBuilder.queryParam("user.fields", "name,username");
-            urlBuilder.queryParam("expansions", "author_id");
-
             // 设置结果数量（默认 10，最大 100）
             int maxResults = request.getMaxResults() != null ? request.getMaxResults() : 10;
             maxResults = Math.min(Math.max(maxResults, 1), 100);
-            urlBuilder.queryParam("max_results", maxResults);
+            String sortBy = request.getSortBy() != null && !request.getSortBy().isEmpty() ? request.getSortBy() : null;
 
-            // 设置排序方式
-            if (request.getSortBy() != null && !request.getSortBy().isEmpty()) {
-                urlBuilder.queryParam("sort_order", request.getSortBy());
-            }
+            // 按用户 + 规范化后的查询缓存（只合并空白，X 搜索运算符区分大小写）
+            String normalizedQuery = query.replaceAll("\\s+", " ");
+            String cacheKey = "search|" + twitterToken.getTwitterUserId() + "|" + normalizedQuery + "|" + maxResults + "|" + sortBy;
+            int finalMaxResults = maxResults;
+            return newsCache.get(cacheKey, () -> fetchNews(normalizedQuery, finalMaxResults, sortBy, accessToken));
 
-            String url = urlBuilder.toUriString();
-            log.debug("调用 Twitter API: {}", url);
+        } catch (Exception e) {
+            log.error("搜索新闻异常", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(NewsResponse.error("服务器错误: " + e.getMessage()));
+        }
+    }
 
-            // 5. 调用 Twitter API
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + accessToken);
-            headers.set("Accept", "application/json");
+    /**
+     * 查看趋势与新闻搜索缓存的统计信息
+     */
+    @GetMapping("/cache-stats")
+    @ApiOperation(value = "缓存统计", notes = "返回个性化趋势与新闻搜索响应缓存的命中、未命中、合并请求、淘汰等统计")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", 200);
+        response.put("message", "✅ 查询成功");
+        response.put("personalized", trendsCache.getStats());
+        response.put("searchNews", newsCache.getStats());
+        return ResponseEntity.ok(response);
+    }
 
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-            ResponseEntity<String> apiResponse = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+    /**
+     * 调用 X API 获取个性化趋势（缓存未命中或后台刷新时调用）
+     */
+    private ResponseEntity<TrendResponse> fetchPersonalizedTrends(String accessToken) {
+        // 4. 调用 Twitter API
+        String url = TWITTER_API_BASE + "/users/personalized_trends";
+        log.debug("调用 Twitter API: {}", url);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + accessToken);
+        headers.set("Accept", "application/json");
+
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        ResponseEntity<String> apiResponse = twitterHttpTransport.exchange(url, HttpMethod.GET, entity, String.class);
+
+        if (apiResponse.getStatusCode() != HttpStatus.OK) {
+            log.error("Twitter API 返回错误状态: {}", apiResponse.getStatusCode());
+            return ResponseEntity.status(apiResponse.getStatusCode())
+                    .body(TrendResponse.error("API 请求失败，状态码: " + apiResponse.getStatusCode()));
+        }
 
-            if (apiResponse.getStatusCode() != HttpStatus.OK) {
-                log.error("Twitter API 返回错误状态: {}", apiResponse.getStatusCode());
-                return ResponseEntity.status(apiResponse.getStatusCode())
-                        .body(NewsResponse.error("API 请求失败，状态码: " + apiResponse.getStatusCode()));
-            }
+        // 5. 解析响应
+        JSONObject jsonResponse = JSON.parseObject(apiResponse.getBody());
+        if (jsonResponse.containsKey("errors")) {
+            String errorMsg = jsonResponse.getJSONArray("errors").getJSONObject(0).getString("message");
+            log.warn("Twitter API 返回错误: {}", errorMsg);
+            return ResponseEntity.badRequest().body(TrendResponse.badRequest(errorMsg));
+        }
 
-            // 6. 解析响应
-            JSONObject jsonResponse = JSON.parseObject(apiResponse.getBody());
-            if (jsonResponse.containsKey("errors")) {
-                String errorMsg = jsonResponse.getJSONArray("errors").getJSONObject(0).getString("message");
-                log.warn("Twitter API 返回错误: {}", errorMsg);
-                return ResponseEntity.badRequest().body(NewsResponse.badRequest(errorMsg));
+        JSONArray dataArray = jsonResponse.getJSONArray("data");
+        List<TrendResponse.TrendData> trends = new ArrayList<>();
+
+        if (dataArray != null) {
+            for (int i = 0; i < dataArray.size(); i++) {
+                JSONObject item = dataArray.getJSONObject(i);
+                TrendResponse.TrendData trend = new TrendResponse.TrendData();
+                trend.setTrendName(item.getString("trend_name"));
+                trend.setPostCount(item.getInteger("post_count"));
+                trend.setCategory(item.getString("category"));
+                trend.setTrendingSince(item.getString("trending_since"));
+                trends.add(trend);
             }
+        }
 
-            // 获取用户数据（用于映射作者信息）
-            JSONArray usersArray = jsonResponse.getJSONArray("includes") != null
-                    ? jsonResponse.getJSONObject("includes").getJSONArray("users")
-                    : null;
-            java.util.Map<String, String> userMap = new java.util.HashMap<>();
-            if (usersArray != null) {
-                for (int i = 0; i < usersArray.size(); i++) {
-                    JSONObject user = usersArray.getJSONObject(i);
-                    userMap.put(user.getString("id"), user.getString("name"));
-                }
-            }
+        log.info("成功获取 {} 条个性化趋势", trends.size());
+        return ResponseEntity.ok(TrendResponse.success(trends));
+    }
 
-            // 7. 解析推文数据
-            JSONArray dataArray = jsonResponse.getJSONArray("data");
-            List<NewsResponse.NewsData> newsList = new ArrayList<>();
-
-            if (dataArray != null) {
-                for (int i = 0; i < dataArray.size(); i++) {
-                    JSONObject item = dataArray.getJSONObject(i);
-                    NewsResponse.NewsData news = new NewsResponse.NewsData();
-
-                    news.setTweetId(item.getString("id"));
-                    news.setText(item.getString("text"));
-                    news.setCreatedAt(item.getString("created_at"));
-                    news.setLang(item.getString("lang"));
-                    news.setAuthorId(item.getString("author_id"));
-                    news.setAuthorName(userMap.getOrDefault(item.getString("author_id"), "Unknown"));
-                    news.setSource("Twitter/X");
-
-                    // 解析公开指标
-                    JSONObject metricsJson = item.getJSONObject("public_metrics");
-                    if (metricsJson != null) {
-                        NewsResponse.NewsData.PublicMetrics metrics = new NewsResponse.NewsData.PublicMetrics();
-                        metrics.setLikeCount(metricsJson.getInteger("like_count"));
-                        metrics.setRetweetCount(metricsJson.getInteger("retweet_count"));
-                        metrics.setQuoteCount(metricsJson.getInteger("quote_count"));
-                        metrics.setReplyCount(metricsJson.getInteger("reply_count"));
-                        metrics.setImpressionCount(metricsJson.getInteger("impression_count"));
-                        news.setPublicMetrics(metrics);
-                    }
-
-                    newsList.add(news);
-                }
+    /**
+     * 调用 X API 搜索新闻（缓存未命中或后台刷新时调用）
+     */
+    private ResponseEntity<NewsResponse> fetchNews(String query, int maxResults, String sortBy, String accessToken) {
+        // 4. 构建搜索 URL
+        String baseUrl = TWITTER_API_BASE + "/tweets/search/recent";
+        UriComponentsBuilder urlBuilder = UriComponentsBuilder.fromUriString(baseUrl);
+
+        // 添加搜索查询
+        urlBuilder.queryParam("query", query);
+
+        // 添加返回字段
+        urlBuilder.queryParam("tweet.fields", "created_at,public_metrics,lang,author_id");
+        urlBuilder.queryParam("user.fields", "name,username");
+        urlBuilder.queryParam("expansions", "author_id");
+
+        urlBuilder.queryParam("max_results", maxResults);
+
+        // 设置排序方式
+        if (sortBy != null) {
+            urlBuilder.queryParam("sort_order", sortBy);
+        }
+
+        String url = urlBuilder.toUriString();
+        log.debug("调用 Twitter API: {}", url);
+
+        // 5. 调用 Twitter API
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + accessToken);
+        headers.set("Accept", "application/json");
+
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        ResponseEntity<String> apiResponse = twitterHttpTransport.exchange(url, HttpMethod.GET, entity, String.class);
+
+        if (apiResponse.getStatusCode() != HttpStatus.OK) {
+            log.error("Twitter API 返回错误状态: {}", apiResponse.getStatusCode());
+            return ResponseEntity.status(apiResponse.getStatusCode())
+                    .body(NewsResponse.error("API 请求失败，状态码: " + apiResponse.getStatusCode()));
+        }
+
+        // 6. 解析响应
+        JSONObject jsonResponse = JSON.parseObject(apiResponse.getBody());
+        if (jsonResponse.containsKey("errors")) {
+            String errorMsg = jsonResponse.getJSONArray("errors").getJSONObject(0).getString("message");
+            log.warn("Twitter API 返回错误: {}", errorMsg);
+            return ResponseEntity.badRequest().body(NewsResponse.badRequest(errorMsg));
+        }
+
+        // 获取用户数据（用于映射作者信息）
+        JSONArray usersArray = jsonResponse.getJSONArray("includes") != null
+                ? jsonResponse.getJSONObject("includes").getJSONArray("users")
+                : null;
+        java.util.Map<String, String> userMap = new java.util.HashMap<>();
+        if (usersArray != null) {
+            for (int i = 0; i < usersArray.size(); i++) {
+                JSONObject user = usersArray.getJSONObject(i);
+                userMap.put(user.getString("id"), user.getString("name"));
             }
+        }
 
-            log.info("成功搜索到 {} 条新闻，关键词: {}", newsList.size(), query);
-            return ResponseEntity.ok(NewsResponse.success(newsList, newsList.size()));
+        // 7. 解析推文数据
+        JSONArray dataArray = jsonResponse.getJSONArray("data");
+        List<NewsResponse.NewsData> newsList = new ArrayList<>();
+
+        if (dataArray != null) {
+            for (int i = 0; i < dataArray.size(); i++) {
+                JSONObject item = dataArray.getJSONObject(i);
+                NewsResponse.NewsData news = new NewsResponse.NewsData();
+
+                news.setTweetId(item.getString("id"));
+                news.setText(item.getString("text"));
+                news.setCreatedAt(item.getString("created_at"));
+                news.setLang(item.getString("lang"));
+                news.setAuthorId(item.getString("author_id"));
+                news.setAuthorName(userMap.getOrDefault(item.getString("author_id"), "Unknown"));
+                news.setSource("Twitter/X");
+
+                // 解析公开指标
+                JSONObject metricsJson = item.getJSONObject("public_metrics");
+                if (metricsJson != null) {
+                    NewsResponse.NewsData.PublicMetrics metrics = new NewsResponse.NewsData.PublicMetrics();
+                    metrics.setLikeCount(metricsJson.getInteger("like_count"));
+                    metrics.setRetweetCount(metricsJson.getInteger("retweet_count"));
+                    metrics.setQuoteCount(metricsJson.getInteger("quote_count"));
+                    metrics.setReplyCount(metricsJson.getInteger("reply_count"));
+                    metrics.setImpressionCount(metricsJson.getInteger("impression_count"));
+                    news.setPublicMetrics(metrics);
+                }
 
-        } catch (Exception e) {
-            log.error("搜索新闻异常", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(NewsResponse.error("服务器错误: " + e.getMessage()));
+                newsList.add(news);
+            }
         }
+
+        log.info("成功搜索到 {} 条新闻，关键词: {}", newsList.size(), query);
+        return ResponseEntity.ok(NewsResponse.success(newsList, newsList.size()));
     }
 
     // /**
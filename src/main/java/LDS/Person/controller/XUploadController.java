@@ -10,30 +10,27 @@ import LDS.Person.entity.MediaLibrary;
 import LDS.Person.repository.TwitterTokenRepository;
 import LDS.Person.service.TwitterTokenService;
 import LDS.Person.service.MediaLibraryService;
+import LDS.Person.service.MediaUploadService;
+import LDS.Person.service.ImagePoolService;
+import LDS.Person.tasks.MediaPoolReplenisher;
+import com.alibaba.fastjson2.JSONObject;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 
-import java.util.Properties;
 import java.io.File;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * X (Twitter) 媒体上传控制器 - 媒体上传相关 API
@@ -56,7 +53,13 @@ public class XUploadController {
     private TwitterTokenRepository twitterTokenRepository;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private MediaUploadService mediaUploadService;
+    
+    @Autowired
+    private ImagePoolService imagePoolService;
+
+    @Autowired
+    private MediaPoolReplenisher mediaPoolReplenisher;
     
     @Autowired
     private TwitterTokenHelper twitterTokenHelper;
@@ -70,9 +73,9 @@ public class XUploadController {
     @PostMapping("/upload-local")
     @ApiOperation(
         value = "上传本地媒体",
-        notes = "从 config.properties 的 saveimgdir 目录随机选择一个 PNG 文件，调用 Twitter /2/media/upload 接口上传媒体。使用 config.properties 的 DefaultUID 作为用户身份，从数据库获取其 Token 进行认证"
+        notes = "从 config.properties 的 saveimgdir 目录的图片池中抽取一个 PNG 文件（media.pool.mode=shuffle 时一轮内不重复），按 INIT/APPEND/FINALIZE 分片上传到 Twitter。使用 config.properties 的 DefaultUID 作为用户身份，从数据库获取其 Token 进行认证"
     )
-    public ResponseEntity<UploadMediaResponse> uploadLocalMedia(
+    public CompletableFuture<ResponseEntity<UploadMediaResponse>> uploadLocalMedia(
             @RequestBody(required = false) UploadLocalMediaRequest request) {
         
         try {
@@ -90,147 +93,34 @@ public class XUploadController {
             log.info("收到上传本地媒体请求，userId（来自 config.properties）: {}, mediaCategory: {}, mediaType: {}", 
                     userId, mediaCategory, mediaType);
             
-            // 从数据库获取该用户的 Token
-            TwitterToken twitterToken = twitterTokenHelper.getDefaultUserToken();
-            if (twitterToken == null || twitterToken.getAccessToken() == null) {
-                UploadMediaResponse resp = UploadMediaResponse.unauthorized("未找到该用户的 access_token，请先登录授权");
-                log.error("未能从数据库获取用户 {} 的 token", userId);
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(resp);
+            ResponseEntity<UploadMediaResponse> tokenError = checkToken(userId);
+            if (tokenError != null) {
+                return CompletableFuture.completedFuture(tokenError);
             }
-            
-            String accessToken = twitterToken.getAccessToken();
-            log.info("✅ 已从数据库获取 access_token（用户: {}），Token: {}...", 
-                    userId, accessToken.substring(0, Math.min(20, accessToken.length())));
-            
-            // 检查 token 权限范围，确保包含 tweet.write 权限
-            String scope = twitterToken.getScope();
-            if (scope != null && !scope.contains("tweet.write")) {
-                log.warn("Token 权限不足，缺少 tweet.write 权限。当前权限: {}", scope);
-                UploadMediaResponse resp = UploadMediaResponse.forbidden(
-                    "Token 权限不足，需要 tweet.write 权限来上传媒体。请重新登录并授予必要权限");
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(resp);
+            String accessToken = twitterTokenHelper.getDefaultUserToken().getAccessToken();
+            
+            // 从内存中的图片池抽取（目录由 config.properties 的 saveimgdir 指定）
+            Path selectedImage = imagePoolService.pickImage();
+            
+            if (selectedImage == null) {
+                String saveImgDir = ConfigManager.getInstance().getString("saveimgdir", "");
+                String message = new File(saveImgDir).isDirectory()
+                        ? "SaveImg 文件夹中没有 PNG 图片"
+                        : String.format("SaveImg 文件夹不存在: %s", saveImgDir);
+                log.error(message);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(UploadMediaResponse.badRequest(message)));
             }
             
-            // 从 config.properties 读取 saveimgdir 目录
-            String saveImgDir = ConfigManager.getInstance().getString("saveimgdir", "");
-            File saveImgFolder = new File(saveImgDir);
-            
-            if (!saveImgFolder.exists() || !saveImgFolder.isDirectory()) {
-                UploadMediaResponse resp = UploadMediaResponse.badRequest(
-                    String.format("SaveImg 文件夹不存在: %s", saveImgDir));
-                log.error("SaveImg 文件夹不存在: {}", saveImgDir);
-                return ResponseEntity.badRequest().body(resp);
-            }
-            
-            // 获取所有 PNG 文件
-            File[] pngFiles = saveImgFolder.listFiles((dir, name) -> name.toLowerCase().endsWith(".png"));
-            
-            if (pngFiles == null || pngFiles.length == 0) {
-                UploadMediaResponse resp = UploadMediaResponse.badRequest("SaveImg 文件夹中没有 PNG 图片");
-                log.error("SaveImg 文件夹中没有找到 PNG 文件");
-                return ResponseEntity.badRequest().body(resp);
-            }
-            
-            // 随机抽取一个 PNG 文件
-            Random random = new Random();
-            File selectedImageFile = pngFiles[random.nextInt(pngFiles.length)];
-            
-            log.info("从 SaveImg 文件夹随机抽取 PNG 文件: {}，共有 {} 个 PNG 文件可用", 
-                    selectedImageFile.getName(), pngFiles.length);
-            
-            // 读取文件字节流
-            byte[] fileBytes = Files.readAllBytes(selectedImageFile.toPath());
-            log.info("已读取随机抽取的图片文件，文件名: {}，大小: {} 字节", 
-                    selectedImageFile.getName(), fileBytes.length);
-            
-            // 构建 multipart form-data 请求
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + accessToken);
-            headers.set("User-Agent", "PersonLog/1.0 (Twitter Media Upload)");
-            
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            final String fileName = selectedImageFile.getName();
-            body.add("media", new org.springframework.core.io.ByteArrayResource(fileBytes) {
-                @Override
-                public String getFilename() {
-                    return fileName;
-                }
-            });
-            body.add("media_category", mediaCategory);
-            body.add("media_type", mediaType);
+            log.info("从图片池抽取 PNG 文件: {}，共有 {} 个 PNG 文件，本轮剩余 {} 个", 
+                    selectedImage.getFileName(), imagePoolService.size(), imagePoolService.remaining());
             
-            log.info("Request headers: Authorization Bearer ***, User-Agent: PersonLog/1.0");
-            log.info("Request body: media_type={}, media_category={}, file_size={} bytes", mediaType, mediaCategory, fileBytes.length);
+            return toResponse(mediaUploadService.uploadFile(
+                    selectedImage, mediaType, mediaCategory, accessToken, userId));
             
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-            
-            // 调用 Twitter API
-            String twitterMediaUploadUrl = "https://api.x.com/2/media/upload";
-            log.info("准备调用 Twitter 媒体上传接口: {}", twitterMediaUploadUrl);
-            
-            ResponseEntity<Map> twitterResponse = restTemplate.postForEntity(
-                    twitterMediaUploadUrl,
-                    requestEntity,
-                    Map.class
-            );
-            
-            log.info("Twitter 媒体上传接口返回状态码: {}", twitterResponse.getStatusCode());
-            
-            if (twitterResponse.getStatusCode().is2xxSuccessful() && twitterResponse.getBody() != null) {
-                Map<String, Object> twitterData = twitterResponse.getBody();
-                
-                // 检查是否有错误信息
-                if (twitterData.containsKey("errors")) {
-                    UploadMediaResponse resp = UploadMediaResponse.badRequest("Twitter API 返回错误");
-                    log.error("Twitter API 返回错误: {}", twitterData.get("errors"));
-                    return ResponseEntity.badRequest().body(resp);
-                }
-                
-                // 保存媒体记录到数据库
-                try {
-                    Map<String, Object> dataMap = (Map<String, Object>) twitterData.get("data");
-                    if (dataMap != null) {
-                        MediaLibrary mediaLibrary = MediaLibrary.builder()
-                                .mediaId(String.valueOf(dataMap.get("id")))
-                                .mediaKey(String.valueOf(dataMap.get("media_key")))
-                                .createTime(LocalDateTime.now())
-                                .endTime(LocalDateTime.now().plusHours(24))
-                                .status(0)
-                                .build();
-                        
-                        mediaLibraryService.save(mediaLibrary);
-                        log.info("媒体记录已保存到数据库: mediaId={}, mediaKey={}", 
-                                mediaLibrary.getMediaId(), 
-                                mediaLibrary.getMediaKey());
-                    }
-                } catch (Exception e) {
-                    log.error("保存媒体记录到数据库失败", e);
-                    // 继续返回成功，不影响用户流程
-                }
-                
-                // 返回成功响应
-                UploadMediaResponse resp = UploadMediaResponse.success(twitterData.get("data"));
-                log.info("✅ 媒体上传成功");
-                return ResponseEntity.ok(resp);
-            } else {
-                UploadMediaResponse resp = UploadMediaResponse.serverError(
-                    String.format("Twitter API 返回错误状态码: %s", twitterResponse.getStatusCode()));
-                log.error("Twitter API 返回错误状态码: {}", twitterResponse.getStatusCode());
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(resp);
-            }
-            
-        } catch (org.springframework.web.client.HttpClientErrorException ex) {
-            log.error("Twitter API 返回 HTTP 错误，状态码: {}, 响应体: {}", ex.getStatusCode(), ex.getResponseBodyAsString());
-            UploadMediaResponse resp = new UploadMediaResponse(
-                ex.getStatusCode().value(),
-                "Twitter API 错误: " + ex.getStatusCode(),
-                null
-            );
-            return ResponseEntity.status(ex.getStatusCode()).body(resp);
         } catch (Exception e) {
             log.error("媒体上传异常", e);
             UploadMediaResponse resp = UploadMediaResponse.serverError("服务器错误: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(resp);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(resp));
         }
     }
 
@@ -243,9 +133,9 @@ public class XUploadController {
     @PostMapping("/upload-file")
     @ApiOperation(
         value = "上传指定路径的媒体",
-        notes = "上传指定路径的媒体文件到 Twitter，返回 media_id。支持本地文件路径和 URL。使用 config.properties 的 DefaultUID 作为用户身份，从数据库获取其 Token 进行认证"
+        notes = "按 INIT/APPEND/FINALIZE 分片上传指定路径的媒体文件到 Twitter，返回 media_id。支持本地文件路径和 URL（先下载到临时文件）。视频等需要异步处理的媒体会等待 STATUS 完成后返回。使用 config.properties 的 DefaultUID 作为用户身份，从数据库获取其 Token 进行认证"
     )
-    public ResponseEntity<UploadMediaResponse> uploadFileMedia(
+    public CompletableFuture<ResponseEntity<UploadMediaResponse>> uploadFileMedia(
             @RequestBody UploadFileMediaRequest request) {
         
         try {
@@ -253,7 +143,7 @@ public class XUploadController {
             if (request == null || request.getFilePath() == null || request.getFilePath().isBlank()) {
                 UploadMediaResponse resp = UploadMediaResponse.badRequest("filePath 不能为空");
                 log.warn("上传请求缺少 filePath 参数");
-                return ResponseEntity.badRequest().body(resp);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(resp));
             }
             
             String filePath = request.getFilePath();
@@ -266,212 +156,140 @@ public class XUploadController {
             log.info("收到上传文件媒体请求，userId（来自 config.properties）: {}，filePath: {}，mediaCategory: {}，mediaType: {}", 
                     userId, filePath, mediaCategory, mediaType);
             
-            // 从数据库获取该用户的 Token
-            TwitterToken twitterToken = twitterTokenHelper.getDefaultUserToken();
-            if (twitterToken == null || twitterToken.getAccessToken() == null) {
-                UploadMediaResponse resp = UploadMediaResponse.unauthorized("未找到该用户的 access_token，请先登录授权");
-                log.error("未能从数据库获取用户 {} 的 token", userId);
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(resp);
+            ResponseEntity<UploadMediaResponse> tokenError = checkToken(userId);
+            if (tokenError != null) {
+                return CompletableFuture.completedFuture(tokenError);
             }
-            
-            String accessToken = twitterToken.getAccessToken();
-            log.info("✅ 已从数据库获取 access_token（用户: {}），Token: {}...", 
-                    userId, accessToken.substring(0, Math.min(20, accessToken.length())));
-            
-            // 检查 token 权限范围，确保包含 tweet.write 权限
-            String scope = twitterToken.getScope();
-            if (scope != null && !scope.contains("tweet.write")) {
-                log.warn("Token 权限不足，缺少 tweet.write 权限。当前权限: {}", scope);
-                UploadMediaResponse resp = UploadMediaResponse.forbidden(
-                    "Token 权限不足，需要 tweet.write 权限来上传媒体。请重新登录并授予必要权限");
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(resp);
-            }
-            
-            // 判断是否为 URL 或本地文件路径
-            byte[] fileBytes;
-            String fileName;
-            
-            if (filePath.startsWith("http://") || filePath.startsWith("https://")) {
-                // URL 方式读取
-                log.info("检测到 URL 路径，准备从网络读取文件: {}", filePath);
-                try {
-                    java.net.URL url = new java.net.URL(filePath);
-                    java.net.URLConnection connection = url.openConnection();
-                    connection.setConnectTimeout(10000);
-                    connection.setReadTimeout(10000);
-                    
-                    try (InputStream inputStream = connection.getInputStream()) {
-                        fileBytes = inputStream.readAllBytes();
-                    }
-                    
-                    // 从 URL 中提取文件名
-                    fileName = filePath.substring(filePath.lastIndexOf('/') + 1);
-                    if (fileName.contains("?")) {
-                        fileName = fileName.substring(0, fileName.indexOf("?"));
-                    }
-                    if (fileName.isBlank()) {
-                        fileName = "media_" + System.currentTimeMillis();
-                    }
-                    
-                    log.info("已从 URL 读取文件，大小: {} 字节，文件名: {}", fileBytes.length, fileName);
-                } catch (Exception e) {
-                    UploadMediaResponse resp = UploadMediaResponse.badRequest("无法从 URL 读取文件: " + e.getMessage());
-                    log.error("从 URL 读取文件失败: {}", filePath, e);
-                    return ResponseEntity.badRequest().body(resp);
-                }
-            } else {
-                // 本地文件方式读取
-                File mediaFile = new File(filePath);
-                if (!mediaFile.exists()) {
-                    UploadMediaResponse resp = UploadMediaResponse.badRequest(
-                        String.format("文件不存在: %s", filePath));
-                    log.error("文件不存在: {}", mediaFile.getAbsolutePath());
-                    return ResponseEntity.badRequest().body(resp);
-                }
-                
-                fileBytes = Files.readAllBytes(Paths.get(filePath));
-                fileName = mediaFile.getName();
-                log.info("已读取本地文件，大小: {} 字节", fileBytes.length);
-            }
-            
-            log.info("准备校验媒体，文件名: {}, 大小: {}", fileName, fileBytes.length);
+            String accessToken = twitterTokenHelper.getDefaultUserToken().getAccessToken();
             
             // 验证 media_type 和 media_category 的有效性
             if (!isValidMediaType(mediaType)) {
                 UploadMediaResponse resp = UploadMediaResponse.badRequest(
                     "无效的媒体类型: " + mediaType + "。支持的类型: image/jpeg, image/png, image/gif, image/webp, video/mp4");
                 log.error("无效的媒体类型: {}", mediaType);
-                return ResponseEntity.badRequest().body(resp);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(resp));
             }
             
             if (!isValidMediaCategory(mediaCategory)) {
                 UploadMediaResponse resp = UploadMediaResponse.badRequest(
                     "无效的媒体类别: " + mediaCategory + "。支持的类别: tweet_image, tweet_gif, tweet_video, dm_image, dm_gif, dm_video");
                 log.error("无效的媒体类别: {}", mediaCategory);
-                return ResponseEntity.badRequest().body(resp);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(resp));
             }
             
-            // 构建 multipart form-data 请求
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("Authorization", "Bearer " + accessToken);
-            headers.set("User-Agent", "PersonLog/1.0 (Twitter Media Upload)");
-            
-            MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-            final String finalFileName = fileName;
-            body.add("media", new org.springframework.core.io.ByteArrayResource(fileBytes) {
-                @Override
-                public String getFilename() {
-                    return finalFileName;
-                }
-            });
-            body.add("media_category", mediaCategory);
-            body.add("media_type", mediaType);
-            
-            log.info("Request headers: Authorization Bearer ***, User-Agent: PersonLog/1.0");
-            log.info("Request body: media_type={}, media_category={}, file_size={} bytes", mediaType, mediaCategory, fileBytes.length);
-            
-            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-            
-            // 调用 Twitter API
-            String twitterMediaUploadUrl = "https://api.x.com/2/media/upload";
-            ResponseEntity<Map> twitterResponse = restTemplate.postForEntity(
-                    twitterMediaUploadUrl,
-                    requestEntity,
-                    Map.class
-            );
+            // 判断是否为 URL 或本地文件路径
+            if (filePath.startsWith("http://") || filePath.startsWith("https://")) {
+                log.info("检测到 URL 路径，下载到临时文件后分片上传: {}", filePath);
+                return toResponse(mediaUploadService.uploadUrl(filePath, mediaType, mediaCategory, accessToken, userId));
+            }
             
-            if (twitterResponse.getStatusCode().is2xxSuccessful() && twitterResponse.getBody() != null) {
-                Map<String, Object> twitterData = twitterResponse.getBody();
-                
-                if (twitterData.containsKey("errors")) {
-                    UploadMediaResponse resp = UploadMediaResponse.badRequest("Twitter API 返回错误");
-                    log.error("Twitter API 返回错误: {}", twitterData.get("errors"));
-                    return ResponseEntity.badRequest().body(resp);
-                }
-                
-                // 保存媒体记录到数据库
-                try {
-                    Map<String, Object> dataMap = (Map<String, Object>) twitterData.get("data");
-                    if (dataMap != null) {
-                        MediaLibrary mediaLibrary = MediaLibrary.builder()
-                                .mediaId(String.valueOf(dataMap.get("id")))
-                                .mediaKey(String.valueOf(dataMap.get("media_key")))
-                                .createTime(LocalDateTime.now())
-                                .endTime(LocalDateTime.now().plusHours(24))
-                                .status(0)
-                                .build();
-                        
-                        mediaLibraryService.save(mediaLibrary);
-                        log.info("媒体记录已保存到数据库: mediaId={}, mediaKey={}", 
-                                mediaLibrary.getMediaId(), 
-                                mediaLibrary.getMediaKey());
-                    }
-                } catch (Exception e) {
-                    log.error("保存媒体记录到数据库失败", e);
-                    // 继续返回成功，不影响用户流程
-                }
-                
-                UploadMediaResponse resp = UploadMediaResponse.success(twitterData.get("data"));
-                log.info("✅ 媒体上传成功");
-                return ResponseEntity.ok(resp);
-            } else {
-                UploadMediaResponse resp = UploadMediaResponse.serverError(
-                    String.format("Twitter API 返回错误状态码: %s", twitterResponse.getStatusCode()));
-                log.error("Twitter API 返回错误状态码: {}", twitterResponse.getStatusCode());
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(resp);
+            File mediaFile = new File(filePath);
+            if (!mediaFile.isFile()) {
+                UploadMediaResponse resp = UploadMediaResponse.badRequest(
+                    String.format("文件不存在: %s", filePath));
+                log.error("文件不存在: {}", mediaFile.getAbsolutePath());
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(resp));
             }
             
-        } catch (org.springframework.web.client.HttpClientErrorException ex) {
-            log.error("Twitter API 返回 HTTP 错误，状态码: {}, 响应体: {}", ex.getStatusCode(), ex.getResponseBodyAsString());
-            UploadMediaResponse resp = new UploadMediaResponse(
-                ex.getStatusCode().value(),
-                "Twitter API 错误: " + ex.getStatusCode(),
-                null
-            );
-            return ResponseEntity.status(ex.getStatusCode()).body(resp);
+            log.info("准备分片上传本地文件: {}，大小: {} 字节", mediaFile.getName(), mediaFile.length());
+            return toResponse(mediaUploadService.uploadFile(mediaFile.toPath(), mediaType, mediaCategory, accessToken, userId));
+            
         } catch (Exception e) {
             log.error("媒体上传异常", e);
             UploadMediaResponse resp = UploadMediaResponse.serverError("服务器错误: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(resp);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(resp));
+        }
+    }
+
+    /**
+     * 校验默认用户的 Token 是否存在且包含 tweet.write 权限
+     * 
+     * @return 校验失败时的响应，通过时返回 null
+     */
+    private ResponseEntity<UploadMediaResponse> checkToken(String userId) {
+        // 从数据库获取该用户的 Token
+        TwitterToken twitterToken = twitterTokenHelper.getDefaultUserToken();
+        if (twitterToken == null || twitterToken.getAccessToken() == null) {
+            UploadMediaResponse resp = UploadMediaResponse.unauthorized("未找到该用户的 access_token，请先登录授权");
+            log.error("未能从数据库获取用户 {} 的 token", userId);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(resp);
+        }
+        
+        String accessToken = twitterToken.getAccessToken();
+        log.info("✅ 已从数据库获取 access_token（用户: {}），Token: {}...", 
+                userId, accessToken.substring(0, Math.min(20, accessToken.length())));
+        
+        // 检查 token 权限范围，确保包含 tweet.write 权限
+        String scope = twitterToken.getScope();
+        if (scope != null && !scope.contains("tweet.write")) {
+            log.warn("Token 权限不足，缺少 tweet.write 权限。当前权限: {}", scope);
+            UploadMediaResponse resp = UploadMediaResponse.forbidden(
+                "Token 权限不足，需要 tweet.write 权限来上传媒体。请重新登录并授予必要权限");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(resp);
         }
+        return null;
     }
 
     /**
-     * 查询所有媒体记录
-     * 返回媒体库中的所有媒体信息（倒序排列，最多前 20 条）
+     * 将上传结果转换为响应，Twitter 返回的 HTTP 错误按原状态码返回
+     */
+    private CompletableFuture<ResponseEntity<UploadMediaResponse>> toResponse(CompletableFuture<JSONObject> upload) {
+        return upload.handle((data, ex) -> {
+            if (ex == null) {
+                log.info(data.getBooleanValue("reused") ? "♻️ 复用未过期的相同媒体，跳过上传" : "✅ 媒体上传成功");
+                return ResponseEntity.ok(UploadMediaResponse.success(data));
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof HttpClientErrorException) {
+                HttpClientErrorException httpEx = (HttpClientErrorException) cause;
+                log.error("Twitter API 返回 HTTP 错误，状态码: {}, 响应体: {}", httpEx.getStatusCode(), httpEx.getResponseBodyAsString());
+                UploadMediaResponse resp = new UploadMediaResponse(
+                    httpEx.getStatusCode().value(),
+                    "Twitter API 错误: " + httpEx.getStatusCode(),
+                    null
+                );
+                return ResponseEntity.status(httpEx.getStatusCode()).body(resp);
+            }
+            if (cause instanceof UncheckedIOException) {
+                log.error("读取媒体文件失败", cause);
+                return ResponseEntity.badRequest().body(UploadMediaResponse.badRequest(cause.getMessage()));
+            }
+            log.error("媒体上传异常", cause);
+            UploadMediaResponse resp = UploadMediaResponse.serverError("服务器错误: " + cause.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(resp);
+        });
+    }
+
+    /**
+     * 查询媒体记录（按创建时间倒序，keyset 分页）
+     * 
+     * @param beforeId 上一页返回的 next_cursor，为空时查询第一页
+     * @param limit    每页条数，为空时使用 config.properties 的 mediagetlimit
      */
     @GetMapping("/list")
     @ApiOperation(
         value = "查询媒体记录列表",
-        notes = "返回媒体库中的媒体信息，按创建时间倒序排列，最多返回前 20 条记录"
+        notes = "返回媒体库中的媒体信息，按创建时间倒序排列，默认每页 mediagetlimit 条；将返回的 next_cursor 作为 beforeId 获取下一页"
     )
-    public ResponseEntity<Map<String, Object>> listAllMedia() {
+    public ResponseEntity<Map<String, Object>> listAllMedia(
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(required = false) Integer limit) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            List<MediaLibrary> mediaList = mediaLibraryService.findAll();
-            
-            // 按创建时间倒序排列（最新的在前）
-            mediaList.sort((m1, m2) -> {
-                if (m1.getCreateTime() == null || m2.getCreateTime() == null) {
-                    return 0;
-                }
-                return m2.getCreateTime().compareTo(m1.getCreateTime());
-            });
-            
             // 配置文件读取 mediagetlimit
-            int limit = ConfigManager.getInstance().getInt("mediagetlimit", 20);
-            List<MediaLibrary> topRecords = mediaList.size() > limit 
-                    ? mediaList.subList(0, limit) 
-                    : mediaList;
+            int pageSize = limit != null && limit > 0 ? limit : ConfigManager.getInstance().getInt("mediagetlimit", 20);
+            List<MediaLibrary> records = mediaLibraryService.listPage(beforeId, pageSize);
+            long total = mediaLibraryService.count();
             
             response.put("code", 200);
             response.put("message", "✅ 查询成功");
-            response.put("data", topRecords);
-            response.put("total", mediaList.size());
-            response.put("returned", topRecords.size());
-            response.put("limit", limit);
-            log.info("查询媒体列表成功，共 {} 条记录，返回前 {} 条（倒序排列）", mediaList.size(), topRecords.size());
+            response.put("data", records);
+            response.put("total", total);
+            response.put("returned", records.size());
+            response.put("limit", pageSize);
+            response.put("next_cursor", records.size() == pageSize ? records.get(records.size() - 1).getId() : null);
+            log.info("查询媒体列表成功，共 {} 条记录，返回 {} 条（倒序排列，beforeId={}）", total, records.size(), beforeId);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             log.error("查询媒体列表异常", e);
@@ -481,6 +299,19 @@ public class XUploadController {
         }
     }
 
+    /**
+     * 查询媒体预上传池状态
+     */
+    @GetMapping("/pool/stats")
+    @ApiOperation(value = "查询媒体预上传池状态", notes = "返回各受管账号当前可用（未临近过期）的媒体数、上传中数量与目标数量")
+    public ResponseEntity<Map<String, Object>> getPoolStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", 200);
+        response.put("message", "查询成功");
+        response.put("data", mediaPoolReplenisher.getStats());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 验证媒体类型是否有效
      * 支持的类型: image/jpeg, image/png, image/gif, image/webp, video/mp4
@@ -0,0 +1,27 @@
+package LDS.Person.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 替换 SecurityFilter 攻击特征请求
+ */
+@Data
+@NoArgsConstructor
+@ApiModel(value = "AttackPatternsRequest", description = "替换 SecurityFilter 攻击特征请求")
+public class AttackPatternsRequest {
+
+    @JsonProperty("attack_path_patterns")
+    @ApiModelProperty(value = "路径特征（忽略大小写，按「包含」匹配，以 $ 结尾表示按「结尾」匹配）；不传则保持不变",
+            example = "[\"/phpunit/\", \".php$\"]")
+    private List<String> attackPathPatterns;
+
+    @JsonProperty("suspicious_query_patterns")
+    @ApiModelProperty(value = "查询参数特征（规则同路径特征）；不传则保持不变", example = "[\"union\", \"/etc/passwd\"]")
+    private List<String> suspiciousQueryPatterns;
+}
@@ -0,0 +1,35 @@
+package LDS.Person.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量转发 / 引用请求
+ */
+@Data
+@NoArgsConstructor
+@ApiModel(value = "BulkJobRequest", description = "批量转发 / 引用请求")
+public class BulkJobRequest {
+
+    @ApiModelProperty(value = "类型：repost（转发）/ quote（引用）", required = true, example = "repost")
+    private String type;
+
+    @JsonProperty("tweet_ids")
+    @ApiModelProperty(value = "推文 ID 列表（自动去重，保留首次出现的顺序）", required = true,
+            example = "[\"1990302869522969080\", \"1990302869522969081\"]")
+    private List<String> tweetIds;
+
+    @ApiModelProperty(value = "引用文本（quote 时对所有推文生效，可被 texts 覆盖）", example = "推荐阅读")
+    private String text;
+
+    @ApiModelProperty(value = "逐条引用文本（quote，可选），与 tweet_ids 按位置对应，为空的位置使用 text")
+    private List<String> texts;
+
+    @ApiModelProperty(value = "同时执行的条目数（可选，不超过 bulk-job.threads）", example = "2")
+    private Integer concurrency;
+}
@@ -1,5 +1,6 @@
 package LDS.Person.dto.request;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import java.util.Map;
 import io.swagger.annotations.ApiModel;
@@ -23,4 +24,11 @@ public class CreateTweetRequest {
      */
     @ApiModelProperty(value = "媒体信息（可选）", example = "{\"media_ids\": [\"12345\", \"67890\"]}")
     private Map<String, Object> media;
+
+    /**
+     * 回复的推文 ID（可选），设置后以回复形式发布
+     */
+    @JsonProperty("in_reply_to_tweet_id")
+    @ApiModelProperty(value = "回复的推文 ID（可选）", example = "1234567890123456789")
+    private String inReplyToTweetId;
 }
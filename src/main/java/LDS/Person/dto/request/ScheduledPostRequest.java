@@ -0,0 +1,32 @@
+package LDS.Person.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 定时发布请求
+ */
+@Data
+@NoArgsConstructor
+@ApiModel(value = "ScheduledPostRequest", description = "定时发布请求")
+public class ScheduledPostRequest {
+
+    @ApiModelProperty(value = "类型：tweet（普通推文）/ media（带媒体推文，发布时从媒体库占用）/ quote（引用）/ repost（转发）",
+            required = true, example = "tweet")
+    private String type;
+
+    @ApiModelProperty(value = "推文文本（tweet / media / quote 必填）", example = "Hello world!")
+    private String text;
+
+    @JsonProperty("target_tweet_id")
+    @ApiModelProperty(value = "被引用或被转发的推文 ID（quote / repost 必填）", example = "1234567890123456789")
+    private String targetTweetId;
+
+    @JsonProperty("publish_at")
+    @ApiModelProperty(value = "计划发布时间，ISO-8601 格式；不带时区时按服务器时区解析", required = true,
+            example = "2026-01-01T09:00:00+08:00")
+    private String publishAt;
+}
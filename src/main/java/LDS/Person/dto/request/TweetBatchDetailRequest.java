@@ -0,0 +1,27 @@
+package LDS.Person.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量获取推文详情请求
+ */
+@Data
+@NoArgsConstructor
+@ApiModel(value = "TweetBatchDetailRequest", description = "批量获取推文详情请求")
+public class TweetBatchDetailRequest {
+
+    @JsonProperty("tweet_ids")
+    @ApiModelProperty(value = "推文 ID 列表（自动去重，每 100 个合并为一次上游请求）", required = true,
+            example = "[\"1990302869522969080\", \"1990302869522969081\"]")
+    private List<String> tweetIds;
+
+    @JsonProperty("skip_cached")
+    @ApiModelProperty(value = "是否直接使用 get_tweets 表中已保存的推文（不含互动数据），默认 false")
+    private Boolean skipCached;
+}
@@ -0,0 +1,46 @@
+package LDS.Person.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 发布推文串请求
+ */
+@Data
+@NoArgsConstructor
+@ApiModel(value = "TweetThreadRequest", description = "发布推文串请求")
+public class TweetThreadRequest {
+
+    @JsonProperty("reply_to_tweet_id")
+    @ApiModelProperty(value = "第一条推文回复的推文 ID（可选，为空时第一条为独立推文）", example = "1234567890123456789")
+    private String replyToTweetId;
+
+    @ApiModelProperty(value = "推文串中的各条推文，按顺序发布，每条回复上一条", required = true)
+    private List<Part> parts;
+
+    /**
+     * 推文串中的一条推文
+     */
+    @Data
+    @NoArgsConstructor
+    @ApiModel(value = "TweetThreadPart", description = "推文串中的一条推文")
+    public static class Part {
+
+        @ApiModelProperty(value = "推文文本（有媒体时可为空）", example = "1/3 开头")
+        private String text;
+
+        @JsonProperty("media_paths")
+        @ApiModelProperty(value = "待上传的媒体：本地路径或 URL（可选，最多 4 个图片或 1 个视频/GIF）",
+                example = "[\"https://example.com/a.png\"]")
+        private List<String> mediaPaths;
+
+        @JsonProperty("media_ids")
+        @ApiModelProperty(value = "已上传的媒体 ID（可选）", example = "[\"1880028106020515840\"]")
+        private List<String> mediaIds;
+    }
+}
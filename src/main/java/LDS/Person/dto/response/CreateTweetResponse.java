@@ -2,6 +2,8 @@ package LDS.Person.dto.response;
 
 import lombok.Data;
 
+import java.util.List;
+
 /**
  * 创建推文响应
  */
@@ -21,4 +23,9 @@ public class CreateTweetResponse {
      * 创建时间
      */
     private String createdAt;
+
+    /**
+     * 附带的媒体 ID（使用媒体库中的媒体发布时填写）
+     */
+    private List<String> mediaIds;
 }
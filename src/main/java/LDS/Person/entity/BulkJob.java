@@ -0,0 +1,117 @@
+package LDS.Person.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批量转发 / 引用任务
+ */
+@Entity
+@Table(name = "bulk_job")
+@Data
+@NoArgsConstructor
+public class BulkJob {
+
+    /** 类型：批量转发 */
+    public static final String TYPE_REPOST = "repost";
+    /** 类型：批量引用 */
+    public static final String TYPE_QUOTE = "quote";
+
+    /** 状态：执行中 */
+    public static final int STATUS_RUNNING = 0;
+    /** 状态：已暂停 */
+    public static final int STATUS_PAUSED = 1;
+    /** 状态：已取消 */
+    public static final int STATUS_CANCELLED = 2;
+    /** 状态：已完成 */
+    public static final int STATUS_COMPLETED = 3;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 类型：repost / quote
+     */
+    @Column(name = "job_type", length = 16, nullable = false)
+    private String jobType;
+
+    /**
+     * 执行账号的 Twitter 用户 ID
+     */
+    @Column(name = "twitter_user_id", length = 50, nullable = false)
+    private String twitterUserId;
+
+    /**
+     * 状态：0-执行中，1-已暂停，2-已取消，3-已完成
+     */
+    @Column(name = "status", nullable = false)
+    private Integer status = STATUS_RUNNING;
+
+    /**
+     * 同时执行的条目数
+     */
+    @Column(name = "concurrency", nullable = false)
+    private Integer concurrency;
+
+    /**
+     * 条目总数（去重后）
+     */
+    @Column(name = "total", nullable = false)
+    private Integer total;
+
+    /**
+     * 任务级错误（如 Token 失效导致自动暂停）
+     */
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * 完成或取消时间
+     */
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    public void prePersist() {
+        LocalDateTime now = LocalDateTime.now();
+        this.createdAt = now;
+        this.updatedAt = now;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 状态名称（用于接口返回）
+     */
+    public static String statusName(Integer status) {
+        if (status == null) {
+            return "unknown";
+        }
+        return switch (status) {
+            case STATUS_RUNNING -> "running";
+            case STATUS_PAUSED -> "paused";
+            case STATUS_CANCELLED -> "cancelled";
+            case STATUS_COMPLETED -> "completed";
+            default -> "unknown";
+        };
+    }
+}
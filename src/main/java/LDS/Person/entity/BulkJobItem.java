@@ -0,0 +1,107 @@
+package LDS.Person.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批量任务中的单个条目（一条被转发 / 被引用的推文）
+ */
+@Entity
+@Table(name = "bulk_job_item", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_bulk_item", columnNames = {"job_id", "tweet_id"})
+}, indexes = {
+        @Index(name = "idx_bulk_item_status", columnList = "job_id, status")
+})
+@Data
+@NoArgsConstructor
+public class BulkJobItem {
+
+    /** 状态：等待执行 */
+    public static final int STATUS_PENDING = 0;
+    /** 状态：执行中 */
+    public static final int STATUS_RUNNING = 1;
+    /** 状态：成功 */
+    public static final int STATUS_SUCCEEDED = 2;
+    /** 状态：失败 */
+    public static final int STATUS_FAILED = 3;
+    /** 状态：任务取消，未执行 */
+    public static final int STATUS_SKIPPED = 4;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 所属任务 ID
+     */
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    /**
+     * 被转发 / 被引用的推文 ID
+     */
+    @Column(name = "tweet_id", length = 50, nullable = false)
+    private String tweetId;
+
+    /**
+     * 引用文本（仅 quote）
+     */
+    @Column(name = "text", columnDefinition = "TEXT")
+    private String text;
+
+    /**
+     * 状态：0-等待，1-执行中，2-成功，3-失败，4-已跳过
+     */
+    @Column(name = "status", nullable = false)
+    private Integer status = STATUS_PENDING;
+
+    /**
+     * 已失败的执行次数
+     */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * 引用生成的推文 ID（quote）
+     */
+    @Column(name = "result_tweet_id", length = 50)
+    private String resultTweetId;
+
+    /**
+     * 失败原因
+     */
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 状态名称（用于接口返回）
+     */
+    public static String statusName(Integer status) {
+        if (status == null) {
+            return "unknown";
+        }
+        return switch (status) {
+            case STATUS_PENDING -> "pending";
+            case STATUS_RUNNING -> "running";
+            case STATUS_SUCCEEDED -> "succeeded";
+            case STATUS_FAILED -> "failed";
+            case STATUS_SKIPPED -> "skipped";
+            default -> "unknown";
+        };
+    }
+}
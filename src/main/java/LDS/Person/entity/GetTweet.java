@@ -10,7 +10,9 @@ import java.time.Instant;
  * get_tweets 表实体
  */
 @Entity
-@Table(name = "get_tweets")
+@Table(name = "get_tweets", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_tweet_id", columnNames = "tweet_id")
+})
 @Data
 @NoArgsConstructor
 public class GetTweet {
@@ -19,7 +21,7 @@ public class GetTweet {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "tweet_id", length = 50, nullable = false, unique = true)
+    @Column(name = "tweet_id", length = 50, nullable = false)
     private String tweetId;
 
     @Column(name = "created_at", nullable = false)
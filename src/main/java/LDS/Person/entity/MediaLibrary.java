@@ -12,12 +12,26 @@ import java.time.LocalDateTime;
  * 媒体库实体 - 存储上传到 Twitter 的媒体信息
  */
 @Entity
-@Table(name = "media_library")
+@Table(name = "media_library", indexes = {
+        @Index(name = "idx_status_endtime", columnList = "status, endtime"),
+        @Index(name = "idx_user_status_endtime", columnList = "twitter_user_id, status, endtime"),
+        @Index(name = "idx_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_createtime", columnList = "createtime")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class MediaLibrary {
+
+    /** 状态：可用 */
+    public static final int STATUS_AVAILABLE = 0;
+    /** 状态：已使用 */
+    public static final int STATUS_USED = 1;
+    /** 状态：已被发推流程占用，等待标记已使用或释放 */
+    public static final int STATUS_CLAIMED = 2;
+    /** 状态：临近过期，已退出可用池 */
+    public static final int STATUS_RETIRED = 3;
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,6 +49,18 @@ public class MediaLibrary {
     @Column(name = "media_key", length = 128, nullable = false)
     private String mediaKey;
 
+    /**
+     * 上传该媒体的 Twitter 用户 ID（media_id 只能由上传账号使用；为空表示未记录账号，任意账号可用）
+     */
+    @Column(name = "twitter_user_id", length = 50)
+    private String twitterUserId;
+
+    /**
+     * 上传文件内容的 SHA-256（用于复用相同内容的未过期媒体）
+     */
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     /**
      * 创建时间
      */
@@ -48,7 +74,13 @@ public class MediaLibrary {
     private LocalDateTime endTime;
 
     /**
-     * 状态（默认0：可用）
+     * 被发推流程占用的时间（status = 2 时有效，用于回收进程退出后遗留的占用）
+     */
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    /**
+     * 状态（0：可用，1：已使用，2：发推中已占用，3：临近过期已退役）
      */
     @Column(name = "status")
     private Integer status;
@@ -0,0 +1,144 @@
+package LDS.Person.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 定时发布任务 - 到达 publish_at 后由 ScheduledPostDispatcher 发布
+ */
+@Entity
+@Table(name = "scheduled_post", indexes = {
+        @Index(name = "idx_sched_status_publish", columnList = "status, publish_at")
+})
+@Data
+@NoArgsConstructor
+public class ScheduledPost {
+
+    /** 类型：普通推文 */
+    public static final String TYPE_TWEET = "tweet";
+    /** 类型：带媒体推文（发布时从媒体库占用可用媒体） */
+    public static final String TYPE_MEDIA = "media";
+    /** 类型：引用推文 */
+    public static final String TYPE_QUOTE = "quote";
+    /** 类型：转发 */
+    public static final String TYPE_REPOST = "repost";
+
+    /** 状态：等待发布 */
+    public static final int STATUS_SCHEDULED = 0;
+    /** 状态：已到期，正在发布 */
+    public static final int STATUS_DISPATCHING = 1;
+    /** 状态：发布成功 */
+    public static final int STATUS_SUCCEEDED = 2;
+    /** 状态：发布失败 */
+    public static final int STATUS_FAILED = 3;
+    /** 状态：已取消 */
+    public static final int STATUS_CANCELLED = 4;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 类型：tweet / media / quote / repost
+     */
+    @Column(name = "post_type", length = 16, nullable = false)
+    private String postType;
+
+    /**
+     * 发布账号的 Twitter 用户 ID
+     */
+    @Column(name = "twitter_user_id", length = 50, nullable = false)
+    private String twitterUserId;
+
+    /**
+     * 推文文本（repost 为空）
+     */
+    @Column(name = "text", columnDefinition = "TEXT")
+    private String text;
+
+    /**
+     * 被引用或被转发的推文 ID（quote / repost）
+     */
+    @Column(name = "target_tweet_id", length = 50)
+    private String targetTweetId;
+
+    /**
+     * 计划发布时间
+     */
+    @Column(name = "publish_at", nullable = false)
+    private LocalDateTime publishAt;
+
+    /**
+     * 状态：0-等待发布，1-发布中，2-成功，3-失败，4-已取消
+     */
+    @Column(name = "status", nullable = false)
+    private Integer status = STATUS_SCHEDULED;
+
+    /**
+     * 已失败的发布次数
+     */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * 发布成功后生成的推文 ID（repost 为被转发的推文 ID）
+     */
+    @Column(name = "result_tweet_id", length = 50)
+    private String resultTweetId;
+
+    /**
+     * 最近一次失败原因
+     */
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /**
+     * 实际发布时间
+     */
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        LocalDateTime now = LocalDateTime.now();
+        this.createdAt = now;
+        this.updatedAt = now;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 状态名称（用于接口返回）
+     */
+    public static String statusName(Integer status) {
+        if (status == null) {
+            return "unknown";
+        }
+        return switch (status) {
+            case STATUS_SCHEDULED -> "scheduled";
+            case STATUS_DISPATCHING -> "dispatching";
+            case STATUS_SUCCEEDED -> "succeeded";
+            case STATUS_FAILED -> "failed";
+            case STATUS_CANCELLED -> "cancelled";
+            default -> "unknown";
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package LDS.Person.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 推文发布发件箱 - 待发布推文先落库，再由后台发布线程异步发布
+ */
+@Entity
+@Table(name = "tweet_outbox", indexes = {
+        @Index(name = "idx_outbox_status_next", columnList = "status, next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+public class TweetOutbox {
+
+    /** 状态：等待发布（包括等待重试） */
+    public static final int STATUS_PENDING = 0;
+    /** 状态：已被发布线程领取，正在发布 */
+    public static final int STATUS_PUBLISHING = 1;
+    /** 状态：发布成功 */
+    public static final int STATUS_SUCCEEDED = 2;
+    /** 状态：发布失败（不可重试或重试次数用尽） */
+    public static final int STATUS_FAILED = 3;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 幂等键（同一个键重复提交只会生成一条发布任务）
+     */
+    @Column(name = "idempotency_key", length = 64, nullable = false, unique = true)
+    private String idempotencyKey;
+
+    /**
+     * 发布推文所用账号的 Twitter 用户 ID
+     */
+    @Column(name = "twitter_user_id", length = 50, nullable = false)
+    private String twitterUserId;
+
+    /**
+     * 推文文本
+     */
+    @Column(name = "text", columnDefinition = "TEXT", nullable = false)
+    private String text;
+
+    /**
+     * 附带的媒体 ID，逗号分隔（可选）
+     */
+    @Column(name = "media_ids", length = 512)
+    private String mediaIds;
+
+    /**
+     * 状态：0-等待发布，1-发布中，2-成功，3-失败
+     */
+    @Column(name = "status", nullable = false)
+    private Integer status = STATUS_PENDING;
+
+    /**
+     * 已失败的发布次数
+     */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * 最早可以发布（重试）的时间
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * 发布成功后的推文 ID
+     */
+    @Column(name = "tweet_id", length = 50)
+    private String tweetId;
+
+    /**
+     * 最近一次失败原因
+     */
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /**
+     * 发布完成（成功或最终失败）后回调的地址（可选）
+     */
+    @Column(name = "callback_url", length = 512)
+    private String callbackUrl;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        LocalDateTime now = LocalDateTime.now();
+        this.createdAt = now;
+        this.updatedAt = now;
+        if (this.nextAttemptAt == null) {
+            this.nextAttemptAt = now;
+        }
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 状态名称（用于接口返回）
+     */
+    public static String statusName(Integer status) {
+        if (status == null) {
+            return "unknown";
+        }
+        return switch (status) {
+            case STATUS_PENDING -> "pending";
+            case STATUS_PUBLISHING -> "publishing";
+            case STATUS_SUCCEEDED -> "succeeded";
+            case STATUS_FAILED -> "failed";
+            default -> "unknown";
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package LDS.Person.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 用户时间线增量同步游标
+ * 记录每个用户已同步到的最新推文 ID，以及未完成的翻页状态
+ */
+@Entity
+@Table(name = "tweet_sync_cursor")
+@Data
+@NoArgsConstructor
+public class TweetSyncCursor {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 时间线所属的 Twitter 用户 ID
+     */
+    @Column(name = "twitter_user_id", length = 50, nullable = false, unique = true)
+    private String twitterUserId;
+
+    /**
+     * 已完整同步的最新推文 ID（下次同步的 since_id）
+     */
+    @Column(name = "newest_id", length = 50)
+    private String newestId;
+
+    /**
+     * 未完成的翻页令牌（达到单次页数上限时保存，下次从此处继续）
+     */
+    @Column(name = "next_token", length = 255)
+    private String nextToken;
+
+    /**
+     * 本轮翻页开始时看到的最新推文 ID，本轮翻页完成后写入 newest_id
+     */
+    @Column(name = "pending_newest_id", length = 50)
+    private String pendingNewestId;
+
+    /**
+     * 最近一次同步时间
+     */
+    @Column(name = "last_sync_at")
+    private Instant lastSyncAt;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,97 @@
+package LDS.Person.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 推文串（多条推文依次回复上一条组成的串）
+ */
+@Entity
+@Table(name = "tweet_thread")
+@Data
+@NoArgsConstructor
+public class TweetThread {
+
+    /** 状态：发布中 */
+    public static final int STATUS_RUNNING = 0;
+    /** 状态：全部发布成功 */
+    public static final int STATUS_COMPLETED = 1;
+    /** 状态：部分发布失败，可从失败处继续 */
+    public static final int STATUS_FAILED = 2;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 发布账号的 Twitter 用户 ID
+     */
+    @Column(name = "twitter_user_id", length = 50, nullable = false)
+    private String twitterUserId;
+
+    /**
+     * 第一条推文回复的推文 ID（可选，为空时第一条为独立推文）
+     */
+    @Column(name = "reply_to_tweet_id", length = 50)
+    private String replyToTweetId;
+
+    /**
+     * 状态：0-发布中，1-完成，2-失败
+     */
+    @Column(name = "status", nullable = false)
+    private Integer status = STATUS_RUNNING;
+
+    /**
+     * 推文条数
+     */
+    @Column(name = "total_parts", nullable = false)
+    private Integer totalParts;
+
+    /**
+     * 最近一次失败原因
+     */
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    public void prePersist() {
+        LocalDateTime now = LocalDateTime.now();
+        this.createdAt = now;
+        this.updatedAt = now;
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 状态名称（用于接口返回）
+     */
+    public static String statusName(Integer status) {
+        if (status == null) {
+            return "unknown";
+        }
+        return switch (status) {
+            case STATUS_RUNNING -> "running";
+            case STATUS_COMPLETED -> "completed";
+            case STATUS_FAILED -> "failed";
+            default -> "unknown";
+        };
+    }
+}
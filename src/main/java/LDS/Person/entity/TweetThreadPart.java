@@ -0,0 +1,65 @@
+package LDS.Person.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 推文串中的一条推文
+ */
+@Entity
+@Table(name = "tweet_thread_part", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_thread_part", columnNames = {"thread_id", "part_index"})
+})
+@Data
+@NoArgsConstructor
+public class TweetThreadPart {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 所属推文串 ID
+     */
+    @Column(name = "thread_id", nullable = false)
+    private Long threadId;
+
+    /**
+     * 在串中的位置（从 0 开始）
+     */
+    @Column(name = "part_index", nullable = false)
+    private Integer partIndex;
+
+    /**
+     * 推文文本
+     */
+    @Column(name = "text", columnDefinition = "TEXT")
+    private String text;
+
+    /**
+     * 待上传的媒体（本地路径或 URL，JSON 数组）
+     */
+    @Column(name = "media_sources", columnDefinition = "TEXT")
+    private String mediaSources;
+
+    /**
+     * 已上传（或调用方直接提供）的媒体 ID，逗号分隔
+     */
+    @Column(name = "media_ids", length = 512)
+    private String mediaIds;
+
+    /**
+     * 发布成功后的推文 ID（为空表示尚未发布）
+     */
+    @Column(name = "tweet_id", length = 50)
+    private String tweetId;
+
+    /**
+     * 发布时间
+     */
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+}
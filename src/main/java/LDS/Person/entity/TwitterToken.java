@@ -11,7 +11,9 @@ import java.time.Instant;
  * 存储 access_token、refresh_token 和过期时间
  */
 @Entity
-@Table(name = "twitter_tokens")
+@Table(name = "twitter_tokens", indexes = {
+        @Index(name = "idx_updated_expires", columnList = "updated_at, expires_at")
+})
 @Data
 @NoArgsConstructor
 public class TwitterToken {
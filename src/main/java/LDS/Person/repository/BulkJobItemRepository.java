@@ -0,0 +1,61 @@
+package LDS.Person.repository;
+
+import LDS.Person.entity.BulkJobItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量任务条目数据访问层
+ */
+@Repository
+public interface BulkJobItemRepository extends JpaRepository<BulkJobItem, Long> {
+
+    /**
+     * 查询任务中指定状态的条目 ID（走 idx_bulk_item_status 索引）
+     */
+    @Query("SELECT i.id FROM BulkJobItem i WHERE i.jobId = :jobId AND i.status = :status ORDER BY i.id ASC")
+    List<Long> findIdsByJobIdAndStatus(@Param("jobId") Long jobId, @Param("status") Integer status);
+
+    /**
+     * 按状态统计任务条目数，返回 [status, count]
+     */
+    @Query("SELECT i.status, COUNT(i) FROM BulkJobItem i WHERE i.jobId = :jobId GROUP BY i.status")
+    List<Object[]> countByStatus(@Param("jobId") Long jobId);
+
+    /**
+     * 按 ID 游标分页查询任务条目
+     */
+    @Query("SELECT i FROM BulkJobItem i WHERE i.jobId = :jobId AND i.id > :afterId ORDER BY i.id ASC")
+    List<BulkJobItem> findPage(@Param("jobId") Long jobId, @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * 批量变更任务中某一状态的条目
+     *
+     * @return 实际更新的行数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BulkJobItem i SET i.status = :status, i.updatedAt = :now WHERE i.jobId = :jobId AND i.status = :expectedStatus")
+    int updateStatusByJob(@Param("jobId") Long jobId,
+                          @Param("expectedStatus") Integer expectedStatus,
+                          @Param("status") Integer status,
+                          @Param("now") LocalDateTime now);
+
+    /**
+     * 条件更新单个条目状态（仅当当前状态为 expectedStatus 时），用于原子领取
+     *
+     * @return 实际更新的行数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BulkJobItem i SET i.status = :status, i.updatedAt = :now WHERE i.id = :id AND i.status = :expectedStatus")
+    int updateStatus(@Param("id") Long id,
+                     @Param("expectedStatus") Integer expectedStatus,
+                     @Param("status") Integer status,
+                     @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,35 @@
+package LDS.Person.repository;
+
+import LDS.Person.entity.BulkJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量任务数据访问层
+ */
+@Repository
+public interface BulkJobRepository extends JpaRepository<BulkJob, Long> {
+
+    List<BulkJob> findByStatus(Integer status);
+
+    /**
+     * 条件更新任务状态（仅当当前状态为 expectedStatus 时），finishedAt 为空时保留原值
+     *
+     * @return 实际更新的行数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BulkJob j SET j.status = :status, j.lastError = :lastError, j.updatedAt = :now, "
+            + "j.finishedAt = COALESCE(:finishedAt, j.finishedAt) WHERE j.id = :id AND j.status = :expectedStatus")
+    int updateStatus(@Param("id") Long id,
+                     @Param("expectedStatus") Integer expectedStatus,
+                     @Param("status") Integer status,
+                     @Param("lastError") String lastError,
+                     @Param("finishedAt") LocalDateTime finishedAt,
+                     @Param("now") LocalDateTime now);
+}
@@ -2,12 +2,25 @@ package LDS.Person.repository;
 
 import LDS.Person.entity.GetTweet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * get_tweets 表数据访问
  */
 @Repository
 public interface GetTweetRepository extends JpaRepository<GetTweet, Long> {
     boolean existsByTweetId(String tweetId);
+
+    /**
+     * 批量查询已存在的推文 ID（一次 IN 查询，走 uk_tweet_id 唯一索引）
+     */
+    @Query("SELECT t.tweetId FROM GetTweet t WHERE t.tweetId IN :tweetIds")
+    List<String> findExistingTweetIds(@Param("tweetIds") Collection<String> tweetIds);
+
+    List<GetTweet> findByTweetIdIn(Collection<String> tweetIds);
 }
\ No newline at end of file
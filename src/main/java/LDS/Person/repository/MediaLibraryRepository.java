@@ -1,12 +1,116 @@
 package LDS.Person.repository;
 
 import LDS.Person.entity.MediaLibrary;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 媒体库数据访问层
  */
 @Repository
 public interface MediaLibraryRepository extends JpaRepository<MediaLibrary, Long> {
+
+    /**
+     * 查询指定状态且未过期的媒体（走 idx_status_endtime 索引）
+     */
+    List<MediaLibrary> findByStatusAndEndTimeAfterOrderByCreateTimeAsc(Integer status, LocalDateTime now);
+
+    /**
+     * 按创建时间倒序查询第一页（走 idx_createtime 索引）
+     */
+    List<MediaLibrary> findAllByOrderByCreateTimeDescIdDesc(Pageable pageable);
+
+    /**
+     * 按创建时间倒序查询游标之后的一页（keyset 分页，(createtime, id) 作为游标）
+     */
+    @Query("SELECT m FROM MediaLibrary m "
+            + "WHERE m.createTime < :createTime OR (m.createTime = :createTime AND m.id < :id) "
+            + "ORDER BY m.createTime DESC, m.id DESC")
+    List<MediaLibrary> findPageBefore(@Param("createTime") LocalDateTime createTime,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
+    /**
+     * 锁定一批指定账号可用的媒体（SELECT ... FOR UPDATE SKIP LOCKED，已被其他事务锁定的行直接跳过，不等待）
+     * 只选择过期时间晚于 minEndTime 的媒体；未记录账号的媒体任意账号可用，twitterUserId 为空时不限账号
+     * 需在事务中调用，随后立即改为占用状态
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM MediaLibrary m WHERE m.status = 0 AND m.endTime > :minEndTime "
+            + "AND (:twitterUserId IS NULL OR m.twitterUserId = :twitterUserId OR m.twitterUserId IS NULL) "
+            + "ORDER BY m.createTime ASC")
+    List<MediaLibrary> lockAvailable(@Param("twitterUserId") String twitterUserId,
+                                     @Param("minEndTime") LocalDateTime minEndTime,
+                                     Pageable pageable);
+
+    /**
+     * 查询同一账号上传的相同内容中可复用的媒体（未退役且过期时间晚于 minEndTime），可用的排在前面
+     * twitterUserId 为空时只匹配未记录账号的媒体
+     */
+    @Query("SELECT m FROM MediaLibrary m WHERE m.contentHash = :contentHash AND m.status <> 3 "
+            + "AND m.endTime > :minEndTime "
+            + "AND (m.twitterUserId = :twitterUserId OR (:twitterUserId IS NULL AND m.twitterUserId IS NULL)) "
+            + "ORDER BY m.status ASC, m.endTime DESC")
+    List<MediaLibrary> findReusable(@Param("contentHash") String contentHash,
+                                    @Param("twitterUserId") String twitterUserId,
+                                    @Param("minEndTime") LocalDateTime minEndTime,
+                                    Pageable pageable);
+
+    /**
+     * 统计指定账号上传的、过期时间晚于 minEndTime 的可用媒体数量（走 idx_user_status_endtime 索引）
+     */
+    long countByTwitterUserIdAndStatusAndEndTimeAfter(String twitterUserId, Integer status, LocalDateTime minEndTime);
+
+    /**
+     * 将过期时间早于 threshold 的可用媒体标记为已退役（status 0 -> 3）
+     *
+     * @return 实际更新的行数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE MediaLibrary m SET m.status = 3 WHERE m.status = 0 AND m.endTime <= :threshold")
+    int retireExpiring(@Param("threshold") LocalDateTime threshold);
+
+    /**
+     * 将锁定的可用媒体标记为已占用并记录占用时间（status 0 -> 2）
+     *
+     * @return 实际更新的行数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE MediaLibrary m SET m.status = 2, m.claimedAt = :now WHERE m.id IN :ids AND m.status = 0")
+    int claim(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * 将占用时间早于 before 的媒体（发推过程中进程退出，未标记已使用也未释放）标记为已退役（status 2 -> 3）
+     * 无法确定这些媒体是否已随推文发出，因此不放回可用池；升级前遗留的无占用时间记录一并回收
+     *
+     * @return 实际更新的行数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE MediaLibrary m SET m.status = 3 WHERE m.status = 2 "
+            + "AND (m.claimedAt < :before OR m.claimedAt IS NULL)")
+    int retireStaleClaims(@Param("before") LocalDateTime before);
+
+    /**
+     * 按 ID 批量更新状态（仅更新当前处于 expectedStatus 的行）
+     *
+     * @return 实际更新的行数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE MediaLibrary m SET m.status = :status WHERE m.id IN :ids AND m.status = :expectedStatus")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("expectedStatus") Integer expectedStatus,
+                     @Param("status") Integer status);
 }
@@ -0,0 +1,46 @@
+package LDS.Person.repository;
+
+import LDS.Person.entity.ScheduledPost;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 定时发布任务数据访问层
+ */
+@Repository
+public interface ScheduledPostRepository extends JpaRepository<ScheduledPost, Long> {
+
+    /**
+     * 查询计划时间不晚于 until 的待发布任务（走 idx_sched_status_publish 索引）
+     */
+    List<ScheduledPost> findByStatusAndPublishAtLessThanEqualOrderByPublishAtAsc(Integer status, LocalDateTime until);
+
+    /**
+     * 条件更新状态（仅当当前状态为 expectedStatus 时），用于原子领取与取消
+     *
+     * @return 实际更新的行数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ScheduledPost p SET p.status = :status, p.updatedAt = :now WHERE p.id = :id AND p.status = :expectedStatus")
+    int updateStatus(@Param("id") Long id,
+                     @Param("expectedStatus") Integer expectedStatus,
+                     @Param("status") Integer status,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * 将长时间停留在发布中的任务（进程在发布过程中退出）放回待发布
+     *
+     * @return 恢复的任务数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ScheduledPost p SET p.status = 0, p.updatedAt = :now WHERE p.status = 1 AND p.updatedAt < :before")
+    int resetStale(@Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+
+    long countByStatus(Integer status);
+}
@@ -0,0 +1,59 @@
+package LDS.Person.repository;
+
+import LDS.Person.entity.TweetOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 推文发件箱数据访问层
+ */
+@Repository
+public interface TweetOutboxRepository extends JpaRepository<TweetOutbox, Long> {
+
+    Optional<TweetOutbox> findByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * 锁定一批到期的待发布任务（SELECT ... FOR UPDATE SKIP LOCKED，多实例部署时不会重复领取）
+     * 需在事务中调用，随后立即改为发布中状态
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM TweetOutbox o WHERE o.status = 0 AND o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt ASC, o.id ASC")
+    List<TweetOutbox> lockDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * 按 ID 批量更新状态（仅更新当前处于 expectedStatus 的行）
+     *
+     * @return 实际更新的行数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TweetOutbox o SET o.status = :status, o.updatedAt = :now WHERE o.id IN :ids AND o.status = :expectedStatus")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("expectedStatus") Integer expectedStatus,
+                     @Param("status") Integer status,
+                     @Param("now") LocalDateTime now);
+
+    /**
+     * 将长时间停留在发布中的任务（进程在发布过程中退出）放回待发布
+     *
+     * @return 恢复的任务数
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE TweetOutbox o SET o.status = 0, o.updatedAt = :now WHERE o.status = 1 AND o.updatedAt < :before")
+    int resetStale(@Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+
+    long countByStatus(Integer status);
+}
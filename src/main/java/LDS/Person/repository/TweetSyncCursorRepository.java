@@ -0,0 +1,15 @@
+package LDS.Person.repository;
+
+import LDS.Person.entity.TweetSyncCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * tweet_sync_cursor 表数据访问
+ */
+@Repository
+public interface TweetSyncCursorRepository extends JpaRepository<TweetSyncCursor, Long> {
+    Optional<TweetSyncCursor> findByTwitterUserId(String twitterUserId);
+}
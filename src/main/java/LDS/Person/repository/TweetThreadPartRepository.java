@@ -0,0 +1,16 @@
+package LDS.Person.repository;
+
+import LDS.Person.entity.TweetThreadPart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 推文串条目数据访问层
+ */
+@Repository
+public interface TweetThreadPartRepository extends JpaRepository<TweetThreadPart, Long> {
+
+    List<TweetThreadPart> findByThreadIdOrderByPartIndexAsc(Long threadId);
+}
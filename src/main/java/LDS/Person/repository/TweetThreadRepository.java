@@ -0,0 +1,12 @@
+package LDS.Person.repository;
+
+import LDS.Person.entity.TweetThread;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 推文串数据访问层
+ */
+@Repository
+public interface TweetThreadRepository extends JpaRepository<TweetThread, Long> {
+}
@@ -4,6 +4,7 @@ import LDS.Person.entity.TwitterToken;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,17 @@ public interface TwitterTokenRepository extends JpaRepository<TwitterToken, Long
      */
     Optional<TwitterToken> findByTwitterUserId(String twitterUserId);
 
+    /**
+     * 查找最近更新的一条未过期 token（expires_at 为空视为未过期）
+     * 依赖 idx_updated_expires (updated_at, expires_at) 索引，按 updated_at 倒序扫描到第一条即返回
+     */
+    Optional<TwitterToken> findFirstByExpiresAtIsNullOrExpiresAtAfterOrderByUpdatedAtDesc(Instant now);
+
+    /**
+     * 查找最近更新的一条带 refresh_token 的 token（不论是否过期，用于全部过期后的刷新）
+     */
+    Optional<TwitterToken> findFirstByRefreshTokenIsNotNullOrderByUpdatedAtDesc();
+
     /**
      * 查找所有即将过期的 token（用于定时刷新）
      */
@@ -0,0 +1,84 @@
+package LDS.Person.service;
+
+import LDS.Person.entity.BulkJob;
+import LDS.Person.entity.BulkJobItem;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量转发 / 引用任务服务接口（只负责 bulk_job 与 bulk_job_item 的状态流转，执行由 BulkJobRunner 完成）
+ */
+public interface BulkJobService {
+
+    /**
+     * 创建任务及其条目
+     *
+     * @param jobType repost / quote
+     * @param twitterUserId 执行账号
+     * @param items 推文 ID -> 引用文本（已去重，repost 的文本为 null）
+     * @param concurrency 同时执行的条目数
+     */
+    BulkJob create(String jobType, String twitterUserId, Map<String, String> items, int concurrency);
+
+    /**
+     * @return 任务，不存在时返回 null
+     */
+    BulkJob findById(Long jobId);
+
+    List<BulkJob> findByStatus(int status);
+
+    /**
+     * 按状态名统计条目数
+     */
+    Map<String, Long> countItems(Long jobId);
+
+    /**
+     * 按 ID 游标分页查询条目
+     */
+    List<BulkJobItem> listItems(Long jobId, Long afterId, int limit);
+
+    /**
+     * 等待执行的条目 ID（按 ID 升序）
+     */
+    List<Long> findPendingItemIds(Long jobId);
+
+    /**
+     * 条件更新任务状态（仅当当前状态为 expectedStatus 时）
+     *
+     * @return 是否更新成功
+     */
+    boolean updateStatus(Long jobId, int expectedStatus, int status, String error);
+
+    /**
+     * 原子领取条目：等待 -> 执行中
+     *
+     * @return 领取到的条目，已被领取或不再等待时返回 null
+     */
+    BulkJobItem claimItem(Long itemId);
+
+    void completeItem(Long itemId, String resultTweetId);
+
+    void failItem(Long itemId, String error);
+
+    /**
+     * 放回等待执行
+     *
+     * @param countAttempt 是否计入失败次数（限流等情况不计入）
+     */
+    void requeueItem(Long itemId, String error, boolean countAttempt);
+
+    /**
+     * 将任务中所有等待执行的条目标记为已跳过
+     *
+     * @return 跳过的条目数
+     */
+    int skipPendingItems(Long jobId);
+
+    /**
+     * 将任务中执行中断的条目放回等待执行（服务重启后恢复任务时使用）
+     *
+     * @return 恢复的条目数
+     */
+    int resetRunningItems(Long jobId);
+}
@@ -1,62 +1,165 @@
 package LDS.Person.service;
 
 import LDS.Person.entity.GetTweet;
+import LDS.Person.entity.TweetSyncCursor;
 import LDS.Person.repository.GetTweetRepository;
+import LDS.Person.repository.TweetSyncCursorRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
 
 /**
  * 持久化存储 Twitter 推文数据
+ *
+ * 去重按批次进行：先在内存中按 tweet_id 去重，再用 IN 查询一次性排除已存在的推文，
+ * 剩余推文通过 JDBC 批量插入（配合 rewriteBatchedStatements=true 合并为多值 INSERT）。
+ * 并发写入同一推文时由 uk_tweet_id 唯一索引兜底，重复行被 ON DUPLICATE KEY 忽略。
  */
 @Service
 @Slf4j
 public class GetTweetStorageService {
 
+    private static final String INSERT_TWEET =
+            "INSERT INTO get_tweets (tweet_id, created_at, author_id, text) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE tweet_id = tweet_id";
+
+    /**
+     * IN 查询与批量插入的分块大小
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    /**
+     * 与 Hibernate 保存 Instant 的方式一致，按 UTC 写入
+     */
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
     @Autowired
     private GetTweetRepository getTweetRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TweetSyncCursorRepository tweetSyncCursorRepository;
+
+    /**
+     * 批量保存推文，已存在的推文会被跳过
+     *
+     * @param tweets X API 返回的推文列表
+     * @return 新插入的推文数量
+     */
     @Transactional
-    public void saveTweets(List<Map<String, Object>> tweets) {
+    public int saveTweets(List<Map<String, Object>> tweets) {
         if (tweets == null || tweets.isEmpty()) {
-            return;
+            return 0;
         }
 
-        List<GetTweet> toSave = new ArrayList<>();
-
+        // 批次内按 tweet_id 去重
+        Map<String, Map<String, Object>> candidates = new LinkedHashMap<>();
         for (Map<String, Object> tweet : tweets) {
             String tweetId = safeString(tweet.get("id"));
             if (tweetId == null || tweetId.isBlank()) {
                 continue;
             }
-
-            if (getTweetRepository.existsByTweetId(tweetId)) {
-                log.debug("推文 {} 已存在，跳过保存", tweetId);
+            if (safeString(tweet.get("author_id")) == null) {
+                log.warn("推文 {} 缺少 author_id，跳过保存", tweetId);
                 continue;
             }
+            candidates.putIfAbsent(tweetId, tweet);
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
 
-            GetTweet entity = new GetTweet();
-            entity.setTweetId(tweetId);
-            entity.setAuthorId(safeString(tweet.get("author_id")));
-            entity.setText(safeString(tweet.get("text")));
+        // 一次 IN 查询（按块）排除已存在的推文
+        Set<String> existing = new HashSet<>();
+        List<String> tweetIds = new ArrayList<>(candidates.keySet());
+        for (int from = 0; from < tweetIds.size(); from += CHUNK_SIZE) {
+            existing.addAll(getTweetRepository.findExistingTweetIds(
+                    tweetIds.subList(from, Math.min(from + CHUNK_SIZE, tweetIds.size()))));
+        }
 
+        List<Map<String, Object>> toInsert = new ArrayList<>(candidates.size() - existing.size());
+        for (Map.Entry<String, Map<String, Object>> entry : candidates.entrySet()) {
+            if (!existing.contains(entry.getKey())) {
+                toInsert.add(entry.getValue());
+            }
+        }
+        if (toInsert.isEmpty()) {
+            log.debug("{} 条推文均已存在，跳过保存", candidates.size());
+            return 0;
+        }
+
+        Calendar utcCalendar = Calendar.getInstance(UTC);
+        int[][] results = jdbcTemplate.batchUpdate(INSERT_TWEET, toInsert, CHUNK_SIZE, (ps, tweet) -> {
             Instant createdAt = parseInstant(safeString(tweet.get("created_at")));
-            entity.setCreatedAt(createdAt != null ? createdAt : Instant.now());
+            ps.setString(1, safeString(tweet.get("id")));
+            ps.setTimestamp(2, Timestamp.from(createdAt != null ? createdAt : Instant.now()), utcCalendar);
+            ps.setString(3, safeString(tweet.get("author_id")));
+            ps.setString(4, safeString(tweet.get("text")));
+        });
+
+        int inserted = countInserted(results);
+        log.info("已持久化 {} 条新推文（本批 {} 条，已存在 {} 条）", inserted, tweets.size(), existing.size());
+        return inserted;
+    }
 
-            toSave.add(entity);
+    /**
+     * 按推文 ID 批量查询已保存的推文（按块 IN 查询）
+     */
+    @Transactional(readOnly = true)
+    public List<GetTweet> findByTweetIds(Collection<String> tweetIds) {
+        List<String> ids = new ArrayList<>(tweetIds);
+        List<GetTweet> found = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            found.addAll(getTweetRepository.findByTweetIdIn(ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()))));
         }
+        return found;
+    }
 
-        if (!toSave.isEmpty()) {
-            getTweetRepository.saveAll(toSave);
-            log.info("已持久化 {} 条新推文", toSave.size());
+    /**
+     * 在同一事务中保存一页推文并推进同步游标，保证游标不会领先于已落库的推文
+     *
+     * @return 新插入的推文数量
+     */
+    @Transactional
+    public int saveTweetsWithCursor(List<Map<String, Object>> tweets, TweetSyncCursor cursor) {
+        int inserted = saveTweets(tweets);
+        cursor.setLastSyncAt(Instant.now());
+        tweetSyncCursorRepository.save(cursor);
+        return inserted;
+    }
+
+    /**
+     * 统计实际插入行数：ON DUPLICATE KEY 未变更的行返回 0；
+     * 批量重写后驱动可能返回 SUCCESS_NO_INFO，按插入成功计
+     */
+    private int countInserted(int[][] results) {
+        int inserted = 0;
+        for (int[] chunk : results) {
+            for (int count : chunk) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    inserted++;
+                }
+            }
         }
+        return inserted;
     }
 
     private String safeString(Object value) {
@@ -74,4 +177,4 @@ public class GetTweetStorageService {
             return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package LDS.Person.service;
+
+import java.nio.file.Path;
+
+/**
+ * 本地图片池服务接口
+ * 在内存中维护 config.properties 的 saveimgdir 目录下的 PNG 文件索引，并通过 WatchService 保持更新
+ */
+public interface ImagePoolService {
+
+    /**
+     * 从图片池中抽取一张图片
+     * 抽取方式由 config.properties 的 media.pool.mode 决定：
+     * random - 每次独立均匀随机；shuffle - 不重复抽取，整个池子抽完一轮后再重新开始
+     *
+     * @return 图片路径，目录不存在或没有 PNG 文件时返回 null
+     */
+    Path pickImage();
+
+    /**
+     * 当前索引中的图片数量
+     */
+    int size();
+
+    /**
+     * 当前这一轮中尚未被抽取的图片数量（random 模式下等于 size）
+     */
+    int remaining();
+}
@@ -0,0 +1,21 @@
+package LDS.Person.service;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 图片上传前预处理服务接口
+ * 将图片缩放到最大边长以内，按大小上限重新编码为 PNG / JPEG 并去除 EXIF 等元数据；
+ * 处理结果按内容指纹缓存在磁盘上，同一张图片再次上传时直接复用
+ */
+public interface ImagePreprocessService {
+
+    /**
+     * 预处理图片
+     *
+     * @param file      原始文件
+     * @param mediaType 原始媒体类型（仅处理 image/png、image/jpeg）
+     * @return 处理后的文件（.png 或 .jpg）；未启用、类型不支持或处理失败时返回原文件
+     */
+    CompletableFuture<Path> preprocess(Path file, String mediaType);
+}
@@ -1,6 +1,7 @@
 package LDS.Person.service;
 
 import LDS.Person.entity.MediaLibrary;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -17,4 +18,85 @@ public interface MediaLibraryService {
      * 查询所有媒体
      */
     List<MediaLibrary> findAll();
+    
+    /**
+     * 查询可用媒体（status=0 且未过期），按创建时间正序
+     */
+    List<MediaLibrary> findAvailable();
+    
+    /**
+     * 按创建时间倒序分页查询（keyset 分页）
+     * 
+     * @param beforeId 上一页最后一条记录的 ID，为空时查询第一页
+     * @param limit    每页条数
+     */
+    List<MediaLibrary> listPage(Long beforeId, int limit);
+    
+    /**
+     * 媒体记录总数
+     */
+    long count();
+    
+    /**
+     * 原子占用一批指定账号可用的媒体（status 0 -> 2），并发发推时不会拿到同一批媒体
+     * 临近过期（media-pool.retire-before 以内）的媒体不会被占用
+     * 占用后必须调用 markUsed 或 release
+     * 
+     * @param twitterUserId 发推账号（只占用该账号上传的或未记录账号的媒体），为空时不限账号
+     * @param limit         最多占用条数
+     */
+    List<MediaLibrary> claimAvailable(String twitterUserId, int limit);
+    
+    /**
+     * 统计指定账号上传的、未临近过期的可用媒体数量
+     */
+    long countFresh(String twitterUserId);
+    
+    /**
+     * 将临近过期（media-pool.retire-before 以内）的可用媒体标记为已退役（status 0 -> 3）
+     * 
+     * @return 退役的条数
+     */
+    int retireExpiring();
+    
+    /**
+     * 将占用超过 media-pool.claim-timeout 仍未标记已使用或释放的媒体标记为已退役（status 2 -> 3）
+     * 
+     * @return 退役的条数
+     */
+    int retireStaleClaims();
+    
+    /**
+     * 将已占用的媒体批量标记为已使用（status 2 -> 1）
+     * 
+     * @return 实际更新的行数
+     */
+    int markUsed(Collection<Long> ids);
+    
+    /**
+     * 释放已占用的媒体（status 2 -> 0），用于发推失败时
+     * 
+     * @return 实际更新的行数
+     */
+    int release(Collection<Long> ids);
+    
+    /**
+     * 记录一次上传完成的媒体
+     * 
+     * @param mediaId          X 返回的 media_id
+     * @param mediaKey         X 返回的 media_key
+     * @param expiresAfterSecs X 返回的有效期（秒），为空时按 24 小时计算
+     * @param twitterUserId    上传账号的用户 ID，可为空
+     * @param contentHash      上传文件内容的 SHA-256，可为空
+     */
+    MediaLibrary recordUpload(String mediaId, String mediaKey, Long expiresAfterSecs, String twitterUserId, String contentHash);
+    
+    /**
+     * 查找同一账号已上传过的相同内容中未临近过期的媒体，用于跳过重复上传
+     * 优先取可用记录并原子地将其标记为已使用（status 0 -> 1），交给调用方后不会再被发推流程占用；
+     * 只有已使用 / 占用中的记录时直接返回其 media_id，不会放回可用池
+     * 
+     * @return 复用的媒体记录，没有可复用的媒体时返回 null
+     */
+    MediaLibrary reuseUploaded(String contentHash, String twitterUserId);
 }
@@ -0,0 +1,63 @@
+package LDS.Person.service;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 媒体分片上传服务接口
+ * 使用 X API v2 的 INIT / APPEND / FINALIZE 分片上传流程，文件按固定大小分片从磁盘读取并并发上传
+ * 同一账号已上传过且未过期的相同内容不会重复上传，直接返回已有的 media_id（返回的 data 中 reused=true）
+ */
+public interface MediaUploadService {
+
+    /**
+     * 上传本地文件
+     *
+     * @param file          本地文件路径
+     * @param mediaType     媒体类型（如 image/png、video/mp4）
+     * @param mediaCategory 媒体类别（如 tweet_image、tweet_video）
+     * @param accessToken   用户 access_token
+     * @return 上传结果（X API 返回的 data：id、media_key、expires_after_secs、processing_info 等）
+     */
+    CompletableFuture<JSONObject> uploadFile(Path file, String mediaType, String mediaCategory, String accessToken);
+
+    /**
+     * 上传本地文件，并在媒体库中记录所属账号（media_id 只能由上传它的账号使用）
+     *
+     * @param twitterUserId 上传账号的用户 ID，为空时记录为不限账号
+     * @see #uploadFile(Path, String, String, String)
+     */
+    CompletableFuture<JSONObject> uploadFile(Path file, String mediaType, String mediaCategory, String accessToken,
+                                             String twitterUserId);
+
+    /**
+     * 上传本地文件，可指定是否复用相同内容的已有媒体
+     *
+     * @param reuseExisting false 时总是上传并新增一条媒体记录（媒体池补充需要新的 media_id）
+     * @see #uploadFile(Path, String, String, String, String)
+     */
+    CompletableFuture<JSONObject> uploadFile(Path file, String mediaType, String mediaCategory, String accessToken,
+                                             String twitterUserId, boolean reuseExisting);
+
+    /**
+     * 上传网络文件（先流式下载到临时文件，再按本地文件分片上传，完成后删除临时文件）
+     *
+     * @param url           文件 URL
+     * @param mediaType     媒体类型
+     * @param mediaCategory 媒体类别
+     * @param accessToken   用户 access_token
+     * @return 上传结果
+     */
+    CompletableFuture<JSONObject> uploadUrl(String url, String mediaType, String mediaCategory, String accessToken);
+
+    /**
+     * 上传网络文件，并在媒体库中记录所属账号
+     *
+     * @param twitterUserId 上传账号的用户 ID，为空时记录为不限账号
+     * @see #uploadUrl(String, String, String, String)
+     */
+    CompletableFuture<JSONObject> uploadUrl(String url, String mediaType, String mediaCategory, String accessToken,
+                                            String twitterUserId);
+}
@@ -0,0 +1,67 @@
+package LDS.Person.service;
+
+import LDS.Person.entity.ScheduledPost;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 定时发布任务服务接口（只负责 scheduled_post 表的状态流转，发布由 ScheduledPostDispatcher 完成）
+ */
+public interface ScheduledPostService {
+
+    /**
+     * 保存一条新的定时发布任务
+     */
+    ScheduledPost create(ScheduledPost post);
+
+    /**
+     * 根据 ID 查询
+     *
+     * @return 任务，不存在时返回 null
+     */
+    ScheduledPost findById(Long id);
+
+    /**
+     * 查询计划时间不晚于 until 的待发布任务（按计划时间升序）
+     */
+    List<ScheduledPost> findScheduledUntil(LocalDateTime until);
+
+    /**
+     * 原子领取：仅当任务仍处于等待发布时改为发布中
+     *
+     * @return 是否领取成功（已被取消或已被其他实例领取时返回 false）
+     */
+    boolean claim(Long id);
+
+    /**
+     * 取消尚未发布的任务
+     *
+     * @return 是否取消成功
+     */
+    boolean cancel(Long id);
+
+    void markSucceeded(Long id, String resultTweetId);
+
+    /**
+     * 记录一次失败并放回待发布（由调用方重新安排触发时间）
+     */
+    void markRetry(Long id, String error);
+
+    /**
+     * 放回待发布但不计入失败次数（被限流等情况）
+     */
+    void defer(Long id);
+
+    void markFailed(Long id, String error);
+
+    /**
+     * 将停留在发布中超过 timeout 的任务放回待发布
+     *
+     * @return 恢复的任务数
+     */
+    int recoverStale(Duration timeout);
+
+    long countScheduled();
+}
@@ -0,0 +1,20 @@
+package LDS.Person.service;
+
+import java.util.Map;
+
+/**
+ * 用户时间线增量同步服务接口
+ * 基于 tweet_sync_cursor 中保存的 since_id 与 pagination_token，只拉取上次同步之后的新推文并写入 get_tweets
+ */
+public interface TimelineSyncService {
+
+    /**
+     * 增量同步指定用户的时间线
+     *
+     * @param userId      时间线所属用户 ID
+     * @param accessToken 用户 access_token
+     * @return 同步结果：tweets（本次新拉取的推文）、tweet_count、saved_count、newest_id、pages、has_more；
+     *         API 返回错误时包含 error
+     */
+    Map<String, Object> syncUserTimeline(String userId, String accessToken);
+}
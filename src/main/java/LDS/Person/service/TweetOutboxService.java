@@ -0,0 +1,71 @@
+package LDS.Person.service;
+
+import LDS.Person.dto.request.CreateTweetRequest;
+import LDS.Person.entity.TweetOutbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 推文发件箱服务接口
+ * 发推请求先写入 tweet_outbox，由 TweetOutboxPublisher 异步发布
+ */
+public interface TweetOutboxService {
+
+    /**
+     * 提交一条待发布推文
+     * 同一个幂等键重复提交时返回已有的任务，不会重复发布
+     *
+     * @param twitterUserId 发布账号的 Twitter 用户 ID
+     * @param request 推文请求（text 与可选的 media.media_ids）
+     * @param idempotencyKey 幂等键，为空时自动生成
+     * @param callbackUrl 发布完成后回调的地址（可选）
+     * @return 发布任务
+     */
+    TweetOutbox enqueue(String twitterUserId, CreateTweetRequest request, String idempotencyKey, String callbackUrl);
+
+    /**
+     * 根据 ID 查询发布任务
+     *
+     * @return 发布任务，不存在时返回 null
+     */
+    TweetOutbox findById(Long id);
+
+    /**
+     * 原子领取一批到期的待发布任务并标记为发布中
+     */
+    List<TweetOutbox> claimDue(int limit);
+
+    /**
+     * 标记发布成功
+     */
+    void markSucceeded(Long id, String tweetId);
+
+    /**
+     * 记录一次失败，并在 nextAttemptAt 之后重试
+     */
+    void markRetry(Long id, String error, LocalDateTime nextAttemptAt);
+
+    /**
+     * 推迟发布（被限流等不计入失败次数的情况）
+     */
+    void defer(Long id, LocalDateTime nextAttemptAt);
+
+    /**
+     * 标记最终失败
+     */
+    void markFailed(Long id, String error);
+
+    /**
+     * 将停留在发布中超过 timeout 的任务放回待发布
+     *
+     * @return 恢复的任务数
+     */
+    int recoverStale(Duration timeout);
+
+    /**
+     * 等待发布的任务数
+     */
+    long countPending();
+}
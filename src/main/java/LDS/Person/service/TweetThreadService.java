@@ -0,0 +1,39 @@
+package LDS.Person.service;
+
+import LDS.Person.dto.request.TweetThreadRequest;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 推文串发布服务接口
+ * 所有条目的媒体先并发上传，推文按顺序逐条回复上一条发布；失败后可从第一条未发布的条目继续
+ */
+public interface TweetThreadService {
+
+    /**
+     * 发布推文串
+     *
+     * @param twitterUserId 发布账号
+     * @param accessToken   访问令牌
+     * @param request       推文串请求
+     * @return 发布结果（thread_id、status、tweet_ids、failed_part、error）
+     * @throws IllegalArgumentException 请求校验失败（此时不会发布任何推文）
+     */
+    CompletableFuture<Map<String, Object>> publishThread(String twitterUserId, String accessToken, TweetThreadRequest request);
+
+    /**
+     * 从第一条未发布的条目继续发布失败的推文串
+     *
+     * @throws IllegalArgumentException 推文串不存在
+     * @throws IllegalStateException    推文串正在发布或已完成
+     */
+    CompletableFuture<Map<String, Object>> resumeThread(Long threadId, String accessToken);
+
+    /**
+     * 查询推文串发布状态
+     *
+     * @return 发布状态，不存在时返回 null
+     */
+    Map<String, Object> getThread(Long threadId);
+}
@@ -16,6 +16,21 @@ public interface TwitterTokenService {
      */
     TwitterToken getByUserId(String twitterUserId);
 
+    /**
+     * 获取最近更新的一条未过期 token（带缓存，save / deleteByUserId 时失效）
+     *
+     * @return 最新的有效 token，不存在时返回 null
+     */
+    TwitterToken getLatestValidToken();
+
+    /**
+     * 获取最近更新的一条可刷新 token（带 refresh_token，可能已过期）
+     * 所有 token 都已过期时，交给 getValidAccessToken 刷新
+     *
+     * @return 可刷新的 token，不存在时返回 null
+     */
+    TwitterToken getLatestRefreshableToken();
+
     /**
      * 获取有效的 access_token（若需要会自动刷新）
      *
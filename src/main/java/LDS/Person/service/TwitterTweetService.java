@@ -7,6 +7,12 @@ import LDS.Person.dto.response.CreateTweetResponse;
  * Twitter 推文服务接口
  */
 public interface TwitterTweetService {
+
+    /**
+     * X API 单条推文最多附带的媒体数量
+     */
+    int MAX_MEDIA_PER_TWEET = 4;
+
     /**
      * 创建推文
      *
@@ -15,4 +21,48 @@ public interface TwitterTweetService {
      * @return 推文响应
      */
     CreateTweetResponse createTweet(String accessToken, CreateTweetRequest request);
+
+    /**
+     * 发布推文，失败时抛出异常而不是返回 null（供需要区分失败原因并重试的调用方使用）
+     *
+     * @param accessToken 访问令牌
+     * @param request 推文请求
+     * @return 推文响应
+     * @throws org.springframework.web.client.HttpClientErrorException X API 返回 4xx（429 为限流）
+     * @throws org.springframework.web.client.RestClientException 网络错误或 5xx
+     * @throws IllegalStateException X API 在响应体中返回 errors
+     */
+    CreateTweetResponse publishTweet(String accessToken, CreateTweetRequest request);
+
+    /**
+     * 使用媒体库中预上传的媒体发布推文：原子占用该账号最多 MAX_MEDIA_PER_TWEET 个可用媒体并通知媒体池补充，
+     * 发布成功后标记为已使用，失败时释放占用（异常类型同 publishTweet）
+     *
+     * @param userId 发布账号的用户 ID
+     * @param accessToken 访问令牌
+     * @param text 推文文本
+     * @return 推文响应（mediaIds 为本次使用的媒体 ID）
+     * @throws java.util.NoSuchElementException 媒体库中没有可用媒体
+     */
+    CreateTweetResponse publishWithPooledMedia(String userId, String accessToken, String text);
+
+    /**
+     * 引用推文，失败时抛出异常（异常类型同 publishTweet）
+     *
+     * @param accessToken 访问令牌
+     * @param text 推文文本
+     * @param quoteTweetId 被引用的推文 ID
+     * @return 新推文的响应
+     */
+    CreateTweetResponse quoteTweet(String accessToken, String text, String quoteTweetId);
+
+    /**
+     * 转发推文，失败时抛出异常（异常类型同 publishTweet）
+     *
+     * @param accessToken 访问令牌
+     * @param userId 转发账号的用户 ID
+     * @param tweetId 被转发的推文 ID
+     * @return X API 返回的 retweeted 状态
+     */
+    boolean repostTweet(String accessToken, String userId, String tweetId);
 }
@@ -0,0 +1,162 @@
+package LDS.Person.service.impl;
+
+import LDS.Person.entity.BulkJob;
+import LDS.Person.entity.BulkJobItem;
+import LDS.Person.repository.BulkJobItemRepository;
+import LDS.Person.repository.BulkJobRepository;
+import LDS.Person.service.BulkJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量转发 / 引用任务服务实现类
+ * 条目通过 JDBC 批量插入（配合 rewriteBatchedStatements=true 合并为多值 INSERT）
+ */
+@Service
+@Slf4j
+@Transactional
+public class BulkJobServiceImpl implements BulkJobService {
+
+    private static final String INSERT_ITEM =
+            "INSERT INTO bulk_job_item (job_id, tweet_id, text, status, attempts, updated_at) VALUES (?, ?, ?, 0, 0, ?)";
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private BulkJobRepository bulkJobRepository;
+
+    @Autowired
+    private BulkJobItemRepository bulkJobItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public BulkJob create(String jobType, String twitterUserId, Map<String, String> items, int concurrency) {
+        BulkJob job = new BulkJob();
+        job.setJobType(jobType);
+        job.setTwitterUserId(twitterUserId);
+        job.setConcurrency(concurrency);
+        job.setTotal(items.size());
+        job = bulkJobRepository.saveAndFlush(job);
+
+        Long jobId = job.getId();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_ITEM, new ArrayList<>(items.entrySet()), BATCH_SIZE, (ps, item) -> {
+            ps.setLong(1, jobId);
+            ps.setString(2, item.getKey());
+            ps.setString(3, item.getValue());
+            ps.setTimestamp(4, now);
+        });
+        log.info("📦 创建批量{}任务: id={}, 条目 {} 个, 并发 {}", jobType, jobId, items.size(), concurrency);
+        return job;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BulkJob findById(Long jobId) {
+        return bulkJobRepository.findById(jobId).orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BulkJob> findByStatus(int status) {
+        return bulkJobRepository.findByStatus(status);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> countItems(Long jobId) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int status = BulkJobItem.STATUS_PENDING; status <= BulkJobItem.STATUS_SKIPPED; status++) {
+            counts.put(BulkJobItem.statusName(status), 0L);
+        }
+        for (Object[] row : bulkJobItemRepository.countByStatus(jobId)) {
+            counts.put(BulkJobItem.statusName((Integer) row[0]), (Long) row[1]);
+        }
+        return counts;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BulkJobItem> listItems(Long jobId, Long afterId, int limit) {
+        return bulkJobItemRepository.findPage(jobId, afterId != null ? afterId : 0L, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findPendingItemIds(Long jobId) {
+        return bulkJobItemRepository.findIdsByJobIdAndStatus(jobId, BulkJobItem.STATUS_PENDING);
+    }
+
+    @Override
+    public boolean updateStatus(Long jobId, int expectedStatus, int status, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime finishedAt = status == BulkJob.STATUS_CANCELLED || status == BulkJob.STATUS_COMPLETED ? now : null;
+        return bulkJobRepository.updateStatus(jobId, expectedStatus, status, truncate(error), finishedAt, now) == 1;
+    }
+
+    @Override
+    public BulkJobItem claimItem(Long itemId) {
+        int updated = bulkJobItemRepository.updateStatus(itemId, BulkJobItem.STATUS_PENDING,
+                BulkJobItem.STATUS_RUNNING, LocalDateTime.now());
+        return updated == 1 ? bulkJobItemRepository.findById(itemId).orElse(null) : null;
+    }
+
+    @Override
+    public void completeItem(Long itemId, String resultTweetId) {
+        bulkJobItemRepository.findById(itemId).ifPresent(item -> {
+            item.setStatus(BulkJobItem.STATUS_SUCCEEDED);
+            item.setResultTweetId(resultTweetId);
+            item.setError(null);
+        });
+    }
+
+    @Override
+    public void failItem(Long itemId, String error) {
+        bulkJobItemRepository.findById(itemId).ifPresent(item -> {
+            item.setStatus(BulkJobItem.STATUS_FAILED);
+            item.setAttempts(item.getAttempts() + 1);
+            item.setError(truncate(error));
+        });
+    }
+
+    @Override
+    public void requeueItem(Long itemId, String error, boolean countAttempt) {
+        bulkJobItemRepository.findById(itemId).ifPresent(item -> {
+            item.setStatus(BulkJobItem.STATUS_PENDING);
+            if (countAttempt) {
+                item.setAttempts(item.getAttempts() + 1);
+            }
+            item.setError(truncate(error));
+        });
+    }
+
+    @Override
+    public int skipPendingItems(Long jobId) {
+        return bulkJobItemRepository.updateStatusByJob(jobId, BulkJobItem.STATUS_PENDING,
+                BulkJobItem.STATUS_SKIPPED, LocalDateTime.now());
+    }
+
+    @Override
+    public int resetRunningItems(Long jobId) {
+        return bulkJobItemRepository.updateStatusByJob(jobId, BulkJobItem.STATUS_RUNNING,
+                BulkJobItem.STATUS_PENDING, LocalDateTime.now());
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,256 @@
+package LDS.Person.service.impl;
+
+import LDS.Person.config.ConfigManager;
+import LDS.Person.service.ImagePoolService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 本地图片池服务实现
+ *
+ * - 首次使用时扫描一次 saveimgdir，之后由后台线程通过 WatchService 增量维护（新增 / 删除 / 事件溢出时重建）
+ * - 图片保存在 ArrayList 中，配合「路径 -> 下标」的 HashMap，抽取、新增、删除均为 O(1)
+ * - shuffle 模式：列表前 remaining 个为本轮未抽取的图片，抽中后与分界处交换并缩小分界，
+ *   本轮抽完后分界重置为整个列表，实现不重复抽取而无需每轮重新洗牌
+ * - saveimgdir 配置变更时在下次抽取时自动切换目录并重建索引
+ */
+@Service
+@Slf4j
+public class ImagePoolServiceImpl implements ImagePoolService {
+
+    private static final String MODE_SHUFFLE = "shuffle";
+
+    private final List<Path> images = new ArrayList<>();
+    private final Map<Path, Integer> positions = new HashMap<>();
+
+    /**
+     * shuffle 模式下本轮尚未抽取的图片数量（images[0, remaining) 为未抽取区）
+     */
+    private int remaining;
+
+    private Path directory;
+    private WatchService watchService;
+    private WatchKey watchKey;
+    private Thread watcherThread;
+
+    @Override
+    public synchronized Path pickImage() {
+        ensureIndexed();
+        boolean shuffle = MODE_SHUFFLE.equalsIgnoreCase(ConfigManager.getInstance().getString("media.pool.mode", MODE_SHUFFLE));
+
+        while (!images.isEmpty()) {
+            Path picked;
+            if (shuffle) {
+                if (remaining == 0) {
+                    remaining = images.size();
+                    log.info("图片池已全部抽取一轮，重新开始（共 {} 张）", remaining);
+                }
+                int index = ThreadLocalRandom.current().nextInt(remaining);
+                picked = images.get(index);
+                swap(index, --remaining);
+            } else {
+                picked = images.get(ThreadLocalRandom.current().nextInt(images.size()));
+            }
+
+            // 文件可能已删除而删除事件尚未处理
+            if (Files.isRegularFile(picked)) {
+                return picked;
+            }
+            remove(picked);
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized int size() {
+        ensureIndexed();
+        return images.size();
+    }
+
+    @Override
+    public synchronized int remaining() {
+        ensureIndexed();
+        return MODE_SHUFFLE.equalsIgnoreCase(ConfigManager.getInstance().getString("media.pool.mode", MODE_SHUFFLE))
+                ? remaining
+                : images.size();
+    }
+
+    /**
+     * 确保索引对应当前配置的目录，目录变化时重建
+     */
+    private void ensureIndexed() {
+        String configured = ConfigManager.getInstance().getString("saveimgdir", "");
+        Path target = configured.isBlank() ? null : Paths.get(configured).toAbsolutePath().normalize();
+        if (target == null || !Files.isDirectory(target)) {
+            if (directory != null) {
+                log.warn("saveimgdir 不可用，清空图片池: {}", configured);
+                unwatch();
+                clear();
+                directory = null;
+            }
+            return;
+        }
+        if (target.equals(directory)) {
+            return;
+        }
+
+        unwatch();
+        directory = target;
+        // 先注册监听再扫描，避免扫描期间新增的文件丢失
+        watch(target);
+        rebuild();
+    }
+
+    private void rebuild() {
+        clear();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (isPng(file) && Files.isRegularFile(file)) {
+                    add(file);
+                }
+            }
+        } catch (IOException e) {
+            log.error("扫描 saveimgdir 失败: {}", directory, e);
+        }
+        log.info("✅ 图片池索引已建立: {}，共 {} 张 PNG", directory, images.size());
+    }
+
+    private void watch(Path target) {
+        try {
+            if (watchService == null) {
+                watchService = target.getFileSystem().newWatchService();
+                watcherThread = new Thread(this::watchLoop, "image-pool-watcher");
+                watcherThread.setDaemon(true);
+                watcherThread.start();
+            }
+            watchKey = target.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            // 无法监听时每次目录变化需重启后才能感知，但仍可使用扫描结果
+            log.warn("⚠️ 无法监听 saveimgdir 变化: {}，{}", target, e.getMessage());
+        }
+    }
+
+    private void unwatch() {
+        if (watchKey != null) {
+            watchKey.cancel();
+            watchKey = null;
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            synchronized (this) {
+                if (key == watchKey) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        handleEvent(event);
+                    }
+                } else {
+                    key.pollEvents();
+                }
+            }
+            key.reset();
+        }
+    }
+
+    private void handleEvent(WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            log.warn("图片池监听事件溢出，重新扫描目录");
+            rebuild();
+            return;
+        }
+        Path file = directory.resolve((Path) event.context());
+        if (!isPng(file)) {
+            return;
+        }
+        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+            add(file);
+        } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            remove(file);
+        }
+    }
+
+    /**
+     * 新图片放入本轮未抽取区
+     */
+    private void add(Path file) {
+        if (positions.containsKey(file)) {
+            return;
+        }
+        images.add(file);
+        positions.put(file, images.size() - 1);
+        swap(images.size() - 1, remaining++);
+    }
+
+    private void remove(Path file) {
+        Integer index = positions.get(file);
+        if (index == null) {
+            return;
+        }
+        if (index < remaining) {
+            // 未抽取区：先与未抽取区末尾交换，使其落入已抽取区
+            swap(index, --remaining);
+            index = remaining;
+        }
+        int last = images.size() - 1;
+        swap(index, last);
+        images.remove(last);
+        positions.remove(file);
+    }
+
+    private void swap(int i, int j) {
+        if (i == j) {
+            return;
+        }
+        Path a = images.get(i);
+        Path b = images.get(j);
+        images.set(i, b);
+        images.set(j, a);
+        positions.put(b, i);
+        positions.put(a, j);
+    }
+
+    private void clear() {
+        images.clear();
+        positions.clear();
+        remaining = 0;
+    }
+
+    private static boolean isPng(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".png");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package LDS.Person.service.impl;
+
+import LDS.Person.config.ConfigManager;
+import LDS.Person.service.ImagePreprocessService;
+import LDS.Person.util.ContentHasher;
+import LDS.Person.util.DaemonExecutors;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 图片上传前预处理服务实现
+ *
+ * - 缩放：最长边超过 media.preprocess.max.dimension 时按比例缩小（先逐次减半再双线性插值到目标尺寸，兼顾速度与画质）
+ * - 编码：auto 模式下含透明像素的图片保留为 PNG，其余转为 JPEG；重新编码时不写入原图的 EXIF / 文本块等元数据
+ * - 大小上限：超过 media.preprocess.max.kb 时 JPEG 先逐级降低质量（不低于 50），仍超出则继续按 0.8 倍缩小尺寸
+ * - 缓存：输出文件以「原文件 SHA-256 + 处理参数」命名保存在 media.preprocess.cache.dir，命中时不再解码；
+ *   目录总大小超过 media.preprocess.cache.max.mb 时按最近使用时间淘汰
+ * - 解码与编码在独立的线程池中执行，线程数不超过 CPU 核数，不占用上传线程
+ */
+@Service
+@Slf4j
+public class ImagePreprocessServiceImpl implements ImagePreprocessService {
+
+    private static final Set<String> SUPPORTED_TYPES = Set.of("image/png", "image/jpeg");
+
+    private static final String FORMAT_AUTO = "auto";
+    private static final String FORMAT_PNG = "png";
+    private static final String FORMAT_JPEG = "jpeg";
+
+    private static final int MIN_JPEG_QUALITY = 50;
+    private static final int JPEG_QUALITY_STEP = 10;
+    private static final double SHRINK_FACTOR = 0.8;
+    private static final int MIN_DIMENSION = 64;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Object evictLock = new Object();
+
+    public ImagePreprocessServiceImpl() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int threads = Math.max(1, Math.min(cores,
+                ConfigManager.getInstance().getInt("media.preprocess.threads", Math.max(1, cores - 1))));
+        this.executor = DaemonExecutors.newFixedPool("image-preprocess", threads, new LinkedBlockingQueue<>());
+    }
+
+    @Override
+    public CompletableFuture<Path> preprocess(Path file, String mediaType) {
+        ConfigManager config = ConfigManager.getInstance();
+        if (!config.getBoolean("media.preprocess.enabled", false)
+                || mediaType == null || !SUPPORTED_TYPES.contains(mediaType.toLowerCase(Locale.ROOT))) {
+            return CompletableFuture.completedFuture(file);
+        }
+        Settings settings = Settings.load(config);
+        return CompletableFuture.supplyAsync(() -> process(file, settings), executor)
+                .exceptionally(ex -> {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    log.warn("⚠️ 图片预处理失败，上传原文件: {}，{}", file.getFileName(), cause.getMessage());
+                    return file;
+                });
+    }
+
+    private Path process(Path file, Settings settings) {
+        try {
+            Path cacheDir = Files.createDirectories(settings.cacheDir);
+            String key = ContentHasher.sha256(file) + "-" + settings.signature();
+            for (String extension : List.of(".jpg", ".png")) {
+                Path cached = cacheDir.resolve(key + extension);
+                if (Files.isRegularFile(cached)) {
+                    // 记录使用时间，淘汰时按最近使用排序
+                    Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+                    log.debug("图片预处理命中缓存: {} -> {}", file.getFileName(), cached.getFileName());
+                    return cached;
+                }
+            }
+
+            BufferedImage source = ImageIO.read(file.toFile());
+            if (source == null) {
+                throw new IllegalStateException("无法解码图片");
+            }
+            String format = resolveFormat(settings.format, source);
+            BufferedImage image = scaleToFit(source, settings.maxDimension, FORMAT_PNG.equals(format));
+            byte[] encoded = encodeWithinLimit(image, format, settings);
+
+            Path target = cacheDir.resolve(key + (FORMAT_PNG.equals(format) ? ".png" : ".jpg"));
+            Path temp = Files.createTempFile(cacheDir, key, ".tmp");
+            try {
+                Files.write(temp, encoded);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            log.info("✅ 图片预处理完成: {}（{} KB, {}x{}）-> {}（{} KB, {}x{}）",
+                    file.getFileName(), Files.size(file) / 1024, source.getWidth(), source.getHeight(),
+                    target.getFileName(), encoded.length / 1024, image.getWidth(), image.getHeight());
+
+            evict(cacheDir, settings.cacheMaxBytes);
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String resolveFormat(String configured, BufferedImage image) {
+        if (FORMAT_PNG.equals(configured) || FORMAT_JPEG.equals(configured)) {
+            return configured;
+        }
+        return hasTransparency(image) ? FORMAT_PNG : FORMAT_JPEG;
+    }
+
+    /**
+     * 是否存在 alpha 小于 255 的像素（截图等 32 位 PNG 通常带 alpha 通道但全部不透明）
+     */
+    private static boolean hasTransparency(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return false;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        WritableRaster alpha = image.getAlphaRaster();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            if (alpha != null) {
+                alpha.getPixels(0, y, width, 1, row);
+                for (int value : row) {
+                    if (value < 255) {
+                        return true;
+                    }
+                }
+            } else {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                for (int argb : row) {
+                    if ((argb >>> 24) < 255) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按比例缩小到最长边不超过 maxDimension，并统一转换为 RGB / ARGB（JPEG 输出时透明区域以白色填充）
+     */
+    private static BufferedImage scaleToFit(BufferedImage source, int maxDimension, boolean keepAlpha) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        // 一次缩小过多时双线性插值会丢失细节，先逐次减半
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2, keepAlpha);
+        }
+        if (current == source || current.getWidth() != targetWidth || current.getHeight() != targetHeight) {
+            current = resize(current, targetWidth, targetHeight, keepAlpha);
+        }
+        return current;
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, int height, boolean keepAlpha) {
+        BufferedImage target = new BufferedImage(width, height,
+                keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            if (!keepAlpha) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * 编码到大小上限以内：JPEG 先降低质量，仍超出则缩小尺寸后重试
+     */
+    private static byte[] encodeWithinLimit(BufferedImage image, String format, Settings settings) throws IOException {
+        BufferedImage current = image;
+        boolean keepAlpha = FORMAT_PNG.equals(format);
+        while (true) {
+            byte[] encoded;
+            if (keepAlpha) {
+                encoded = encodePng(current);
+            } else {
+                int quality = settings.jpegQuality;
+                encoded = encodeJpeg(current, quality);
+                while (encoded.length > settings.maxBytes && quality - JPEG_QUALITY_STEP >= MIN_JPEG_QUALITY) {
+                    quality -= JPEG_QUALITY_STEP;
+                    encoded = encodeJpeg(current, quality);
+                }
+            }
+            if (encoded.length <= settings.maxBytes) {
+                return encoded;
+            }
+
+            int width = (int) (current.getWidth() * SHRINK_FACTOR);
+            int height = (int) (current.getHeight() * SHRINK_FACTOR);
+            if (width < MIN_DIMENSION || height < MIN_DIMENSION) {
+                throw new IllegalStateException("无法压缩到 " + settings.maxBytes / 1024 + " KB 以内");
+            }
+            current = resize(current, width, height, keepAlpha);
+        }
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, FORMAT_PNG, output);
+        return output.toByteArray();
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, int quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(FORMAT_JPEG).next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality / 100f);
+            // 不传入原图元数据，输出中不包含 EXIF 等信息
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * 缓存目录超过上限时按最近使用时间淘汰
+     */
+    private void evict(Path cacheDir, long maxBytes) {
+        synchronized (evictLock) {
+            List<Path> files = new ArrayList<>();
+            long total = 0;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, "*.{png,jpg}")) {
+                for (Path cached : stream) {
+                    files.add(cached);
+                    total += Files.size(cached);
+                }
+            } catch (IOException e) {
+                log.warn("扫描图片预处理缓存失败: {}", cacheDir, e);
+                return;
+            }
+            if (total <= maxBytes) {
+                return;
+            }
+
+            files.sort(Comparator.comparingLong(ImagePreprocessServiceImpl::lastModified));
+            int removed = 0;
+            for (Path cached : files) {
+                if (total <= maxBytes) {
+                    break;
+                }
+                try {
+                    long size = Files.size(cached);
+                    Files.deleteIfExists(cached);
+                    total -= size;
+                    removed++;
+                } catch (IOException e) {
+                    log.warn("删除图片预处理缓存失败: {}", cached, e);
+                }
+            }
+            log.info("图片预处理缓存超出上限，已淘汰 {} 个文件", removed);
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 单次预处理使用的参数（调用时从 config.properties 读取，修改后立即生效）
+     */
+    private static final class Settings {
+        private int maxDimension;
+        private long maxBytes;
+        private String format;
+        private int jpegQuality;
+        private Path cacheDir;
+        private long cacheMaxBytes;
+
+        private static Settings load(ConfigManager config) {
+            Settings settings = new Settings();
+            settings.maxDimension = Math.max(MIN_DIMENSION, config.getInt("media.preprocess.max.dimension", 2048));
+            settings.maxBytes = Math.max(64, config.getInt("media.preprocess.max.kb", 4096)) * 1024L;
+            settings.format = config.getString("media.preprocess.format", FORMAT_AUTO).trim().toLowerCase(Locale.ROOT);
+            if ("jpg".equals(settings.format)) {
+                settings.format = FORMAT_JPEG;
+            }
+            settings.jpegQuality = Math.max(MIN_JPEG_QUALITY, Math.min(100, config.getInt("media.preprocess.jpeg.quality", 85)));
+            String cacheDir = config.getString("media.preprocess.cache.dir", "");
+            settings.cacheDir = cacheDir.isBlank()
+                    ? Paths.get(System.getProperty("java.io.tmpdir"), "x-media-preprocess")
+                    : Paths.get(cacheDir);
+            settings.cacheMaxBytes = Math.max(1, config.getInt("media.preprocess.cache.max.mb", 512)) * 1024L * 1024L;
+            return settings;
+        }
+
+        /**
+         * 影响输出结果的参数，作为缓存文件名的一部分，参数变化后不会命中旧的缓存
+         */
+        private String signature() {
+            return maxDimension + "_" + maxBytes / 1024 + "_" + format + "_" + jpegQuality;
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package LDS.Person.service.impl;
 
+import LDS.Person.config.MediaPoolProperties;
 import LDS.Person.entity.MediaLibrary;
 import LDS.Person.repository.MediaLibraryRepository;
 import LDS.Person.service.MediaLibraryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -19,9 +23,17 @@ import java.util.List;
 @Transactional
 public class MediaLibraryServiceImpl implements MediaLibraryService {
     
+    /**
+     * 复用可用记录时条件更新失败（被并发占用）后的最多重试次数
+     */
+    private static final int MAX_REUSE_ATTEMPTS = 3;
+    
     @Autowired
     private MediaLibraryRepository mediaLibraryRepository;
     
+    @Autowired
+    private MediaPoolProperties mediaPoolProperties;
+    
     @Override
     public MediaLibrary save(MediaLibrary mediaLibrary) {
         if (mediaLibrary.getCreateTime() == null) {
@@ -41,9 +53,151 @@ public class MediaLibraryServiceImpl implements MediaLibraryService {
         return mediaLibraryRepository.save(mediaLibrary);
     }
     
+    @Override
+    public MediaLibrary recordUpload(String mediaId, String mediaKey, Long expiresAfterSecs, String twitterUserId,
+                                     String contentHash) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime endTime = expiresAfterSecs != null && expiresAfterSecs > 0
+                ? now.plusSeconds(expiresAfterSecs)
+                : now.plusHours(24);
+        MediaLibrary mediaLibrary = MediaLibrary.builder()
+                .mediaId(mediaId)
+                .mediaKey(mediaKey)
+                .twitterUserId(twitterUserId)
+                .contentHash(contentHash)
+                .createTime(now)
+                .endTime(endTime)
+                .status(0)
+                .build();
+        return save(mediaLibrary);
+    }
+    
+    @Override
+    public MediaLibrary reuseUploaded(String contentHash, String twitterUserId) {
+        if (contentHash == null) {
+            return null;
+        }
+        // 可用记录可能同时被发推流程占用，条件更新失败时重新查询
+        for (int attempt = 0; attempt < MAX_REUSE_ATTEMPTS; attempt++) {
+            List<MediaLibrary> matches = mediaLibraryRepository.findReusable(
+                    contentHash, twitterUserId, retireThreshold(), PageRequest.of(0, 1));
+            if (matches.isEmpty()) {
+                return null;
+            }
+            MediaLibrary match = matches.get(0);
+            if (match.getStatus() != MediaLibrary.STATUS_AVAILABLE) {
+                return match;
+            }
+            if (mediaLibraryRepository.updateStatus(List.of(match.getId()),
+                    MediaLibrary.STATUS_AVAILABLE, MediaLibrary.STATUS_USED) == 1) {
+                match.setStatus(MediaLibrary.STATUS_USED);
+                log.info("复用并移出可用池: mediaId={}", match.getMediaId());
+                return match;
+            }
+        }
+        return null;
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public List<MediaLibrary> findAll() {
         return mediaLibraryRepository.findAll();
     }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<MediaLibrary> findAvailable() {
+        return mediaLibraryRepository.findByStatusAndEndTimeAfterOrderByCreateTimeAsc(
+                MediaLibrary.STATUS_AVAILABLE, LocalDateTime.now());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<MediaLibrary> listPage(Long beforeId, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, limit));
+        if (beforeId == null) {
+            return mediaLibraryRepository.findAllByOrderByCreateTimeDescIdDesc(page);
+        }
+        // 游标记录按主键查出其创建时间，作为 (createtime, id) 游标
+        return mediaLibraryRepository.findById(beforeId)
+                .map(cursor -> mediaLibraryRepository.findPageBefore(cursor.getCreateTime(), cursor.getId(), page))
+                .orElse(Collections.emptyList());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return mediaLibraryRepository.count();
+    }
+    
+    @Override
+    public List<MediaLibrary> claimAvailable(String twitterUserId, int limit) {
+        List<MediaLibrary> locked = mediaLibraryRepository.lockAvailable(
+                twitterUserId, retireThreshold(), PageRequest.of(0, Math.max(1, limit)));
+        if (locked.isEmpty()) {
+            return locked;
+        }
+        List<Long> ids = locked.stream().map(MediaLibrary::getId).toList();
+        LocalDateTime now = LocalDateTime.now();
+        mediaLibraryRepository.claim(ids, now);
+        locked.forEach(media -> {
+            media.setStatus(MediaLibrary.STATUS_CLAIMED);
+            media.setClaimedAt(now);
+        });
+        log.info("已占用 {} 条可用媒体: ids={}", locked.size(), ids);
+        return locked;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public long countFresh(String twitterUserId) {
+        return mediaLibraryRepository.countByTwitterUserIdAndStatusAndEndTimeAfter(
+                twitterUserId, MediaLibrary.STATUS_AVAILABLE, retireThreshold());
+    }
+    
+    @Override
+    public int retireExpiring() {
+        int retired = mediaLibraryRepository.retireExpiring(retireThreshold());
+        if (retired > 0) {
+            log.info("已退役 {} 条临近过期的可用媒体", retired);
+        }
+        return retired;
+    }
+    
+    @Override
+    public int retireStaleClaims() {
+        int retired = mediaLibraryRepository.retireStaleClaims(
+                LocalDateTime.now().minus(mediaPoolProperties.getClaimTimeout()));
+        if (retired > 0) {
+            log.warn("⚠️ {} 条媒体占用超时未完成（发推过程中进程退出），已标记为退役", retired);
+        }
+        return retired;
+    }
+    
+    @Override
+    public int markUsed(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        int updated = mediaLibraryRepository.updateStatus(ids, MediaLibrary.STATUS_CLAIMED, MediaLibrary.STATUS_USED);
+        log.info("批量标记媒体为已使用: {} 条（请求 {} 条）", updated, ids.size());
+        return updated;
+    }
+    
+    @Override
+    public int release(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        int updated = mediaLibraryRepository.updateStatus(ids, MediaLibrary.STATUS_CLAIMED, MediaLibrary.STATUS_AVAILABLE);
+        log.info("释放已占用媒体: {} 条（请求 {} 条）", updated, ids.size());
+        return updated;
+    }
+    
+    /**
+     * 过期时间早于该时间点的媒体视为临近过期，不再分配
+     */
+    private LocalDateTime retireThreshold() {
+        return LocalDateTime.now().plus(mediaPoolProperties.getRetireBefore());
+    }
 }
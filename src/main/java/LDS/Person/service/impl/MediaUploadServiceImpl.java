@@ -0,0 +1,581 @@
+package LDS.Person.service.impl;
+
+import LDS.Person.config.ConfigManager;
+import LDS.Person.config.TwitterHttpTransport;
+import LDS.Person.entity.MediaLibrary;
+import LDS.Person.service.ImagePreprocessService;
+import LDS.Person.service.MediaLibraryService;
+import LDS.Person.service.MediaUploadService;
+import LDS.Person.util.ContentHasher;
+import LDS.Person.util.DaemonExecutors;
+import LDS.Person.util.TwitterRateLimitHandler;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 媒体分片上传服务实现
+ *
+ * 流程：（可选）图片预处理 -> INIT -> 并发 APPEND（每个分片独立重试）-> FINALIZE -> 轮询 STATUS（视频等异步处理的媒体）
+ * - 分片通过 FileChannel 按位置读取，同一时刻内存中最多只有「并发数 × 分片大小」的数据
+ * - 单次上传的并发数有上限，所有上传共享一个有界线程池
+ * - STATUS 轮询与分片重试（含 429 的 Retry-After 等待）挂在调度器上，不占用线程等待
+ * - 上传前按文件内容 SHA-256 查询媒体库，同一账号已有未过期的相同内容时直接复用其 media_id（media.upload.dedupe.enabled）
+ * - 启用 media.preprocess.enabled 时，PNG / JPEG 先经 ImagePreprocessService 缩放、压缩并去除元数据，上传处理后的文件
+ *
+ * 参数读取 config.properties：
+ * media.upload.segment.mb、media.upload.parallelism、media.upload.segment.retries、
+ * media.upload.status.timeout.seconds、media.upload.threads
+ */
+@Service
+@Slf4j
+public class MediaUploadServiceImpl implements MediaUploadService {
+
+    private static final String MEDIA_UPLOAD_BASE = "https://api.x.com/2/media/upload";
+
+    private final TwitterHttpTransport twitterHttpTransport;
+    private final TwitterRateLimitHandler rateLimitHandler;
+    private final MediaLibraryService mediaLibraryService;
+    private final ImagePreprocessService imagePreprocessService;
+
+    /**
+     * 正在上传的内容（内容指纹|账号 -> 上传结果），同一内容同时只上传一次
+     */
+    private final Map<String, CompletableFuture<JSONObject>> inFlightUploads = new ConcurrentHashMap<>();
+
+    /**
+     * 执行 INIT / APPEND / FINALIZE / STATUS 请求的有界线程池
+     */
+    private final ThreadPoolExecutor uploadExecutor;
+
+    /**
+     * STATUS 轮询与分片重试的延时调度器
+     */
+    private final ScheduledExecutorService pollScheduler;
+
+    public MediaUploadServiceImpl(TwitterHttpTransport twitterHttpTransport,
+                                  TwitterRateLimitHandler rateLimitHandler,
+                                  MediaLibraryService mediaLibraryService,
+                                  ImagePreprocessService imagePreprocessService) {
+        this.twitterHttpTransport = twitterHttpTransport;
+        this.rateLimitHandler = rateLimitHandler;
+        this.mediaLibraryService = mediaLibraryService;
+        this.imagePreprocessService = imagePreprocessService;
+
+        int threads = Math.max(1, ConfigManager.getInstance().getInt("media.upload.threads", 8));
+        this.uploadExecutor = DaemonExecutors.newFixedPool("media-upload", threads, new ArrayBlockingQueue<>(threads * 32));
+        this.pollScheduler = DaemonExecutors.newSingleThreadScheduler("media-upload-poll");
+    }
+
+    @Override
+    public CompletableFuture<JSONObject> uploadFile(Path file, String mediaType, String mediaCategory, String accessToken) {
+        return uploadFile(file, mediaType, mediaCategory, accessToken, null);
+    }
+
+    @Override
+    public CompletableFuture<JSONObject> uploadFile(Path file, String mediaType, String mediaCategory, String accessToken,
+                                                    String twitterUserId) {
+        return uploadFile(file, mediaType, mediaCategory, accessToken, twitterUserId, true);
+    }
+
+    @Override
+    public CompletableFuture<JSONObject> uploadFile(Path file, String mediaType, String mediaCategory, String accessToken,
+                                                    String twitterUserId, boolean reuseExisting) {
+        boolean dedupe = ConfigManager.getInstance().getBoolean("media.upload.dedupe.enabled", true);
+        // 依赖阶段经 submit 提交：线程池队列已满时得到失败的 future，而不是让拒绝异常抛给完成上一阶段的线程、
+        // 本阶段永远不完成
+        return imagePreprocessService.preprocess(file, mediaType)
+                .thenCompose(source -> submit(() -> {
+                    String sourceType = source.equals(file) ? mediaType : mediaTypeOf(source);
+                    // 不复用时仍记录指纹，之后的相同内容上传可以复用这条记录
+                    String contentHash = dedupe ? hashQuietly(source) : null;
+                    if (contentHash == null || !reuseExisting) {
+                        return upload(source, sourceType, mediaCategory, accessToken, twitterUserId, contentHash);
+                    }
+                    return uploadOrReuse(source, sourceType, mediaCategory, accessToken, twitterUserId, contentHash);
+                }).thenCompose(Function.identity()));
+    }
+
+    /**
+     * 相同内容（同一账号）已有未过期的 media_id 时直接复用；同一内容正在上传时等待该次上传的结果
+     */
+    private CompletableFuture<JSONObject> uploadOrReuse(Path source, String mediaType, String mediaCategory,
+                                                       String accessToken, String twitterUserId, String contentHash) {
+        String key = contentHash + "|" + twitterUserId;
+        CompletableFuture<JSONObject> created = new CompletableFuture<>();
+        CompletableFuture<JSONObject> inFlight = inFlightUploads.putIfAbsent(key, created);
+        if (inFlight != null) {
+            log.info("相同内容正在上传，等待其结果: {}", source.getFileName());
+            return inFlight;
+        }
+
+        MediaLibrary reusable = null;
+        try {
+            reusable = mediaLibraryService.reuseUploaded(contentHash, twitterUserId);
+        } catch (Exception e) {
+            log.error("查询可复用媒体失败，继续上传: {}", source.getFileName(), e);
+        }
+        CompletableFuture<JSONObject> result;
+        if (reusable != null) {
+            log.info("♻️ 复用未过期的相同媒体: mediaId={}, 文件: {}, 过期时间: {}",
+                    reusable.getMediaId(), source.getFileName(), reusable.getEndTime());
+            result = CompletableFuture.completedFuture(toReusedData(reusable));
+        } else {
+            result = upload(source, mediaType, mediaCategory, accessToken, twitterUserId, contentHash);
+        }
+        result.whenComplete((data, ex) -> {
+            inFlightUploads.remove(key, created);
+            if (ex != null) {
+                created.completeExceptionally(ex);
+            } else {
+                created.complete(data);
+            }
+        });
+        return created;
+    }
+
+    private CompletableFuture<JSONObject> upload(Path source, String mediaType, String mediaCategory,
+                                                String accessToken, String twitterUserId, String contentHash) {
+        ConfigManager config = ConfigManager.getInstance();
+        int segmentBytes = Math.max(1, config.getInt("media.upload.segment.mb", 4)) * 1024 * 1024;
+        int parallelism = Math.max(1, config.getInt("media.upload.parallelism", 3));
+        int retries = Math.max(0, config.getInt("media.upload.segment.retries", 3));
+        long statusDeadline = System.currentTimeMillis()
+                + Math.max(1, config.getInt("media.upload.status.timeout.seconds", 600)) * 1000L;
+
+        return submit(() -> initialize(source, mediaType, mediaCategory, accessToken, segmentBytes))
+                .thenCompose(session -> appendSegments(session, parallelism, retries))
+                .thenCompose(session -> submit(() -> finalizeUpload(session)))
+                .thenCompose(session -> awaitProcessing(session, statusDeadline))
+                .thenApply(session -> {
+                    recordUpload(session, twitterUserId, contentHash);
+                    log.info("✅ 分片上传完成: mediaId={}, 文件: {}, 大小: {} 字节, 分片数: {}",
+                            session.mediaId, source.getFileName(), session.totalBytes, session.segmentCount);
+                    return session.data;
+                });
+    }
+
+    @Override
+    public CompletableFuture<JSONObject> uploadUrl(String url, String mediaType, String mediaCategory, String accessToken) {
+        return uploadUrl(url, mediaType, mediaCategory, accessToken, null);
+    }
+
+    @Override
+    public CompletableFuture<JSONObject> uploadUrl(String url, String mediaType, String mediaCategory, String accessToken,
+                                                   String twitterUserId) {
+        return submit(() -> downloadToTempFile(url))
+                .thenCompose(temp -> uploadFile(temp, mediaType, mediaCategory, accessToken, twitterUserId)
+                        .whenComplete((data, ex) -> deleteQuietly(temp)));
+    }
+
+    /**
+     * INIT：声明媒体类型与总大小，获取 media_id
+     */
+    private UploadSession initialize(Path file, String mediaType, String mediaCategory, String accessToken,
+                                     int segmentBytes) {
+        long totalBytes;
+        try {
+            totalBytes = Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法读取文件大小: " + file, e);
+        }
+        if (totalBytes <= 0) {
+            throw new IllegalArgumentException("文件为空: " + file);
+        }
+
+        JSONObject body = new JSONObject();
+        body.put("media_type", mediaType);
+        body.put("total_bytes", totalBytes);
+        body.put("media_category", mediaCategory);
+
+        log.info("📤 INIT 分片上传: 文件 {}, 大小 {} 字节, media_type={}, media_category={}",
+                file.getFileName(), totalBytes, mediaType, mediaCategory);
+        ResponseEntity<String> response = twitterHttpTransport.postJson(
+                MEDIA_UPLOAD_BASE + "/initialize", body.toJSONString(), accessToken);
+        JSONObject data = requireData(response, "INIT");
+
+        UploadSession session = new UploadSession();
+        session.file = file;
+        session.accessToken = accessToken;
+        session.totalBytes = totalBytes;
+        session.segmentBytes = segmentBytes;
+        session.segmentCount = (int) ((totalBytes + segmentBytes - 1) / segmentBytes);
+        session.mediaId = data.getString("id");
+        session.data = data;
+        if (session.mediaId == null) {
+            throw new IllegalStateException("INIT 响应缺少 media id: " + response.getBody());
+        }
+        return session;
+    }
+
+    /**
+     * APPEND：多个 worker 从共享游标领取分片并上传，任一分片最终失败则整体失败
+     */
+    private CompletableFuture<UploadSession> appendSegments(UploadSession session, int parallelism, int retries) {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(session.file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException("无法打开文件: " + session.file, e));
+        }
+
+        AtomicInteger nextSegment = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int workers = Math.min(parallelism, session.segmentCount);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            futures.add(appendNext(session, channel, nextSegment, failure, retries));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((v, ex) -> closeQuietly(channel))
+                .thenApply(v -> session);
+    }
+
+    /**
+     * 单个并发槽位：依次领取下一个分片上传，直到全部完成或任一分片最终失败
+     */
+    private CompletableFuture<Void> appendNext(UploadSession session, FileChannel channel, AtomicInteger nextSegment,
+                                               AtomicReference<Throwable> failure, int retries) {
+        int index;
+        if (failure.get() != null || (index = nextSegment.getAndIncrement()) >= session.segmentCount) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return submit(() -> readSegment(session, channel, index))
+                .thenCompose(segment -> appendWithRetry(session, index, segment, 0, retries))
+                .whenComplete((v, ex) -> {
+                    if (ex != null) {
+                        failure.compareAndSet(null, ex);
+                    }
+                })
+                .thenCompose(v -> appendNext(session, channel, nextSegment, failure, retries));
+    }
+
+    /**
+     * 上传单个分片；失败时在调度器上延时后重新提交，等待期间不占用上传线程
+     */
+    private CompletableFuture<Void> appendWithRetry(UploadSession session, int index, byte[] segment,
+                                                    int attempt, int retries) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        submit(() -> {
+            appendSegment(session, index, segment);
+            return null;
+        }).whenComplete((v, ex) -> {
+            if (ex == null) {
+                log.debug("APPEND 分片 {}/{} 完成, mediaId={}", index + 1, session.segmentCount, session.mediaId);
+                result.complete(null);
+                return;
+            }
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            boolean rateLimited = cause instanceof Exception && rateLimitHandler.isRateLimitError((Exception) cause);
+            boolean retryable = !(cause instanceof HttpClientErrorException) || rateLimited;
+            if (!retryable || attempt >= retries) {
+                log.error("❌ APPEND 分片 {} 失败，已重试 {} 次, mediaId={}: {}",
+                        index, attempt, session.mediaId, cause.getMessage());
+                result.completeExceptionally(cause);
+                return;
+            }
+            long delayMillis = rateLimited
+                    ? rateLimitHandler.extractRetryAfter((HttpClientErrorException) cause) * 1000
+                    : 500L << Math.min(attempt, 5);
+            log.warn("⚠️ APPEND 分片 {} 失败，{} 毫秒后第 {} 次重试: {}", index, delayMillis, attempt + 1, cause.getMessage());
+            try {
+                pollScheduler.schedule(() -> appendWithRetry(session, index, segment, attempt + 1, retries)
+                                .whenComplete((r, retryEx) -> {
+                                    if (retryEx != null) {
+                                        result.completeExceptionally(retryEx);
+                                    } else {
+                                        result.complete(null);
+                                    }
+                                }),
+                        delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException rejected) {
+                result.completeExceptionally(cause);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 提交到上传线程池；线程池已满时返回失败的 future 而不是抛出异常
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, uploadExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 按位置读取单个分片（FileChannel 的定位读取可并发调用）
+     */
+    private byte[] readSegment(UploadSession session, FileChannel channel, int index) {
+        long offset = (long) index * session.segmentBytes;
+        int length = (int) Math.min(session.segmentBytes, session.totalBytes - offset);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("文件在上传过程中被截断: " + session.file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取分片失败: " + index, e);
+        }
+        return buffer.array();
+    }
+
+    private void appendSegment(UploadSession session, int index, byte[] segment) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + session.accessToken);
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        String fileName = session.file.getFileName().toString();
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("media", new ByteArrayResource(segment) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+        });
+        body.add("segment_index", String.valueOf(index));
+
+        twitterHttpTransport.exchange(
+                MEDIA_UPLOAD_BASE + "/" + session.mediaId + "/append",
+                HttpMethod.POST,
+                new HttpEntity<>(body, headers),
+                String.class);
+    }
+
+    /**
+     * FINALIZE：通知所有分片已上传，返回 processing_info（如有）
+     */
+    private UploadSession finalizeUpload(UploadSession session) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + session.accessToken);
+        headers.set("Accept", "application/json");
+
+        ResponseEntity<String> response = twitterHttpTransport.exchange(
+                MEDIA_UPLOAD_BASE + "/" + session.mediaId + "/finalize",
+                HttpMethod.POST,
+                new HttpEntity<>(headers),
+                String.class);
+        session.data = mergeData(session.data, requireData(response, "FINALIZE"));
+        log.info("FINALIZE 完成, mediaId={}, processing_info={}", session.mediaId, session.data.get("processing_info"));
+        return session;
+    }
+
+    /**
+     * 轮询 STATUS 直到处理完成（succeeded）或失败，没有 processing_info 时直接返回
+     */
+    private CompletableFuture<UploadSession> awaitProcessing(UploadSession session, long deadline) {
+        JSONObject processingInfo = session.data.getJSONObject("processing_info");
+        if (processingInfo == null) {
+            return CompletableFuture.completedFuture(session);
+        }
+
+        String state = processingInfo.getString("state");
+        if ("succeeded".equals(state)) {
+            return CompletableFuture.completedFuture(session);
+        }
+        if ("failed".equals(state)) {
+            JSONObject error = processingInfo.getJSONObject("error");
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "媒体处理失败: " + (error != null ? error.getString("message") : processingInfo)));
+        }
+
+        long delaySeconds = Math.max(1, processingInfo.getLongValue("check_after_secs", 1));
+        if (System.currentTimeMillis() + delaySeconds * 1000 > deadline) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "等待媒体处理超时, mediaId=" + session.mediaId + ", state=" + state));
+        }
+
+        log.info("⏳ 媒体处理中（{}%），{} 秒后查询 STATUS, mediaId={}",
+                processingInfo.getIntValue("progress_percent"), delaySeconds, session.mediaId);
+        CompletableFuture<UploadSession> next = new CompletableFuture<>();
+        pollScheduler.schedule(() -> submit(() -> checkStatus(session))
+                        .thenCompose(s -> awaitProcessing(s, deadline))
+                        .whenComplete((s, ex) -> {
+                            if (ex != null) {
+                                next.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null
+                                        ? ex.getCause() : ex);
+                            } else {
+                                next.complete(s);
+                            }
+                        }),
+                delaySeconds, TimeUnit.SECONDS);
+        return next;
+    }
+
+    private UploadSession checkStatus(UploadSession session) {
+        ResponseEntity<String> response = twitterHttpTransport.get(
+                MEDIA_UPLOAD_BASE + "?command=STATUS&media_id=" + session.mediaId, session.accessToken);
+        session.data = mergeData(session.data, requireData(response, "STATUS"));
+        return session;
+    }
+
+    /**
+     * 记录到媒体库（失败不影响上传结果）
+     */
+    private void recordUpload(UploadSession session, String twitterUserId, String contentHash) {
+        try {
+            String mediaKey = session.data.getString("media_key");
+            Long expiresAfterSecs = session.data.getLong("expires_after_secs");
+            mediaLibraryService.recordUpload(session.mediaId, mediaKey, expiresAfterSecs, twitterUserId, contentHash);
+        } catch (Exception e) {
+            log.error("保存媒体记录到数据库失败, mediaId={}", session.mediaId, e);
+        }
+    }
+
+    private Path downloadToTempFile(String url) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("x-media-", suffixOf(url));
+            URLConnection connection = new URL(url).openConnection();
+            connection.setConnectTimeout(10000);
+            connection.setReadTimeout(10000);
+            try (InputStream inputStream = connection.getInputStream()) {
+                long size = Files.copy(inputStream, temp, StandardCopyOption.REPLACE_EXISTING);
+                log.info("已从 URL 下载到临时文件: {}，大小: {} 字节", temp, size);
+            }
+            return temp;
+        } catch (IOException e) {
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+            throw new UncheckedIOException("无法从 URL 读取文件: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 复用已有媒体时返回与上传结果相同结构的 data（expires_after_secs 为剩余有效期），并标记 reused
+     */
+    private static JSONObject toReusedData(MediaLibrary media) {
+        JSONObject data = new JSONObject();
+        data.put("id", media.getMediaId());
+        data.put("media_key", media.getMediaKey());
+        data.put("expires_after_secs", Math.max(0, Duration.between(LocalDateTime.now(), media.getEndTime()).getSeconds()));
+        data.put("reused", true);
+        return data;
+    }
+
+    private static String hashQuietly(Path file) {
+        try {
+            return ContentHasher.sha256(file);
+        } catch (IOException e) {
+            log.warn("计算文件指纹失败，跳过去重: {}，{}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 预处理输出文件的媒体类型（.png 或 .jpg）
+     */
+    private static String mediaTypeOf(Path processed) {
+        return processed.getFileName().toString().endsWith(".png") ? "image/png" : "image/jpeg";
+    }
+
+    private static String suffixOf(String url) {
+        String name = url.substring(url.lastIndexOf('/') + 1);
+        int query = name.indexOf('?');
+        if (query >= 0) {
+            name = name.substring(0, query);
+        }
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && name.length() - dot <= 6 ? name.substring(dot) : ".tmp";
+    }
+
+    private static JSONObject requireData(ResponseEntity<String> response, String step) {
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new IllegalStateException(step + " 失败，状态码: " + response.getStatusCode());
+        }
+        JSONObject json = JSON.parseObject(response.getBody());
+        if (json.containsKey("errors")) {
+            throw new IllegalStateException(step + " 返回错误: " + json.get("errors"));
+        }
+        JSONObject data = json.getJSONObject("data");
+        return data != null ? data : new JSONObject();
+    }
+
+    private static JSONObject mergeData(JSONObject base, JSONObject update) {
+        JSONObject merged = new JSONObject(base);
+        merged.putAll(update);
+        return merged;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败: {}", path);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pollScheduler.shutdownNow();
+        uploadExecutor.shutdownNow();
+    }
+
+    /**
+     * 单次上传的状态
+     */
+    private static final class UploadSession {
+        private Path file;
+        private String accessToken;
+        private long totalBytes;
+        private int segmentBytes;
+        private int segmentCount;
+        private String mediaId;
+        private volatile JSONObject data;
+    }
+}
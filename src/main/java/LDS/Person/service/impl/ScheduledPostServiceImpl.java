@@ -0,0 +1,119 @@
+package LDS.Person.service.impl;
+
+import LDS.Person.entity.ScheduledPost;
+import LDS.Person.repository.ScheduledPostRepository;
+import LDS.Person.service.ScheduledPostService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 定时发布任务服务实现类
+ */
+@Service
+@Slf4j
+@Transactional
+public class ScheduledPostServiceImpl implements ScheduledPostService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private ScheduledPostRepository scheduledPostRepository;
+
+    @Override
+    public ScheduledPost create(ScheduledPost post) {
+        post.setStatus(ScheduledPost.STATUS_SCHEDULED);
+        post.setAttempts(0);
+        ScheduledPost saved = scheduledPostRepository.save(post);
+        log.info("🗓️ 新增定时发布: id={}, type={}, publishAt={}", saved.getId(), saved.getPostType(), saved.getPublishAt());
+        return saved;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ScheduledPost findById(Long id) {
+        return scheduledPostRepository.findById(id).orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ScheduledPost> findScheduledUntil(LocalDateTime until) {
+        return scheduledPostRepository.findByStatusAndPublishAtLessThanEqualOrderByPublishAtAsc(
+                ScheduledPost.STATUS_SCHEDULED, until);
+    }
+
+    @Override
+    public boolean claim(Long id) {
+        return scheduledPostRepository.updateStatus(id, ScheduledPost.STATUS_SCHEDULED,
+                ScheduledPost.STATUS_DISPATCHING, LocalDateTime.now()) == 1;
+    }
+
+    @Override
+    public boolean cancel(Long id) {
+        boolean cancelled = scheduledPostRepository.updateStatus(id, ScheduledPost.STATUS_SCHEDULED,
+                ScheduledPost.STATUS_CANCELLED, LocalDateTime.now()) == 1;
+        if (cancelled) {
+            log.info("定时发布已取消: id={}", id);
+        }
+        return cancelled;
+    }
+
+    @Override
+    public void markSucceeded(Long id, String resultTweetId) {
+        scheduledPostRepository.findById(id).ifPresent(post -> {
+            post.setStatus(ScheduledPost.STATUS_SUCCEEDED);
+            post.setResultTweetId(resultTweetId);
+            post.setPublishedAt(LocalDateTime.now());
+            post.setLastError(null);
+        });
+    }
+
+    @Override
+    public void markRetry(Long id, String error) {
+        scheduledPostRepository.findById(id).ifPresent(post -> {
+            post.setStatus(ScheduledPost.STATUS_SCHEDULED);
+            post.setAttempts(post.getAttempts() + 1);
+            post.setLastError(truncate(error));
+        });
+    }
+
+    @Override
+    public void defer(Long id) {
+        scheduledPostRepository.updateStatus(id, ScheduledPost.STATUS_DISPATCHING,
+                ScheduledPost.STATUS_SCHEDULED, LocalDateTime.now());
+    }
+
+    @Override
+    public void markFailed(Long id, String error) {
+        scheduledPostRepository.findById(id).ifPresent(post -> {
+            post.setStatus(ScheduledPost.STATUS_FAILED);
+            post.setAttempts(post.getAttempts() + 1);
+            post.setLastError(truncate(error));
+        });
+    }
+
+    @Override
+    public int recoverStale(Duration timeout) {
+        LocalDateTime now = LocalDateTime.now();
+        int recovered = scheduledPostRepository.resetStale(now.minus(timeout), now);
+        if (recovered > 0) {
+            log.warn("⚠️ {} 条定时发布在发布中中断，已放回等待发布", recovered);
+        }
+        return recovered;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countScheduled() {
+        return scheduledPostRepository.countByStatus(ScheduledPost.STATUS_SCHEDULED);
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
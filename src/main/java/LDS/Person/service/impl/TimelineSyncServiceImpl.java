@@ -0,0 +1,215 @@
+package LDS.Person.service.impl;
+
+import LDS.Person.config.ConfigManager;
+import LDS.Person.config.TwitterHttpTransport;
+import LDS.Person.entity.TweetSyncCursor;
+import LDS.Person.repository.TweetSyncCursorRepository;
+import LDS.Person.service.GetTweetStorageService;
+import LDS.Person.service.TimelineSyncService;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户时间线增量同步服务实现
+ *
+ * 每轮同步以 since_id = 游标中的 newest_id 向前翻页，直到没有 next_token、遇到已同步过的推文，
+ * 或达到单次页数上限（timeline.sync.max.pages）。达到上限时把 next_token 保存到游标，
+ * 下次调用从该页继续，本轮全部翻完后才把本轮开始时的最新推文 ID 写入 newest_id，
+ * 因此中途失败或被限流也不会漏掉推文。
+ *
+ * 每页推文与游标在同一事务中写入（GetTweetStorageService.saveTweetsWithCursor）。
+ *
+ * 保存的 next_token 可能失效（过期等），续翻时收到 4xx（401/403/429 除外，属于授权或限流问题）会丢弃
+ * next_token 与 pending_newest_id，从 newest_id 重新开始本轮，避免游标永远卡在失效的 next_token 上。
+ * 已落库的推文按 tweet_id 去重，重新翻页不会重复写入。
+ */
+@Service
+@Slf4j
+public class TimelineSyncServiceImpl implements TimelineSyncService {
+
+    private static final String TWITTER_API_BASE = "https://api.x.com/2";
+
+    @Autowired
+    private TwitterHttpTransport twitterHttpTransport;
+
+    @Autowired
+    private GetTweetStorageService getTweetStorageService;
+
+    @Autowired
+    private TweetSyncCursorRepository tweetSyncCursorRepository;
+
+    /**
+     * 同一用户的同步串行执行，避免并发推进同一游标
+     */
+    private final Map<String, Object> userLocks = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<String, Object> syncUserTimeline(String userId, String accessToken) {
+        synchronized (userLocks.computeIfAbsent(userId, key -> new Object())) {
+            return doSync(userId, accessToken);
+        }
+    }
+
+    private Map<String, Object> doSync(String userId, String accessToken) {
+        ConfigManager config = ConfigManager.getInstance();
+        int pageSize = Math.min(100, Math.max(5, config.getInt("timeline.sync.page.size", 100)));
+        int maxPages = Math.max(1, config.getInt("timeline.sync.max.pages", 5));
+
+        TweetSyncCursor cursor = tweetSyncCursorRepository.findByTwitterUserId(userId).orElseGet(() -> {
+            TweetSyncCursor created = new TweetSyncCursor();
+            created.setTwitterUserId(userId);
+            return created;
+        });
+        String sinceId = cursor.getNewestId();
+
+        List<Map<String, Object>> newTweets = new ArrayList<>();
+        int saved = 0;
+        int pages = 0;
+        boolean reachedKnown = false;
+
+        while (pages < maxPages) {
+            JSONObject page;
+            try {
+                page = fetchPage(userId, accessToken, pageSize, sinceId, cursor.getNextToken());
+            } catch (HttpClientErrorException e) {
+                if (cursor.getNextToken() == null || !isStaleTokenError(e)) {
+                    throw e;
+                }
+                pages++;
+                log.warn("⚠️ 用户 {} 保存的 next_token 已失效（{}），丢弃本轮进度，从 newest_id={} 重新同步",
+                        userId, e.getStatusCode().value(), sinceId);
+                cursor.setNextToken(null);
+                cursor.setPendingNewestId(null);
+                tweetSyncCursorRepository.save(cursor);
+                continue;
+            }
+            pages++;
+
+            if (page.containsKey("errors") && !page.containsKey("data")) {
+                String message = page.getJSONArray("errors").getJSONObject(0).getString("message");
+                log.error("同步用户 {} 时间线失败: {}", userId, page.get("errors"));
+                Map<String, Object> errorMap = new HashMap<>();
+                errorMap.put("error", message);
+                return errorMap;
+            }
+
+            JSONObject meta = page.getJSONObject("meta");
+            String pageNewest = meta != null ? meta.getString("newest_id") : null;
+            String nextToken = meta != null ? meta.getString("next_token") : null;
+
+            // 本轮第一页的最新推文 ID 即本轮完成后的 since_id
+            if (cursor.getNextToken() == null && pageNewest != null) {
+                cursor.setPendingNewestId(pageNewest);
+            }
+
+            List<Map<String, Object>> pageTweets = new ArrayList<>();
+            JSONArray data = page.getJSONArray("data");
+            if (data != null) {
+                for (int i = 0; i < data.size(); i++) {
+                    JSONObject tweet = data.getJSONObject(i);
+                    if (sinceId != null && compareIds(tweet.getString("id"), sinceId) <= 0) {
+                        reachedKnown = true;
+                        break;
+                    }
+                    pageTweets.add(toTweetMap(tweet));
+                }
+            }
+
+            boolean finished = reachedKnown || nextToken == null;
+            if (finished) {
+                if (cursor.getPendingNewestId() != null) {
+                    cursor.setNewestId(cursor.getPendingNewestId());
+                }
+                cursor.setPendingNewestId(null);
+                cursor.setNextToken(null);
+            } else {
+                cursor.setNextToken(nextToken);
+            }
+
+            saved += getTweetStorageService.saveTweetsWithCursor(pageTweets, cursor);
+            newTweets.addAll(pageTweets);
+
+            if (finished) {
+                break;
+            }
+        }
+
+        boolean hasMore = cursor.getNextToken() != null;
+        log.info("✅ 用户 {} 时间线增量同步完成: 新推文 {} 条，新入库 {} 条，翻页 {} 次，newest_id={}，{}",
+                userId, newTweets.size(), saved, pages, cursor.getNewestId(), hasMore ? "仍有未同步的页" : "已同步到最新");
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("tweets", newTweets);
+        result.put("tweet_count", newTweets.size());
+        result.put("saved_count", saved);
+        result.put("newest_id", cursor.getNewestId());
+        result.put("pages", pages);
+        result.put("has_more", hasMore);
+        return result;
+    }
+
+    /**
+     * 续翻时的 4xx 视为 next_token 失效；401/403 是授权问题、429 是限流，与游标无关
+     */
+    private static boolean isStaleTokenError(HttpClientErrorException e) {
+        HttpStatus status = HttpStatus.resolve(e.getStatusCode().value());
+        return status != HttpStatus.UNAUTHORIZED && status != HttpStatus.FORBIDDEN
+                && status != HttpStatus.TOO_MANY_REQUESTS;
+    }
+
+    private JSONObject fetchPage(String userId, String accessToken, int pageSize, String sinceId, String paginationToken) {
+        StringBuilder url = new StringBuilder(String.format(
+                "%s/users/%s/tweets?max_results=%d&tweet.fields=created_at,author_id,public_metrics",
+                TWITTER_API_BASE, userId, pageSize));
+        if (sinceId != null) {
+            url.append("&since_id=").append(sinceId);
+        }
+        if (paginationToken != null) {
+            url.append("&pagination_token=").append(paginationToken);
+        }
+
+        log.debug("调用 Twitter API: {}", url);
+        ResponseEntity<String> apiResponse = twitterHttpTransport.get(url.toString(), accessToken);
+        JSONObject json = JSON.parseObject(apiResponse.getBody());
+        return json != null ? json : new JSONObject();
+    }
+
+    private Map<String, Object> toTweetMap(JSONObject tweet) {
+        Map<String, Object> tweetMap = new HashMap<>();
+        tweetMap.put("id", tweet.getString("id"));
+        tweetMap.put("text", tweet.getString("text"));
+        tweetMap.put("created_at", tweet.getString("created_at"));
+        tweetMap.put("author_id", tweet.getString("author_id"));
+
+        JSONObject publicMetrics = tweet.getJSONObject("public_metrics");
+        if (publicMetrics != null) {
+            tweetMap.put("like_count", publicMetrics.getIntValue("like_count"));
+            tweetMap.put("retweet_count", publicMetrics.getIntValue("retweet_count"));
+            tweetMap.put("reply_count", publicMetrics.getIntValue("reply_count"));
+        }
+        return tweetMap;
+    }
+
+    /**
+     * 比较两个推文 ID（Snowflake 数字字符串，先比长度再按字典序）
+     */
+    private static int compareIds(String a, String b) {
+        if (a.length() != b.length()) {
+            return Integer.compare(a.length(), b.length());
+        }
+        return a.compareTo(b);
+    }
+}
@@ -0,0 +1,150 @@
+package LDS.Person.service.impl;
+
+import LDS.Person.dto.request.CreateTweetRequest;
+import LDS.Person.entity.TweetOutbox;
+import LDS.Person.repository.TweetOutboxRepository;
+import LDS.Person.service.TweetOutboxService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 推文发件箱服务实现类
+ */
+@Service
+@Slf4j
+public class TweetOutboxServiceImpl implements TweetOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private TweetOutboxRepository tweetOutboxRepository;
+
+    @Override
+    public TweetOutbox enqueue(String twitterUserId, CreateTweetRequest request, String idempotencyKey, String callbackUrl) {
+        String key = idempotencyKey == null || idempotencyKey.isBlank()
+                ? UUID.randomUUID().toString()
+                : idempotencyKey.trim();
+
+        TweetOutbox existing = tweetOutboxRepository.findByIdempotencyKey(key).orElse(null);
+        if (existing != null) {
+            log.info("幂等键 {} 已存在发布任务 {}，不重复提交", key, existing.getId());
+            return existing;
+        }
+
+        TweetOutbox outbox = new TweetOutbox();
+        outbox.setIdempotencyKey(key);
+        outbox.setTwitterUserId(twitterUserId);
+        outbox.setText(request.getText());
+        outbox.setMediaIds(joinMediaIds(request));
+        outbox.setCallbackUrl(callbackUrl == null || callbackUrl.isBlank() ? null : callbackUrl.trim());
+        try {
+            TweetOutbox saved = tweetOutboxRepository.saveAndFlush(outbox);
+            log.info("📥 推文已进入发件箱: id={}, userId={}, 幂等键={}", saved.getId(), twitterUserId, key);
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            // 并发提交同一个幂等键，唯一索引保证只有一条
+            return tweetOutboxRepository.findByIdempotencyKey(key).orElseThrow(() -> e);
+        }
+    }
+
+    @Override
+    public TweetOutbox findById(Long id) {
+        return tweetOutboxRepository.findById(id).orElse(null);
+    }
+
+    @Override
+    @Transactional
+    public List<TweetOutbox> claimDue(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<TweetOutbox> locked = tweetOutboxRepository.lockDue(now, PageRequest.of(0, Math.max(1, limit)));
+        if (locked.isEmpty()) {
+            return locked;
+        }
+        List<Long> ids = locked.stream().map(TweetOutbox::getId).toList();
+        tweetOutboxRepository.updateStatus(ids, TweetOutbox.STATUS_PENDING, TweetOutbox.STATUS_PUBLISHING, now);
+        locked.forEach(outbox -> outbox.setStatus(TweetOutbox.STATUS_PUBLISHING));
+        log.debug("已领取 {} 条待发布推文: ids={}", locked.size(), ids);
+        return locked;
+    }
+
+    @Override
+    @Transactional
+    public void markSucceeded(Long id, String tweetId) {
+        tweetOutboxRepository.findById(id).ifPresent(outbox -> {
+            outbox.setStatus(TweetOutbox.STATUS_SUCCEEDED);
+            outbox.setTweetId(tweetId);
+            outbox.setLastError(null);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void markRetry(Long id, String error, LocalDateTime nextAttemptAt) {
+        tweetOutboxRepository.findById(id).ifPresent(outbox -> {
+            outbox.setStatus(TweetOutbox.STATUS_PENDING);
+            outbox.setAttempts(outbox.getAttempts() + 1);
+            outbox.setLastError(truncate(error));
+            outbox.setNextAttemptAt(nextAttemptAt);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void defer(Long id, LocalDateTime nextAttemptAt) {
+        tweetOutboxRepository.findById(id).ifPresent(outbox -> {
+            outbox.setStatus(TweetOutbox.STATUS_PENDING);
+            outbox.setNextAttemptAt(nextAttemptAt);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void markFailed(Long id, String error) {
+        tweetOutboxRepository.findById(id).ifPresent(outbox -> {
+            outbox.setStatus(TweetOutbox.STATUS_FAILED);
+            outbox.setAttempts(outbox.getAttempts() + 1);
+            outbox.setLastError(truncate(error));
+        });
+    }
+
+    @Override
+    @Transactional
+    public int recoverStale(Duration timeout) {
+        LocalDateTime now = LocalDateTime.now();
+        int recovered = tweetOutboxRepository.resetStale(now.minus(timeout), now);
+        if (recovered > 0) {
+            log.warn("⚠️ {} 条推文发布超时未完成，已放回发件箱等待重试", recovered);
+        }
+        return recovered;
+    }
+
+    @Override
+    public long countPending() {
+        return tweetOutboxRepository.countByStatus(TweetOutbox.STATUS_PENDING);
+    }
+
+    /**
+     * 从 media.media_ids 中取出媒体 ID，逗号拼接
+     */
+    private static String joinMediaIds(CreateTweetRequest request) {
+        if (request.getMedia() == null || !(request.getMedia().get("media_ids") instanceof Collection<?> mediaIds)
+                || mediaIds.isEmpty()) {
+            return null;
+        }
+        return String.join(",", mediaIds.stream().map(String::valueOf).toList());
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,340 @@
+package LDS.Person.service.impl;
+
+import LDS.Person.config.ConfigManager;
+import LDS.Person.dto.request.CreateTweetRequest;
+import LDS.Person.dto.request.TweetThreadRequest;
+import LDS.Person.entity.TweetThread;
+import LDS.Person.entity.TweetThreadPart;
+import LDS.Person.repository.TweetThreadPartRepository;
+import LDS.Person.repository.TweetThreadRepository;
+import LDS.Person.service.MediaUploadService;
+import LDS.Person.service.TweetThreadService;
+import LDS.Person.service.TwitterTweetService;
+import LDS.Person.util.TwitterRateLimitHandler;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 推文串发布服务实现
+ *
+ * - 发布前校验所有条目（文本 / 媒体数量与类型 / 本地文件是否存在），任何一条不合法都不会发布
+ * - 所有条目的媒体同时开始上传；第 i 条在「自身媒体上传完成」且「第 i-1 条发布成功」后立即发布，
+ *   上传与发布重叠进行，总耗时接近逐条发布本身的耗时
+ * - 每条发布成功后立即记录推文 ID，上传完成的媒体 ID 也会保存；失败时推文串标记为失败，
+ *   继续发布时从第一条未发布的条目开始，回复最后一条已发布的推文，不重复上传已上传的媒体
+ * - 发布经 TwitterRateLimitHandler 异步重试（429 时挂到调度器上等待，不占用线程）
+ */
+@Service
+@Slf4j
+public class TweetThreadServiceImpl implements TweetThreadService {
+
+    private static final Map<String, String> MEDIA_TYPES = Map.of(
+            "png", "image/png",
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "webp", "image/webp",
+            "gif", "image/gif",
+            "mp4", "video/mp4");
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private TwitterTweetService twitterTweetService;
+
+    @Autowired
+    private MediaUploadService mediaUploadService;
+
+    @Autowired
+    private TwitterRateLimitHandler rateLimitHandler;
+
+    @Autowired
+    private TweetThreadRepository tweetThreadRepository;
+
+    @Autowired
+    private TweetThreadPartRepository tweetThreadPartRepository;
+
+    /**
+     * 正在发布的推文串（防止同一推文串被并发继续发布）
+     */
+    private final Set<Long> activeThreads = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public CompletableFuture<Map<String, Object>> publishThread(String twitterUserId, String accessToken,
+                                                                TweetThreadRequest request) {
+        validate(request);
+
+        TweetThread thread = new TweetThread();
+        thread.setTwitterUserId(twitterUserId);
+        thread.setReplyToTweetId(blankToNull(request.getReplyToTweetId()));
+        thread.setTotalParts(request.getParts().size());
+        thread = tweetThreadRepository.save(thread);
+
+        List<TweetThreadPart> parts = new ArrayList<>();
+        for (int i = 0; i < request.getParts().size(); i++) {
+            TweetThreadRequest.Part source = request.getParts().get(i);
+            TweetThreadPart part = new TweetThreadPart();
+            part.setThreadId(thread.getId());
+            part.setPartIndex(i);
+            part.setText(blankToNull(source.getText()));
+            if (source.getMediaPaths() != null && !source.getMediaPaths().isEmpty()) {
+                part.setMediaSources(JSON.toJSONString(source.getMediaPaths()));
+            }
+            if (source.getMediaIds() != null && !source.getMediaIds().isEmpty()) {
+                part.setMediaIds(String.join(",", source.getMediaIds()));
+            }
+            parts.add(part);
+        }
+        parts = tweetThreadPartRepository.saveAll(parts);
+
+        log.info("🧵 开始发布推文串: id={}, 共 {} 条", thread.getId(), parts.size());
+        activeThreads.add(thread.getId());
+        return run(thread, parts, accessToken);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> resumeThread(Long threadId, String accessToken) {
+        TweetThread thread = tweetThreadRepository.findById(threadId)
+                .orElseThrow(() -> new IllegalArgumentException("推文串不存在: " + threadId));
+        if (thread.getStatus() == TweetThread.STATUS_COMPLETED) {
+            throw new IllegalStateException("推文串已全部发布");
+        }
+        if (!activeThreads.add(threadId)) {
+            throw new IllegalStateException("推文串正在发布中");
+        }
+        thread.setStatus(TweetThread.STATUS_RUNNING);
+        thread.setLastError(null);
+        thread = tweetThreadRepository.save(thread);
+
+        List<TweetThreadPart> parts = tweetThreadPartRepository.findByThreadIdOrderByPartIndexAsc(threadId);
+        log.info("🧵 继续发布推文串: id={}, 已发布 {}/{} 条", threadId,
+                parts.stream().filter(p -> p.getTweetId() != null).count(), parts.size());
+        return run(thread, parts, accessToken);
+    }
+
+    @Override
+    public Map<String, Object> getThread(Long threadId) {
+        TweetThread thread = tweetThreadRepository.findById(threadId).orElse(null);
+        if (thread == null) {
+            return null;
+        }
+        return toResult(thread, tweetThreadPartRepository.findByThreadIdOrderByPartIndexAsc(threadId));
+    }
+
+    /**
+     * 媒体并发上传 + 推文按顺序串联发布
+     */
+    private CompletableFuture<Map<String, Object>> run(TweetThread thread, List<TweetThreadPart> parts, String accessToken) {
+        // 所有未发布条目的媒体同时开始上传
+        List<CompletableFuture<List<String>>> mediaReady = new ArrayList<>(parts.size());
+        for (TweetThreadPart part : parts) {
+            mediaReady.add(part.getTweetId() != null
+                    ? CompletableFuture.completedFuture(List.of())
+                    : uploadMedia(part, thread.getTwitterUserId(), accessToken));
+        }
+
+        // 串联发布：第 i 条等待自身媒体与上一条推文 ID
+        CompletableFuture<String> previous = CompletableFuture.completedFuture(thread.getReplyToTweetId());
+        for (int i = 0; i < parts.size(); i++) {
+            TweetThreadPart part = parts.get(i);
+            if (part.getTweetId() != null) {
+                String postedId = part.getTweetId();
+                previous = previous.thenApply(ignored -> postedId);
+                continue;
+            }
+            previous = previous.thenCombine(mediaReady.get(i), ReplyContext::new)
+                    .thenCompose(context -> post(part, context.replyTo, context.mediaIds, accessToken));
+        }
+
+        return previous.handle((lastTweetId, ex) -> {
+            activeThreads.remove(thread.getId());
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                String error = cause instanceof HttpClientErrorException
+                        ? ((HttpClientErrorException) cause).getStatusCode() + " " + ((HttpClientErrorException) cause).getResponseBodyAsString()
+                        : cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+                thread.setStatus(TweetThread.STATUS_FAILED);
+                thread.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+                log.error("❌ 推文串 {} 发布中断: {}", thread.getId(), error);
+            } else {
+                thread.setStatus(TweetThread.STATUS_COMPLETED);
+                log.info("✅ 推文串 {} 发布完成，最后一条: {}", thread.getId(), lastTweetId);
+            }
+            tweetThreadRepository.save(thread);
+            return toResult(thread, parts);
+        });
+    }
+
+    /**
+     * 上传单个条目的全部待上传媒体（并发），返回完整的媒体 ID 列表（含调用方直接提供的）
+     */
+    private CompletableFuture<List<String>> uploadMedia(TweetThreadPart part, String twitterUserId, String accessToken) {
+        List<String> existing = part.getMediaIds() != null
+                ? new ArrayList<>(List.of(part.getMediaIds().split(",")))
+                : new ArrayList<>();
+        List<String> sources = part.getMediaSources() != null
+                ? JSON.parseArray(part.getMediaSources(), String.class)
+                : List.of();
+        if (sources.isEmpty()) {
+            return CompletableFuture.completedFuture(existing);
+        }
+
+        List<CompletableFuture<JSONObject>> uploads = new ArrayList<>(sources.size());
+        for (String source : sources) {
+            String mediaType = mediaTypeOf(source);
+            String category = categoryOf(mediaType);
+            uploads.add(isUrl(source)
+                    ? mediaUploadService.uploadUrl(source, mediaType, category, accessToken, twitterUserId)
+                    : mediaUploadService.uploadFile(Paths.get(source), mediaType, category, accessToken, twitterUserId));
+        }
+        return CompletableFuture.allOf(uploads.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            for (CompletableFuture<JSONObject> upload : uploads) {
+                existing.add(upload.join().getString("id"));
+            }
+            // 记录已上传的媒体，继续发布时不再重复上传
+            part.setMediaIds(String.join(",", existing));
+            part.setMediaSources(null);
+            tweetThreadPartRepository.save(part);
+            log.info("推文串 {} 第 {} 条媒体上传完成: {}", part.getThreadId(), part.getPartIndex() + 1, existing);
+            return existing;
+        });
+    }
+
+    private CompletableFuture<String> post(TweetThreadPart part, String replyTo, List<String> mediaIds, String accessToken) {
+        CreateTweetRequest request = new CreateTweetRequest();
+        request.setText(part.getText() != null ? part.getText() : "");
+        request.setInReplyToTweetId(replyTo);
+        if (!mediaIds.isEmpty()) {
+            Map<String, Object> media = new HashMap<>();
+            media.put("media_ids", mediaIds);
+            request.setMedia(media);
+        }
+
+        return rateLimitHandler.executeWithRetryAsync(() -> twitterTweetService.publishTweet(accessToken, request))
+                .thenApply(response -> {
+                    part.setTweetId(response.getTweetId());
+                    part.setPublishedAt(LocalDateTime.now());
+                    tweetThreadPartRepository.save(part);
+                    log.info("推文串 {} 第 {} 条已发布: {}", part.getThreadId(), part.getPartIndex() + 1, response.getTweetId());
+                    return response.getTweetId();
+                });
+    }
+
+    /**
+     * 发布前校验全部条目
+     */
+    private void validate(TweetThreadRequest request) {
+        if (request == null || request.getParts() == null || request.getParts().isEmpty()) {
+            throw new IllegalArgumentException("parts 不能为空");
+        }
+        int maxParts = ConfigManager.getInstance().getInt("thread.max.parts", 25);
+        if (request.getParts().size() > maxParts) {
+            throw new IllegalArgumentException("推文串最多 " + maxParts + " 条");
+        }
+
+        for (int i = 0; i < request.getParts().size(); i++) {
+            TweetThreadRequest.Part part = request.getParts().get(i);
+            String label = "第 " + (i + 1) + " 条";
+            if (part == null) {
+                throw new IllegalArgumentException(label + "为空");
+            }
+            List<String> paths = part.getMediaPaths() != null ? part.getMediaPaths() : List.of();
+            int ids = part.getMediaIds() != null ? part.getMediaIds().size() : 0;
+            if ((part.getText() == null || part.getText().isBlank()) && paths.isEmpty() && ids == 0) {
+                throw new IllegalArgumentException(label + "的文本和媒体不能同时为空");
+            }
+            if (paths.size() + ids > TwitterTweetService.MAX_MEDIA_PER_TWEET) {
+                throw new IllegalArgumentException(label + "最多附带 " + TwitterTweetService.MAX_MEDIA_PER_TWEET + " 个媒体");
+            }
+
+            int videos = 0;
+            for (String path : paths) {
+                if (path == null || path.isBlank()) {
+                    throw new IllegalArgumentException(label + "的媒体路径为空");
+                }
+                String mediaType = mediaTypeOf(path);
+                if (mediaType == null) {
+                    throw new IllegalArgumentException(label + "的媒体类型不支持: " + path
+                            + "（支持 png / jpg / jpeg / webp / gif / mp4）");
+                }
+                if (!isUrl(path) && !Files.isRegularFile(Path.of(path))) {
+                    throw new IllegalArgumentException(label + "的文件不存在: " + path);
+                }
+                if (!mediaType.startsWith("image/") || "image/gif".equals(mediaType)) {
+                    videos++;
+                }
+            }
+            if (videos > 0 && paths.size() + ids > 1) {
+                throw new IllegalArgumentException(label + "包含视频或 GIF 时只能附带 1 个媒体");
+            }
+        }
+    }
+
+    private Map<String, Object> toResult(TweetThread thread, List<TweetThreadPart> parts) {
+        List<String> tweetIds = new ArrayList<>();
+        Integer failedPart = null;
+        for (TweetThreadPart part : parts) {
+            if (part.getTweetId() != null) {
+                tweetIds.add(part.getTweetId());
+            } else if (failedPart == null) {
+                failedPart = part.getPartIndex();
+            }
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("thread_id", thread.getId());
+        result.put("status", TweetThread.statusName(thread.getStatus()));
+        result.put("total_parts", thread.getTotalParts());
+        result.put("tweet_ids", tweetIds);
+        result.put("failed_part", thread.getStatus() == TweetThread.STATUS_FAILED ? failedPart : null);
+        result.put("error", thread.getLastError());
+        return result;
+    }
+
+    private static String mediaTypeOf(String path) {
+        String name = path;
+        int query = name.indexOf('?');
+        if (isUrl(name) && query >= 0) {
+            name = name.substring(0, query);
+        }
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? MEDIA_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT)) : null;
+    }
+
+    private static String categoryOf(String mediaType) {
+        if ("image/gif".equals(mediaType)) {
+            return "tweet_gif";
+        }
+        return mediaType.startsWith("video/") ? "tweet_video" : "tweet_image";
+    }
+
+    private static boolean isUrl(String path) {
+        return path.startsWith("http://") || path.startsWith("https://");
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * 发布某一条时需要的上一条推文 ID 与本条媒体 ID
+     */
+    private record ReplyContext(String replyTo, List<String> mediaIds) {
+    }
+}
@@ -14,9 +14,18 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Twitter Token 服务实现
+ *
+ * 按 twitterUserId 做读穿缓存（感知 token 过期时间），save / deleteByUserId 时失效；
+ * 刷新采用 single-flight，同一用户的并发请求只触发一次刷新调用
  */
 @Service
 @Slf4j
@@ -31,30 +40,100 @@ public class TwitterTokenServiceImpl implements TwitterTokenService {
      */
     private static final Duration REFRESH_THRESHOLD = Duration.ofMinutes(30);
 
+    /**
+     * 缓存条目的最长存活时间，超过后重新读库（其他实例可能已更新 token）
+     */
+    private static final Duration CACHE_MAX_AGE = Duration.ofMinutes(5);
+
+    /**
+     * 等待其他线程刷新结果的最长时间
+     */
+    private static final Duration REFRESH_WAIT_TIMEOUT = Duration.ofSeconds(60);
+
+    /**
+     * Token 读穿缓存
+     * key: twitterUserId, value: 缓存条目（过期时间取 CACHE_MAX_AGE 与 token 过期时间中较早者）
+     */
+    private final ConcurrentHashMap<String, CachedToken> tokenCache = new ConcurrentHashMap<>();
+
+    /**
+     * 正在进行中的刷新（single-flight）
+     * 同一用户并发调用 getValidAccessToken 时，只有第一个线程真正调用刷新接口，其余线程等待同一个结果
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inflightRefreshes = new ConcurrentHashMap<>();
+
+    /**
+     * 最新有效 token 的缓存（null 表示未缓存）
+     */
+    private volatile CachedToken latestTokenCache;
+
+    /**
+     * 缓存版本号，每次失效时递增，避免失效前发起的查询把旧结果写回缓存
+     */
+    private final AtomicLong cacheVersion = new AtomicLong();
+
     @Override
     @Transactional
     public TwitterToken save(TwitterToken token) {
         token.setUpdatedAt(Instant.now());
-        return repository.save(token);
+        TwitterToken saved = repository.save(token);
+        invalidate(token.getTwitterUserId());
+        return saved;
     }
 
     @Override
     public TwitterToken getByUserId(String twitterUserId) {
+        if (twitterUserId == null) {
+            return null;
+        }
+        Instant now = Instant.now();
+        CachedToken cached = tokenCache.get(twitterUserId);
+        if (cached != null && cached.isFresh(now)) {
+            return cached.token;
+        }
+
+        long version = cacheVersion.get();
         Optional<TwitterToken> opt = repository.findByTwitterUserId(twitterUserId);
-        return opt.orElse(null);
+        if (opt.isEmpty()) {
+            tokenCache.remove(twitterUserId);
+            return null;
+        }
+        TwitterToken token = opt.get();
+        cacheIfUnchanged(twitterUserId, token, now, version);
+        return token;
+    }
+
+    @Override
+    public TwitterToken getLatestValidToken() {
+        Instant now = Instant.now();
+        CachedToken cached = latestTokenCache;
+        if (cached != null && cached.isFresh(now)) {
+            return cached.token;
+        }
+
+        long version = cacheVersion.get();
+        TwitterToken token = repository.findFirstByExpiresAtIsNullOrExpiresAtAfterOrderByUpdatedAtDesc(now).orElse(null);
+        if (token != null && cacheVersion.get() == version) {
+            latestTokenCache = new CachedToken(token, now);
+            if (cacheVersion.get() != version) {
+                latestTokenCache = null;
+            }
+        }
+        return token;
+    }
+
+    @Override
+    public TwitterToken getLatestRefreshableToken() {
+        return repository.findFirstByRefreshTokenIsNotNullOrderByUpdatedAtDesc().orElse(null);
     }
 
     @Override
-    @Transactional
     public String getValidAccessToken(String twitterUserId) throws Exception {
-        Optional<TwitterToken> opt = repository.findByTwitterUserId(twitterUserId);
-        if (opt.isEmpty()) {
+        TwitterToken token = getByUserId(twitterUserId);
+        if (token == null) {
             throw new IllegalStateException("未找到 Twitter 用户的 token，用户ID: " + twitterUserId);
         }
 
-        TwitterToken token = opt.get();
-        Instant now = Instant.now();
-
         // 检查是否有 refresh_token（无法刷新的情况）
         if (token.getRefreshToken() == null || token.getRefreshToken().isBlank()) {
             log.warn("⚠️ Token 不存在 refresh_token，无法自动刷新，userId: {}", twitterUserId);
@@ -62,13 +141,51 @@ public class TwitterTokenServiceImpl implements TwitterTokenService {
         }
 
         // 检查是否即将过期
-        if (token.getExpiresAt() == null || token.getExpiresAt().isAfter(now.plus(REFRESH_THRESHOLD))) {
+        if (!needsRefresh(token, Instant.now())) {
             // 仍然有效
             log.debug("✅ Token 仍然有效，userId: {}", twitterUserId);
             return token.getAccessToken();
         }
 
-        // 需要刷新
+        // 需要刷新：同一用户只允许一个刷新在途
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> existing = inflightRefreshes.putIfAbsent(twitterUserId, mine);
+        if (existing != null) {
+            log.info("⏳ Token 正在由其他请求刷新，等待结果，userId: {}", twitterUserId);
+            return awaitRefresh(existing, twitterUserId);
+        }
+
+        try {
+            String accessToken = refreshToken(twitterUserId);
+            mine.complete(accessToken);
+            return accessToken;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflightRefreshes.remove(twitterUserId, mine);
+        }
+    }
+
+    /**
+     * 实际执行刷新（仅由 single-flight 的发起线程调用）
+     * 刷新前重新读库，避免缓存中的对象被修改，也避免重复刷新其他实例刚刷新过的 token
+     */
+    private String refreshToken(String twitterUserId) throws Exception {
+        long version = cacheVersion.get();
+        Optional<TwitterToken> opt = repository.findByTwitterUserId(twitterUserId);
+        if (opt.isEmpty()) {
+            invalidate(twitterUserId);
+            throw new IllegalStateException("未找到 Twitter 用户的 token，用户ID: " + twitterUserId);
+        }
+
+        TwitterToken token = opt.get();
+        if (!needsRefresh(token, Instant.now())) {
+            log.info("✅ Token 已被其他实例刷新，直接使用，userId: {}", twitterUserId);
+            cacheIfUnchanged(twitterUserId, token, Instant.now(), version);
+            return token.getAccessToken();
+        }
+
         log.info("🔄 Token 即将过期，尝试刷新，userId: {}", twitterUserId);
         try {
             TokenRefreshResponse resp = twitterApiClient.refreshAccessToken(token.getRefreshToken());
@@ -89,9 +206,10 @@ public class TwitterTokenServiceImpl implements TwitterTokenService {
                 token.setExpiresAt(Instant.now().plusSeconds(resp.getExpiresIn()));
             }
 
-            save(token);
+            TwitterToken saved = save(token);
+            tokenCache.put(twitterUserId, new CachedToken(saved, Instant.now()));
             log.info("\"\\u001B[36m\"+✅ 成功刷新 token，userId: {}, 新的过期时间: {}"+"\u001B[0m", twitterUserId, token.getExpiresAt());
-            return token.getAccessToken();
+            return saved.getAccessToken();
 
         } catch (Exception e) {
             log.error("❌ 刷新 token 异常，userId: {}", twitterUserId, e);
@@ -99,6 +217,56 @@ public class TwitterTokenServiceImpl implements TwitterTokenService {
         }
     }
 
+    /**
+     * 等待其他线程发起的刷新结果，失败时抛出原始异常
+     */
+    private String awaitRefresh(CompletableFuture<String> refresh, String twitterUserId) throws Exception {
+        try {
+            return refresh.get(REFRESH_WAIT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("等待 token 刷新超时，userId: " + twitterUserId, e);
+        }
+    }
+
+    private boolean needsRefresh(TwitterToken token, Instant now) {
+        return token.getExpiresAt() != null && !token.getExpiresAt().isAfter(now.plus(REFRESH_THRESHOLD));
+    }
+
+    /**
+     * 读库结果写回缓存：读库期间缓存已失效（版本变化）时不写入，避免把旧 token 写回缓存
+     *
+     * @param version 读库前的缓存版本号
+     */
+    private void cacheIfUnchanged(String twitterUserId, TwitterToken token, Instant loadedAt, long version) {
+        if (cacheVersion.get() != version) {
+            return;
+        }
+        CachedToken entry = new CachedToken(token, loadedAt);
+        tokenCache.put(twitterUserId, entry);
+        // 写入与失效并发时再检查一次：失效已发生则撤回本次写入
+        if (cacheVersion.get() != version) {
+            tokenCache.remove(twitterUserId, entry);
+        }
+    }
+
+    /**
+     * 使指定用户的缓存失效
+     */
+    private void invalidate(String twitterUserId) {
+        // 先递增版本再删除：并发写入要么在删除前完成（被删除），要么在写入后的复查中发现版本变化并撤回
+        cacheVersion.incrementAndGet();
+        if (twitterUserId != null) {
+            tokenCache.remove(twitterUserId);
+        }
+        latestTokenCache = null;
+    }
+
     /**
      * 获取服务器运行时间（单位：秒）
      */
@@ -160,8 +328,10 @@ public class TwitterTokenServiceImpl implements TwitterTokenService {
         var existingToken = repository.findByTwitterUserId(twitterUserId);
         if (existingToken.isPresent()) {
             repository.delete(existingToken.get());
+            invalidate(twitterUserId);
             log.info("✅ 用户 {} 的 token 已删除", twitterUserId);
         } else {
+            invalidate(twitterUserId);
             log.info("ℹ️  用户 {} 不存在任何 token", twitterUserId);
         }
     }
@@ -174,4 +344,24 @@ public class TwitterTokenServiceImpl implements TwitterTokenService {
         if (s.length() <= 12) return "****";
         return s.substring(0, 6) + "..." + s.substring(s.length() - 4);
     }
+
+    /**
+     * Token 缓存条目
+     */
+    private static final class CachedToken {
+        private final TwitterToken token;
+        private final Instant freshUntil;
+
+        private CachedToken(TwitterToken token, Instant loadedAt) {
+            this.token = token;
+            Instant maxAge = loadedAt.plus(CACHE_MAX_AGE);
+            this.freshUntil = token.getExpiresAt() != null && token.getExpiresAt().isBefore(maxAge)
+                    ? token.getExpiresAt()
+                    : maxAge;
+        }
+
+        private boolean isFresh(Instant now) {
+            return now.isBefore(freshUntil);
+        }
+    }
 }
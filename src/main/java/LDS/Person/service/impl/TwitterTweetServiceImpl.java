@@ -6,11 +6,19 @@ import LDS.Person.config.TwitterApiClient;
 import LDS.Person.config.TwitterProperties;
 import LDS.Person.dto.request.CreateTweetRequest;
 import LDS.Person.dto.response.CreateTweetResponse;
+import LDS.Person.entity.MediaLibrary;
+import LDS.Person.service.MediaLibraryService;
 import LDS.Person.service.TwitterTweetService;
+import LDS.Person.tasks.MediaPoolReplenisher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
 /**
  * Twitter 推文服务实现
  */
@@ -24,56 +32,172 @@ public class TwitterTweetServiceImpl implements TwitterTweetService {
     @Autowired
     private TwitterProperties twitterProperties;
 
+    @Autowired
+    private MediaLibraryService mediaLibraryService;
+
+    @Autowired
+    private MediaPoolReplenisher mediaPoolReplenisher;
+
+    private static final String TWITTER_API_BASE = "https://api.x.com/2";
+
     @Override
     public CreateTweetResponse createTweet(String accessToken, CreateTweetRequest request) {
         try {
-            log.info("开始创建推文，文本长度: {} 字符", request.getText().length());
+            return publishTweet(accessToken, request);
+        } catch (Exception e) {
+            log.error("创建推文时出错", e);
+            return null;
+        }
+    }
 
-            // 构建请求体
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("text", request.getText());
+    @Override
+    public CreateTweetResponse publishTweet(String accessToken, CreateTweetRequest request) {
+        log.info("开始创建推文，文本长度: {} 字符", request.getText().length());
+
+        // 构建请求体
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("text", request.getText());
+        
+        // 如果有媒体，添加媒体字段
+        if (request.getMedia() != null && !request.getMedia().isEmpty()) {
+            log.info("推文包含媒体，媒体数据: {}", request.getMedia());
+            requestBody.put("media", request.getMedia());
             
-            // 如果有媒体，添加媒体字段
-            if (request.getMedia() != null && !request.getMedia().isEmpty()) {
-                log.info("推文包含媒体，媒体数据: {}", request.getMedia());
-                requestBody.put("media", request.getMedia());
-                
-                // 如果媒体对象中有 media_ids，打印用于调试
-                if (request.getMedia().containsKey("media_ids")) {
-                    log.info("媒体 IDs: {}", request.getMedia().get("media_ids"));
-                }
+            // 如果媒体对象中有 media_ids，打印用于调试
+            if (request.getMedia().containsKey("media_ids")) {
+                log.info("媒体 IDs: {}", request.getMedia().get("media_ids"));
             }
+        }
 
-            log.debug("发送到 Twitter API 的请求体: {}", requestBody.toJSONString());
+        // 回复某条推文（发布推文串时逐条串联）
+        if (request.getInReplyToTweetId() != null && !request.getInReplyToTweetId().isBlank()) {
+            JSONObject reply = new JSONObject();
+            reply.put("in_reply_to_tweet_id", request.getInReplyToTweetId());
+            requestBody.put("reply", reply);
+        }
 
-            // 调用 Twitter API
-            String response = twitterApiClient.postToTwitterApi(
-                    twitterProperties.getCreateTweetUrl(),
-                    requestBody.toJSONString(),
-                    accessToken
-            );
+        log.debug("发送到 Twitter API 的请求体: {}", requestBody.toJSONString());
 
-            log.debug("创建推文响应: {}", response);
+        // 调用 Twitter API
+        String response = twitterApiClient.postToTwitterApi(
+                twitterProperties.getCreateTweetUrl(),
+                requestBody.toJSONString(),
+                accessToken
+        );
 
-            // 解析响应
-            JSONObject jsonResponse = JSON.parseObject(response);
-            if (jsonResponse.containsKey("errors")) {
-                log.error("创建推文失败: {}", jsonResponse);
-                return null;
-            }
+        log.debug("创建推文响应: {}", response);
 
-            JSONObject data = jsonResponse.getJSONObject("data");
-            CreateTweetResponse tweetResponse = new CreateTweetResponse();
-            tweetResponse.setTweetId(data.getString("id"));
-            tweetResponse.setText(request.getText());
-            tweetResponse.setCreatedAt(data.getString("created_at"));
+        // 解析响应
+        JSONObject jsonResponse = JSON.parseObject(response);
+        if (jsonResponse.containsKey("errors")) {
+            log.error("创建推文失败: {}", jsonResponse);
+            throw new IllegalStateException("创建推文失败: " + jsonResponse.get("errors"));
+        }
 
-            log.info("成功创建推文: tweetId={}, createdAt={}", tweetResponse.getTweetId(), tweetResponse.getCreatedAt());
-            return tweetResponse;
+        JSONObject data = jsonResponse.getJSONObject("data");
+        CreateTweetResponse tweetResponse = new CreateTweetResponse();
+        tweetResponse.setTweetId(data.getString("id"));
+        tweetResponse.setText(request.getText());
+        tweetResponse.setCreatedAt(data.getString("created_at"));
 
-        } catch (Exception e) {
-            log.error("创建推文时出错", e);
-            return null;
+        log.info("成功创建推文: tweetId={}, createdAt={}", tweetResponse.getTweetId(), tweetResponse.getCreatedAt());
+        return tweetResponse;
+    }
+
+    @Override
+    public CreateTweetResponse publishWithPooledMedia(String userId, String accessToken, String text) {
+        // 原子占用该账号可用的未临近过期且未使用的媒体（status=0）；占用后通知媒体池补充
+        List<MediaLibrary> claimed = mediaLibraryService.claimAvailable(userId, MAX_MEDIA_PER_TWEET);
+        mediaPoolReplenisher.requestRefill(userId);
+        if (claimed.isEmpty()) {
+            log.warn("用户 {} 没有可用媒体，媒体库为空或全部过期/已使用", userId);
+            throw new NoSuchElementException("没有可用的媒体，请先上传媒体");
+        }
+
+        List<Long> claimedIds = claimed.stream().map(MediaLibrary::getId).toList();
+        List<String> mediaIds = claimed.stream().map(MediaLibrary::getMediaId).toList();
+        log.info("从媒体库占用 {} 条可用媒体，media_ids: {}", claimed.size(), mediaIds);
+
+        CreateTweetRequest request = new CreateTweetRequest();
+        request.setText(text);
+        Map<String, Object> media = new HashMap<>();
+        media.put("media_ids", mediaIds);
+        request.setMedia(media);
+
+        // 发布失败时释放占用的媒体
+        CreateTweetResponse tweetResponse;
+        try {
+            tweetResponse = publishTweet(accessToken, request);
+        } catch (RuntimeException e) {
+            mediaLibraryService.release(claimedIds);
+            throw e;
+        }
+
+        // 推文创建成功后，批量更新这些媒体的状态为已使用（status=1）
+        int updated = mediaLibraryService.markUsed(claimedIds);
+        if (updated != claimedIds.size()) {
+            log.warn("部分媒体状态更新失败: 期望 {} 条，实际 {} 条", claimedIds.size(), updated);
+        }
+        tweetResponse.setMediaIds(mediaIds);
+        return tweetResponse;
+    }
+
+    @Override
+    public CreateTweetResponse quoteTweet(String accessToken, String text, String quoteTweetId) {
+        // POST /2/tweets，带 quote_tweet_id
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("text", text);
+        requestBody.put("quote_tweet_id", quoteTweetId);
+
+        log.debug("发送到 Twitter API 的请求体: {}", requestBody.toJSONString());
+        String response = twitterApiClient.postToTwitterApi(
+                twitterProperties.getCreateTweetUrl(),
+                requestBody.toJSONString(),
+                accessToken
+        );
+        log.debug("Twitter API 引用推文响应: {}", response);
+
+        JSONObject data = requireData(response, "引用推文");
+        CreateTweetResponse tweetResponse = new CreateTweetResponse();
+        tweetResponse.setTweetId(data.getString("id"));
+        tweetResponse.setText(text);
+        tweetResponse.setCreatedAt(data.getString("created_at"));
+
+        log.info("成功创建引用推文，API 返回: {}", data);
+        return tweetResponse;
+    }
+
+    @Override
+    public boolean repostTweet(String accessToken, String userId, String tweetId) {
+        // POST /2/users/{id}/retweets
+        String url = String.format("%s/users/%s/retweets", TWITTER_API_BASE, userId);
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("tweet_id", tweetId);
+
+        String response = twitterApiClient.postToTwitterApi(url, requestBody.toJSONString(), accessToken);
+        log.debug("Twitter API 转发响应: {}", response);
+
+        JSONObject data = requireData(response, "转发");
+        log.info("成功转发推文，API 返回状态: {}", data);
+        return Boolean.TRUE.equals(data.getBoolean("retweeted"));
+    }
+
+    /**
+     * 解析响应中的 data，响应带 errors 或缺少 data 时抛出 IllegalStateException（消息为第一条错误的 message）
+     */
+    private static JSONObject requireData(String response, String action) {
+        JSONObject jsonResponse = JSON.parseObject(response);
+        if (jsonResponse == null) {
+            throw new IllegalStateException(action + "失败: API 响应为空");
+        }
+        if (jsonResponse.containsKey("errors")) {
+            log.error("Twitter API 返回错误: {}", jsonResponse);
+            throw new IllegalStateException(jsonResponse.getJSONArray("errors").getJSONObject(0).getString("message"));
+        }
+        JSONObject data = jsonResponse.getJSONObject("data");
+        if (data == null) {
+            throw new IllegalStateException("API 响应缺少 data 字段");
         }
+        return data;
     }
 }
@@ -0,0 +1,316 @@
+package LDS.Person.tasks;
+
+import LDS.Person.config.BulkJobProperties;
+import LDS.Person.config.TwitterTokenHelper;
+import LDS.Person.entity.BulkJob;
+import LDS.Person.entity.BulkJobItem;
+import LDS.Person.entity.TwitterToken;
+import LDS.Person.service.BulkJobService;
+import LDS.Person.service.TwitterTweetService;
+import LDS.Person.util.DaemonExecutors;
+import LDS.Person.util.TwitterRateLimitHandler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量转发 / 引用任务执行器
+ *
+ * - 每个运行中的任务在开始（或恢复）时解析一次 Token，之后所有条目共用；遇到 401 时重新解析一次，仍失败则暂停任务
+ * - 所有任务共享一个有界线程池，单个任务同时执行的条目数不超过其 concurrency
+ * - 每个条目执行前检查端点限流桶：额度用完或收到 429 时，该任务的 worker 让出线程，到重置时间再继续，不占用线程等待
+ * - 暂停 / 取消在当前正在执行的条目完成后生效；取消时剩余条目标记为已跳过
+ * - 服务重启后自动恢复执行中的任务（中断的条目放回等待执行）
+ */
+@Component
+@Slf4j
+public class BulkJobRunner {
+
+    private static final String CREATE_TWEET_ENDPOINT = "POST /2/tweets";
+    private static final String REPOST_ENDPOINT = "POST /2/users/:id/retweets";
+
+    private final BulkJobProperties properties;
+    private final BulkJobService bulkJobService;
+    private final TwitterTweetService twitterTweetService;
+    private final TwitterTokenHelper twitterTokenHelper;
+    private final TwitterRateLimitHandler rateLimitHandler;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<Long, JobRuntime> runtimes = new ConcurrentHashMap<>();
+
+    public BulkJobRunner(BulkJobProperties properties,
+                         BulkJobService bulkJobService,
+                         TwitterTweetService twitterTweetService,
+                         TwitterTokenHelper twitterTokenHelper,
+                         TwitterRateLimitHandler rateLimitHandler) {
+        this.properties = properties;
+        this.bulkJobService = bulkJobService;
+        this.twitterTweetService = twitterTweetService;
+        this.twitterTokenHelper = twitterTokenHelper;
+        this.rateLimitHandler = rateLimitHandler;
+
+        int threads = Math.max(1, properties.getThreads());
+        this.executor = DaemonExecutors.newFixedPool("bulk-job", threads, new LinkedBlockingQueue<>());
+        this.scheduler = DaemonExecutors.newSingleThreadScheduler("bulk-job-delay");
+    }
+
+    /**
+     * 服务启动后恢复执行中的任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeRunningJobs() {
+        for (BulkJob job : bulkJobService.findByStatus(BulkJob.STATUS_RUNNING)) {
+            int reset = bulkJobService.resetRunningItems(job.getId());
+            log.info("恢复批量任务 {}（{} 个中断的条目重新执行）", job.getId(), reset);
+            start(job);
+        }
+    }
+
+    /**
+     * 创建并立即开始执行
+     */
+    public BulkJob submit(String jobType, String twitterUserId, Map<String, String> items, Integer concurrency) {
+        int limit = concurrency != null && concurrency > 0 ? concurrency : properties.getDefaultConcurrency();
+        BulkJob job = bulkJobService.create(jobType, twitterUserId, items,
+                Math.min(limit, Math.max(1, properties.getThreads())));
+        start(job);
+        return job;
+    }
+
+    public boolean pause(Long jobId) {
+        if (!bulkJobService.updateStatus(jobId, BulkJob.STATUS_RUNNING, BulkJob.STATUS_PAUSED, null)) {
+            return false;
+        }
+        stop(jobId);
+        log.info("⏸️ 批量任务 {} 已暂停", jobId);
+        return true;
+    }
+
+    public boolean resume(Long jobId) {
+        if (!bulkJobService.updateStatus(jobId, BulkJob.STATUS_PAUSED, BulkJob.STATUS_RUNNING, null)) {
+            return false;
+        }
+        log.info("▶️ 批量任务 {} 已恢复", jobId);
+        start(bulkJobService.findById(jobId));
+        return true;
+    }
+
+    public boolean cancel(Long jobId) {
+        boolean cancelled = bulkJobService.updateStatus(jobId, BulkJob.STATUS_RUNNING, BulkJob.STATUS_CANCELLED, null)
+                || bulkJobService.updateStatus(jobId, BulkJob.STATUS_PAUSED, BulkJob.STATUS_CANCELLED, null);
+        if (!cancelled) {
+            return false;
+        }
+        stop(jobId);
+        int skipped = bulkJobService.skipPendingItems(jobId);
+        log.info("⏹️ 批量任务 {} 已取消，跳过 {} 个未执行条目", jobId, skipped);
+        return true;
+    }
+
+    /**
+     * 任务是否正在本实例中执行
+     */
+    public boolean isActive(Long jobId) {
+        return runtimes.containsKey(jobId);
+    }
+
+    private void start(BulkJob job) {
+        TwitterToken token = twitterTokenHelper.getTokenByUserId(job.getTwitterUserId());
+        if (token == null || token.getAccessToken() == null) {
+            bulkJobService.updateStatus(job.getId(), BulkJob.STATUS_RUNNING, BulkJob.STATUS_PAUSED,
+                    "未找到用户 " + job.getTwitterUserId() + " 的 access_token，任务已暂停");
+            log.warn("批量任务 {} 无可用 Token，已暂停", job.getId());
+            return;
+        }
+
+        JobRuntime runtime = new JobRuntime(job, token.getAccessToken());
+        JobRuntime previous = runtimes.put(job.getId(), runtime);
+        if (previous != null) {
+            previous.stopped = true;
+        }
+        runtime.queue.addAll(bulkJobService.findPendingItemIds(job.getId()));
+        if (!spawnWorkers(runtime)) {
+            finish(runtime);
+        }
+    }
+
+    private void stop(Long jobId) {
+        JobRuntime runtime = runtimes.remove(jobId);
+        if (runtime != null) {
+            runtime.stopped = true;
+        }
+    }
+
+    /**
+     * 按并发上限启动 worker
+     *
+     * @return 是否启动了 worker
+     */
+    private boolean spawnWorkers(JobRuntime runtime) {
+        int workers = Math.min(runtime.concurrency, runtime.queue.size());
+        for (int i = 0; i < workers; i++) {
+            runtime.activeWorkers.incrementAndGet();
+            executor.execute(() -> work(runtime));
+        }
+        return workers > 0;
+    }
+
+    /**
+     * worker 循环：逐个领取条目执行，被限流时让出线程并在重置时间后继续
+     */
+    private void work(JobRuntime runtime) {
+        while (!runtime.stopped) {
+            long waitMillis = Math.max(runtime.pausedUntil - System.currentTimeMillis(),
+                    rateLimitHandler.getWaitTimeUntilReset(runtime.endpoint, "Bearer " + runtime.accessToken) * 1000);
+            if (waitMillis > 0) {
+                scheduler.schedule(() -> executor.execute(() -> work(runtime)), waitMillis, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            Long itemId = runtime.queue.poll();
+            if (itemId == null) {
+                break;
+            }
+            BulkJobItem item = bulkJobService.claimItem(itemId);
+            if (item != null) {
+                process(runtime, item);
+            }
+        }
+
+        if (runtime.activeWorkers.decrementAndGet() == 0 && !runtime.stopped) {
+            finish(runtime);
+        }
+    }
+
+    private void process(JobRuntime runtime, BulkJobItem item) {
+        try {
+            String resultTweetId;
+            if (BulkJob.TYPE_QUOTE.equals(runtime.jobType)) {
+                resultTweetId = twitterTweetService.quoteTweet(runtime.accessToken, item.getText(), item.getTweetId()).getTweetId();
+            } else {
+                twitterTweetService.repostTweet(runtime.accessToken, runtime.userId, item.getTweetId());
+                resultTweetId = null;
+            }
+            bulkJobService.completeItem(item.getId(), resultTweetId);
+
+        } catch (HttpClientErrorException e) {
+            if (rateLimitHandler.isRateLimitError(e)) {
+                long retryAfter = rateLimitHandler.extractRetryAfter(e);
+                runtime.pausedUntil = System.currentTimeMillis() + Math.max(1, retryAfter) * 1000;
+                requeue(runtime, item, "触发速率限制", false);
+                log.warn("⚠️ 批量任务 {} 被限流，{} 秒后继续", runtime.jobId, retryAfter);
+            } else if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                handleUnauthorized(runtime, item);
+            } else {
+                bulkJobService.failItem(item.getId(), "X API 拒绝（" + e.getStatusCode().value() + "）: " + e.getResponseBodyAsString());
+            }
+        } catch (IllegalStateException e) {
+            bulkJobService.failItem(item.getId(), e.getMessage());
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            if (item.getAttempts() + 1 >= Math.max(1, properties.getItemMaxAttempts())) {
+                bulkJobService.failItem(item.getId(), error);
+            } else {
+                requeue(runtime, item, error, true);
+            }
+        }
+    }
+
+    /**
+     * Token 失效：重新解析一次（可能已被刷新任务更新），仍失败则暂停任务
+     */
+    private void handleUnauthorized(JobRuntime runtime, BulkJobItem item) {
+        TwitterToken token = runtime.tokenReloaded.compareAndSet(false, true)
+                ? twitterTokenHelper.getTokenByUserId(runtime.userId)
+                : null;
+        if (token != null && token.getAccessToken() != null && !token.getAccessToken().equals(runtime.accessToken)) {
+            runtime.accessToken = token.getAccessToken();
+            requeue(runtime, item, "Token 已失效，已重新获取", false);
+            log.info("批量任务 {} 的 Token 已重新获取", runtime.jobId);
+            return;
+        }
+        requeue(runtime, item, "Token 无效或已过期", false);
+        if (bulkJobService.updateStatus(runtime.jobId, BulkJob.STATUS_RUNNING, BulkJob.STATUS_PAUSED,
+                "Token 无效或已过期，任务已暂停，请重新授权后恢复")) {
+            stop(runtime.jobId);
+            log.error("❌ 批量任务 {} 的 Token 无效，任务已暂停", runtime.jobId);
+        }
+    }
+
+    private void requeue(JobRuntime runtime, BulkJobItem item, String error, boolean countAttempt) {
+        bulkJobService.requeueItem(item.getId(), error, countAttempt);
+        if (countAttempt) {
+            runtime.queue.addLast(item.getId());
+        } else {
+            runtime.queue.addFirst(item.getId());
+        }
+    }
+
+    /**
+     * 所有 worker 退出后：若仍有等待条目（如被放回的条目）则继续，否则标记完成
+     */
+    private synchronized void finish(JobRuntime runtime) {
+        if (runtime.stopped || runtimes.get(runtime.jobId) != runtime) {
+            return;
+        }
+        List<Long> pending = bulkJobService.findPendingItemIds(runtime.jobId);
+        if (!pending.isEmpty()) {
+            runtime.queue.addAll(pending);
+            spawnWorkers(runtime);
+            return;
+        }
+        runtimes.remove(runtime.jobId);
+        if (bulkJobService.updateStatus(runtime.jobId, BulkJob.STATUS_RUNNING, BulkJob.STATUS_COMPLETED, null)) {
+            log.info("✅ 批量任务 {} 已完成: {}", runtime.jobId, bulkJobService.countItems(runtime.jobId));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 单个任务的运行状态
+     */
+    private static final class JobRuntime {
+        private final Long jobId;
+        private final String jobType;
+        private final String userId;
+        private final String endpoint;
+        private final int concurrency;
+        private final ConcurrentLinkedDeque<Long> queue = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+        private final AtomicBoolean tokenReloaded = new AtomicBoolean();
+        private volatile String accessToken;
+        private volatile long pausedUntil;
+        private volatile boolean stopped;
+
+        private JobRuntime(BulkJob job, String accessToken) {
+            this.jobId = job.getId();
+            this.jobType = job.getJobType();
+            this.userId = job.getTwitterUserId();
+            this.endpoint = BulkJob.TYPE_QUOTE.equals(job.getJobType()) ? CREATE_TWEET_ENDPOINT : REPOST_ENDPOINT;
+            this.concurrency = Math.max(1, job.getConcurrency());
+            this.accessToken = accessToken;
+        }
+    }
+}
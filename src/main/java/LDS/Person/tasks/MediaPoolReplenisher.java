@@ -0,0 +1,195 @@
+package LDS.Person.tasks;
+
+import LDS.Person.config.MediaPoolProperties;
+import LDS.Person.config.TwitterTokenHelper;
+import LDS.Person.entity.TwitterToken;
+import LDS.Person.service.ImagePoolService;
+import LDS.Person.service.MediaLibraryService;
+import LDS.Person.service.MediaUploadService;
+import LDS.Person.util.DaemonExecutors;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 媒体预上传池补充器
+ *
+ * - 为每个配置的账号保持 target-size 个未使用、未临近过期的媒体，发推时直接从 media_library 原子占用，无需等待上传
+ * - 每 30 秒检查一次：先将临近过期（retire-before 以内）的可用媒体标记为已退役，再按缺口从 saveimgdir 抽图上传
+ * - 缺口 = target-size - 可用数 - 上传中数，且每个账号同时上传数不超过 max-concurrent-uploads；
+ *   上传由 MediaUploadService 异步完成，检查本身不等待上传
+ * - 发推占用媒体后可调用 requestRefill 立即补充，不必等到下一次检查
+ * - 上传失败时该账号暂停补充 failure-backoff，避免令牌失效等情况下反复失败
+ * - 无论是否启用预上传，每次检查都会回收占用超过 claim-timeout 的媒体（发推过程中进程退出遗留的占用）
+ */
+@Component
+@Slf4j
+public class MediaPoolReplenisher {
+
+    private static final String MEDIA_TYPE = "image/png";
+    private static final String MEDIA_CATEGORY = "tweet_image";
+
+    private final MediaPoolProperties properties;
+    private final MediaLibraryService mediaLibraryService;
+    private final MediaUploadService mediaUploadService;
+    private final ImagePoolService imagePoolService;
+    private final TwitterTokenHelper twitterTokenHelper;
+    private final ThreadPoolExecutor refillExecutor;
+
+    private final Map<String, AccountState> accounts = new ConcurrentHashMap<>();
+
+    public MediaPoolReplenisher(MediaPoolProperties properties,
+                                MediaLibraryService mediaLibraryService,
+                                MediaUploadService mediaUploadService,
+                                ImagePoolService imagePoolService,
+                                TwitterTokenHelper twitterTokenHelper) {
+        this.properties = properties;
+        this.mediaLibraryService = mediaLibraryService;
+        this.mediaUploadService = mediaUploadService;
+        this.imagePoolService = imagePoolService;
+        this.twitterTokenHelper = twitterTokenHelper;
+
+        // 按需补充只需检查数量并提交上传，单线程即可；排队已满时丢弃（定时检查会兜底）
+        this.refillExecutor = DaemonExecutors.newFixedPool("media-pool-refill", 1, new ArrayBlockingQueue<>(16),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * 每 30 秒回收超时占用、退役临近过期的媒体并补充各账号的可用媒体（启动 30 秒后开始）
+     */
+    @Scheduled(initialDelay = 30000, fixedDelay = 30000)
+    public void replenish() {
+        try {
+            mediaLibraryService.retireStaleClaims();
+        } catch (Exception e) {
+            log.error("回收超时占用的媒体失败", e);
+        }
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            mediaLibraryService.retireExpiring();
+        } catch (Exception e) {
+            log.error("退役临近过期媒体失败", e);
+        }
+        for (String account : managedAccounts()) {
+            refill(account);
+        }
+    }
+
+    /**
+     * 请求立即补充指定账号的可用媒体（异步执行，未启用或不是受管账号时忽略）
+     */
+    public void requestRefill(String twitterUserId) {
+        if (!properties.isEnabled() || twitterUserId == null || !managedAccounts().contains(twitterUserId)) {
+            return;
+        }
+        try {
+            refillExecutor.execute(() -> refill(twitterUserId));
+        } catch (RejectedExecutionException ignored) {
+            // 已关闭
+        }
+    }
+
+    /**
+     * 各账号的可用媒体数与上传中数量
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String account : managedAccounts()) {
+            AccountState state = accounts.get(account);
+            stats.put(account, Map.of(
+                    "fresh", mediaLibraryService.countFresh(account),
+                    "uploading", state != null ? state.inFlight.get() : 0,
+                    "target", properties.getTargetSize()));
+        }
+        return stats;
+    }
+
+    private void refill(String account) {
+        AccountState state = accounts.computeIfAbsent(account, key -> new AccountState());
+        synchronized (state) {
+            if (System.currentTimeMillis() < state.backoffUntil) {
+                return;
+            }
+            // 先读上传中数量再查库：期间完成的上传会被重复计入，缺口只会偏小，不会多传
+            int inFlight = state.inFlight.get();
+            long fresh;
+            try {
+                fresh = mediaLibraryService.countFresh(account);
+            } catch (Exception e) {
+                log.error("查询账号 {} 可用媒体数量失败", account, e);
+                return;
+            }
+            long deficit = Math.min(properties.getTargetSize() - fresh - inFlight,
+                    properties.getMaxConcurrentUploads() - inFlight);
+            if (deficit <= 0) {
+                return;
+            }
+
+            TwitterToken token = twitterTokenHelper.getTokenByUserId(account);
+            if (token == null || token.getAccessToken() == null) {
+                log.warn("媒体池补充跳过：账号 {} 没有可用的 access_token", account);
+                backoff(state);
+                return;
+            }
+
+            for (int i = 0; i < deficit; i++) {
+                Path image = imagePoolService.pickImage();
+                if (image == null) {
+                    log.warn("媒体池补充跳过：saveimgdir 中没有可用的 PNG 图片");
+                    backoff(state);
+                    return;
+                }
+                state.inFlight.incrementAndGet();
+                // 池中每条记录都需要独立的 media_id，不复用相同内容的已有媒体
+                mediaUploadService.uploadFile(image, MEDIA_TYPE, MEDIA_CATEGORY, token.getAccessToken(), account, false)
+                        .whenComplete((data, ex) -> {
+                            state.inFlight.decrementAndGet();
+                            if (ex != null) {
+                                log.warn("媒体池预上传失败: 账号 {}, 文件 {}, {}", account, image.getFileName(),
+                                        ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage());
+                                synchronized (state) {
+                                    backoff(state);
+                                }
+                            }
+                        });
+            }
+            log.info("媒体池补充: 账号 {} 可用 {} 条, 上传中 {} 条, 新增上传 {} 条",
+                    account, fresh, inFlight, deficit);
+        }
+    }
+
+    private void backoff(AccountState state) {
+        state.backoffUntil = System.currentTimeMillis() + properties.getFailureBackoff().toMillis();
+    }
+
+    private List<String> managedAccounts() {
+        if (!properties.getAccounts().isEmpty()) {
+            return properties.getAccounts();
+        }
+        String defaultUserId = twitterTokenHelper.getDefaultUserId();
+        return defaultUserId == null || defaultUserId.isBlank() ? List.of() : List.of(defaultUserId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+
+    private static final class AccountState {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private long backoffUntil;
+    }
+}
@@ -0,0 +1,288 @@
+package LDS.Person.tasks;
+
+import LDS.Person.config.ScheduledPostProperties;
+import LDS.Person.config.TwitterTokenHelper;
+import LDS.Person.dto.request.CreateTweetRequest;
+import LDS.Person.entity.ScheduledPost;
+import LDS.Person.entity.TwitterToken;
+import LDS.Person.service.ScheduledPostService;
+import LDS.Person.service.TwitterTweetService;
+import LDS.Person.util.DaemonExecutors;
+import LDS.Person.util.HashedTimingWheel;
+import LDS.Person.util.TwitterRateLimitHandler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 定时发布调度器
+ *
+ * - 计划时间在 load-horizon 内的任务加载进哈希时间轮，到期时才触发，不需要周期性扫描整张表
+ * - 更远的任务由每分钟一次的维护任务在进入加载范围前补充加载（一次按索引的范围查询）
+ * - 到期后先在数据库中原子领取（状态 0 -> 1），被取消或已被其他实例领取的任务直接跳过
+ * - 按类型通过 TwitterTweetService 发布：tweet / media（从媒体库占用可用媒体）/ quote / repost
+ * - 启动时加载所有已过期但未发布的任务立即补发（超过 catch-up-window 的标记为失败），
+ *   发布中中断的任务超过 stuck-timeout 后放回等待发布
+ * - 429 或端点额度用完：按重置时间推迟，不计入失败次数；网络错误、5xx、401：退避重试；其他错误直接失败
+ */
+@Component
+@Slf4j
+public class ScheduledPostDispatcher {
+
+    private static final String CREATE_TWEET_ENDPOINT = "POST /2/tweets";
+    private static final String REPOST_ENDPOINT = "POST /2/users/:id/retweets";
+
+    private final ScheduledPostProperties properties;
+    private final ScheduledPostService scheduledPostService;
+    private final TwitterTweetService twitterTweetService;
+    private final TwitterTokenHelper twitterTokenHelper;
+    private final TwitterRateLimitHandler rateLimitHandler;
+
+    private final HashedTimingWheel<Long> wheel;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 已放入时间轮的任务（用于去重与取消）
+     */
+    private final Map<Long, HashedTimingWheel.Timeout<Long>> timeouts = new ConcurrentHashMap<>();
+
+    /**
+     * 计划时间不晚于此时间的任务已全部加载进时间轮（null 表示尚未启动）
+     */
+    private LocalDateTime loadedUntil;
+
+    public ScheduledPostDispatcher(ScheduledPostProperties properties,
+                                   ScheduledPostService scheduledPostService,
+                                   TwitterTweetService twitterTweetService,
+                                   TwitterTokenHelper twitterTokenHelper,
+                                   TwitterRateLimitHandler rateLimitHandler) {
+        this.properties = properties;
+        this.scheduledPostService = scheduledPostService;
+        this.twitterTweetService = twitterTweetService;
+        this.twitterTokenHelper = twitterTokenHelper;
+        this.rateLimitHandler = rateLimitHandler;
+
+        int threads = Math.max(1, properties.getThreads());
+        this.executor = DaemonExecutors.newFixedPool("scheduled-post", threads, new LinkedBlockingQueue<>());
+        this.wheel = new HashedTimingWheel<>("scheduled-post", properties.getTick(), properties.getWheelSize(),
+                id -> {
+                    timeouts.remove(id);
+                    executor.execute(() -> dispatch(id));
+                });
+    }
+
+    /**
+     * 启动后加载已过期（补发）与即将到期的任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("定时发布未启用");
+            return;
+        }
+        scheduledPostService.recoverStale(properties.getStuckTimeout());
+        int loaded = refill();
+        log.info("✅ 定时发布调度器已启动，加载 {} 条任务（含待补发），加载范围至 {}", loaded, loadedUntil);
+    }
+
+    /**
+     * 每分钟：恢复中断的任务，并在接近加载边界时补充加载下一段
+     */
+    @Scheduled(initialDelay = 60000, fixedDelay = 60000)
+    public void maintain() {
+        if (!properties.isEnabled() || loadedUntil == null) {
+            return;
+        }
+        boolean recovered = scheduledPostService.recoverStale(properties.getStuckTimeout()) > 0;
+        LocalDateTime refillAt = loadedUntil.minus(properties.getLoadHorizon().dividedBy(2));
+        if (recovered || !LocalDateTime.now().isBefore(refillAt)) {
+            refill();
+        }
+    }
+
+    /**
+     * 新增定时发布：保存后若在加载范围内则立即放入时间轮
+     */
+    public ScheduledPost submit(ScheduledPost post) {
+        ScheduledPost saved = scheduledPostService.create(post);
+        synchronized (this) {
+            if (loadedUntil != null && !saved.getPublishAt().isAfter(loadedUntil)) {
+                schedule(saved.getId(), saved.getPublishAt());
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * 取消尚未发布的任务
+     */
+    public boolean cancel(Long id) {
+        boolean cancelled = scheduledPostService.cancel(id);
+        HashedTimingWheel.Timeout<Long> timeout = timeouts.remove(id);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        return cancelled;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("wheel_pending", wheel.pending());
+        stats.put("wheel_fired", wheel.expired());
+        stats.put("db_scheduled", scheduledPostService.countScheduled());
+        stats.put("loaded_until", loadedUntil);
+        stats.put("active_dispatches", executor.getActiveCount());
+        return stats;
+    }
+
+    /**
+     * 加载计划时间不晚于 now + load-horizon 的全部待发布任务（已在时间轮中的跳过）
+     */
+    private synchronized int refill() {
+        LocalDateTime until = LocalDateTime.now().plus(properties.getLoadHorizon());
+        List<ScheduledPost> posts = scheduledPostService.findScheduledUntil(until);
+        int added = 0;
+        for (ScheduledPost post : posts) {
+            if (schedule(post.getId(), post.getPublishAt())) {
+                added++;
+            }
+        }
+        loadedUntil = until;
+        if (added > 0) {
+            log.info("定时发布补充加载 {} 条任务，加载范围至 {}", added, until);
+        }
+        return added;
+    }
+
+    private boolean schedule(Long id, LocalDateTime publishAt) {
+        if (timeouts.containsKey(id)) {
+            return false;
+        }
+        Duration delay = Duration.between(LocalDateTime.now(), publishAt);
+        timeouts.put(id, wheel.schedule(id, delay.isNegative() ? Duration.ZERO : delay));
+        return true;
+    }
+
+    private void dispatch(Long id) {
+        if (!scheduledPostService.claim(id)) {
+            return;
+        }
+        ScheduledPost post = scheduledPostService.findById(id);
+        if (post == null) {
+            return;
+        }
+        try {
+            if (post.getPublishAt().isBefore(LocalDateTime.now().minus(properties.getCatchUpWindow()))) {
+                fail(post, "已错过计划发布时间超过 " + properties.getCatchUpWindow().toHours() + " 小时，不再补发");
+                return;
+            }
+
+            TwitterToken token = twitterTokenHelper.getTokenByUserId(post.getTwitterUserId());
+            if (token == null || token.getAccessToken() == null) {
+                retryOrFail(post, "未找到用户 " + post.getTwitterUserId() + " 的 access_token");
+                return;
+            }
+            String accessToken = token.getAccessToken();
+
+            String endpoint = ScheduledPost.TYPE_REPOST.equals(post.getPostType()) ? REPOST_ENDPOINT : CREATE_TWEET_ENDPOINT;
+            long waitSeconds = rateLimitHandler.getWaitTimeUntilReset(endpoint, "Bearer " + accessToken);
+            if (waitSeconds > 0) {
+                defer(post, waitSeconds);
+                return;
+            }
+
+            String resultTweetId = publish(post, accessToken);
+            scheduledPostService.markSucceeded(id, resultTweetId);
+            log.info("✅ 定时发布成功: id={}, type={}, 计划时间={}, 结果推文={}",
+                    id, post.getPostType(), post.getPublishAt(), resultTweetId);
+
+        } catch (HttpClientErrorException e) {
+            if (rateLimitHandler.isRateLimitError(e)) {
+                defer(post, rateLimitHandler.extractRetryAfter(e));
+            } else if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                retryOrFail(post, "Token 无效或已过期: " + e.getResponseBodyAsString());
+            } else {
+                fail(post, "X API 拒绝发布（" + e.getStatusCode().value() + "）: " + e.getResponseBodyAsString());
+            }
+        } catch (IllegalStateException e) {
+            fail(post, e.getMessage());
+        } catch (NoSuchElementException e) {
+            // 没有可用媒体：可能稍后会有新上传的媒体，按普通失败重试
+            retryOrFail(post, e.getMessage());
+        } catch (Exception e) {
+            retryOrFail(post, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按类型发布
+     *
+     * @return 结果推文 ID（repost 为被转发的推文 ID）
+     */
+    private String publish(ScheduledPost post, String accessToken) {
+        switch (post.getPostType()) {
+            case ScheduledPost.TYPE_QUOTE:
+                return twitterTweetService.quoteTweet(accessToken, post.getText(), post.getTargetTweetId()).getTweetId();
+            case ScheduledPost.TYPE_REPOST:
+                twitterTweetService.repostTweet(accessToken, post.getTwitterUserId(), post.getTargetTweetId());
+                return post.getTargetTweetId();
+            case ScheduledPost.TYPE_MEDIA:
+                // 与 /createformedia 相同：占用媒体库中的可用媒体，成功后标记已使用，失败时释放
+                return twitterTweetService.publishWithPooledMedia(post.getTwitterUserId(), accessToken, post.getText())
+                        .getTweetId();
+            default:
+                CreateTweetRequest request = new CreateTweetRequest();
+                request.setText(post.getText());
+                return twitterTweetService.publishTweet(accessToken, request).getTweetId();
+        }
+    }
+
+    private void defer(ScheduledPost post, long seconds) {
+        scheduledPostService.defer(post.getId());
+        log.info("定时发布 {} 对应端点已被限流，推迟 {} 秒", post.getId(), seconds);
+        synchronized (this) {
+            schedule(post.getId(), LocalDateTime.now().plusSeconds(Math.max(1, seconds)));
+        }
+    }
+
+    private void retryOrFail(ScheduledPost post, String error) {
+        int attempts = post.getAttempts() + 1;
+        if (attempts >= Math.max(1, properties.getMaxAttempts())) {
+            fail(post, error + "（已尝试 " + attempts + " 次）");
+            return;
+        }
+        scheduledPostService.markRetry(post.getId(), error);
+        Duration backoff = properties.getRetryBackoff().multipliedBy(1L << Math.min(attempts - 1, 10));
+        log.warn("⚠️ 定时发布 {} 第 {} 次失败，{} 秒后重试: {}", post.getId(), attempts, backoff.toSeconds(), error);
+        synchronized (this) {
+            schedule(post.getId(), LocalDateTime.now().plus(backoff));
+        }
+    }
+
+    private void fail(ScheduledPost post, String error) {
+        scheduledPostService.markFailed(post.getId(), error);
+        log.error("❌ 定时发布 {} 失败: {}", post.getId(), error);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.stop();
+        executor.shutdownNow();
+    }
+}
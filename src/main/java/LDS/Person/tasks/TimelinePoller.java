@@ -0,0 +1,258 @@
+package LDS.Person.tasks;
+
+import LDS.Person.config.ConfigManager;
+import LDS.Person.config.TimelinePollerProperties;
+import LDS.Person.config.TwitterTokenHelper;
+import LDS.Person.entity.TwitterToken;
+import LDS.Person.service.TimelineSyncService;
+import LDS.Person.util.DaemonExecutors;
+import LDS.Person.util.PauseWindow;
+import LDS.Person.util.TwitterRateLimitHandler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 多账号时间线后台轮询器
+ *
+ * - 每个账号按在列表中的位置分配一个错开的起始偏移，轮询均匀分布在整个间隔内，而不是每个窗口开头集中爆发
+ * - 实际间隔 = max(poll-interval, window × 账号数 / requests-per-window)，把轮询均匀摊开
+ * - 一次轮询最多翻 timeline.sync.max.pages 页，每页都是一次调用：提交前按页数上限从本窗口的
+ *   requests-per-window 额度中预留，完成后按实际翻页数退还多预留的部分，额度不足时等到下一窗口，
+ *   保证轮询本身不会超出调用额度；本地限流桶只作为兜底
+ * - 到期的账号提交到有界线程池并发拉取，同一账号同一时刻只有一个拉取任务
+ * - 端点已被限流（本地桶余量为 0 或收到 429）时，暂停所有轮询直到重置时间
+ * - 每个账号通过 TimelineSyncService 增量同步，推文按页批量写入 get_tweets
+ */
+@Component
+@Slf4j
+public class TimelinePoller {
+
+    private static final String TIMELINE_ENDPOINT = "GET /2/users/:id/tweets";
+
+    private final TimelinePollerProperties properties;
+    private final TimelineSyncService timelineSyncService;
+    private final TwitterTokenHelper twitterTokenHelper;
+    private final TwitterRateLimitHandler rateLimitHandler;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, AccountState> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * 全局暂停窗口（被限流时设置）
+     */
+    private final PauseWindow pauseWindow = new PauseWindow();
+
+    /**
+     * 本地额度窗口的开始时间与已预留的调用次数（受 budgetLock 保护）
+     */
+    private final Object budgetLock = new Object();
+    private long budgetWindowStart;
+    private int budgetUsed;
+
+    public TimelinePoller(TimelinePollerProperties properties,
+                          TimelineSyncService timelineSyncService,
+                          TwitterTokenHelper twitterTokenHelper,
+                          TwitterRateLimitHandler rateLimitHandler) {
+        this.properties = properties;
+        this.timelineSyncService = timelineSyncService;
+        this.twitterTokenHelper = twitterTokenHelper;
+        this.rateLimitHandler = rateLimitHandler;
+
+        int threads = Math.max(1, properties.getThreads());
+        this.executor = DaemonExecutors.newFixedPool("timeline-poller", threads, new LinkedBlockingQueue<>());
+    }
+
+    /**
+     * 每 5 秒检查一次到期账号（启动 1 分钟后开始）
+     */
+    @Scheduled(initialDelay = 60000, fixedDelay = 5000)
+    public void pollDueAccounts() {
+        if (!properties.isEnabled() || properties.getAccounts().isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (pauseWindow.isPaused(now)) {
+            return;
+        }
+
+        long interval = effectiveIntervalMillis();
+        syncAccountList(now, interval);
+
+        TwitterToken token = null;
+        for (AccountState state : accounts.values()) {
+            if (state.nextDue > now || state.running.get()) {
+                continue;
+            }
+            if (token == null) {
+                token = twitterTokenHelper.getLatestValidToken();
+                if (token == null) {
+                    log.warn("后台轮询跳过：数据库中无可用 Token");
+                    return;
+                }
+                long waitSeconds = rateLimitHandler.getWaitTimeUntilReset(
+                        TIMELINE_ENDPOINT, "Bearer " + token.getAccessToken());
+                if (waitSeconds > 0) {
+                    pause(waitSeconds);
+                    return;
+                }
+            }
+
+            int reserved = Math.min(maxPagesPerPoll(), budgetPerWindow());
+            long windowStart = reserveBudget(now, reserved);
+            if (windowStart < 0) {
+                log.debug("后台轮询本窗口调用额度已用完，等待下一窗口");
+                return;
+            }
+
+            state.nextDue = now + interval;
+            state.running.set(true);
+            String accessToken = token.getAccessToken();
+            try {
+                executor.execute(() -> poll(state, accessToken, windowStart, reserved));
+            } catch (RejectedExecutionException e) {
+                state.running.set(false);
+                refundBudget(windowStart, reserved);
+                return;
+            }
+        }
+    }
+
+    private void poll(AccountState state, String accessToken, long windowStart, int reserved) {
+        try {
+            Map<String, Object> result = timelineSyncService.syncUserTimeline(state.userId, accessToken);
+            // 按实际翻页数退还多预留的额度；出错时无法确定调用次数，保留全部预留
+            if (result.get("pages") instanceof Integer pages) {
+                refundBudget(windowStart, reserved - pages);
+            }
+            if (result.containsKey("error")) {
+                log.warn("后台轮询用户 {} 失败: {}", state.userId, result.get("error"));
+            } else if (Boolean.TRUE.equals(result.get("has_more"))) {
+                // 未翻完的页尽快继续，仍受额度节奏约束
+                state.nextDue = System.currentTimeMillis() + minIntervalMillis();
+            }
+        } catch (HttpClientErrorException e) {
+            if (rateLimitHandler.isRateLimitError(e)) {
+                pause(rateLimitHandler.extractRetryAfter(e));
+            } else {
+                log.warn("后台轮询用户 {} 失败，状态码: {}", state.userId, e.getStatusCode());
+            }
+        } catch (Exception e) {
+            log.error("后台轮询用户 {} 异常", state.userId, e);
+        } finally {
+            state.running.set(false);
+        }
+    }
+
+    private void pause(long seconds) {
+        if (pauseWindow.pause(seconds)) {
+            log.warn("⚠️ 时间线端点已被限流，后台轮询暂停 {} 秒", seconds);
+        }
+    }
+
+    /**
+     * 从本窗口额度中预留 calls 次调用
+     *
+     * @return 预留所在窗口的开始时间，额度不足时返回 -1
+     */
+    private long reserveBudget(long now, int calls) {
+        synchronized (budgetLock) {
+            if (now - budgetWindowStart >= properties.getWindow().toMillis()) {
+                budgetWindowStart = now;
+                budgetUsed = 0;
+            }
+            if (budgetUsed + calls > budgetPerWindow()) {
+                return -1;
+            }
+            budgetUsed += calls;
+            return budgetWindowStart;
+        }
+    }
+
+    /**
+     * 退还未用完的预留额度（窗口已切换时预留已随旧窗口清零，无需退还）
+     */
+    private void refundBudget(long windowStart, int calls) {
+        if (calls <= 0) {
+            return;
+        }
+        synchronized (budgetLock) {
+            if (budgetWindowStart == windowStart) {
+                budgetUsed = Math.max(0, budgetUsed - calls);
+            }
+        }
+    }
+
+    private int budgetPerWindow() {
+        return Math.max(1, properties.getRequestsPerWindow());
+    }
+
+    /**
+     * 单次同步的翻页上限，与 TimelineSyncService 读取同一配置
+     */
+    private int maxPagesPerPoll() {
+        return Math.max(1, ConfigManager.getInstance().getInt("timeline.sync.max.pages", 5));
+    }
+
+    /**
+     * 按配置同步账号列表：新账号按位置错开首次轮询时间，移除的账号不再轮询
+     */
+    private void syncAccountList(long now, long interval) {
+        Set<String> configured = new LinkedHashSet<>(properties.getAccounts());
+        accounts.keySet().retainAll(configured);
+        if (accounts.size() == configured.size()) {
+            return;
+        }
+        List<String> ordered = List.copyOf(configured);
+        for (int i = 0; i < ordered.size(); i++) {
+            String userId = ordered.get(i);
+            if (!accounts.containsKey(userId)) {
+                accounts.put(userId, new AccountState(userId, now + interval * i / ordered.size()));
+            }
+        }
+        log.info("后台轮询账号 {} 个，每个账号间隔 {} 秒", accounts.size(), interval / 1000);
+    }
+
+    /**
+     * 单个账号的实际轮询间隔
+     */
+    private long effectiveIntervalMillis() {
+        return Math.max(properties.getPollInterval().toMillis(), minIntervalMillis());
+    }
+
+    /**
+     * 额度平均摊开时单个账号的最小轮询间隔：window × 账号数 / 每窗口额度（翻页额度另由 reserveBudget 约束）
+     */
+    private long minIntervalMillis() {
+        return properties.getWindow().toMillis() * properties.getAccounts().size() / budgetPerWindow();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class AccountState {
+        private final String userId;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile long nextDue;
+
+        private AccountState(String userId, long nextDue) {
+            this.userId = userId;
+            this.nextDue = nextDue;
+        }
+    }
+}
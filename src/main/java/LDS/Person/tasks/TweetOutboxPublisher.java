@@ -0,0 +1,273 @@
+package LDS.Person.tasks;
+
+import LDS.Person.config.TweetOutboxProperties;
+import LDS.Person.config.TwitterTokenHelper;
+import LDS.Person.dto.request.CreateTweetRequest;
+import LDS.Person.dto.response.CreateTweetResponse;
+import LDS.Person.entity.TweetOutbox;
+import LDS.Person.entity.TwitterToken;
+import LDS.Person.service.TweetOutboxService;
+import LDS.Person.service.TwitterTweetService;
+import LDS.Person.util.CallbackUrlValidator;
+import LDS.Person.util.DaemonExecutors;
+import LDS.Person.util.PauseWindow;
+import LDS.Person.util.TwitterRateLimitHandler;
+import com.alibaba.fastjson2.JSONObject;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 推文发件箱后台发布器
+ *
+ * - 每秒从 tweet_outbox 领取到期任务（SKIP LOCKED，多实例不会重复领取），数量不超过空闲线程数
+ * - 发布前检查该账号 POST /2/tweets 的限流桶，余量为 0 时整体推迟到重置时间，不消耗重试次数
+ * - 429：按 Retry-After 推迟并暂停领取；网络错误、5xx、401：指数退避重试；其他 4xx 与响应体 errors：直接失败
+ * - 发布中的任务若进程退出未完成，超过 stuck-timeout 后放回发件箱（至少一次语义）
+ * - 成功或最终失败后，若任务带有 callback_url，则 POST 任务结果：回调在独立的回调线程上发送，
+ *   失败后按 1 秒、2 秒定时重试，不占用发布线程；发送前重新校验地址，拒绝指向内网的回调
+ */
+@Component
+@Slf4j
+public class TweetOutboxPublisher {
+
+    private static final String CREATE_TWEET_ENDPOINT = "POST /2/tweets";
+
+    /**
+     * 回调最多尝试的次数
+     */
+    private static final int CALLBACK_ATTEMPTS = 3;
+
+    private final TweetOutboxProperties properties;
+    private final TweetOutboxService tweetOutboxService;
+    private final TwitterTweetService twitterTweetService;
+    private final TwitterTokenHelper twitterTokenHelper;
+    private final TwitterRateLimitHandler rateLimitHandler;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor callbackExecutor;
+    private final RestTemplate callbackClient;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 全局暂停窗口（收到 429 时设置）
+     */
+    private final PauseWindow pauseWindow = new PauseWindow();
+
+    private long lastRecoveryAt;
+
+    public TweetOutboxPublisher(TweetOutboxProperties properties,
+                                TweetOutboxService tweetOutboxService,
+                                TwitterTweetService twitterTweetService,
+                                TwitterTokenHelper twitterTokenHelper,
+                                TwitterRateLimitHandler rateLimitHandler) {
+        this.properties = properties;
+        this.tweetOutboxService = tweetOutboxService;
+        this.twitterTweetService = twitterTweetService;
+        this.twitterTokenHelper = twitterTokenHelper;
+        this.rateLimitHandler = rateLimitHandler;
+
+        int threads = Math.max(1, properties.getThreads());
+        this.executor = DaemonExecutors.newFixedPool("tweet-outbox", threads, new LinkedBlockingQueue<>());
+
+        // 回调与重试等待在独立线程上进行，慢回调不会占用发布线程与 inFlight 名额
+        this.callbackExecutor = new ScheduledThreadPoolExecutor(1, DaemonExecutors.threadFactory("tweet-outbox-callback"));
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) properties.getCallbackTimeout().toMillis());
+        requestFactory.setReadTimeout((int) properties.getCallbackTimeout().toMillis());
+        this.callbackClient = new RestTemplate(requestFactory);
+    }
+
+    /**
+     * 每秒领取一次到期任务（启动 10 秒后开始）
+     */
+    @Scheduled(initialDelay = 10000, fixedDelay = 1000)
+    public void dispatch() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastRecoveryAt >= 60000) {
+            lastRecoveryAt = now;
+            tweetOutboxService.recoverStale(properties.getStuckTimeout());
+        }
+        if (pauseWindow.isPaused(now)) {
+            return;
+        }
+
+        int free = Math.max(1, properties.getThreads()) - inFlight.get();
+        if (free <= 0) {
+            return;
+        }
+
+        List<TweetOutbox> due = tweetOutboxService.claimDue(free);
+        for (TweetOutbox outbox : due) {
+            inFlight.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    publish(outbox);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void publish(TweetOutbox outbox) {
+        Long id = outbox.getId();
+        try {
+            TwitterToken token = twitterTokenHelper.getTokenByUserId(outbox.getTwitterUserId());
+            if (token == null || token.getAccessToken() == null) {
+                // Token 可能稍后由刷新任务或重新授权恢复
+                retryOrFail(outbox, "未找到用户 " + outbox.getTwitterUserId() + " 的 access_token");
+                return;
+            }
+
+            long waitSeconds = rateLimitHandler.getWaitTimeUntilReset(
+                    CREATE_TWEET_ENDPOINT, "Bearer " + token.getAccessToken());
+            if (waitSeconds > 0) {
+                log.info("账号 {} 发推额度已用完，任务 {} 推迟 {} 秒", outbox.getTwitterUserId(), id, waitSeconds);
+                tweetOutboxService.defer(id, LocalDateTime.now().plusSeconds(waitSeconds));
+                return;
+            }
+
+            CreateTweetResponse response = twitterTweetService.publishTweet(token.getAccessToken(), toRequest(outbox));
+            tweetOutboxService.markSucceeded(id, response.getTweetId());
+            log.info("✅ 发件箱任务 {} 发布成功: tweetId={}", id, response.getTweetId());
+            outbox.setStatus(TweetOutbox.STATUS_SUCCEEDED);
+            outbox.setTweetId(response.getTweetId());
+            outbox.setLastError(null);
+            notifyCallback(outbox);
+
+        } catch (HttpClientErrorException e) {
+            if (rateLimitHandler.isRateLimitError(e)) {
+                long retryAfter = rateLimitHandler.extractRetryAfter(e);
+                tweetOutboxService.defer(id, LocalDateTime.now().plusSeconds(retryAfter));
+                pause(retryAfter);
+            } else if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                retryOrFail(outbox, "Token 无效或已过期: " + e.getResponseBodyAsString());
+            } else {
+                // 403 重复内容也在此处：可能是上一次超时但实际已发布成功的尝试
+                fail(outbox, "X API 拒绝发布（" + e.getStatusCode().value() + "）: " + e.getResponseBodyAsString());
+            }
+        } catch (IllegalStateException e) {
+            fail(outbox, e.getMessage());
+        } catch (Exception e) {
+            log.warn("发件箱任务 {} 发布出错: {}", id, e.getMessage());
+            retryOrFail(outbox, e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+
+    private void retryOrFail(TweetOutbox outbox, String error) {
+        int attempts = outbox.getAttempts() + 1;
+        if (attempts >= Math.max(1, properties.getMaxAttempts())) {
+            fail(outbox, error + "（已尝试 " + attempts + " 次）");
+            return;
+        }
+        long backoffMillis = Math.min(properties.getMaxBackoff().toMillis(),
+                properties.getInitialBackoff().toMillis() << Math.min(attempts - 1, 20));
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plusNanos(backoffMillis * 1_000_000);
+        tweetOutboxService.markRetry(outbox.getId(), error, nextAttemptAt);
+        log.warn("⚠️ 发件箱任务 {} 第 {} 次发布失败，{} 秒后重试: {}",
+                outbox.getId(), attempts, backoffMillis / 1000, error);
+    }
+
+    private void fail(TweetOutbox outbox, String error) {
+        tweetOutboxService.markFailed(outbox.getId(), error);
+        log.error("❌ 发件箱任务 {} 发布失败: {}", outbox.getId(), error);
+        outbox.setStatus(TweetOutbox.STATUS_FAILED);
+        outbox.setLastError(error);
+        notifyCallback(outbox);
+    }
+
+    private void pause(long seconds) {
+        if (pauseWindow.pause(seconds)) {
+            log.warn("⚠️ 发推端点已被限流，发件箱暂停 {} 秒", seconds);
+        }
+    }
+
+    /**
+     * 回调通知发布结果（异步、尽力而为，失败只记录日志）
+     */
+    private void notifyCallback(TweetOutbox outbox) {
+        if (outbox.getCallbackUrl() == null) {
+            return;
+        }
+        JSONObject payload = new JSONObject();
+        payload.put("job_id", outbox.getId());
+        payload.put("idempotency_key", outbox.getIdempotencyKey());
+        payload.put("status", TweetOutbox.statusName(outbox.getStatus()));
+        payload.put("tweet_id", outbox.getTweetId());
+        payload.put("error", outbox.getLastError());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<String> entity = new HttpEntity<>(payload.toJSONString(), headers);
+        scheduleCallback(outbox.getId(), outbox.getCallbackUrl(), entity, 1, 0);
+    }
+
+    private void scheduleCallback(Long id, String url, HttpEntity<String> entity, int attempt, long delayMillis) {
+        try {
+            callbackExecutor.schedule(() -> sendCallback(id, url, entity, attempt), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("发件箱任务 {} 回调未发送：回调线程已关闭", id);
+        }
+    }
+
+    private void sendCallback(Long id, String url, HttpEntity<String> entity, int attempt) {
+        try {
+            // 提交后 DNS 可能已改指向内网，发送前重新校验
+            CallbackUrlValidator.validate(url, properties.getCallbackAllowedHosts());
+        } catch (IllegalArgumentException e) {
+            log.warn("发件箱任务 {} 回调已取消: {}", id, e.getMessage());
+            return;
+        }
+        try {
+            callbackClient.postForEntity(url, entity, String.class);
+        } catch (Exception e) {
+            log.warn("发件箱任务 {} 回调失败（第 {} 次）: {}", id, attempt, e.getMessage());
+            if (attempt < CALLBACK_ATTEMPTS) {
+                scheduleCallback(id, url, entity, attempt + 1, 1000L * attempt);
+            }
+        }
+    }
+
+    private static CreateTweetRequest toRequest(TweetOutbox outbox) {
+        CreateTweetRequest request = new CreateTweetRequest();
+        request.setText(outbox.getText());
+        if (outbox.getMediaIds() != null && !outbox.getMediaIds().isBlank()) {
+            Map<String, Object> media = new HashMap<>();
+            media.put("media_ids", Arrays.asList(outbox.getMediaIds().split(",")));
+            request.setMedia(media);
+        }
+        return request;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        callbackExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,185 @@
+package LDS.Person.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * 多模式字符串匹配器（Aho-Corasick 自动机，编译为确定性状态转移表）
+ *
+ * - 所有模式编译进一个自动机，对输入只扫描一遍，耗时与模式数量无关
+ * - ASCII 大小写折叠：模式与输入都按小写比较，扫描时不创建小写副本
+ * - 以 "$" 结尾的模式表示只匹配输入末尾（等价于 endsWith），其余模式匹配任意位置（等价于 contains）
+ * - 非 ASCII 字符统一视为「其他」符号；包含非 ASCII 字符的模式会被跳过
+ *
+ * 编译完成后不可变，可在多线程间共享
+ */
+@Slf4j
+public final class AhoCorasickMatcher {
+
+    /**
+     * 字母表大小：ASCII 0-127 + 1 个「其他」符号
+     */
+    private static final int ALPHABET = 129;
+    private static final int OTHER = 128;
+
+    private static final AhoCorasickMatcher EMPTY = new AhoCorasickMatcher(new int[ALPHABET], new boolean[1], new boolean[1], 0);
+
+    /**
+     * 状态转移表：transitions[state * ALPHABET + symbol]
+     */
+    private final int[] transitions;
+
+    /**
+     * 到达该状态时是否命中任意位置模式
+     */
+    private final boolean[] matchAnywhere;
+
+    /**
+     * 输入在该状态结束时是否命中末尾锚定模式
+     */
+    private final boolean[] matchAtEnd;
+
+    private final int patternCount;
+
+    private AhoCorasickMatcher(int[] transitions, boolean[] matchAnywhere, boolean[] matchAtEnd, int patternCount) {
+        this.transitions = transitions;
+        this.matchAnywhere = matchAnywhere;
+        this.matchAtEnd = matchAtEnd;
+        this.patternCount = patternCount;
+    }
+
+    /**
+     * 编译模式列表
+     *
+     * @param patterns 模式（以 "$" 结尾表示末尾匹配）
+     * @return 不可变的匹配器
+     */
+    public static AhoCorasickMatcher compile(Collection<String> patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return EMPTY;
+        }
+
+        // 1. 构建 Trie（goto 函数），-1 表示无转移
+        int capacity = 64;
+        int[] goTo = new int[capacity * ALPHABET];
+        Arrays.fill(goTo, -1);
+        boolean[] anywhere = new boolean[capacity];
+        boolean[] atEnd = new boolean[capacity];
+        int states = 1;
+        int count = 0;
+
+        for (String raw : patterns) {
+            if (raw == null || raw.isEmpty()) {
+                continue;
+            }
+            boolean anchored = raw.length() > 1 && raw.charAt(raw.length() - 1) == '$';
+            int length = anchored ? raw.length() - 1 : raw.length();
+            if (!isAscii(raw, length)) {
+                log.warn("⚠️ 模式包含非 ASCII 字符，已跳过: {}", raw);
+                continue;
+            }
+
+            int state = 0;
+            for (int i = 0; i < length; i++) {
+                int symbol = fold(raw.charAt(i));
+                int slot = state * ALPHABET + symbol;
+                if (goTo[slot] < 0) {
+                    if (states == capacity) {
+                        capacity *= 2;
+                        int oldLength = goTo.length;
+                        goTo = Arrays.copyOf(goTo, capacity * ALPHABET);
+                        Arrays.fill(goTo, oldLength, goTo.length, -1);
+                        anywhere = Arrays.copyOf(anywhere, capacity);
+                        atEnd = Arrays.copyOf(atEnd, capacity);
+                    }
+                    goTo[slot] = states++;
+                }
+                state = goTo[slot];
+            }
+            if (anchored) {
+                atEnd[state] = true;
+            } else {
+                anywhere[state] = true;
+            }
+            count++;
+        }
+
+        // 2. BFS 计算失败链接，同时把 goto 补全为完整的 DFA 转移表，并沿失败链接合并输出
+        int[] transitions = Arrays.copyOf(goTo, states * ALPHABET);
+        int[] fail = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            int next = transitions[symbol];
+            if (next < 0) {
+                transitions[symbol] = 0;
+            } else {
+                fail[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failState = fail[state];
+            anywhere[state] |= anywhere[failState];
+            atEnd[state] |= atEnd[failState];
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int slot = state * ALPHABET + symbol;
+                int next = transitions[slot];
+                if (next < 0) {
+                    transitions[slot] = transitions[failState * ALPHABET + symbol];
+                } else {
+                    fail[next] = transitions[failState * ALPHABET + symbol];
+                    queue.add(next);
+                }
+            }
+        }
+
+        return new AhoCorasickMatcher(transitions, Arrays.copyOf(anywhere, states), Arrays.copyOf(atEnd, states), count);
+    }
+
+    /**
+     * 判断输入是否命中任一模式（单次扫描，不分配内存）
+     *
+     * @param input 输入字符串
+     * @return true 表示命中
+     */
+    public boolean matches(CharSequence input) {
+        if (input == null || patternCount == 0) {
+            return false;
+        }
+        int state = 0;
+        int length = input.length();
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            state = transitions[state * ALPHABET + (c < 128 ? fold(c) : OTHER)];
+            if (matchAnywhere[state]) {
+                return true;
+            }
+        }
+        return matchAtEnd[state];
+    }
+
+    /**
+     * 已编译的模式数量
+     */
+    public int size() {
+        return patternCount;
+    }
+
+    private static int fold(char c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private static boolean isAscii(String s, int length) {
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
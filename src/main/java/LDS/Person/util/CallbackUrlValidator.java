@@ -0,0 +1,93 @@
+package LDS.Person.util;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * 回调地址校验（防止通过 callback_url 让服务端请求内网地址）
+ *
+ * - 只允许 http / https，且不能带用户信息
+ * - 配置了允许的主机列表时，主机必须在列表中（".example.com" 匹配其所有子域名），列表中的主机视为受信任，不再检查地址
+ * - 未配置列表时，主机解析出的所有地址都必须是公网地址：回环、内网、链路本地（含云厂商元数据地址）、
+ *   任意地址、组播、IPv6 唯一本地地址一律拒绝
+ *
+ * 提交时与实际回调前各校验一次，缩小 DNS 记录在两次之间被改指向内网的窗口
+ */
+public final class CallbackUrlValidator {
+
+    private CallbackUrlValidator() {
+    }
+
+    /**
+     * 校验回调地址
+     *
+     * @param url          回调地址
+     * @param allowedHosts 允许的主机列表，为空时允许任意公网主机
+     * @throws IllegalArgumentException 地址不合法或指向非公网地址
+     */
+    public static void validate(String url, Collection<String> allowedHosts) {
+        URI uri;
+        try {
+            uri = new URI(url.trim());
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("callback_url 格式不正确");
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            throw new IllegalArgumentException("callback_url 必须是 http(s) 地址");
+        }
+        if (uri.getHost() == null || uri.getRawUserInfo() != null) {
+            throw new IllegalArgumentException("callback_url 缺少主机或包含用户信息");
+        }
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+
+        if (allowedHosts != null && !allowedHosts.isEmpty()) {
+            if (!isAllowedHost(host, allowedHosts)) {
+                throw new IllegalArgumentException("callback_url 主机不在允许列表中: " + host);
+            }
+            return;
+        }
+
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("callback_url 主机无法解析: " + host);
+        }
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                throw new IllegalArgumentException("callback_url 不能指向内网或本机地址: " + host);
+            }
+        }
+    }
+
+    private static boolean isAllowedHost(String host, Collection<String> allowedHosts) {
+        for (String entry : allowedHosts) {
+            if (entry == null || entry.isBlank()) {
+                continue;
+            }
+            String allowed = entry.trim().toLowerCase(Locale.ROOT);
+            if (allowed.startsWith(".") ? host.endsWith(allowed) : host.equals(allowed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPublic(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isSiteLocalAddress()
+                || address.isLinkLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        // IPv6 唯一本地地址 fc00::/7
+        return !(address instanceof Inet6Address) || (address.getAddress()[0] & 0xfe) != 0xfc;
+    }
+}
@@ -0,0 +1,81 @@
+package LDS.Person.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 文件内容指纹（SHA-256）
+ *
+ * - 通过 FileChannel 以固定大小的直接缓冲区流式读取，内存占用与文件大小无关
+ * - 按「绝对路径 + 文件大小 + 修改时间」缓存最近计算过的结果，文件未变化时重复调用不再读取文件
+ */
+public final class ContentHasher {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int CACHE_SIZE = 1024;
+
+    private static final Map<FileKey, String> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<FileKey, String> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private ContentHasher() {
+    }
+
+    /**
+     * 计算文件内容的 SHA-256
+     *
+     * @return 64 位小写十六进制字符串
+     */
+    public static String sha256(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+        FileKey key = new FileKey(absolute, attributes.size(), attributes.lastModifiedTime().toMillis());
+        String cached = CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = BUFFERS.get();
+        try (FileChannel channel = FileChannel.open(absolute, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        CACHE.put(key, hash);
+        return hash;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前 JVM 不支持 SHA-256", e);
+        }
+    }
+
+    private record FileKey(Path path, long size, long lastModified) {
+    }
+}
@@ -0,0 +1,79 @@
+package LDS.Person.util;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台线程池工厂
+ *
+ * - 线程均为守护线程，按「前缀-序号」命名，不会阻止 JVM 退出
+ * - 固定大小的线程池空闲 60 秒后回收核心线程，不使用时不占线程
+ */
+public final class DaemonExecutors {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private DaemonExecutors() {
+    }
+
+    /**
+     * 创建守护线程工厂，线程名为 prefix-1、prefix-2 ...
+     *
+     * @param prefix 线程名前缀
+     * @return 线程工厂
+     */
+    public static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 创建固定大小的守护线程池（队列满时抛出 RejectedExecutionException）
+     *
+     * @param prefix  线程名前缀
+     * @param threads 线程数（至少 1）
+     * @param queue   任务队列
+     * @return 线程池
+     */
+    public static ThreadPoolExecutor newFixedPool(String prefix, int threads, BlockingQueue<Runnable> queue) {
+        return newFixedPool(prefix, threads, queue, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 创建固定大小的守护线程池
+     *
+     * @param prefix   线程名前缀
+     * @param threads  线程数（至少 1）
+     * @param queue    任务队列
+     * @param rejected 队列满时的处理策略
+     * @return 线程池
+     */
+    public static ThreadPoolExecutor newFixedPool(String prefix, int threads, BlockingQueue<Runnable> queue,
+                                                  RejectedExecutionHandler rejected) {
+        int size = Math.max(1, threads);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                queue, threadFactory(prefix), rejected);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 创建单线程的守护定时器
+     *
+     * @param prefix 线程名前缀
+     * @return 定时器
+     */
+    public static ScheduledExecutorService newSingleThreadScheduler(String prefix) {
+        return Executors.newSingleThreadScheduledExecutor(threadFactory(prefix));
+    }
+}
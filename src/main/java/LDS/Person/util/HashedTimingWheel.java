@@ -0,0 +1,260 @@
+package LDS.Person.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 哈希时间轮定时器
+ *
+ * - 时间轴被切分为固定长度的 tick，wheelSize 个槽位首尾相接；任务按到期 tick 取模放入槽位，超过一圈的记录剩余圈数
+ * - 工作线程每个 tick 只处理当前槽位，新增与取消的任务先进入无锁队列，由工作线程在 tick 时转入/移出槽位，
+ *   因此无论挂起多少任务，每个 tick 的开销只与当前槽位中的任务数有关，不需要周期性扫描全部任务
+ * - 到期精度为一个 tick；已过期的任务会在下一个 tick 触发
+ * - 到期回调在工作线程中执行，耗时操作应在回调中转交给其他线程池
+ *
+ * @param <T> 任务类型
+ */
+@Slf4j
+public class HashedTimingWheel<T> {
+
+    private final String name;
+    private final long tickNanos;
+    private final Bucket<T>[] wheel;
+    private final int mask;
+    private final Consumer<T> onExpire;
+
+    private final Queue<Timeout<T>> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<T>> pendingCancels = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean stopped;
+
+    /**
+     * @param name      名称（用于日志与工作线程名）
+     * @param tick      每个 tick 的时长
+     * @param wheelSize 槽位数（向上取整为 2 的幂）
+     * @param onExpire  任务到期时的回调
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HashedTimingWheel(String name, Duration tick, int wheelSize, Consumer<T> onExpire) {
+        if (tick.isZero() || tick.isNegative()) {
+            throw new IllegalArgumentException("tick 必须大于 0: " + tick);
+        }
+        this.name = name;
+        this.tickNanos = tick.toNanos();
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket<>();
+        }
+        this.mask = size - 1;
+        this.onExpire = onExpire;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name + "-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 添加一个在 delay 之后到期的任务
+     *
+     * @return 可用于取消的句柄
+     */
+    public Timeout<T> schedule(T task, Duration delay) {
+        if (stopped) {
+            throw new IllegalStateException(name + " 时间轮已停止");
+        }
+        long deadline = System.nanoTime() - startNanos + Math.max(0, delay.toNanos());
+        Timeout<T> timeout = new Timeout<>(this, task, deadline);
+        pendingCount.incrementAndGet();
+        pendingAdds.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 尚未到期（且未取消）的任务数
+     */
+    public int pending() {
+        return pendingCount.get();
+    }
+
+    /**
+     * 累计到期触发的任务数
+     */
+    public long expired() {
+        return expiredCount.get();
+    }
+
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!stopped) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (stopped) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            processCancels();
+            transferAdds(tick);
+            expire(wheel[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+    private void processCancels() {
+        Timeout<T> timeout;
+        while ((timeout = pendingCancels.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferAdds(long currentTick) {
+        // 每个 tick 最多转移固定数量，避免大量新增任务阻塞当前 tick
+        for (int i = 0; i < 100_000; i++) {
+            Timeout<T> timeout = pendingAdds.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() != Timeout.ST_INIT) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            // 已过期的任务放入当前槽位，本 tick 即触发
+            long ticks = Math.max(calculated, currentTick);
+            timeout.remainingRounds = (calculated - currentTick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Bucket<T> bucket, long deadline) {
+        Timeout<T> timeout = bucket.head;
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                bucket.remove(timeout);
+                if (timeout.state.compareAndSet(Timeout.ST_INIT, Timeout.ST_EXPIRED)) {
+                    pendingCount.decrementAndGet();
+                    expiredCount.incrementAndGet();
+                    try {
+                        onExpire.accept(timeout.task);
+                    } catch (Exception e) {
+                        log.error("{} 时间轮任务回调异常", name, e);
+                    }
+                }
+            } else if (timeout.state.get() == Timeout.ST_CANCELLED) {
+                bucket.remove(timeout);
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * 时间轮中的一个任务句柄
+     */
+    public static final class Timeout<T> {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final HashedTimingWheel<T> timer;
+        private final T task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+        private long remainingRounds;
+        private Timeout<T> next;
+        private Timeout<T> prev;
+        private Bucket<T> bucket;
+
+        private Timeout(HashedTimingWheel<T> timer, T task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public T task() {
+            return task;
+        }
+
+        /**
+         * 取消任务（已到期的任务无法取消）
+         *
+         * @return 是否取消成功
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            timer.pendingCount.decrementAndGet();
+            timer.pendingCancels.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+    }
+
+    /**
+     * 槽位：双向链表，只由工作线程访问
+     */
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        private void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        private void remove(Timeout<T> timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+    }
+}
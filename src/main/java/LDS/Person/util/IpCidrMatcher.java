@@ -0,0 +1,448 @@
+package LDS.Person.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * IP 白名单匹配器（支持 IPv4 / IPv6 CIDR）
+ *
+ * 白名单条目编译为两棵不可变的二叉前缀树（IPv4 一棵、IPv6 一棵），节点存放在 int 数组中：
+ * - 查询按地址位逐位下行，最多 32 / 128 步，与白名单条目数量无关，可以放入整段云厂商 IP 段
+ * - 查询时地址解析不创建对象（复用线程本地缓冲区），不分配内存
+ *
+ * 支持的条目格式：
+ * 1. 单个地址：127.0.0.1、::1、0:0:0:0:0:0:0:1
+ * 2. CIDR：10.0.0.0/8、2001:db8::/32
+ * 3. 主机名：localhost（编译时解析为对应的全部地址）
+ * 无法解析的条目会被跳过并记录警告
+ *
+ * IPv4 映射的 IPv6 地址（::ffff:1.2.3.4）按 IPv4 匹配
+ */
+@Slf4j
+public final class IpCidrMatcher {
+
+    private static final int IPV4_BITS = 32;
+    private static final int IPV6_BITS = 128;
+
+    /**
+     * 解析缓冲区（每个线程一份，保证查询过程不分配内存）
+     */
+    private static final ThreadLocal<ParseBuffer> BUFFER = ThreadLocal.withInitial(ParseBuffer::new);
+
+    private final PrefixTrie ipv4;
+    private final PrefixTrie ipv6;
+    private final int entryCount;
+
+    private IpCidrMatcher(PrefixTrie ipv4, PrefixTrie ipv6, int entryCount) {
+        this.ipv4 = ipv4;
+        this.ipv6 = ipv6;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * 编译白名单条目
+     *
+     * @param entries 白名单条目（单个地址、CIDR 或主机名）
+     * @return 不可变的匹配器
+     */
+    public static IpCidrMatcher compile(Collection<String> entries) {
+        PrefixTrie.Builder v4 = new PrefixTrie.Builder();
+        PrefixTrie.Builder v6 = new PrefixTrie.Builder();
+        ParseBuffer buffer = new ParseBuffer();
+        int count = 0;
+
+        if (entries != null) {
+            for (String raw : entries) {
+                if (raw == null || raw.isBlank()) {
+                    continue;
+                }
+                String entry = raw.trim();
+                if (addEntry(entry, v4, v6, buffer)) {
+                    count++;
+                } else {
+                    log.warn("⚠️ 无法解析的 IP 白名单条目，已跳过: {}", entry);
+                }
+            }
+        }
+        return new IpCidrMatcher(v4.build(), v6.build(), count);
+    }
+
+    /**
+     * 判断 IP 是否命中白名单
+     *
+     * @param ip 客户端 IP 字符串（IPv4 或 IPv6，可带 %zone）
+     * @return true 表示命中
+     */
+    public boolean matches(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return false;
+        }
+        ParseBuffer buffer = BUFFER.get();
+        int family = parseAddress(ip, 0, ip.length(), buffer);
+        if (family == 4) {
+            return ipv4.contains(buffer.hi, 0, IPV4_BITS);
+        }
+        if (family == 6) {
+            return ipv6.contains(buffer.hi, buffer.lo, IPV6_BITS);
+        }
+        return false;
+    }
+
+    /**
+     * 已编译的有效条目数
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    private static boolean addEntry(String entry, PrefixTrie.Builder v4, PrefixTrie.Builder v6, ParseBuffer buffer) {
+        int slash = entry.indexOf('/');
+        int end = slash >= 0 ? slash : entry.length();
+        int family = parseAddress(entry, 0, end, buffer);
+
+        if (family == 0) {
+            // 不是 IP 字面量，按主机名解析（例如 localhost）；形如 999.999.999.999 的非法地址不做 DNS 查询
+            if (slash >= 0 || looksNumeric(entry)) {
+                return false;
+            }
+            return addHost(entry, v4, v6, buffer);
+        }
+
+        int maxBits = family == 4 ? IPV4_BITS : IPV6_BITS;
+        int prefix = maxBits;
+        if (slash >= 0) {
+            prefix = parsePrefixLength(entry, slash + 1);
+            if (prefix < 0 || prefix > maxBits) {
+                return false;
+            }
+        }
+        if (family == 4) {
+            v4.add(buffer.hi, 0, prefix);
+        } else {
+            v6.add(buffer.hi, buffer.lo, prefix);
+        }
+        return true;
+    }
+
+    private static boolean addHost(String host, PrefixTrie.Builder v4, PrefixTrie.Builder v6, ParseBuffer buffer) {
+        try {
+            InetAddress[] addresses = InetAddress.getAllByName(host);
+            for (InetAddress address : addresses) {
+                String literal = address.getHostAddress();
+                int family = parseAddress(literal, 0, literal.length(), buffer);
+                if (family == 4) {
+                    v4.add(buffer.hi, 0, IPV4_BITS);
+                } else if (family == 6) {
+                    v6.add(buffer.hi, buffer.lo, IPV6_BITS);
+                }
+            }
+            log.debug("IP 白名单主机名 {} 解析为 {}", host, Arrays.toString(addresses));
+            return addresses.length > 0;
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static boolean looksNumeric(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ((c < '0' || c > '9') && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int parsePrefixLength(String s, int from) {
+        if (from >= s.length() || s.length() - from > 3) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 解析 IP 字面量
+     * IPv4 结果放在 buffer.hi 的高 32 位；IPv6 结果放在 buffer.hi / buffer.lo
+     *
+     * @return 4 表示 IPv4（含 IPv4 映射的 IPv6），6 表示 IPv6，0 表示不是合法 IP
+     */
+    private static int parseAddress(String s, int from, int to, ParseBuffer buffer) {
+        // 去掉 IPv6 的 zone id（fe80::1%eth0）
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == '%') {
+                to = i;
+                break;
+            }
+        }
+        // 去掉方括号（[::1]）
+        if (to - from >= 2 && s.charAt(from) == '[' && s.charAt(to - 1) == ']') {
+            from++;
+            to--;
+        }
+        boolean hasColon = false;
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == ':') {
+                hasColon = true;
+                break;
+            }
+        }
+
+        if (!hasColon) {
+            long v4 = parseIpv4(s, from, to);
+            if (v4 < 0) {
+                return 0;
+            }
+            buffer.hi = v4 << 32;
+            buffer.lo = 0;
+            return 4;
+        }
+
+        if (!parseIpv6(s, from, to, buffer)) {
+            return 0;
+        }
+        // ::ffff:a.b.c.d -> 按 IPv4 处理
+        if (buffer.hi == 0 && (buffer.lo >>> 32) == 0xFFFFL) {
+            buffer.hi = (buffer.lo & 0xFFFFFFFFL) << 32;
+            buffer.lo = 0;
+            return 4;
+        }
+        return 6;
+    }
+
+    /**
+     * 解析点分十进制 IPv4
+     *
+     * @return 32 位无符号值，非法时返回 -1
+     */
+    private static long parseIpv4(String s, int from, int to) {
+        long value = 0;
+        int octets = 0;
+        int octet = -1;
+        for (int i = from; i <= to; i++) {
+            char c = i < to ? s.charAt(i) : '.';
+            if (c == '.') {
+                if (octet < 0 || octets == 4) {
+                    return -1;
+                }
+                value = (value << 8) | octet;
+                octets++;
+                octet = -1;
+            } else if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else {
+                return -1;
+            }
+        }
+        return octets == 4 ? value : -1;
+    }
+
+    /**
+     * 解析 IPv6（支持 :: 压缩与末尾内嵌 IPv4）
+     */
+    private static boolean parseIpv6(String s, int from, int to, ParseBuffer buffer) {
+        int[] groups = buffer.groups;
+        int count = 0;
+        int compressAt = -1;
+        int i = from;
+
+        if (to - from >= 2 && s.charAt(from) == ':' && s.charAt(from + 1) == ':') {
+            compressAt = 0;
+            i = from + 2;
+            if (i == to) {
+                return fillIpv6(groups, 0, 0, buffer);
+            }
+        } else if (from < to && s.charAt(from) == ':') {
+            return false;
+        }
+
+        while (i < to) {
+            int start = i;
+            int value = 0;
+            int digits = 0;
+            boolean dotted = false;
+            while (i < to && s.charAt(i) != ':') {
+                char c = s.charAt(i);
+                int d = Character.digit(c, 16);
+                if (c == '.') {
+                    dotted = true;
+                    break;
+                }
+                if (d < 0 || ++digits > 4) {
+                    return false;
+                }
+                value = (value << 4) | d;
+                i++;
+            }
+
+            if (dotted) {
+                // 末尾内嵌 IPv4，占两组
+                if (count > 6) {
+                    return false;
+                }
+                long v4 = parseIpv4(s, start, to);
+                if (v4 < 0) {
+                    return false;
+                }
+                groups[count++] = (int) (v4 >>> 16);
+                groups[count++] = (int) (v4 & 0xFFFF);
+                i = to;
+                break;
+            }
+
+            if (digits == 0 || count == 8) {
+                return false;
+            }
+            groups[count++] = value;
+
+            if (i < to) {
+                // 当前字符是 ':'
+                i++;
+                if (i < to && s.charAt(i) == ':') {
+                    if (compressAt >= 0) {
+                        return false;
+                    }
+                    compressAt = count;
+                    i++;
+                } else if (i == to) {
+                    // 以单个 ':' 结尾
+                    return false;
+                }
+            }
+        }
+
+        if (compressAt < 0) {
+            return count == 8 && fillIpv6(groups, count, count, buffer);
+        }
+        if (count > 7) {
+            return false;
+        }
+        return fillIpv6(groups, count, compressAt, buffer);
+    }
+
+    /**
+     * 将分组展开为 128 位（compressAt 处插入足够的 0 组）
+     */
+    private static boolean fillIpv6(int[] groups, int count, int compressAt, ParseBuffer buffer) {
+        int zeros = 8 - count;
+        long hi = 0;
+        long lo = 0;
+        int position = 0;
+        for (int g = 0; g <= count; g++) {
+            if (g == compressAt) {
+                for (int z = 0; z < zeros; z++) {
+                    if (position++ < 4) {
+                        hi <<= 16;
+                    } else {
+                        lo <<= 16;
+                    }
+                }
+            }
+            if (g == count) {
+                break;
+            }
+            if (position++ < 4) {
+                hi = (hi << 16) | groups[g];
+            } else {
+                lo = (lo << 16) | groups[g];
+            }
+        }
+        buffer.hi = hi;
+        buffer.lo = lo;
+        return true;
+    }
+
+    /**
+     * 线程本地解析缓冲区
+     */
+    private static final class ParseBuffer {
+        private final int[] groups = new int[8];
+        private long hi;
+        private long lo;
+    }
+
+    /**
+     * 不可变二叉前缀树
+     * 节点 n 的子节点为 children[2n]（位 0）与 children[2n + 1]（位 1），0 表示不存在（根节点不会作为子节点）
+     */
+    private static final class PrefixTrie {
+
+        private final int[] children;
+        private final boolean[] terminal;
+
+        private PrefixTrie(int[] children, boolean[] terminal) {
+            this.children = children;
+            this.terminal = terminal;
+        }
+
+        boolean contains(long hi, long lo, int bits) {
+            int node = 0;
+            for (int i = 0; i < bits; i++) {
+                if (terminal[node]) {
+                    return true;
+                }
+                node = children[(node << 1) | bit(hi, lo, i)];
+                if (node == 0) {
+                    return false;
+                }
+            }
+            return terminal[node];
+        }
+
+        private static int bit(long hi, long lo, int index) {
+            return index < 64
+                    ? (int) (hi >>> (63 - index)) & 1
+                    : (int) (lo >>> (127 - index)) & 1;
+        }
+
+        static final class Builder {
+            private int[] children = new int[64];
+            private boolean[] terminal = new boolean[32];
+            private int size = 1;
+
+            void add(long hi, long lo, int prefix) {
+                int node = 0;
+                for (int i = 0; i < prefix; i++) {
+                    if (terminal[node]) {
+                        // 已被更短的前缀覆盖
+                        return;
+                    }
+                    int slot = (node << 1) | bit(hi, lo, i);
+                    int next = children[slot];
+                    if (next == 0) {
+                        next = newNode();
+                        children[slot] = next;
+                    }
+                    node = next;
+                }
+                terminal[node] = true;
+            }
+
+            private int newNode() {
+                if (size == terminal.length) {
+                    terminal = Arrays.copyOf(terminal, size * 2);
+                    children = Arrays.copyOf(children, size * 4);
+                }
+                return size++;
+            }
+
+            PrefixTrie build() {
+                return new PrefixTrie(Arrays.copyOf(children, size * 2), Arrays.copyOf(terminal, size));
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package LDS.Person.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 限流暂停窗口：收到 429 或端点额度用完时暂停到指定时间，期间调用方跳过本轮任务
+ *
+ * 多个线程同时设置时取最晚的截止时间，暂停只会延长不会被缩短
+ */
+public final class PauseWindow {
+
+    private final AtomicLong pausedUntil = new AtomicLong();
+
+    /**
+     * 暂停 seconds 秒（至少 1 秒）
+     *
+     * @param seconds 暂停秒数
+     * @return 截止时间被延长时返回 true（用于只在首次暂停时记录日志）
+     */
+    public boolean pause(long seconds) {
+        long until = System.currentTimeMillis() + Math.max(1, seconds) * 1000;
+        long previous = pausedUntil.getAndAccumulate(until, Math::max);
+        return until > previous;
+    }
+
+    /**
+     * @param nowMillis 当前时间（毫秒）
+     * @return 是否仍在暂停中
+     */
+    public boolean isPaused(long nowMillis) {
+        return nowMillis < pausedUntil.get();
+    }
+}
@@ -0,0 +1,228 @@
+package LDS.Person.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 带 stale-while-revalidate 的有界 TTL 缓存
+ *
+ * - 新鲜期（ttl）内直接返回缓存
+ * - 过期但仍在 staleTtl 内：立即返回旧值，并在后台刷新一次（同一 key 同时只有一个刷新任务）
+ * - 超过 ttl + staleTtl 或不存在：同步加载，同一 key 的并发请求合并为一次上游调用
+ * - 条目数超过 maxSize 时按 LRU 淘汰
+ * - 不满足 cacheable 条件的结果（如错误响应）只返回给本次合并的请求，不写入缓存
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+@Slf4j
+public class StaleWhileRevalidateCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final Predicate<V> cacheable;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inflight = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param name      缓存名称（用于日志与后台线程名）
+     * @param maxSize   最大条目数
+     * @param ttl       新鲜期
+     * @param staleTtl  过期后仍可返回旧值的时长
+     * @param cacheable 判断结果是否可以写入缓存
+     */
+    public StaleWhileRevalidateCache(String name, int maxSize, Duration ttl, Duration staleTtl, Predicate<V> cacheable) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = ttl.toNanos();
+        this.staleNanos = staleTtl.toNanos();
+        this.cacheable = cacheable;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > StaleWhileRevalidateCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.refreshExecutor = new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(this.maxSize), DaemonExecutors.threadFactory(name + "-refresh"));
+    }
+
+    /**
+     * 读取缓存，必要时通过 loader 加载
+     *
+     * @param key    缓存键
+     * @param loader 上游加载函数（抛出的异常原样传给调用方）
+     * @return 缓存值或新加载的值
+     */
+    public V get(K key, Supplier<V> loader) {
+        Entry<V> entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < ttlNanos) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            if (age < ttlNanos + staleNanos) {
+                staleHits.incrementAndGet();
+                refreshAsync(key, loader);
+                return entry.value;
+            }
+        }
+
+        misses.incrementAndGet();
+        return loadCoalesced(key, loader);
+    }
+
+    /**
+     * 获取缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long staleCount = staleHits.get();
+        long missCount = misses.get();
+        long total = hitCount + staleCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("缓存名称", name);
+        synchronized (entries) {
+            stats.put("当前条目", entries.size());
+        }
+        stats.put("容量", maxSize);
+        stats.put("命中", hitCount);
+        stats.put("过期命中", staleCount);
+        stats.put("未命中", missCount);
+        stats.put("合并请求", coalesced.get());
+        stats.put("加载次数", loads.get());
+        stats.put("加载失败", loadFailures.get());
+        stats.put("淘汰", evictions.get());
+        stats.put("命中率", total == 0 ? "0.00%" : String.format("%.2f%%", (hitCount + staleCount) * 100.0 / total));
+        return stats;
+    }
+
+    /**
+     * 关闭后台刷新线程
+     */
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private V loadCoalesced(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inflight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return join(existing);
+        }
+        try {
+            V value = load(key, loader);
+            mine.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Error 也要完成 future，否则已在 join 中等待的请求会永远阻塞
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, mine);
+        }
+    }
+
+    private void refreshAsync(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        if (inflight.putIfAbsent(key, mine) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    mine.complete(load(key, loader));
+                } catch (RuntimeException e) {
+                    log.warn("缓存 {} 后台刷新失败，继续使用旧值: {}", name, e.getMessage());
+                    mine.completeExceptionally(e);
+                } catch (Error e) {
+                    mine.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inflight.remove(key, mine);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inflight.remove(key, mine);
+            mine.completeExceptionally(e);
+        }
+    }
+
+    private V load(K key, Supplier<V> loader) {
+        loads.incrementAndGet();
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            loadFailures.incrementAndGet();
+            throw e;
+        }
+        if (value != null && cacheable.test(value)) {
+            synchronized (entries) {
+                entries.put(key, new Entry<>(value, System.nanoTime()));
+            }
+        }
+        return value;
+    }
+
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,12 +1,25 @@
 package LDS.Person.util;
 
+import LDS.Person.config.TwitterHttpProperties;
 import com.alibaba.fastjson2.JSONObject;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Twitter API 速率限制处理工具
@@ -14,24 +27,52 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  * 功能：
  * 1. 检测 429 Too Many Requests 错误
  * 2. 提取 Retry-After 信息
- * 3. 实现请求重试机制
- * 4. 追踪 API 请求计数
+ * 3. 实现请求重试机制（非阻塞：429 后的等待挂在共享调度器上，不占用调用线程）
+ * 4. 按「端点 + 用户」维护令牌桶，读取每个响应的 x-rate-limit-limit / remaining / reset 头，
+ *    发送前调用 tryAcquire 预判，避免把请求浪费在必然返回 429 的调用上
  */
 @Component
 @Slf4j
 public class TwitterRateLimitHandler {
 
   /**
-   * 最近请求的时间戳队列（用于计算请求频率）
-   * key: endpoint，value: 请求时间戳队列
+   * X API 的速率限制窗口（15 分钟）
    */
-  private final ConcurrentHashMap<String, ConcurrentLinkedQueue<Long>> requestTimestamps = new ConcurrentHashMap<>();
+  private static final long WINDOW_MILLIS = 15 * 60 * 1000L;
 
   /**
-   * 速率限制重置时间缓存
-   * key: endpoint，value: 重置时间戳
+   * 没有用户上下文时使用的默认用户键
    */
-  private final ConcurrentHashMap<String, Long> rateLimitResets = new ConcurrentHashMap<>();
+  public static final String DEFAULT_USER_KEY = "-";
+
+  public static final String HEADER_LIMIT = "x-rate-limit-limit";
+  public static final String HEADER_REMAINING = "x-rate-limit-remaining";
+  public static final String HEADER_RESET = "x-rate-limit-reset";
+
+  /**
+   * 速率限制桶
+   * key: endpoint（例如 "GET /2/users/:id/tweets"），value: (用户键 -> 桶)
+   */
+  private final ConcurrentHashMap<String, ConcurrentHashMap<String, RateLimitBucket>> buckets = new ConcurrentHashMap<>();
+
+  private final TwitterHttpProperties httpProperties;
+
+  /**
+   * 共享的重试定时器，只负责到点后把任务交回工作线程池，自身不执行 API 调用
+   */
+  private final ScheduledExecutorService retryTimer;
+
+  /**
+   * 执行 API 调用的有界工作线程池
+   */
+  private final ThreadPoolExecutor retryWorkers;
+
+  public TwitterRateLimitHandler(TwitterHttpProperties httpProperties) {
+    this.httpProperties = httpProperties;
+    this.retryTimer = DaemonExecutors.newSingleThreadScheduler("x-retry-timer");
+    this.retryWorkers = DaemonExecutors.newFixedPool("x-retry-worker", httpProperties.getRetry().getWorkerThreads(),
+        new ArrayBlockingQueue<>(Math.max(1, httpProperties.getRetry().getQueueCapacity())));
+  }
 
   /**
    * 解析异常错误信息，提取 Retry-After 时间
@@ -52,6 +93,16 @@ public class TwitterRateLimitHandler {
         return retryAfter;
       }
 
+      // X API 通常只返回 x-rate-limit-reset（Unix 秒）
+      long resetSeconds = exception.getResponseHeaders() != null
+          ? parseLong(exception.getResponseHeaders().getFirst(HEADER_RESET))
+          : -1;
+      if (resetSeconds > 0) {
+        long retryAfter = Math.max(1, resetSeconds - System.currentTimeMillis() / 1000);
+        log.warn("从 x-rate-limit-reset 提取重置时间，需要等待: {} 秒", retryAfter);
+        return retryAfter;
+      }
+
       // 尝试从响应体解析 reset 时间
       try {
         String body = exception.getResponseBodyAsString();
@@ -92,42 +143,69 @@ public class TwitterRateLimitHandler {
     return false;
   }
 
+  /**
+   * 发送前申请一次调用额度
+   * 如果已知该端点在当前窗口内余量为 0 且尚未到重置时间，返回 false，调用方应直接放弃本次请求
+   *
+   * @param endpoint API 端点（例如 "GET /2/users/:id/tweets"）
+   * @param userKey  用户键（用户 ID 或 Authorization 头），为空时使用默认用户
+   * @return true 表示可以发送
+   */
+  public boolean tryAcquire(String endpoint, String userKey) {
+    boolean acquired = bucket(endpoint, userKey).tryAcquire(System.currentTimeMillis());
+    if (!acquired) {
+      log.warn("本地限流：endpoint={} 余量已耗尽，距离重置还需 {} 秒", endpoint, getWaitTimeUntilReset(endpoint, userKey));
+    }
+    return acquired;
+  }
+
+  /**
+   * 使用 X 响应头更新速率限制状态（每个响应都应调用，包括 4xx/5xx）
+   *
+   * @param endpoint API 端点
+   * @param userKey  用户键
+   * @param headers  响应头
+   */
+  public void updateFromHeaders(String endpoint, String userKey, HttpHeaders headers) {
+    if (headers == null) {
+      return;
+    }
+    long limit = parseLong(headers.getFirst(HEADER_LIMIT));
+    long remaining = parseLong(headers.getFirst(HEADER_REMAINING));
+    long resetSeconds = parseLong(headers.getFirst(HEADER_RESET));
+    if (limit < 0 && remaining < 0 && resetSeconds < 0) {
+      return;
+    }
+    bucket(endpoint, userKey).update(limit, remaining, resetSeconds > 0 ? resetSeconds * 1000 : -1);
+  }
+
   /**
    * 记录 API 请求（用于监控请求频率）
    *
    * @param endpoint API 端点（例如 "/users/{id}/tweets"）
    */
   public void recordRequest(String endpoint) {
-    long now = System.currentTimeMillis();
-    requestTimestamps.computeIfAbsent(endpoint, k -> new ConcurrentLinkedQueue<>())
-        .offer(now);
-
-    // 清理 15 分钟前的请求记录
-    long fifteenMinutesAgo = now - (15 * 60 * 1000);
-    ConcurrentLinkedQueue<Long> timestamps = requestTimestamps.get(endpoint);
-    while (!timestamps.isEmpty() && timestamps.peek() < fifteenMinutesAgo) {
-      timestamps.poll();
-    }
+    bucket(endpoint, DEFAULT_USER_KEY).tryAcquire(System.currentTimeMillis());
   }
 
   /**
-   * 获取最近 15 分钟内的请求数
+   * 获取最近 15 分钟窗口内的请求数（所有用户合计）
    *
    * @param endpoint API 端点
    * @return 请求数
    */
   public int getRequestCountInLastFifteenMinutes(String endpoint) {
-    ConcurrentLinkedQueue<Long> timestamps = requestTimestamps.get(endpoint);
-    if (timestamps == null) {
+    Map<String, RateLimitBucket> users = buckets.get(endpoint);
+    if (users == null) {
       return 0;
     }
 
     long now = System.currentTimeMillis();
-    long fifteenMinutesAgo = now - (15 * 60 * 1000);
-
-    return (int) timestamps.stream()
-        .filter(timestamp -> timestamp >= fifteenMinutesAgo)
-        .count();
+    int count = 0;
+    for (RateLimitBucket bucket : users.values()) {
+      count += bucket.windowCount(now);
+    }
+    return count;
   }
 
   /**
@@ -137,7 +215,7 @@ public class TwitterRateLimitHandler {
    * @param resetTimestamp 重置时间戳（毫秒）
    */
   public void setRateLimitReset(String endpoint, long resetTimestamp) {
-    rateLimitResets.put(endpoint, resetTimestamp);
+    bucket(endpoint, DEFAULT_USER_KEY).update(-1, 0, resetTimestamp);
   }
 
   /**
@@ -147,49 +225,226 @@ public class TwitterRateLimitHandler {
    * @return 等待时间（秒），如果无限制返回 0
    */
   public long getWaitTimeUntilReset(String endpoint) {
-    Long resetTime = rateLimitResets.get(endpoint);
-    if (resetTime == null) {
+    return getWaitTimeUntilReset(endpoint, DEFAULT_USER_KEY);
+  }
+
+  /**
+   * 获取指定用户在该端点距离下次可用的等待时间
+   *
+   * @param endpoint API 端点
+   * @param userKey  用户键
+   * @return 等待时间（秒），如果无限制返回 0
+   */
+  public long getWaitTimeUntilReset(String endpoint, String userKey) {
+    Map<String, RateLimitBucket> users = buckets.get(endpoint);
+    if (users == null) {
+      return 0;
+    }
+    RateLimitBucket bucket = users.get(userKey == null || userKey.isEmpty() ? DEFAULT_USER_KEY : userKey);
+    if (bucket == null) {
       return 0;
     }
+    long waitMillis = bucket.waitMillis(System.currentTimeMillis());
+    return waitMillis <= 0 ? 0 : (waitMillis + 999) / 1000;
+  }
+
+  /**
+   * 将请求方法与 URI 归一化为端点模板（版本号之后纯数字的路径段替换为 :id，去掉查询参数）
+   * 例如：GET https://api.x.com/2/users/123/tweets?max_results=5 -> "GET /2/users/:id/tweets"
+   */
+  public static String endpointKey(String method, URI uri) {
+    String path = uri.getRawPath();
+    StringBuilder sb = new StringBuilder(method.length() + 1 + (path != null ? path.length() : 0));
+    sb.append(method).append(' ');
+    if (path == null || path.isEmpty()) {
+      return sb.append('/').toString();
+    }
+    int segmentStart = 0;
+    int segmentIndex = 0;
+    int length = path.length();
+    for (int i = 0; i <= length; i++) {
+      if (i == length || path.charAt(i) == '/') {
+        if (i > segmentStart && segmentIndex++ > 0 && isDigits(path, segmentStart, i)) {
+          sb.append(":id");
+        } else {
+          sb.append(path, segmentStart, i);
+        }
+        if (i < length) {
+          sb.append('/');
+        }
+        segmentStart = i + 1;
+      }
+    }
+    return sb.toString();
+  }
 
-    long waitTime = (resetTime - System.currentTimeMillis()) / 1000;
-    return Math.max(0, waitTime);
+  private static boolean isDigits(String s, int from, int to) {
+    for (int i = from; i < to; i++) {
+      char c = s.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long parseLong(String value) {
+    if (value == null || value.isEmpty()) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private RateLimitBucket bucket(String endpoint, String userKey) {
+    String user = userKey == null || userKey.isEmpty() ? DEFAULT_USER_KEY : userKey;
+    ConcurrentHashMap<String, RateLimitBucket> users = buckets.get(endpoint);
+    if (users == null) {
+      users = buckets.computeIfAbsent(endpoint, k -> new ConcurrentHashMap<>());
+    }
+    RateLimitBucket bucket = users.get(user);
+    if (bucket == null) {
+      bucket = users.computeIfAbsent(user, k -> new RateLimitBucket());
+    }
+    return bucket;
   }
 
   /**
-   * 带重试的 API 调用包装
+   * 定期清理长时间未使用的桶（access token 每 2 小时轮换，旧 token 的桶不会再被访问）
+   */
+  @Scheduled(initialDelay = 600000, fixedDelay = 600000)
+  public void evictIdleBuckets() {
+    long idleBefore = System.currentTimeMillis() - 2 * WINDOW_MILLIS;
+    int removed = 0;
+    for (Map.Entry<String, ConcurrentHashMap<String, RateLimitBucket>> entry : buckets.entrySet()) {
+      ConcurrentHashMap<String, RateLimitBucket> users = entry.getValue();
+      for (Map.Entry<String, RateLimitBucket> userEntry : users.entrySet()) {
+        if (userEntry.getValue().lastSeenBefore(idleBefore)) {
+          users.remove(userEntry.getKey(), userEntry.getValue());
+          removed++;
+        }
+      }
+      if (users.isEmpty()) {
+        buckets.remove(entry.getKey(), users);
+      }
+    }
+    if (removed > 0) {
+      log.debug("已清理 {} 个空闲的速率限制桶", removed);
+    }
+  }
+
+  /**
+   * 带重试的 API 调用包装（同步版本）
+   * 内部委托给 executeWithRetryAsync，等待期间不占用 CPU，但调用线程仍会阻塞到结果返回，
+   * 请求线程中优先使用 executeWithRetryAsync 并直接返回 CompletableFuture
    *
    * @param action     要执行的操作
    * @param maxRetries 最大重试次数
    * @return 操作结果
    */
   public <T> T executeWithRetry(ApiAction<T> action, int maxRetries) {
-    for (int attempt = 0; attempt <= maxRetries; attempt++) {
-      try {
-        return action.execute();
-      } catch (HttpClientErrorException e) {
-        if (!isRateLimitError(e)) {
-          throw e;
-        }
+    try {
+      return executeWithRetryAsync(action, maxRetries).join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
 
-        if (attempt < maxRetries) {
-          long retryAfter = extractRetryAfter(e);
-          log.warn("触发速率限制，第 {} 次重试，等待 {} 秒后重试...", attempt + 1, retryAfter);
+  /**
+   * 使用配置的默认重试次数异步执行 API 调用
+   */
+  public <T> CompletableFuture<T> executeWithRetryAsync(ApiAction<T> action) {
+    return executeWithRetryAsync(action, httpProperties.getRetry().getMaxRetries());
+  }
 
-          try {
-            Thread.sleep(retryAfter * 1000);
-          } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("重试被中断", ie);
-          }
-        } else {
-          log.error("已达最大重试次数 {}，放弃请求", maxRetries);
-          throw e;
-        }
+  /**
+   * 带重试的 API 调用包装（异步版本）
+   *
+   * - 调用在有界工作线程池中执行，调用方线程立即返回
+   * - 遇到 429 时不 sleep，而是把下一次尝试挂到共享调度器上
+   * - 等待时间取「带抖动的指数退避」与服务器 Retry-After / x-rate-limit-reset 中的较大值
+   * - 下一次尝试会超过总截止时间时直接以 429 结束，不做注定超时的等待
+   *
+   * @param action     要执行的操作
+   * @param maxRetries 最大重试次数
+   * @return 操作结果的 CompletableFuture，失败时以原始异常结束
+   */
+  public <T> CompletableFuture<T> executeWithRetryAsync(ApiAction<T> action, int maxRetries) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    long deadline = System.currentTimeMillis() + httpProperties.getRetry().getDeadline().toMillis();
+    submitAttempt(action, 0, maxRetries, deadline, result);
+    return result;
+  }
+
+  private <T> void submitAttempt(ApiAction<T> action, int attempt, int maxRetries, long deadline,
+                                 CompletableFuture<T> result) {
+    if (result.isDone()) {
+      // 调用方已取消（例如异步请求超时）
+      return;
+    }
+    try {
+      retryWorkers.execute(() -> runAttempt(action, attempt, maxRetries, deadline, result));
+    } catch (RejectedExecutionException e) {
+      log.error("重试工作线程池已满，放弃请求");
+      result.completeExceptionally(e);
+    }
+  }
+
+  private <T> void runAttempt(ApiAction<T> action, int attempt, int maxRetries, long deadline,
+                              CompletableFuture<T> result) {
+    try {
+      result.complete(action.execute());
+    } catch (HttpClientErrorException e) {
+      if (!isRateLimitError(e)) {
+        result.completeExceptionally(e);
+        return;
+      }
+      if (attempt >= maxRetries) {
+        log.error("已达最大重试次数 {}，放弃请求", maxRetries);
+        result.completeExceptionally(e);
+        return;
       }
+
+      long delayMillis = Math.max(backoffMillis(attempt), extractRetryAfter(e) * 1000);
+      if (System.currentTimeMillis() + delayMillis > deadline) {
+        log.warn("触发速率限制，需等待 {} 秒，超过重试截止时间，直接返回 429", (delayMillis + 999) / 1000);
+        result.completeExceptionally(e);
+        return;
+      }
+
+      log.warn("触发速率限制，第 {} 次重试，{} 毫秒后重试（不占用请求线程）", attempt + 1, delayMillis);
+      retryTimer.schedule(() -> submitAttempt(action, attempt + 1, maxRetries, deadline, result),
+          delayMillis, TimeUnit.MILLISECONDS);
+    } catch (Throwable t) {
+      result.completeExceptionally(t);
     }
+  }
 
-    return null;
+  /**
+   * 带抖动的指数退避：在 [backoff/2, backoff] 之间随机，避免多个请求在同一时刻重试
+   */
+  private long backoffMillis(int attempt) {
+    TwitterHttpProperties.Retry retry = httpProperties.getRetry();
+    long initial = Math.max(1, retry.getInitialBackoff().toMillis());
+    long max = Math.max(initial, retry.getMaxBackoff().toMillis());
+    long backoff = attempt >= 30 ? max : Math.min(max, initial << attempt);
+    return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+  }
+
+  /**
+   * 关闭重试调度器与工作线程
+   */
+  @PreDestroy
+  public void shutdown() {
+    retryTimer.shutdownNow();
+    retryWorkers.shutdownNow();
   }
 
   /**
@@ -223,14 +478,125 @@ public class TwitterRateLimitHandler {
     StringBuilder sb = new StringBuilder();
     sb.append("=== Twitter API 速率限制诊断 ===\n");
 
-    for (String endpoint : requestTimestamps.keySet()) {
-      int count = getRequestCountInLastFifteenMinutes(endpoint);
-      long waitTime = getWaitTimeUntilReset(endpoint);
-      sb.append(String.format("端点: %s\n", endpoint));
-      sb.append(String.format("  最近15分钟请求数: %d\n", count));
-      sb.append(String.format("  距离重置还需: %d 秒\n", waitTime));
+    long now = System.currentTimeMillis();
+    for (Map.Entry<String, ConcurrentHashMap<String, RateLimitBucket>> entry : buckets.entrySet()) {
+      sb.append(String.format("端点: %s\n", entry.getKey()));
+      sb.append(String.format("  最近15分钟请求数: %d\n", getRequestCountInLastFifteenMinutes(entry.getKey())));
+      for (Map.Entry<String, RateLimitBucket> userEntry : entry.getValue().entrySet()) {
+        RateLimitBucket bucket = userEntry.getValue();
+        sb.append(String.format("  用户: %s，额度: %d，剩余: %d，距离重置还需: %d 秒\n",
+            maskUserKey(userEntry.getKey()), bucket.limit(), bucket.remaining(),
+            Math.max(0, bucket.waitMillis(now)) / 1000));
+      }
     }
 
     return sb.toString();
   }
+
+  /**
+   * 对用户键（可能是 Authorization 头）做掩码，避免诊断信息泄露 token
+   */
+  private String maskUserKey(String userKey) {
+    if (userKey == null || userKey.length() <= 12) {
+      return userKey;
+    }
+    return userKey.substring(0, 6) + "..." + userKey.substring(userKey.length() - 4);
+  }
+
+  /**
+   * 单个「端点 + 用户」的速率限制状态
+   * 只保存几个基本类型字段，所有操作 O(1) 且不分配对象
+   */
+  private static final class RateLimitBucket {
+
+    /**
+     * 服务器返回的窗口额度（-1 表示未知）
+     */
+    private long limit = -1;
+
+    /**
+     * 当前窗口剩余额度（-1 表示未知）
+     */
+    private long remaining = -1;
+
+    /**
+     * 当前窗口重置时间（毫秒，0 表示未知）
+     */
+    private long resetAtMillis;
+
+    /**
+     * 本地计数窗口起点与计数（用于无响应头时的频率统计）
+     */
+    private long windowStartMillis;
+    private int windowCount;
+
+    private long lastSeenMillis = System.currentTimeMillis();
+
+    synchronized boolean tryAcquire(long now) {
+      lastSeenMillis = now;
+      rollOver(now);
+      if (now - windowStartMillis >= WINDOW_MILLIS) {
+        windowStartMillis = now;
+        windowCount = 0;
+      }
+      if (remaining == 0 && now < resetAtMillis) {
+        return false;
+      }
+      if (remaining > 0) {
+        // 乐观预扣，响应返回后以服务器的 remaining 为准
+        remaining--;
+      }
+      windowCount++;
+      return true;
+    }
+
+    synchronized void update(long newLimit, long newRemaining, long newResetAtMillis) {
+      lastSeenMillis = System.currentTimeMillis();
+      if (newLimit >= 0) {
+        limit = newLimit;
+      }
+      if (newRemaining >= 0) {
+        // 同一窗口内的响应可能乱序返回，取较小值；进入新窗口则直接覆盖
+        if (newResetAtMillis > 0 && newResetAtMillis == resetAtMillis && remaining >= 0) {
+          remaining = Math.min(remaining, newRemaining);
+        } else {
+          remaining = newRemaining;
+        }
+      }
+      if (newResetAtMillis > 0) {
+        resetAtMillis = newResetAtMillis;
+      }
+    }
+
+    synchronized int windowCount(long now) {
+      return now - windowStartMillis >= WINDOW_MILLIS ? 0 : windowCount;
+    }
+
+    synchronized long waitMillis(long now) {
+      rollOver(now);
+      return remaining == 0 ? resetAtMillis - now : 0;
+    }
+
+    synchronized long limit() {
+      return limit;
+    }
+
+    synchronized long remaining() {
+      return remaining;
+    }
+
+    synchronized boolean lastSeenBefore(long timestamp) {
+      return lastSeenMillis < timestamp;
+    }
+
+    /**
+     * 过了重置时间后，额度恢复为窗口上限（上限未知时恢复为未知）
+     */
+    private void rollOver(long now) {
+      if (resetAtMillis > 0 && now >= resetAtMillis) {
+        remaining = limit;
+        resetAtMillis = 0;
+      }
+    }
+  }
 }
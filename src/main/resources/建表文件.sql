@@ -6,11 +6,30 @@ CREATE TABLE media_library (
         PRIMARY KEY,
         media_id   VARCHAR(64)  NOT NULL COMMENT '媒体ID（API返回的media_id）',
         media_key  VARCHAR(128) NOT NULL COMMENT '媒体Key（API返回的media_key）',
+        twitter_user_id VARCHAR(50) NULL COMMENT '上传账号的用户ID（为空表示任意账号可用）',
+        content_hash VARCHAR(64) NULL COMMENT '上传文件内容的 SHA-256（复用相同内容的未过期媒体）',
         createtime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '创建时间，默认当前时间',
         endtime    DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '过期时间，需在插入时指定为一天后',
-        status     TINYINT DEFAULT 0 COMMENT '状态，默认0'
+        status     TINYINT DEFAULT 0 COMMENT '状态：0 可用，1 已使用，2 发推中已占用，3 临近过期已退役',
+        claimed_at DATETIME NULL COMMENT '被发推流程占用的时间（回收超时占用）'
 ) COMMENT='媒体上传记录表';
 
+-- 可用媒体查询（status = 0 且 endtime > 当前时间）
+create index idx_status_endtime
+    on media_library (status, endtime);
+
+-- 媒体列表按创建时间倒序分页
+create index idx_createtime
+    on media_library (createtime);
+
+-- 媒体池按账号统计可用媒体
+create index idx_user_status_endtime
+    on media_library (twitter_user_id, status, endtime);
+
+-- 按内容指纹查找可复用的媒体
+create index idx_content_hash
+    on media_library (content_hash);
+
 ##########################
 
 create table twitter_tokens
@@ -36,6 +55,10 @@ create index idx_expires_at
 create index idx_user_id
     on twitter_tokens (twitter_user_id);
 
+-- 最新有效 token 查询（按 updated_at 倒序取第一条未过期记录）
+create index idx_updated_expires
+    on twitter_tokens (updated_at, expires_at);
+
 ##########################
 
 
@@ -52,6 +75,116 @@ CREATE TABLE get_tweets (
        text VARCHAR(2550) comment '推文内容'
 )comment '推文获取表';
 
+-- 推文去重（批量 IN 查询与 ON DUPLICATE KEY 依赖此唯一索引）
+create unique index uk_tweet_id
+    on get_tweets (tweet_id);
+
+###########################
+-- 用户时间线增量同步游标（since_id 与未完成的 pagination_token）
+CREATE TABLE tweet_sync_cursor (
+    id                BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '自增主键',
+    twitter_user_id   VARCHAR(50)  NOT NULL COMMENT '时间线所属用户ID',
+    newest_id         VARCHAR(50)  NULL COMMENT '已完整同步的最新推文ID（下次的 since_id）',
+    next_token        VARCHAR(255) NULL COMMENT '未完成的翻页令牌',
+    pending_newest_id VARCHAR(50)  NULL COMMENT '本轮翻页开始时的最新推文ID',
+    last_sync_at      TIMESTAMP    NULL COMMENT '最近一次同步时间',
+    updated_at        TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+    CONSTRAINT uk_sync_user UNIQUE (twitter_user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='推文增量同步游标表';
+
+
+###########################
+-- 推文发件箱（异步发布队列）
+CREATE TABLE tweet_outbox (
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '自增主键',
+    idempotency_key VARCHAR(64)   NOT NULL COMMENT '幂等键',
+    twitter_user_id VARCHAR(50)   NOT NULL COMMENT '发布账号的用户ID',
+    text            TEXT          NOT NULL COMMENT '推文文本',
+    media_ids       VARCHAR(512)  NULL COMMENT '媒体ID，逗号分隔',
+    status          INT           NOT NULL DEFAULT 0 COMMENT '状态：0-等待发布，1-发布中，2-成功，3-失败',
+    attempts        INT           NOT NULL DEFAULT 0 COMMENT '已失败的发布次数',
+    next_attempt_at DATETIME      NOT NULL COMMENT '最早可发布（重试）时间',
+    tweet_id        VARCHAR(50)   NULL COMMENT '发布成功后的推文ID',
+    last_error      VARCHAR(1000) NULL COMMENT '最近一次失败原因',
+    callback_url    VARCHAR(512)  NULL COMMENT '发布完成后的回调地址',
+    created_at      DATETIME      NOT NULL COMMENT '创建时间',
+    updated_at      DATETIME      NOT NULL COMMENT '更新时间',
+    CONSTRAINT uk_outbox_idempotency UNIQUE (idempotency_key),
+    INDEX idx_outbox_status_next (status, next_attempt_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='推文发件箱表';
+
+###########################
+-- 定时发布任务（推文 / 带媒体推文 / 引用 / 转发）
+CREATE TABLE scheduled_post (
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '自增主键',
+    post_type       VARCHAR(16)   NOT NULL COMMENT '类型：tweet/media/quote/repost',
+    twitter_user_id VARCHAR(50)   NOT NULL COMMENT '发布账号的用户ID',
+    text            TEXT          NULL COMMENT '推文文本',
+    target_tweet_id VARCHAR(50)   NULL COMMENT '被引用或被转发的推文ID',
+    publish_at      DATETIME      NOT NULL COMMENT '计划发布时间',
+    status          INT           NOT NULL DEFAULT 0 COMMENT '状态：0-等待发布，1-发布中，2-成功，3-失败，4-已取消',
+    attempts        INT           NOT NULL DEFAULT 0 COMMENT '已失败的发布次数',
+    result_tweet_id VARCHAR(50)   NULL COMMENT '发布结果推文ID',
+    last_error      VARCHAR(1000) NULL COMMENT '最近一次失败原因',
+    published_at    DATETIME      NULL COMMENT '实际发布时间',
+    created_at      DATETIME      NOT NULL COMMENT '创建时间',
+    updated_at      DATETIME      NOT NULL COMMENT '更新时间',
+    INDEX idx_sched_status_publish (status, publish_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='定时发布表';
+
+###########################
+-- 批量转发 / 引用任务
+CREATE TABLE bulk_job (
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '自增主键',
+    job_type        VARCHAR(16)   NOT NULL COMMENT '类型：repost/quote',
+    twitter_user_id VARCHAR(50)   NOT NULL COMMENT '执行账号的用户ID',
+    status          INT           NOT NULL DEFAULT 0 COMMENT '状态：0-执行中，1-已暂停，2-已取消，3-已完成',
+    concurrency     INT           NOT NULL COMMENT '同时执行的条目数',
+    total           INT           NOT NULL COMMENT '条目总数（去重后）',
+    last_error      VARCHAR(1000) NULL COMMENT '任务级错误',
+    created_at      DATETIME      NOT NULL COMMENT '创建时间',
+    updated_at      DATETIME      NOT NULL COMMENT '更新时间',
+    finished_at     DATETIME      NULL COMMENT '完成或取消时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='批量任务表';
+
+CREATE TABLE bulk_job_item (
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '自增主键',
+    job_id          BIGINT        NOT NULL COMMENT '所属任务ID',
+    tweet_id        VARCHAR(50)   NOT NULL COMMENT '被转发/被引用的推文ID',
+    text            TEXT          NULL COMMENT '引用文本',
+    status          INT           NOT NULL DEFAULT 0 COMMENT '状态：0-等待，1-执行中，2-成功，3-失败，4-已跳过',
+    attempts        INT           NOT NULL DEFAULT 0 COMMENT '已失败的执行次数',
+    result_tweet_id VARCHAR(50)   NULL COMMENT '引用生成的推文ID',
+    error           VARCHAR(1000) NULL COMMENT '失败原因',
+    updated_at      DATETIME      NOT NULL COMMENT '更新时间',
+    CONSTRAINT uk_bulk_item UNIQUE (job_id, tweet_id),
+    INDEX idx_bulk_item_status (job_id, status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='批量任务条目表';
+
+###########################
+-- 推文串（逐条回复上一条发布）
+CREATE TABLE tweet_thread (
+    id                BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '自增主键',
+    twitter_user_id   VARCHAR(50)   NOT NULL COMMENT '发布账号的用户ID',
+    reply_to_tweet_id VARCHAR(50)   NULL COMMENT '第一条回复的推文ID（为空则第一条为独立推文）',
+    status            INT           NOT NULL DEFAULT 0 COMMENT '状态：0-发布中，1-已完成，2-失败',
+    total_parts       INT           NOT NULL COMMENT '条目总数',
+    last_error        VARCHAR(1000) NULL COMMENT '最近一次失败原因',
+    created_at        DATETIME      NOT NULL COMMENT '创建时间',
+    updated_at        DATETIME      NOT NULL COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='推文串表';
+
+CREATE TABLE tweet_thread_part (
+    id            BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '自增主键',
+    thread_id     BIGINT        NOT NULL COMMENT '所属推文串ID',
+    part_index    INT           NOT NULL COMMENT '条目序号（从 0 开始）',
+    text          TEXT          NULL COMMENT '推文文本',
+    media_sources TEXT          NULL COMMENT '待上传的媒体路径或 URL（JSON 数组，上传后清空）',
+    media_ids     VARCHAR(512)  NULL COMMENT '媒体ID，逗号分隔',
+    tweet_id      VARCHAR(50)   NULL COMMENT '发布成功后的推文ID',
+    published_at  DATETIME      NULL COMMENT '发布时间',
+    CONSTRAINT uk_thread_part UNIQUE (thread_id, part_index)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='推文串条目表';
 
 ###########################
 -- 创建用于记录API调用日志
@@ -71,3 +204,42 @@ CREATE TABLE api_raw_logs (
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '记录创建时间',
     PRIMARY KEY (api_raw_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='API原始日志存储表';
+
+###########################
+-- 升级已有数据库（全新安装只需执行本段之前的语句，不要执行本段）
+-- ddl-auto 为 none，应用不会修改已有表结构。新增的表直接执行上面对应的 CREATE TABLE；
+-- 已有的表按下面各段依次执行一次（已执行过的段跳过，MySQL 不支持 ADD COLUMN IF NOT EXISTS）
+
+-- twitter_tokens：最新有效 token 查询索引
+create index idx_updated_expires
+    on twitter_tokens (updated_at, expires_at);
+
+-- media_library：数据库端过滤与分页索引
+create index idx_status_endtime
+    on media_library (status, endtime);
+create index idx_createtime
+    on media_library (createtime);
+
+-- media_library：发推占用时间（status 2 为发推中已占用）
+ALTER TABLE media_library
+    ADD COLUMN claimed_at DATETIME NULL COMMENT '被发推流程占用的时间（回收超时占用）' AFTER status,
+    MODIFY COLUMN status TINYINT DEFAULT 0 COMMENT '状态：0 可用，1 已使用，2 发推中已占用';
+
+-- get_tweets：推文去重唯一索引（先删除重复的 tweet_id，保留最早保存的一条，否则唯一索引无法创建）
+DELETE t1 FROM get_tweets t1
+    JOIN get_tweets t2 ON t1.tweet_id = t2.tweet_id AND t1.id > t2.id;
+create unique index uk_tweet_id
+    on get_tweets (tweet_id);
+
+-- media_library：媒体池按账号保存可用媒体（status 3 为临近过期已退役）
+ALTER TABLE media_library
+    ADD COLUMN twitter_user_id VARCHAR(50) NULL COMMENT '上传账号的用户ID（为空表示任意账号可用）' AFTER media_key,
+    MODIFY COLUMN status TINYINT DEFAULT 0 COMMENT '状态：0 可用，1 已使用，2 发推中已占用，3 临近过期已退役';
+create index idx_user_status_endtime
+    on media_library (twitter_user_id, status, endtime);
+
+-- media_library：按内容指纹复用未过期媒体
+ALTER TABLE media_library
+    ADD COLUMN content_hash VARCHAR(64) NULL COMMENT '上传文件内容的 SHA-256（复用相同内容的未过期媒体）' AFTER twitter_user_id;
+create index idx_content_hash
+    on media_library (content_hash);
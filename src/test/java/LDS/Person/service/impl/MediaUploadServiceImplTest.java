@@ -0,0 +1,68 @@
+package LDS.Person.service.impl;
+
+import LDS.Person.config.TwitterHttpTransport;
+import LDS.Person.service.ImagePreprocessService;
+import LDS.Person.service.MediaLibraryService;
+import LDS.Person.util.TwitterRateLimitHandler;
+import com.alibaba.fastjson2.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MediaUploadServiceImplTest {
+
+    @Test
+    void uploadFileFailsInsteadOfHangingWhenUploadPoolIsSaturated() throws Exception {
+        ImagePreprocessService imagePreprocessService = mock(ImagePreprocessService.class);
+        CompletableFuture<Path> preprocessed = new CompletableFuture<>();
+        when(imagePreprocessService.preprocess(any(), anyString())).thenReturn(preprocessed);
+
+        MediaUploadServiceImpl service = new MediaUploadServiceImpl(mock(TwitterHttpTransport.class),
+                mock(TwitterRateLimitHandler.class), mock(MediaLibraryService.class), imagePreprocessService);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "uploadExecutor");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // 占满所有上传线程与队列
+            while (true) {
+                try {
+                    executor.execute(() -> awaitQuietly(release));
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+            }
+
+            Path file = Path.of("saturated.png");
+            CompletableFuture<JSONObject> upload = service.uploadFile(file, "image/png", "tweet_image", "token");
+            // 预处理在线程池已满时完成，依赖阶段提交被拒绝
+            preprocessed.complete(file);
+
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> upload.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        } finally {
+            release.countDown();
+            service.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package LDS.Person.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AhoCorasickMatcherTest {
+
+    @Test
+    void findsOverlappingPatternsThroughFailureLinks() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("he", "she", "his", "hers"));
+        assertTrue(matcher.matches("ushers"));
+        assertTrue(matcher.matches("ahis"));
+        assertFalse(matcher.matches("hxs"));
+
+        // 在较长模式的中途失败后，需要沿失败链接继续匹配较短的模式
+        AhoCorasickMatcher nested = AhoCorasickMatcher.compile(List.of("abcd", "bcx"));
+        assertTrue(nested.matches("abcx"));
+        assertFalse(nested.matches("abc"));
+
+        AhoCorasickMatcher repeated = AhoCorasickMatcher.compile(List.of("aab"));
+        assertTrue(repeated.matches("aaab"));
+        assertFalse(repeated.matches("abab"));
+    }
+
+    @Test
+    void foldsAsciiCaseOnBothSides() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("/wp-admin/", "UNION"));
+
+        assertTrue(matcher.matches("/WP-Admin/index"));
+        assertTrue(matcher.matches("id=1 union select"));
+        assertTrue(matcher.matches("id=1%20UnIoN"));
+        assertFalse(matcher.matches("/wp_admin/"));
+    }
+
+    @Test
+    void anchoredPatternsMatchOnlyAtTheEnd() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of(".php$"));
+
+        assertTrue(matcher.matches("/index.php"));
+        assertTrue(matcher.matches("/INDEX.PHP"));
+        assertTrue(matcher.matches("/a.php.php"));
+        assertFalse(matcher.matches("/index.php/info"));
+        assertFalse(matcher.matches("/index.phtml"));
+    }
+
+    @Test
+    void anchoredSuffixIsFoundInsideLongerPrefixes() {
+        // 输入末尾的状态属于另一个模式的路径时，末尾锚定的输出需要沿失败链接合并进来
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("x.phpz", "php$"));
+
+        assertTrue(matcher.matches("/x.php"));
+        assertFalse(matcher.matches("/x.phpy"));
+    }
+
+    @Test
+    void nonAsciiInputIsScannedAndNonAsciiPatternsAreSkipped() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(List.of("/admin/", "管理"));
+
+        assertEquals(1, matcher.size());
+        assertTrue(matcher.matches("/é/admin/"));
+        assertFalse(matcher.matches("/管理/"));
+        assertFalse(matcher.matches("/adméin/"));
+    }
+
+    @Test
+    void emptyPatternListsNeverMatch() {
+        assertFalse(AhoCorasickMatcher.compile(List.of()).matches("/anything"));
+        assertFalse(AhoCorasickMatcher.compile(null).matches("/anything"));
+        assertFalse(AhoCorasickMatcher.compile(List.of("a")).matches(null));
+        assertEquals(0, AhoCorasickMatcher.compile(java.util.Arrays.asList("", null)).size());
+    }
+}
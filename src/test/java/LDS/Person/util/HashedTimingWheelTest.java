@@ -0,0 +1,105 @@
+package LDS.Person.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+
+    private static final Duration TICK = Duration.ofMillis(10);
+
+    private HashedTimingWheel<String> wheel;
+
+    @AfterEach
+    void stopWheel() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void multiRoundDeadlineFiresAfterTheFullDelay() throws Exception {
+        BlockingQueue<Long> fired = new LinkedBlockingQueue<>();
+        // 4 个槽位 * 10ms = 一轮 40ms，200ms 需要转 5 轮
+        wheel = new HashedTimingWheel<>("test", TICK, 4, task -> fired.add(System.nanoTime()));
+
+        long start = System.nanoTime();
+        wheel.schedule("late", Duration.ofMillis(200));
+
+        assertNull(fired.poll(120, TimeUnit.MILLISECONDS), "不应在第一轮经过该槽位时触发");
+        Long firedAt = fired.poll(2, TimeUnit.SECONDS);
+        assertNotNull(firedAt);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(firedAt - start) >= 200);
+        assertEquals(0, wheel.pending());
+        assertEquals(1, wheel.expired());
+    }
+
+    @Test
+    void cancelBeforeTransferNeverFires() throws Exception {
+        List<String> fired = new CopyOnWriteArrayList<>();
+        wheel = new HashedTimingWheel<>("test", TICK, 8, fired::add);
+
+        // 在工作线程把任务从待添加队列转入槽位之前就取消
+        HashedTimingWheel.Timeout<String> timeout = wheel.schedule("cancelled", Duration.ofMillis(30));
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.cancel());
+        assertEquals(0, wheel.pending());
+
+        wheel.schedule("kept", Duration.ofMillis(30));
+        Thread.sleep(200);
+        assertEquals(List.of("kept"), fired);
+        assertEquals(1, wheel.expired());
+    }
+
+    @Test
+    void cancelAfterTransferNeverFires() throws Exception {
+        List<String> fired = new CopyOnWriteArrayList<>();
+        wheel = new HashedTimingWheel<>("test", TICK, 8, fired::add);
+
+        HashedTimingWheel.Timeout<String> timeout = wheel.schedule("cancelled", Duration.ofMillis(150));
+        Thread.sleep(50);
+        assertTrue(timeout.cancel());
+        Thread.sleep(250);
+
+        assertTrue(fired.isEmpty());
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void overdueTasksFireOnTheNextTick() throws Exception {
+        BlockingQueue<String> fired = new LinkedBlockingQueue<>();
+        wheel = new HashedTimingWheel<>("test", TICK, 4, fired::add);
+
+        wheel.schedule("zero", Duration.ZERO);
+        wheel.schedule("negative", Duration.ofSeconds(-5));
+
+        assertNotNull(fired.poll(500, TimeUnit.MILLISECONDS));
+        assertNotNull(fired.poll(500, TimeUnit.MILLISECONDS));
+        assertEquals(2, wheel.expired());
+    }
+
+    @Test
+    void expiredTasksCannotBeCancelled() throws Exception {
+        BlockingQueue<String> fired = new LinkedBlockingQueue<>();
+        wheel = new HashedTimingWheel<>("test", TICK, 4, fired::add);
+
+        HashedTimingWheel.Timeout<String> timeout = wheel.schedule("done", Duration.ofMillis(10));
+        assertNotNull(fired.poll(1, TimeUnit.SECONDS));
+
+        assertFalse(timeout.cancel());
+        assertFalse(timeout.isCancelled());
+    }
+}
@@ -0,0 +1,91 @@
+package LDS.Person.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IpCidrMatcherTest {
+
+    @Test
+    void matchesSingleAddressesAndCidrBoundaries() {
+        IpCidrMatcher matcher = IpCidrMatcher.compile(List.of("127.0.0.1", "192.168.1.0/24"));
+
+        assertTrue(matcher.matches("127.0.0.1"));
+        assertFalse(matcher.matches("127.0.0.2"));
+        assertTrue(matcher.matches("192.168.1.0"));
+        assertTrue(matcher.matches("192.168.1.255"));
+        assertFalse(matcher.matches("192.168.2.0"));
+        assertFalse(matcher.matches("192.168.0.255"));
+    }
+
+    @Test
+    void parsesCompressedIpv6Forms() {
+        IpCidrMatcher loopback = IpCidrMatcher.compile(List.of("::1"));
+        assertTrue(loopback.matches("::1"));
+        assertTrue(loopback.matches("0:0:0:0:0:0:0:1"));
+        assertTrue(loopback.matches("[::1]"));
+        assertFalse(loopback.matches("::2"));
+
+        IpCidrMatcher unspecified = IpCidrMatcher.compile(List.of("::"));
+        assertTrue(unspecified.matches("0:0:0:0:0:0:0:0"));
+        assertFalse(unspecified.matches("::1"));
+
+        IpCidrMatcher documentation = IpCidrMatcher.compile(List.of("2001:db8::/32"));
+        assertTrue(documentation.matches("2001:db8:ffff::1"));
+        assertTrue(documentation.matches("2001:0db8:0:0:0:0:0:1"));
+        assertFalse(documentation.matches("2001:db9::1"));
+        assertTrue(documentation.matches("2001:db8::1%eth0"));
+    }
+
+    @Test
+    void rejectsMalformedIpv6() {
+        IpCidrMatcher matcher = IpCidrMatcher.compile(List.of("::/0"));
+
+        assertFalse(matcher.matches("1::2::3"));
+        assertFalse(matcher.matches(":1:2:3:4:5:6:7"));
+        assertFalse(matcher.matches("1:2:3:4:5:6:7:"));
+        assertFalse(matcher.matches("1:2:3:4:5:6:7:8:9"));
+        assertFalse(matcher.matches("12345::1"));
+    }
+
+    @Test
+    void matchesEmbeddedIpv4() {
+        // IPv4 映射地址按 IPv4 匹配
+        IpCidrMatcher v4 = IpCidrMatcher.compile(List.of("10.0.0.0/8"));
+        assertTrue(v4.matches("::ffff:10.1.2.3"));
+        assertFalse(v4.matches("::ffff:11.1.2.3"));
+
+        // 其他前缀中内嵌的 IPv4 占最后两组
+        IpCidrMatcher nat64 = IpCidrMatcher.compile(List.of("64:ff9b::c000:201"));
+        assertTrue(nat64.matches("64:ff9b::192.0.2.1"));
+        assertFalse(nat64.matches("64:ff9b::192.0.2.2"));
+    }
+
+    @Test
+    void zeroPrefixMatchesWholeFamilyOnly() {
+        IpCidrMatcher allV4 = IpCidrMatcher.compile(List.of("0.0.0.0/0"));
+        assertTrue(allV4.matches("1.2.3.4"));
+        assertTrue(allV4.matches("255.255.255.255"));
+        assertFalse(allV4.matches("2001:db8::1"));
+
+        IpCidrMatcher allV6 = IpCidrMatcher.compile(List.of("::/0"));
+        assertTrue(allV6.matches("2001:db8::1"));
+        assertTrue(allV6.matches("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff"));
+        assertFalse(allV6.matches("1.2.3.4"));
+    }
+
+    @Test
+    void skipsInvalidEntries() {
+        IpCidrMatcher matcher = IpCidrMatcher.compile(List.of("10.0.0.0/33", "::/129", "999.1.1.1", "1.2.3.4/x", " "));
+
+        assertEquals(0, matcher.size());
+        assertFalse(matcher.matches("10.0.0.1"));
+        assertFalse(matcher.matches("unknown"));
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches(null));
+    }
+}